@@ -15,7 +15,10 @@ import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.TradeOffer;
 import com.nisovin.shopkeepers.api.shopobjects.DefaultShopObjectTypes;
 import com.nisovin.shopkeepers.api.shopobjects.ShopObjectTypesRegistry;
+import com.nisovin.shopkeepers.api.shopobjects.living.MobBehaviorMetrics;
 import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
+import com.nisovin.shopkeepers.api.trading.PostTradeBus;
+import com.nisovin.shopkeepers.api.trading.TradeTimings;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
 import com.nisovin.shopkeepers.api.ui.UIRegistry;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
@@ -112,6 +115,16 @@ public final class ShopkeepersAPI {
 		return getPlugin().getDefaultShopObjectTypes();
 	}
 
+	/**
+	 * Gets the {@link MobBehaviorMetrics}.
+	 * 
+	 * @return the mob behavior metrics
+	 * @see ShopkeepersPlugin#getMobBehaviorMetrics()
+	 */
+	public static MobBehaviorMetrics getMobBehaviorMetrics() {
+		return getPlugin().getMobBehaviorMetrics();
+	}
+
 	// UI
 
 	/**
@@ -158,6 +171,28 @@ public final class ShopkeepersAPI {
 		return getPlugin().getShopkeeperStorage();
 	}
 
+	// TRADING
+
+	/**
+	 * Gets the {@link TradeTimings}.
+	 * 
+	 * @return the trade timings
+	 * @see ShopkeepersPlugin#getTradeTimings()
+	 */
+	public static TradeTimings getTradeTimings() {
+		return getPlugin().getTradeTimings();
+	}
+
+	/**
+	 * Gets the {@link PostTradeBus}.
+	 * 
+	 * @return the post trade bus
+	 * @see ShopkeepersPlugin#getPostTradeBus()
+	 */
+	public static PostTradeBus getPostTradeBus() {
+		return getPlugin().getPostTradeBus();
+	}
+
 	//
 
 	/**
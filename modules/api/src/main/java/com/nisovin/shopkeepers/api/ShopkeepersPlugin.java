@@ -14,7 +14,10 @@ import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.TradeOffer;
 import com.nisovin.shopkeepers.api.shopobjects.DefaultShopObjectTypes;
 import com.nisovin.shopkeepers.api.shopobjects.ShopObjectTypesRegistry;
+import com.nisovin.shopkeepers.api.shopobjects.living.MobBehaviorMetrics;
 import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
+import com.nisovin.shopkeepers.api.trading.PostTradeBus;
+import com.nisovin.shopkeepers.api.trading.TradeTimings;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
 import com.nisovin.shopkeepers.api.ui.UIRegistry;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
@@ -75,6 +78,11 @@ public interface ShopkeepersPlugin extends Plugin {
 	 */
 	public static final String LIST_ADMIN_PERMISSION = "shopkeeper.list.admin";
 
+	/**
+	 * The <code>shopkeeper.tradelog</code> permission.
+	 */
+	public static final String TRADE_LOG_PERMISSION = "shopkeeper.tradelog";
+
 	/**
 	 * The <code>shopkeeper.remove.own</code> permission.
 	 */
@@ -241,6 +249,13 @@ public interface ShopkeepersPlugin extends Plugin {
 	 */
 	public DefaultShopObjectTypes getDefaultShopObjectTypes();
 
+	/**
+	 * Gets the {@link MobBehaviorMetrics}.
+	 * 
+	 * @return the mob behavior metrics
+	 */
+	public MobBehaviorMetrics getMobBehaviorMetrics();
+
 	// UI
 
 	/**
@@ -275,6 +290,22 @@ public interface ShopkeepersPlugin extends Plugin {
 	 */
 	public ShopkeeperStorage getShopkeeperStorage();
 
+	// TRADING
+
+	/**
+	 * Gets the {@link TradeTimings}.
+	 * 
+	 * @return the trade timings
+	 */
+	public TradeTimings getTradeTimings();
+
+	/**
+	 * Gets the {@link PostTradeBus}.
+	 * 
+	 * @return the post trade bus
+	 */
+	public PostTradeBus getPostTradeBus();
+
 	//
 
 	/**
@@ -259,6 +259,13 @@ public interface Shopkeeper {
 	 */
 	public List<? extends TradingRecipe> getTradingRecipes(Player player);
 
+	/**
+	 * Gets the {@link ShopkeeperTradeStatistics} of this shopkeeper.
+	 * 
+	 * @return the trade statistics, not <code>null</code>
+	 */
+	public ShopkeeperTradeStatistics getTradeStatistics();
+
 	// SHOPKEEPER UIs
 
 	/**
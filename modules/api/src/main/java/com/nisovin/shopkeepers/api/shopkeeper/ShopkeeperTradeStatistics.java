@@ -0,0 +1,70 @@
+package com.nisovin.shopkeepers.api.shopkeeper;
+
+import java.time.Instant;
+
+/**
+ * Running statistics about the trades of a {@link Shopkeeper}.
+ * <p>
+ * These statistics are updated shortly after trades have been completed, and are persisted together with the
+ * shopkeeper's data. The statistics are only meant to be accessed from the server's main thread.
+ */
+public interface ShopkeeperTradeStatistics {
+
+	/**
+	 * Gets the total number of trades.
+	 * 
+	 * @return the number of trades
+	 */
+	public long getTradesCount();
+
+	/**
+	 * Gets the total amount of items that the shopkeeper received from trading players, i.e. of the items offered by
+	 * the trading players.
+	 * 
+	 * @return the amount of received items
+	 */
+	public long getItemsIn();
+
+	/**
+	 * Gets the total amount of items that the shopkeeper provided to trading players, i.e. of the result items of the
+	 * trades.
+	 * 
+	 * @return the amount of provided items
+	 */
+	public long getItemsOut();
+
+	/**
+	 * Gets the total value of the currency items that were traded, regardless of whether they were received or provided
+	 * by the shopkeeper.
+	 * <p>
+	 * High currency items are taken into account with their configured value.
+	 * 
+	 * @return the currency volume
+	 */
+	public long getCurrencyVolume();
+
+	/**
+	 * Gets the time of the most recent trade.
+	 * 
+	 * @return the time of the most recent trade, or <code>null</code> if there have been no trades yet
+	 */
+	public Instant getLastTradeTimestamp();
+
+	/**
+	 * Gets the number of trades within the last hour.
+	 * <p>
+	 * This is accurate to one minute.
+	 * 
+	 * @return the number of trades within the last hour
+	 */
+	public long getTradesInLastHour();
+
+	/**
+	 * Gets the number of trades within the last day.
+	 * <p>
+	 * This is accurate to one hour.
+	 * 
+	 * @return the number of trades within the last day
+	 */
+	public long getTradesInLastDay();
+}
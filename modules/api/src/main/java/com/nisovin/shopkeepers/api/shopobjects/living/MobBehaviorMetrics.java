@@ -0,0 +1,122 @@
+package com.nisovin.shopkeepers.api.shopobjects.living;
+
+import com.nisovin.shopkeepers.api.util.TimingStatistics;
+
+/**
+ * Provides metrics about the periodic behavior updates (gravity and AI) of the entities of {@link LivingShopObject
+ * living shop objects}.
+ * <p>
+ * Only chunks and entities near players are processed: The AI and gravity of a chunk is active if there is a player
+ * within a certain chunk range.
+ * <p>
+ * The chunk counts, both in total and per world, reflect the current AI and gravity activations of the chunks that
+ * contain entities. The entity counts, both in total and per world, refer to the entities whose AI or gravity has been
+ * processed during the last behavior update, adjusted for the entities that have been added or removed since then.
+ * <p>
+ * The metrics are recorded on the server's main thread. Accessing them from other threads may yield inconsistent
+ * results.
+ */
+public interface MobBehaviorMetrics {
+
+	/**
+	 * Gets the number of entities whose behavior is handled.
+	 * 
+	 * @return the number of entities
+	 */
+	public int getEntityCount();
+
+	/**
+	 * Gets the number of chunks with active AI.
+	 * 
+	 * @return the number of chunks with active AI
+	 */
+	public int getActiveAIChunksCount();
+
+	/**
+	 * Gets the number of chunks with active AI in the specified world.
+	 * 
+	 * @param worldName
+	 *            the world name, not <code>null</code>
+	 * @return the number of chunks with active AI in the world
+	 */
+	public int getActiveAIChunksCount(String worldName);
+
+	/**
+	 * Gets the number of entities with active AI.
+	 * 
+	 * @return the number of entities with active AI
+	 */
+	public int getActiveAIEntityCount();
+
+	/**
+	 * Gets the number of entities with active AI in the specified world.
+	 * 
+	 * @param worldName
+	 *            the world name, not <code>null</code>
+	 * @return the number of entities with active AI in the world
+	 */
+	public int getActiveAIEntityCount(String worldName);
+
+	/**
+	 * Gets the number of chunks with active gravity.
+	 * 
+	 * @return the number of chunks with active gravity
+	 */
+	public int getActiveGravityChunksCount();
+
+	/**
+	 * Gets the number of chunks with active gravity in the specified world.
+	 * 
+	 * @param worldName
+	 *            the world name, not <code>null</code>
+	 * @return the number of chunks with active gravity in the world
+	 */
+	public int getActiveGravityChunksCount(String worldName);
+
+	/**
+	 * Gets the number of entities with active gravity.
+	 * 
+	 * @return the number of entities with active gravity
+	 */
+	public int getActiveGravityEntityCount();
+
+	/**
+	 * Gets the number of entities with active gravity in the specified world.
+	 * 
+	 * @param worldName
+	 *            the world name, not <code>null</code>
+	 * @return the number of entities with active gravity in the world
+	 */
+	public int getActiveGravityEntityCount(String worldName);
+
+	/**
+	 * Gets the {@link TimingStatistics} of the behavior updates as a whole.
+	 * 
+	 * @return the total timing statistics, not <code>null</code>
+	 */
+	public TimingStatistics getTotalTimings();
+
+	/**
+	 * Gets the {@link TimingStatistics} of the periodic reconciliations of the chunk activations with the current player
+	 * locations.
+	 * <p>
+	 * These updates are only performed every couple of behavior updates.
+	 * 
+	 * @return the activation timing statistics, not <code>null</code>
+	 */
+	public TimingStatistics getActivationTimings();
+
+	/**
+	 * Gets the {@link TimingStatistics} of the gravity processing during the behavior updates.
+	 * 
+	 * @return the gravity timing statistics, not <code>null</code>
+	 */
+	public TimingStatistics getGravityTimings();
+
+	/**
+	 * Gets the {@link TimingStatistics} of the AI processing during the behavior updates.
+	 * 
+	 * @return the AI timing statistics, not <code>null</code>
+	 */
+	public TimingStatistics getAITimings();
+}
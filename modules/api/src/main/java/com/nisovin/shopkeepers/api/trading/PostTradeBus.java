@@ -0,0 +1,101 @@
+package com.nisovin.shopkeepers.api.trading;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Publishes {@link TradeSnapshot snapshots} of completed shopkeeper trades to registered {@link PostTradeSubscriber
+ * subscribers} that process them asynchronously in batches.
+ * <p>
+ * This can be used to move any post-processing of trades that does not need to interact with the world (eg. logging
+ * trades to a database, or updating external statistics) off the server's main thread, so that it does not add to the
+ * latency of trades.
+ * <p>
+ * The snapshots are buffered inside a queue of limited capacity until they are processed. If the subscribers are not
+ * able to keep up with the rate of trades and the queue is full, any subsequent snapshots are dropped.
+ */
+public interface PostTradeBus {
+
+	/**
+	 * Registers the given {@link PostTradeSubscriber}.
+	 * <p>
+	 * The subscriber is automatically unregistered when the given plugin is disabled.
+	 * 
+	 * @param plugin
+	 *            the plugin that owns the subscriber, not <code>null</code>
+	 * @param subscriber
+	 *            the subscriber, not <code>null</code>
+	 */
+	public void subscribe(Plugin plugin, PostTradeSubscriber subscriber);
+
+	/**
+	 * Unregisters the given {@link PostTradeSubscriber}.
+	 * <p>
+	 * Any batches that are already being processed may still be passed to the subscriber.
+	 * 
+	 * @param subscriber
+	 *            the subscriber, not <code>null</code>
+	 */
+	public void unsubscribe(PostTradeSubscriber subscriber);
+
+	/**
+	 * Unregisters all {@link PostTradeSubscriber subscribers} of the given plugin.
+	 * 
+	 * @param plugin
+	 *            the plugin, not <code>null</code>
+	 */
+	public void unsubscribeAll(Plugin plugin);
+
+	/**
+	 * Gets the maximum number of trade snapshots that can be queued for processing.
+	 * 
+	 * @return the queue capacity
+	 */
+	public int getQueueCapacity();
+
+	/**
+	 * Gets the number of trade snapshots that are currently queued for processing.
+	 * <p>
+	 * This includes the trade snapshots that are currently being processed. These still count against the
+	 * {@link #getQueueCapacity() queue capacity}.
+	 * 
+	 * @return the number of queued trade snapshots
+	 */
+	public int getQueuedCount();
+
+	/**
+	 * Gets the maximum number of trade snapshots that have been queued at the same time.
+	 * 
+	 * @return the maximum number of queued trade snapshots
+	 */
+	public int getMaxQueuedCount();
+
+	/**
+	 * Gets the total number of trade snapshots that have been published.
+	 * <p>
+	 * This includes the trade snapshots that have been dropped.
+	 * 
+	 * @return the number of published trade snapshots
+	 */
+	public long getPublishedCount();
+
+	/**
+	 * Gets the total number of trade snapshots that have been processed by the subscribers.
+	 * 
+	 * @return the number of processed trade snapshots
+	 */
+	public long getProcessedCount();
+
+	/**
+	 * Gets the total number of trade snapshots that have been dropped because the queue was full.
+	 * 
+	 * @return the number of dropped trade snapshots
+	 */
+	public long getDroppedCount();
+
+	/**
+	 * Gets the total number of batches that have been passed to the subscribers.
+	 * 
+	 * @return the number of processed batches
+	 */
+	public long getBatchCount();
+}
@@ -0,0 +1,22 @@
+package com.nisovin.shopkeepers.api.trading;
+
+import java.util.List;
+
+/**
+ * A subscriber of the {@link PostTradeBus} that processes batches of completed trades asynchronously.
+ * <p>
+ * This is invoked outside of the server's main thread. Implementations must therefore not interact with the world or
+ * any other parts of the Bukkit API that are not thread-safe. The batches for a single subscriber are processed
+ * sequentially, and in the order in which the trades took place.
+ */
+@FunctionalInterface
+public interface PostTradeSubscriber {
+
+	/**
+	 * Processes the given batch of trades.
+	 * 
+	 * @param trades
+	 *            an unmodifiable list of the trades to process, not <code>null</code> or empty
+	 */
+	public void processTrades(List<? extends TradeSnapshot> trades);
+}
@@ -0,0 +1,33 @@
+package com.nisovin.shopkeepers.api.trading;
+
+/**
+ * The individual phases of the processing of a shopkeeper trade.
+ */
+public enum TradePhase {
+
+	/**
+	 * Checking the merchant inventory for an available trade and matching the offered items to the active trading
+	 * recipe.
+	 */
+	CHECK_FOR_TRADE,
+	/**
+	 * The shop type specific preparation of a trade, eg. the checks and container content changes of player shops.
+	 * <p>
+	 * This excludes the dispatch of the {@link #TRADE_EVENT}.
+	 */
+	HANDLE_TRADE,
+	/**
+	 * The dispatch of the {@link com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent} to all event listeners.
+	 */
+	TRADE_EVENT,
+	/**
+	 * Applying the trade, i.e. updating the merchant inventory and applying the shop type specific changes, such as the
+	 * container contents of player shops.
+	 */
+	APPLY_TRADE,
+	/**
+	 * Updating the trading recipes of the trading player after the trades triggered by an inventory click have been
+	 * applied.
+	 */
+	UPDATE_TRADES;
+}
@@ -0,0 +1,141 @@
+package com.nisovin.shopkeepers.api.trading;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+
+/**
+ * An immutable snapshot of the information about a single shopkeeper trade that took place.
+ * <p>
+ * Unlike the {@link ShopkeeperTradeEvent} from which it is created, a {@link TradeSnapshot} does not reference the
+ * involved player, shopkeeper, or inventories, but only captures their relevant state at the time of the trade. It is
+ * therefore safe to process outside of the server's main thread.
+ */
+public interface TradeSnapshot {
+
+	/**
+	 * Gets the timestamp of the trade.
+	 * 
+	 * @return the timestamp, not <code>null</code>
+	 */
+	public Instant getTimestamp();
+
+	/**
+	 * Gets the unique id of the trading player.
+	 * 
+	 * @return the trading player's unique id, not <code>null</code>
+	 */
+	public UUID getPlayerUniqueId();
+
+	/**
+	 * Gets the name of the trading player.
+	 * 
+	 * @return the trading player's name, not <code>null</code>
+	 */
+	public String getPlayerName();
+
+	/**
+	 * Gets the session id of the involved shopkeeper.
+	 * 
+	 * @return the shopkeeper's session id
+	 */
+	public int getShopkeeperId();
+
+	/**
+	 * Gets the unique id of the involved shopkeeper.
+	 * 
+	 * @return the shopkeeper's unique id, not <code>null</code>
+	 */
+	public UUID getShopkeeperUniqueId();
+
+	/**
+	 * Gets the identifier of the involved shopkeeper's shop type.
+	 * 
+	 * @return the shop type identifier, not <code>null</code>
+	 */
+	public String getShopTypeId();
+
+	/**
+	 * Gets the name of the involved shopkeeper.
+	 * 
+	 * @return the shopkeeper's name, not <code>null</code>, but can be empty
+	 */
+	public String getShopName();
+
+	/**
+	 * Gets the name of the world of the involved shopkeeper.
+	 * 
+	 * @return the world name, or <code>null</code> for virtual shopkeepers
+	 */
+	public String getShopWorldName();
+
+	/**
+	 * Gets the x coordinate of the involved shopkeeper.
+	 * 
+	 * @return the x coordinate, or <code>0</code> for virtual shopkeepers
+	 */
+	public int getShopX();
+
+	/**
+	 * Gets the y coordinate of the involved shopkeeper.
+	 * 
+	 * @return the y coordinate, or <code>0</code> for virtual shopkeepers
+	 */
+	public int getShopY();
+
+	/**
+	 * Gets the z coordinate of the involved shopkeeper.
+	 * 
+	 * @return the z coordinate, or <code>0</code> for virtual shopkeepers
+	 */
+	public int getShopZ();
+
+	/**
+	 * Gets the unique id of the owner of the involved shopkeeper.
+	 * 
+	 * @return the owner's unique id, or <code>null</code> if the shopkeeper is not owned by a player
+	 */
+	public UUID getShopOwnerUniqueId();
+
+	/**
+	 * Gets the name of the owner of the involved shopkeeper.
+	 * 
+	 * @return the owner's name, or <code>null</code> if the shopkeeper is not owned by a player
+	 */
+	public String getShopOwnerName();
+
+	/**
+	 * Gets the used trading recipe.
+	 * 
+	 * @return the trading recipe, not <code>null</code>
+	 * @see ShopkeeperTradeEvent#getTradingRecipe()
+	 */
+	public TradingRecipe getTradingRecipe();
+
+	/**
+	 * Gets the item offered by the player that matches the first required item of the used trading recipe.
+	 * 
+	 * @return an unmodifiable view on the first offered item, not <code>null</code> or empty
+	 * @see ShopkeeperTradeEvent#getOfferedItem1()
+	 */
+	public UnmodifiableItemStack getOfferedItem1();
+
+	/**
+	 * Gets the item offered by the player that matches the second required item of the used trading recipe.
+	 * 
+	 * @return an unmodifiable view on the second offered item, can be <code>null</code>
+	 * @see ShopkeeperTradeEvent#getOfferedItem2()
+	 */
+	public UnmodifiableItemStack getOfferedItem2();
+
+	/**
+	 * Checks whether the offered items were placed in reverse order inside the trading slots.
+	 * 
+	 * @return <code>true</code> if the item order was swapped
+	 * @see ShopkeeperTradeEvent#isItemOrderSwapped()
+	 */
+	public boolean isItemOrderSwapped();
+}
@@ -0,0 +1,43 @@
+package com.nisovin.shopkeepers.api.trading;
+
+import java.util.Collection;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopType;
+import com.nisovin.shopkeepers.api.util.TimingStatistics;
+
+/**
+ * Keeps track of the processing times of the individual {@link TradePhase phases} of shopkeeper trades, separately for
+ * each {@link ShopType}.
+ * <p>
+ * This can for example be used to determine whether slow trades are caused by the Shopkeepers plugin itself, or by
+ * other plugins that react to the {@link com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent}.
+ * <p>
+ * The timings are recorded on the server's main thread. Accessing them from other threads may yield inconsistent
+ * results.
+ */
+public interface TradeTimings {
+
+	/**
+	 * Gets the shop types for which timings have been recorded so far.
+	 * 
+	 * @return an unmodifiable view on the shop types with recorded timings, not <code>null</code>
+	 */
+	public Collection<? extends ShopType<?>> getShopTypes();
+
+	/**
+	 * Gets the {@link TimingStatistics} of the specified {@link TradePhase} for trades with shopkeepers of the given
+	 * {@link ShopType}.
+	 * 
+	 * @param shopType
+	 *            the shop type, not <code>null</code>
+	 * @param phase
+	 *            the trade phase, not <code>null</code>
+	 * @return the timing statistics, or <code>null</code> if no timings have been recorded for the given shop type yet
+	 */
+	public TimingStatistics getTimings(ShopType<?> shopType, TradePhase phase);
+
+	/**
+	 * Resets all recorded timings.
+	 */
+	public void reset();
+}
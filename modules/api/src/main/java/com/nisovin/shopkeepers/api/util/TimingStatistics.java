@@ -0,0 +1,52 @@
+package com.nisovin.shopkeepers.api.util;
+
+/**
+ * Provides statistics about the processing times of a specific recurring task.
+ * <p>
+ * The averages, maxima and percentiles are based on a rolling window of the most recent samples. Older samples are
+ * discarded once the window is full.
+ */
+public interface TimingStatistics {
+
+	/**
+	 * Gets the total number of samples that have been recorded.
+	 * <p>
+	 * This includes samples that are no longer part of the rolling window.
+	 * 
+	 * @return the total number of recorded samples
+	 */
+	public long getCounter();
+
+	/**
+	 * Gets the number of samples that are currently part of the rolling window.
+	 * 
+	 * @return the number of samples in the rolling window
+	 */
+	public int getSampleCount();
+
+	/**
+	 * Gets the average processing time in milliseconds of the samples in the rolling window.
+	 * 
+	 * @return the average processing time in milliseconds, or <code>0</code> if there are no samples
+	 */
+	public double getAverageTimeMillis();
+
+	/**
+	 * Gets the maximum processing time in milliseconds of the samples in the rolling window.
+	 * 
+	 * @return the maximum processing time in milliseconds, or <code>0</code> if there are no samples
+	 */
+	public double getMaxTimeMillis();
+
+	/**
+	 * Gets the specified percentile of the processing times in milliseconds of the samples in the rolling window.
+	 * <p>
+	 * For example, the percentile <code>95.0</code> returns the processing time that is not exceeded by 95% of the
+	 * samples.
+	 * 
+	 * @param percentile
+	 *            the percentile, within the range <code>(0, 100]</code>
+	 * @return the processing time percentile in milliseconds, or <code>0</code> if there are no samples
+	 */
+	public double getPercentileTimeMillis(double percentile);
+}
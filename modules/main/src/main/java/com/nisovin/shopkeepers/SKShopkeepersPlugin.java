@@ -43,14 +43,18 @@ import com.nisovin.shopkeepers.shopkeeper.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.shopobjects.SKDefaultShopObjectTypes;
 import com.nisovin.shopkeepers.shopobjects.SKShopObjectTypesRegistry;
 import com.nisovin.shopkeepers.shopobjects.citizens.CitizensShops;
+import com.nisovin.shopkeepers.shopobjects.living.LivingEntityAI;
 import com.nisovin.shopkeepers.shopobjects.living.LivingShops;
 import com.nisovin.shopkeepers.shopobjects.sign.SignShops;
 import com.nisovin.shopkeepers.spigot.SpigotFeatures;
 import com.nisovin.shopkeepers.storage.SKShopkeeperStorage;
 import com.nisovin.shopkeepers.tradelog.TradeLoggers;
 import com.nisovin.shopkeepers.tradenotifications.TradeNotifications;
+import com.nisovin.shopkeepers.trading.SKPostTradeBus;
+import com.nisovin.shopkeepers.trading.TradeStatisticsUpdater;
 import com.nisovin.shopkeepers.ui.SKDefaultUITypes;
 import com.nisovin.shopkeepers.ui.SKUIRegistry;
+import com.nisovin.shopkeepers.ui.trading.SKTradeTimings;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
 import com.nisovin.shopkeepers.util.java.ClassUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
@@ -80,6 +84,7 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 	// UI registry:
 	private final SKUIRegistry uiRegistry = new SKUIRegistry(this);
 	private final SKDefaultUITypes defaultUITypes = new SKDefaultUITypes();
+	private final SKTradeTimings tradeTimings = new SKTradeTimings();
 
 	// Shopkeeper registry:
 	private final SKShopkeeperRegistry shopkeeperRegistry = new SKShopkeeperRegistry(this);
@@ -94,6 +99,8 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 	private final ShopkeeperCreation shopkeeperCreation = new ShopkeeperCreation(this);
 	private final TradeLoggers tradeLoggers = new TradeLoggers(this);
 	private final TradeNotifications tradeNotifications = new TradeNotifications(this);
+	private final SKPostTradeBus postTradeBus = new SKPostTradeBus(this);
+	private final TradeStatisticsUpdater tradeStatisticsUpdater = new TradeStatisticsUpdater(this);
 	private final EventDebugger eventDebugger = new EventDebugger(this);
 
 	private final PlayerShops playerShops = new PlayerShops(this);
@@ -122,6 +129,8 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 			if (className.equals("com.nisovin.shopkeepers.pluginhandlers.WorldGuardHandler$Internal")) return false;
 			if (className.equals("com.nisovin.shopkeepers.shopobjects.citizens.CitizensShopkeeperTrait")) return false;
 			if (className.equals("com.nisovin.shopkeepers.spigot.text.SpigotText$Internal")) return false;
+			// Skip classes that depend on JFR, which is not available on all Java 8 runtimes:
+			if (className.equals("com.nisovin.shopkeepers.shopobjects.living.MobBehaviorUpdateEvent")) return false;
 			return true;
 		}, this.getLogger());
 		if (success) {
@@ -358,6 +367,12 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		// Trade notifications:
 		tradeNotifications.onEnable();
 
+		// Post trade processing:
+		postTradeBus.onEnable();
+
+		// Trade statistics:
+		tradeStatisticsUpdater.onEnable();
+
 		// Save all updated shopkeeper data (eg. after data migrations):
 		shopkeeperStorage.saveIfDirty();
 
@@ -376,6 +391,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		// Inform UI registry about disable:
 		uiRegistry.onDisable();
 
+		// Trade statistics: Process any pending trades before the shopkeepers are saved and unloaded.
+		tradeStatisticsUpdater.onDisable();
+
 		// Despawn all shopkeepers (prior to saving shopkeepers data and before unloading all shopkeepers):
 		shopkeeperRegistry.deactivateShopkeepersInAllWorlds();
 
@@ -425,6 +443,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		// Trade notifications:
 		tradeNotifications.onDisable();
 
+		// Post trade processing:
+		postTradeBus.onDisable();
+
 		// Clear all types of registers:
 		shopTypesRegistry.clearAll();
 		shopObjectTypesRegistry.clearAll();
@@ -509,6 +530,18 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		return defaultUITypes;
 	}
 
+	// TRADING
+
+	@Override
+	public SKTradeTimings getTradeTimings() {
+		return tradeTimings;
+	}
+
+	@Override
+	public SKPostTradeBus getPostTradeBus() {
+		return postTradeBus;
+	}
+
 	// PROTECTED CONTAINERS
 
 	public ProtectedContainers getProtectedContainers() {
@@ -563,6 +596,11 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		return defaultShopObjectTypes;
 	}
 
+	@Override
+	public LivingEntityAI getMobBehaviorMetrics() {
+		return livingShops.getLivingEntityAI();
+	}
+
 	// SHOPKEEPER NAMING
 
 	public ShopkeeperNaming getShopkeeperNaming() {
@@ -609,4 +647,10 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 	public TradeNotifications getTradeNotifications() {
 		return tradeNotifications;
 	}
+
+	// TRADE LOGGING
+
+	public TradeLoggers getTradeLoggers() {
+		return tradeLoggers;
+	}
 }
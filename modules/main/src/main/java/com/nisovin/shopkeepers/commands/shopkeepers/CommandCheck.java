@@ -17,8 +17,10 @@ import org.bukkit.entity.Entity;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopType;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopobjects.ShopObject;
+import com.nisovin.shopkeepers.api.trading.TradePhase;
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.commands.lib.Command;
 import com.nisovin.shopkeepers.commands.lib.CommandContextView;
@@ -31,14 +33,20 @@ import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.shopkeeper.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.shopobjects.living.LivingEntityAI;
 import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogger;
+import com.nisovin.shopkeepers.trading.SKPostTradeBus;
+import com.nisovin.shopkeepers.ui.trading.SKTradeTimings;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
 import com.nisovin.shopkeepers.util.taskqueue.TaskQueueStatistics;
+import com.nisovin.shopkeepers.util.timer.RollingTimings;
 import com.nisovin.shopkeepers.util.timer.Timings;
 
 class CommandCheck extends Command {
 
 	private static final String ARGUMENT_CHUNKS = "chunks";
 	private static final String ARGUMENT_ACTIVE = "active";
+	private static final String ARGUMENT_TRADES = "trades";
 
 	private final SKShopkeepersPlugin plugin;
 	private final SKShopkeeperRegistry shopkeeperRegistry;
@@ -60,7 +68,8 @@ class CommandCheck extends Command {
 		// Arguments:
 		this.addArgument(new OptionalArgument<>(new FirstOfArgument("context", Arrays.asList(
 				new LiteralArgument(ARGUMENT_CHUNKS),
-				new LiteralArgument(ARGUMENT_ACTIVE)
+				new LiteralArgument(ARGUMENT_ACTIVE),
+				new LiteralArgument(ARGUMENT_TRADES)
 		), true))); // Join formats
 	}
 
@@ -71,6 +80,12 @@ class CommandCheck extends Command {
 
 		boolean listChunks = context.has(ARGUMENT_CHUNKS);
 		boolean listActive = context.has(ARGUMENT_ACTIVE);
+		boolean listTrades = context.has(ARGUMENT_TRADES);
+
+		if (listTrades) {
+			this.sendTradeTimings(sender);
+			return;
+		}
 
 		LivingEntityAI livingEntityAI = plugin.getLivingShops().getLivingEntityAI();
 
@@ -92,6 +107,10 @@ class CommandCheck extends Command {
 		sender.sendMessage("  Active shopkeepers: " + shopkeeperRegistry.getActiveShopkeepers().size());
 		sender.sendMessage("    With AI: " + livingEntityAI.getEntityCount());
 		sender.sendMessage("    With active AI: " + livingEntityAI.getActiveAIEntityCount());
+		sender.sendMessage("      Full rate | reduced rate | out of range: "
+				+ livingEntityAI.getFullRateAIEntityCount()
+				+ " | " + livingEntityAI.getReducedRateAIEntityCount()
+				+ " | " + livingEntityAI.getOutOfRangeAIEntityCount());
 		sender.sendMessage("    With active gravity: " + livingEntityAI.getActiveGravityEntityCount());
 
 		TaskQueueStatistics spawnQueueStatistics = shopkeeperRegistry.getSpawnQueueStatistics();
@@ -219,4 +238,49 @@ class CommandCheck extends Command {
 			sender.sendMessage("More information is printed when the command is run from console.");
 		}
 	}
+
+	private void sendTradeTimings(CommandSender sender) {
+		SKPostTradeBus postTradeBus = plugin.getPostTradeBus();
+		sender.sendMessage(ChatColor.YELLOW + "Post trade processing:");
+		sender.sendMessage("  Queued | max | capacity: " + postTradeBus.getQueuedCount()
+				+ " | " + postTradeBus.getMaxQueuedCount() + " | " + postTradeBus.getQueueCapacity());
+		sender.sendMessage("  Published | processed | dropped | batches: " + postTradeBus.getPublishedCount()
+				+ " | " + postTradeBus.getProcessedCount() + " | " + postTradeBus.getDroppedCount()
+				+ " | " + postTradeBus.getBatchCount());
+
+		CsvTradeLogger csvTradeLogger = plugin.getTradeLoggers().getCsvTradeLogger();
+		if (csvTradeLogger != null) {
+			sender.sendMessage(ChatColor.YELLOW + "CSV trade log:");
+			sender.sendMessage("  Buffered | capacity: " + csvTradeLogger.getBufferedCount()
+					+ " | " + Settings.csvTradeLogBufferCapacity);
+			sender.sendMessage("  Spilled | replayed | dropped: " + csvTradeLogger.getSpilledCount()
+					+ " | " + csvTradeLogger.getReplayedCount() + " | " + csvTradeLogger.getDroppedCount()
+					+ (csvTradeLogger.hasSpilledTrades() ? "    (Spill file pending)" : ""));
+		}
+
+		sender.sendMessage(ChatColor.YELLOW + "Shop UIs:");
+		sender.sendMessage("  Sessions: " + plugin.getUIRegistry().getUISessions().size());
+		sender.sendMessage("  Dropped clicks | coalesced inventory updates: " + plugin.getUIRegistry().getDroppedClicksCount()
+				+ " | " + InventoryUtils.getCoalescedInventoryUpdatesCount());
+
+		SKTradeTimings tradeTimings = plugin.getTradeTimings();
+		sender.sendMessage(ChatColor.YELLOW + "Trade timings (p50 | p95 | p99 | max | cnt):");
+		if (tradeTimings.getShopTypes().isEmpty()) {
+			sender.sendMessage("  No trades recorded yet.");
+			return;
+		}
+		for (ShopType<?> shopType : tradeTimings.getShopTypes()) {
+			sender.sendMessage("  " + shopType.getIdentifier() + ":");
+			for (TradePhase phase : TradePhase.values()) {
+				RollingTimings timings = tradeTimings.getTimings(shopType, phase);
+				assert timings != null;
+				sender.sendMessage("    " + phase.name() + ": "
+						+ TextUtils.DECIMAL_FORMAT.format(timings.getPercentileTimeMillis(50.0D)) + " ms" + " | "
+						+ TextUtils.DECIMAL_FORMAT.format(timings.getPercentileTimeMillis(95.0D)) + " ms" + " | "
+						+ TextUtils.DECIMAL_FORMAT.format(timings.getPercentileTimeMillis(99.0D)) + " ms" + " | "
+						+ TextUtils.DECIMAL_FORMAT.format(timings.getMaxTimeMillis()) + " ms" + " | "
+						+ timings.getCounter());
+			}
+		}
+	}
 }
@@ -0,0 +1,85 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.nio.file.Path;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandContextView;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.tradelog.binary.BinaryTradeLogConverter;
+import com.nisovin.shopkeepers.tradelog.binary.BinaryTradeLogReader;
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+class CommandConvertTradeLogs extends Command {
+
+	private final SKShopkeepersPlugin plugin;
+	// Only accessed on the main thread:
+	private boolean running = false;
+
+	CommandConvertTradeLogs(SKShopkeepersPlugin plugin) {
+		super("convertTradeLogs");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.TRADE_LOG_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionConvertTradeLogs);
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+
+		if (running) {
+			TextUtils.sendMessage(sender, Messages.tradeLogConversionAlreadyRunning);
+			return;
+		}
+		running = true;
+
+		TextUtils.sendMessage(sender, Messages.tradeLogConversionStarted);
+		Path tradeLogsFolder = BinaryTradeLogReader.getTradeLogsFolder(plugin);
+		boolean scheduled = SchedulerUtils.runAsyncTaskOrOmit(plugin, () -> {
+			BinaryTradeLogConverter converter = new BinaryTradeLogConverter(tradeLogsFolder);
+			boolean success;
+			try {
+				converter.convert();
+				success = true;
+			} catch (Exception e) {
+				Log.severe("Failed to convert the CSV trade logs!", e);
+				success = false;
+			}
+
+			boolean finalSuccess = success;
+			SchedulerUtils.runOnMainThreadOrOmit(plugin, () -> {
+				running = false;
+				if (!isOnline(sender)) return;
+				if (!finalSuccess) {
+					TextUtils.sendMessage(sender, Messages.tradeLogConversionFailed);
+					return;
+				}
+				TextUtils.sendMessage(sender, Messages.tradeLogConversionCompleted,
+						"filesCount", converter.getConvertedFilesCount(),
+						"tradesCount", converter.getConvertedTradesCount(),
+						"createdFilesCount", converter.getCreatedFilesCount(),
+						"skippedDaysCount", converter.getSkippedDaysCount()
+				);
+			});
+		}) != null;
+		if (!scheduled) {
+			running = false;
+		}
+	}
+
+	private static boolean isOnline(CommandSender sender) {
+		return !(sender instanceof Player) || ((Player) sender).isOnline();
+	}
+}
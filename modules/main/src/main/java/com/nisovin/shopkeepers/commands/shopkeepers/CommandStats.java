@@ -0,0 +1,197 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandContextView;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.OptionalArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.PositiveIntegerArgument;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogReader;
+import com.nisovin.shopkeepers.tradelog.stats.CurrencyValues;
+import com.nisovin.shopkeepers.tradelog.stats.TradeAnalytics;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatistics;
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+class CommandStats extends Command {
+
+	private static final String ARGUMENT_DAYS = "days";
+
+	private static final String REPORTS_FOLDER = "trade-reports";
+	private static final DateTimeFormatter REPORT_FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+	private static final int TOP_ENTRIES = 3;
+	private static final int PROGRESS_STEPS = 10;
+
+	private final SKShopkeepersPlugin plugin;
+	// Only accessed on the main thread:
+	private boolean running = false;
+
+	CommandStats(SKShopkeepersPlugin plugin) {
+		super("stats");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.TRADE_LOG_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionStats);
+
+		// Arguments:
+		this.addArgument(new OptionalArgument<>(new PositiveIntegerArgument(ARGUMENT_DAYS)));
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		Integer days = context.get(ARGUMENT_DAYS); // Null to analyze all trade logs
+
+		if (running) {
+			TextUtils.sendMessage(sender, Messages.tradeStatsAlreadyRunning);
+			return;
+		}
+		running = true;
+
+		// Snapshot of the settings that are used asynchronously:
+		CurrencyValues currencyValues = CurrencyValues.fromSettings();
+		Path tradeLogsFolder = CsvTradeLogReader.getTradeLogsFolder(plugin);
+		Path reportFile = plugin.getDataFolder().toPath().resolve(REPORTS_FOLDER)
+				.resolve("trade-stats-" + REPORT_FILE_TIME_FORMAT.format(LocalDateTime.now()) + ".txt");
+		LocalDate minDate = (days != null) ? LocalDate.now().minusDays(days - 1) : null;
+
+		boolean scheduled = SchedulerUtils.runAsyncTaskOrOmit(plugin, () -> {
+			TradeStatistics statistics = null;
+			try {
+				List<Path> logFiles = new ArrayList<>();
+				for (Path logFile : CsvTradeLogReader.getLogFiles(tradeLogsFolder)) {
+					if (minDate != null && CsvTradeLogReader.getLogDate(logFile).isBefore(minDate)) continue;
+					logFiles.add(logFile);
+				}
+
+				if (logFiles.isEmpty()) {
+					this.sendMessageSync(sender, Messages.tradeStatsNoTradeLogs);
+				} else {
+					statistics = this.computeStatistics(sender, currencyValues, logFiles);
+					String title = "Trade statistics of " + logFiles.size() + " trade log files"
+							+ ((days != null) ? (" (last " + days + " days)") : "");
+					TradeAnalytics.writeReport(statistics, title, reportFile);
+				}
+			} catch (Exception e) {
+				Log.severe("Failed to compute the trade statistics!", e);
+				this.sendMessageSync(sender, Messages.tradeStatsFailed);
+				statistics = null;
+			}
+
+			TradeStatistics finalStatistics = statistics;
+			SchedulerUtils.runOnMainThreadOrOmit(plugin, () -> {
+				running = false;
+				if (finalStatistics != null && isOnline(sender)) {
+					this.sendStatistics(sender, finalStatistics, reportFile);
+				}
+			});
+		}) != null;
+		if (!scheduled) {
+			running = false;
+		}
+	}
+
+	// Invoked asynchronously.
+	private TradeStatistics computeStatistics(CommandSender sender, CurrencyValues currencyValues, List<Path> logFiles) {
+		int filesCount = logFiles.size();
+		this.sendMessageSync(sender, Messages.tradeStatsStarted, "filesCount", filesCount);
+
+		// Report the progress in steps of 10 percent:
+		AtomicInteger reportedStep = new AtomicInteger(0);
+		TradeAnalytics analytics = new TradeAnalytics(currencyValues, logFiles, (processedFiles, totalFiles) -> {
+			int step = (processedFiles * PROGRESS_STEPS) / totalFiles;
+			int previousStep = reportedStep.get();
+			if (step > previousStep && step < PROGRESS_STEPS && reportedStep.compareAndSet(previousStep, step)) {
+				this.sendMessageSync(sender, Messages.tradeStatsProgress,
+						"processedFiles", processedFiles,
+						"filesCount", totalFiles,
+						"progress", (step * 100 / PROGRESS_STEPS)
+				);
+			}
+		});
+
+		// Only use some of the available processors, to not affect the server's performance too much:
+		int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		TradeStatistics statistics = analytics.compute(parallelism);
+		int failedFiles = analytics.getFailedFilesCount();
+		if (failedFiles > 0) {
+			Log.warning("Failed to read " + failedFiles + " trade log files while computing the trade statistics!");
+		}
+		return statistics;
+	}
+
+	private void sendMessageSync(CommandSender sender, Text message, Object... argumentPairs) {
+		SchedulerUtils.runOnMainThreadOrOmit(plugin, () -> {
+			if (!isOnline(sender)) return;
+			TextUtils.sendMessage(sender, message, argumentPairs);
+		});
+	}
+
+	private static boolean isOnline(CommandSender sender) {
+		return !(sender instanceof Player) || ((Player) sender).isOnline();
+	}
+
+	private void sendStatistics(CommandSender sender, TradeStatistics statistics, Path reportFile) {
+		TextUtils.sendMessage(sender, Messages.tradeStatsHeader,
+				"trades", statistics.getTrades(),
+				"currencyVolume", statistics.getCurrencyVolume(),
+				"shopsCount", statistics.getShopsCount(),
+				"playersCount", statistics.getPlayersCount()
+		);
+
+		TextUtils.sendMessage(sender, Messages.tradeStatsTopItems);
+		this.sendEntries(sender, statistics.getTopItems(TOP_ENTRIES), TradeStatistics.Entry::getItemAmount);
+		TextUtils.sendMessage(sender, Messages.tradeStatsTopShops);
+		this.sendEntries(sender, statistics.getTopShops(TOP_ENTRIES), TradeStatistics.Entry::getCurrencyVolume);
+		TextUtils.sendMessage(sender, Messages.tradeStatsTopShopOwners);
+		this.sendEntries(sender, statistics.getTopShopOwners(TOP_ENTRIES), TradeStatistics.Entry::getCurrencyVolume);
+		TextUtils.sendMessage(sender, Messages.tradeStatsTopPlayers);
+		this.sendEntries(sender, statistics.getMostActivePlayers(TOP_ENTRIES), TradeStatistics.Entry::getTrades);
+
+		long[] tradesByHourOfDay = statistics.getTradesByHourOfDay();
+		int busiestHour = 0;
+		for (int hour = 1; hour < tradesByHourOfDay.length; hour++) {
+			if (tradesByHourOfDay[hour] > tradesByHourOfDay[busiestHour]) {
+				busiestHour = hour;
+			}
+		}
+		TextUtils.sendMessage(sender, Messages.tradeStatsBusiestHour,
+				"hour", String.format("%02d", busiestHour),
+				"trades", tradesByHourOfDay[busiestHour]
+		);
+
+		Path relativeReportFile = plugin.getDataFolder().toPath().relativize(reportFile);
+		TextUtils.sendMessage(sender, Messages.tradeStatsReportWritten, "file", relativeReportFile.toString());
+	}
+
+	private void sendEntries(CommandSender sender, List<TradeStatistics.Entry> entries, ToLongFunction<TradeStatistics.Entry> value) {
+		int rank = 1;
+		for (TradeStatistics.Entry entry : entries) {
+			TextUtils.sendMessage(sender, Messages.tradeStatsEntry,
+					"rank", rank++,
+					"name", entry.getName(),
+					"value", value.applyAsLong(entry)
+			);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.commands.arguments.ShopkeeperArgument;
+import com.nisovin.shopkeepers.commands.arguments.TargetShopkeeperFallback;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandContextView;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.DefaultValueFallback;
+import com.nisovin.shopkeepers.commands.lib.arguments.PositiveIntegerArgument;
+import com.nisovin.shopkeepers.commands.util.ShopkeeperArgumentUtils.TargetShopkeeperFilter;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.tradelog.sqlite.SqliteTradeLogger;
+import com.nisovin.shopkeepers.tradelog.sqlite.TradeLogQueryResult;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+
+class CommandTradeLog extends Command {
+
+	private static final String ARGUMENT_SHOPKEEPER = "shopkeeper";
+	private static final String ARGUMENT_PAGE = "page";
+
+	private static final int ENTRIES_PER_PAGE = 8;
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+	private final SKShopkeepersPlugin plugin;
+
+	CommandTradeLog(SKShopkeepersPlugin plugin) {
+		super("tradelog");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.TRADE_LOG_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionTradeLog);
+
+		// Arguments:
+		this.addArgument(new TargetShopkeeperFallback(
+				new ShopkeeperArgument(ARGUMENT_SHOPKEEPER),
+				TargetShopkeeperFilter.ANY
+		));
+		this.addArgument(new DefaultValueFallback<>(new PositiveIntegerArgument(ARGUMENT_PAGE), 1));
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		Shopkeeper shopkeeper = context.get(ARGUMENT_SHOPKEEPER);
+		assert shopkeeper != null;
+		int page = context.get(ARGUMENT_PAGE);
+
+		SqliteTradeLogger tradeLogger = plugin.getTradeLoggers().getSqliteTradeLogger();
+		if (tradeLogger == null) {
+			TextUtils.sendMessage(sender, Messages.tradeLogDisabled);
+			return;
+		}
+
+		// The query is executed asynchronously:
+		int offset = (page - 1) * ENTRIES_PER_PAGE;
+		tradeLogger.queryShopTrades(shopkeeper.getUniqueId(), offset, ENTRIES_PER_PAGE, (result) -> {
+			// Skip if the sender is a player that is no longer online:
+			if (sender instanceof Player && !((Player) sender).isOnline()) return;
+
+			if (result == null) {
+				TextUtils.sendMessage(sender, Messages.tradeLogQueryFailed);
+				return;
+			}
+			this.sendTradeLogPage(sender, shopkeeper, page, result);
+		});
+	}
+
+	private void sendTradeLogPage(CommandSender sender, Shopkeeper shopkeeper, int page, TradeLogQueryResult result) {
+		int tradesCount = result.getTotalCount();
+		int maxPage = Math.max(1, (int) Math.ceil((double) tradesCount / ENTRIES_PER_PAGE));
+		String shopName = shopkeeper.getName(); // Can be empty
+
+		TextUtils.sendMessage(sender, Messages.tradeLogHeader,
+				"shop", (shopName.isEmpty() ? shopkeeper.getIdString() : shopName),
+				"tradesCount", tradesCount,
+				"page", page,
+				"maxPage", maxPage
+		);
+
+		// Empty if the page is out of bounds:
+		List<TradeLogQueryResult.Entry> entries = result.getEntries();
+		for (TradeLogQueryResult.Entry entry : entries) {
+			String item2Type = entry.getItem2Type(); // Can be null
+			TextUtils.sendMessage(sender, Messages.tradeLogEntry,
+					"time", TIME_FORMAT.format(entry.getTimestamp()),
+					"player", TextUtils.getPlayerText(entry.getPlayerName(), entry.getPlayerUniqueId()),
+					"tradeCount", entry.getTradeCount(),
+					"item1", getItemString(entry.getItem1Type(), entry.getItem1Amount()),
+					// TODO Find a better solution for this special case, since this is specific to the used format.
+					"item2", (item2Type == null ? "" : (" + " + getItemString(item2Type, entry.getItem2Amount()))),
+					"resultItem", getItemString(entry.getResultItemType(), entry.getResultItemAmount())
+			);
+		}
+	}
+
+	private static String getItemString(String itemType, int amount) {
+		return amount + " " + itemType;
+	}
+}
@@ -29,6 +29,8 @@ import com.nisovin.shopkeepers.config.migration.ConfigMigrations;
 import com.nisovin.shopkeepers.lang.Messages;
 import com.nisovin.shopkeepers.playershops.MaxShopsPermission;
 import com.nisovin.shopkeepers.playershops.PlayerShopsLimit;
+import com.nisovin.shopkeepers.tradelog.csv.CsvSyncMode;
+import com.nisovin.shopkeepers.tradelog.stats.CurrencyValues;
 import com.nisovin.shopkeepers.util.annotations.ReadOnly;
 import com.nisovin.shopkeepers.util.bukkit.EntityUtils;
 import com.nisovin.shopkeepers.util.bukkit.SoundEffect;
@@ -77,6 +79,7 @@ public class Settings extends Config {
 	public static boolean enableTownyRestrictions = false;
 
 	public static boolean disableInventoryVerification = false;
+	public static int maxUiClicksPerSecond = 40;
 
 	/*
 	 * Shop Creation (and removal)
@@ -176,6 +179,9 @@ public class Settings extends Config {
 
 	public static boolean disableGravity = false;
 	public static int gravityChunkRange = 4;
+	public static boolean detectGravityBlockChanges = false;
+	// Mobs float for up to this many ticks after undetected block changes.
+	public static int gravityGroundRecheckPeriod = 100;
 
 	// A tick period of 4 and higher is clearly noticeable, especially when entities are affected by gravity.
 	// The total performance benefits of higher tick periods also become increasingly smaller and instead result in
@@ -183,6 +189,11 @@ public class Settings extends Config {
 	// The gravity updates at a tick period of 2 actually appear less smooth in my testing than at a period of 3 (maybe
 	// due to some interpolation artifact by the client).
 	public static int mobBehaviorTickPeriod = 3;
+	// The look-at-player AI goal targets players in a range of 12 blocks (or 8 blocks for some mobs). The ranges are
+	// limited to 12 blocks, so that only the players in the adjacent chunks need to be taken into account.
+	public static int mobAiFullRateRange = 6;
+	public static int mobAiRange = 12;
+	public static int mobAiReducedRatePeriod = 3;
 
 	public static boolean silenceLivingShopEntities = true;
 
@@ -273,6 +284,21 @@ public class Settings extends Config {
 	public static boolean logTradesToCsv = false;
 
 	public static boolean logItemMetadata = false;
+	public static CsvSyncMode csvTradeLogSyncMode = CsvSyncMode.RECORD;
+	public static int csvTradeLogSyncPeriodMillis = 1000;
+	public static int csvTradeLogMaxFileSizeMb = 0;
+	public static boolean csvTradeLogCompressFinishedFiles = false;
+	public static int csvTradeLogBufferCapacity = 10000;
+
+	public static boolean logTradesToSqlite = false;
+
+	public static boolean logTradesToBinary = false;
+
+	/*
+	 * Post Trade Processing
+	 */
+	public static int postTradeQueueCapacity = 10000;
+	public static int postTradeBatchSize = 500;
 
 	/*
 	 * Currencies
@@ -312,6 +338,9 @@ public class Settings extends Config {
 
 		public static final Set<EntityType> enabledLivingShops = new LinkedHashSet<>();
 
+		// Snapshot of the currency items that can be safely used asynchronously:
+		public static CurrencyValues currencyValues;
+
 		static {
 			// Initial setup of default values:
 			setup();
@@ -355,6 +384,9 @@ public class Settings extends Config {
 				shopNamePattern = Pattern.compile("^" + Settings.nameRegex + "$");
 			}
 
+			// Currency values:
+			currencyValues = CurrencyValues.fromSettings();
+
 			// Maximum shops permissions:
 			PlayerShopsLimit.updateMaxShopsPermissions(invalidPermissionOption -> {
 				Log.warning(INSTANCE.getLogPrefix() + "Ignoring invalid entry in 'max-shops-perm-options': " + invalidPermissionOption);
@@ -606,10 +638,34 @@ public class Settings extends Config {
 			Log.warning(this.getLogPrefix() + "'gravity-chunk-range' cannot be negative.");
 			gravityChunkRange = 0;
 		}
+		if (gravityGroundRecheckPeriod < 10) {
+			Log.warning(this.getLogPrefix() + "'gravity-ground-recheck-period' cannot be smaller than 10.");
+			gravityGroundRecheckPeriod = 10;
+		}
 		if (mobBehaviorTickPeriod <= 0) {
 			Log.warning(this.getLogPrefix() + "'mob-behavior-tick-period' has to be positive.");
 			mobBehaviorTickPeriod = 1;
 		}
+		if (mobAiFullRateRange < 0) {
+			Log.warning(this.getLogPrefix() + "'mob-ai-full-rate-range' cannot be negative.");
+			mobAiFullRateRange = 0;
+		}
+		if (mobAiFullRateRange > 12) {
+			Log.warning(this.getLogPrefix() + "'mob-ai-full-rate-range' can be at most 12.");
+			mobAiFullRateRange = 12;
+		}
+		if (mobAiRange > 12) {
+			Log.warning(this.getLogPrefix() + "'mob-ai-range' can be at most 12.");
+			mobAiRange = 12;
+		}
+		if (mobAiRange < mobAiFullRateRange) {
+			Log.warning(this.getLogPrefix() + "'mob-ai-range' cannot be smaller than 'mob-ai-full-rate-range'.");
+			mobAiRange = mobAiFullRateRange;
+		}
+		if (mobAiReducedRatePeriod <= 0) {
+			Log.warning(this.getLogPrefix() + "'mob-ai-reduced-rate-period' has to be positive.");
+			mobAiReducedRatePeriod = 1;
+		}
 		// Certain items cannot be of type AIR:
 		if (shopCreationItem.getType() == Material.AIR) {
 			Log.warning(this.getLogPrefix() + "'shop-creation-item' can not be AIR.");
@@ -656,6 +712,33 @@ public class Settings extends Config {
 		// effect. However, we do not print a warning in this case to allow tradeLogMergeDurationTicks to be easily
 		// adjusted inside the config without having to keep tradeLogNextMergeTimeoutTicks consistent.
 
+		if (csvTradeLogSyncPeriodMillis < 0) {
+			Log.warning(this.getLogPrefix() + "'csv-trade-log-sync-period-millis' cannot be negative.");
+			csvTradeLogSyncPeriodMillis = 0;
+		}
+		if (csvTradeLogMaxFileSizeMb < 0) {
+			Log.warning(this.getLogPrefix() + "'csv-trade-log-max-file-size-mb' cannot be negative.");
+			csvTradeLogMaxFileSizeMb = 0;
+		}
+		if (csvTradeLogBufferCapacity < 1) {
+			Log.warning(this.getLogPrefix() + "'csv-trade-log-buffer-capacity' has to be positive.");
+			csvTradeLogBufferCapacity = 1;
+		}
+
+		if (maxUiClicksPerSecond < 0) {
+			Log.warning(this.getLogPrefix() + "'max-ui-clicks-per-second' cannot be negative.");
+			maxUiClicksPerSecond = 0;
+		}
+
+		if (postTradeQueueCapacity < 1) {
+			Log.warning(this.getLogPrefix() + "'post-trade-queue-capacity' has to be positive.");
+			postTradeQueueCapacity = 1;
+		}
+		if (postTradeBatchSize < 1) {
+			Log.warning(this.getLogPrefix() + "'post-trade-batch-size' has to be positive.");
+			postTradeBatchSize = 1;
+		}
+
 		// Temporary workaround for Mohist servers. See https://github.com/Shopkeepers/Shopkeepers/issues/738
 		// TODO This is supposed to be removed again once the underlying issue has been fixed by Mohist.
 		if (!disableInventoryVerification && Bukkit.getServer().getName().contains("Mohist")) {
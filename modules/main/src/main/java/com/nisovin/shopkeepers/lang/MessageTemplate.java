@@ -0,0 +1,96 @@
+package com.nisovin.shopkeepers.lang;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.nisovin.shopkeepers.text.PlaceholderText;
+import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.util.java.StringUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.text.MessageArguments;
+
+/**
+ * A message {@link Text} that is prepared once and then reused for messages that are frequently sent with different
+ * arguments.
+ * <p>
+ * Other messages that are only used as arguments of the message can be inlined when the template is created. Their
+ * placeholders are then resolved together with the placeholders of the message itself. The placeholders of the
+ * template are collected when the template is created, so that they can be resolved without having to traverse and
+ * copy the message Text.
+ */
+public final class MessageTemplate {
+
+	/**
+	 * Creates a new {@link MessageTemplate}.
+	 * <p>
+	 * The given message and the inlined messages are not modified.
+	 * 
+	 * @param message
+	 *            the message, not <code>null</code>
+	 * @param inlinedMessagePairs
+	 *            pairs of placeholder keys and the messages that replace these placeholders:
+	 *            <code>[key1, message1, key2, message2, ...]</code>
+	 * @return the template
+	 */
+	public static MessageTemplate of(Text message, Object... inlinedMessagePairs) {
+		Validate.notNull(message, "message is null");
+		Map<String, Object> inlinedMessages = new HashMap<>();
+		StringUtils.addArgumentsToMap(inlinedMessages, inlinedMessagePairs);
+		inlinedMessages.replaceAll((key, inlinedMessage) -> {
+			Validate.isTrue(inlinedMessage instanceof Text, () -> "Inlined message for '" + key + "' is not a Text!");
+			return ((Text) inlinedMessage).toPlainFormatText();
+		});
+
+		// The plain format text retains the color codes and placeholders of the message:
+		String format = StringUtils.replaceArguments(message.toPlainFormatText(), inlinedMessages);
+		return new MessageTemplate(Text.parse(format));
+	}
+
+	private final Text text; // Not null
+	private final List<PlaceholderText> placeholders; // Not null, unmodifiable
+
+	private MessageTemplate(Text text) {
+		assert text != null;
+		this.text = text;
+		List<PlaceholderText> placeholders = new ArrayList<>();
+		collectPlaceholders(text, placeholders);
+		this.placeholders = placeholders.isEmpty() ? Collections.emptyList() : placeholders;
+	}
+
+	private static void collectPlaceholders(Text text, List<PlaceholderText> placeholders) {
+		// Note: The template Text is freshly parsed and therefore only consists of a chain of next Texts, and its
+		// placeholders do not have arguments yet.
+		while (text != null) {
+			if (text instanceof PlaceholderText) {
+				placeholders.add((PlaceholderText) text);
+			} else if (text.getChild() != null) {
+				collectPlaceholders(text.getChild(), placeholders);
+			}
+			text = text.getNext();
+		}
+	}
+
+	/**
+	 * Assigns the given arguments to the placeholders of this template and returns the resulting message.
+	 * <p>
+	 * Unlike {@link Text#setPlaceholderArguments(MessageArguments)}, this also clears the arguments of any placeholders
+	 * for which no argument is provided, so that no arguments of previous messages are retained.
+	 * <p>
+	 * The returned {@link Text} is reused by subsequent invocations of this method and is therefore only meant to be
+	 * used until the message has been sent.
+	 * 
+	 * @param arguments
+	 *            the message arguments, not <code>null</code>
+	 * @return the message, not <code>null</code>
+	 */
+	public Text apply(MessageArguments arguments) {
+		Validate.notNull(arguments, "arguments is null");
+		for (PlaceholderText placeholder : placeholders) {
+			placeholder.setPlaceholderArgument(arguments.get(placeholder.getPlaceholderKey()));
+		}
+		return text;
+	}
+}
@@ -1,6 +1,8 @@
 package com.nisovin.shopkeepers.lang;
 
 import java.io.File;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
@@ -10,11 +12,13 @@ import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.config.lib.Config;
 import com.nisovin.shopkeepers.config.lib.ConfigData;
 import com.nisovin.shopkeepers.config.lib.ConfigLoadException;
+import com.nisovin.shopkeepers.config.lib.annotation.Uncolored;
 import com.nisovin.shopkeepers.config.lib.annotation.WithDefaultValueType;
 import com.nisovin.shopkeepers.config.lib.annotation.WithValueTypeProvider;
 import com.nisovin.shopkeepers.config.lib.value.ValueLoadException;
 import com.nisovin.shopkeepers.config.lib.value.types.ColoredStringListValue;
 import com.nisovin.shopkeepers.config.lib.value.types.ColoredStringValue;
+import com.nisovin.shopkeepers.text.ClickEventText.Action;
 import com.nisovin.shopkeepers.text.Text;
 import com.nisovin.shopkeepers.util.data.persistence.DataStore;
 import com.nisovin.shopkeepers.util.data.persistence.bukkit.BukkitConfigDataStore;
@@ -328,6 +332,31 @@ public class Messages extends Config {
 	public static Text listPlayerShopsHeader = Text.parse("&9Player '&e{player}&9' has &e{shopsCount} &9shops: &e(Page {page} of {maxPage})");
 	public static Text listShopsEntry = Text.parse("  &e{shopId}) &7{shopName}&r&8at &7({location})&8, type: &7{shopType}&8, object: &7{objectType}");
 
+	public static Text tradeLogDisabled = Text.parse("&7The trade log database is disabled.");
+	public static Text tradeLogQueryFailed = Text.parse("&cFailed to query the trade log! Please check the server log.");
+	public static Text tradeLogHeader = Text.parse("&9Shop '&e{shop}&9' has &e{tradesCount} &9logged trades: &e(Page {page} of {maxPage})");
+	public static Text tradeLogEntry = Text.parse("  &7{time} &e{player}&8: &7{tradeCount}x &e{item1}{item2} &8-> &e{resultItem}");
+	// The DateTimeFormatter pattern of the '{last_trade}' shopkeeper message argument:
+	@Uncolored
+	public static String lastTradeTimeFormat = "yyyy-MM-dd HH:mm:ss";
+	public static Text tradeStatsAlreadyRunning = Text.parse("&7The trade statistics are already being computed.");
+	public static Text tradeStatsNoTradeLogs = Text.parse("&7There are no trade log files to analyze.");
+	public static Text tradeStatsStarted = Text.parse("&aComputing the trade statistics of &e{filesCount} &atrade log files ...");
+	public static Text tradeStatsProgress = Text.parse("&7Processed &e{processedFiles}&7/&e{filesCount} &7trade log files (&e{progress}%&7).");
+	public static Text tradeStatsFailed = Text.parse("&cFailed to compute the trade statistics! Please check the server log.");
+	public static Text tradeStatsHeader = Text.parse("&9Trade statistics: &e{trades} &9trades, &e{currencyVolume} &9currency volume, &e{shopsCount} &9shops, &e{playersCount} &9players");
+	public static Text tradeStatsTopItems = Text.parse("&9Most traded goods:");
+	public static Text tradeStatsTopShops = Text.parse("&9Shops with the highest currency volume:");
+	public static Text tradeStatsTopShopOwners = Text.parse("&9Shop owners with the highest currency volume:");
+	public static Text tradeStatsTopPlayers = Text.parse("&9Most active players:");
+	public static Text tradeStatsEntry = Text.parse("  &e{rank}. &7{name}&8: &e{value}");
+	public static Text tradeStatsBusiestHour = Text.parse("&9Busiest hour of day: &e{hour}:00 &9(&e{trades} &9trades)");
+	public static Text tradeStatsReportWritten = Text.parse("&aThe full report has been written to &e{file}&a.");
+	public static Text tradeLogConversionAlreadyRunning = Text.parse("&7The trade logs are already being converted.");
+	public static Text tradeLogConversionStarted = Text.parse("&aConverting the CSV trade logs into binary trade logs ...");
+	public static Text tradeLogConversionFailed = Text.parse("&cFailed to convert the trade logs! Please check the server log.");
+	public static Text tradeLogConversionCompleted = Text.parse("&aConverted &e{filesCount} &aCSV trade log files with &e{tradesCount} &atrades into &e{createdFilesCount} &abinary trade log files. Skipped &e{skippedDaysCount} &adays that already have a binary trade log file.");
+
 	public static Text shopRemoved = Text.parse("&aThe shopkeeper has been removed.");
 	public static Text shopAlreadyRemoved = Text.parse("&7The shopkeeper has already been removed.");
 	public static Text shopRemovalCancelled = Text.parse("&cA plugin has prevented the removal of the shopkeeper.");
@@ -389,6 +418,9 @@ public class Messages extends Config {
 	public static Text commandDescriptionDebug = Text.parse("Toggles debug mode on and off.");
 	public static Text commandDescriptionNotify = Text.parse("Turns trade notifications for you on or off.");
 	public static Text commandDescriptionList = Text.parse("Lists all shops of a specific player, or all admin shops.");
+	public static Text commandDescriptionTradeLog = Text.parse("Shows the logged trades of a specific shop.");
+	public static Text commandDescriptionStats = Text.parse("Computes statistics about the logged trades of the last days.");
+	public static Text commandDescriptionConvertTradeLogs = Text.parse("Converts the CSV trade logs into binary trade logs.");
 	public static Text commandDescriptionRemove = Text.parse("Removes a specific shop.");
 	public static Text commandDescriptionRemoveAll = Text.parse("Removes all shops of a specific player, all players, or all admin shops.");
 	public static Text commandDescriptionGive = Text.parse("Gives shop creation item(s) to the specified player.");
@@ -401,6 +433,149 @@ public class Messages extends Config {
 	public static Text commandDescriptionSetforhire = Text.parse("Sets one of your shops for sale.");
 	public static Text commandDescriptionEditVillager = Text.parse("Opens the editor for the target villager.");
 
+	///// DERIVED MESSAGES
+
+	// Stores messages which are derived from the loaded messages and get setup after loading the messages.
+	public static class DerivedMessages {
+
+		// Indexed by getTradeNotificationIndex:
+		private static final MessageTemplate[] tradeNotifications = new MessageTemplate[32];
+		// Indexed by getOwnerTradeNotificationIndex:
+		private static final MessageTemplate[] ownerTradeNotifications = new MessageTemplate[16];
+
+		// Includes the clickable command:
+		public static Text disableTradeNotificationsHint;
+
+		public static DateTimeFormatter lastTradeTimeFormatter;
+
+		static {
+			// Initial setup of default values:
+			setup();
+		}
+
+		// Gets called after the messages have been loaded:
+		private static void setup() {
+			// Trade notifications: The shop and trade count messages are inlined into the trade notification messages.
+			for (int index = 0; index < tradeNotifications.length; index++) {
+				boolean buy = isFlagSet(index, 0);
+				boolean twoItems = isFlagSet(index, 1);
+				boolean playerShop = isFlagSet(index, 2);
+				boolean namedShop = isFlagSet(index, 3);
+				boolean multipleTrades = isFlagSet(index, 4);
+
+				Text message;
+				if (buy) {
+					message = twoItems ? buyNotificationTwoItems : buyNotificationOneItem;
+				} else {
+					message = twoItems ? tradeNotificationTwoItems : tradeNotificationOneItem;
+				}
+				Text shopText;
+				if (playerShop) {
+					shopText = namedShop ? tradeNotificationNamedPlayerShop : tradeNotificationPlayerShop;
+				} else {
+					shopText = namedShop ? tradeNotificationNamedAdminShop : tradeNotificationAdminShop;
+				}
+				Text tradeCountText = multipleTrades ? tradeNotificationTradeCount : Text.EMPTY;
+				tradeNotifications[index] = MessageTemplate.of(
+						message,
+						"shop", shopText,
+						"trade_count", tradeCountText
+				);
+			}
+
+			for (int index = 0; index < ownerTradeNotifications.length; index++) {
+				boolean buy = isFlagSet(index, 0);
+				boolean twoItems = isFlagSet(index, 1);
+				boolean namedShop = isFlagSet(index, 2);
+				boolean multipleTrades = isFlagSet(index, 3);
+
+				Text message;
+				Text shopText;
+				if (buy) {
+					message = twoItems ? ownerBuyNotificationTwoItems : ownerBuyNotificationOneItem;
+					shopText = namedShop ? ownerBuyNotificationNamedShop : ownerBuyNotificationShop;
+				} else {
+					message = twoItems ? ownerTradeNotificationTwoItems : ownerTradeNotificationOneItem;
+					shopText = namedShop ? ownerTradeNotificationNamedShop : ownerTradeNotificationShop;
+				}
+				Text tradeCountText = multipleTrades ? ownerTradeNotificationTradeCount : Text.EMPTY;
+				ownerTradeNotifications[index] = MessageTemplate.of(
+						message,
+						"shop", shopText,
+						"trade_count", tradeCountText
+				);
+			}
+
+			// Disable trade notifications hint:
+			Text command = Messages.disableTradeNotificationsHintCommand.copy();
+			Text commandText = Text.clickEvent(Action.SUGGEST_COMMAND, command.toPlainText()).next(command).getRoot();
+			disableTradeNotificationsHint = Messages.disableTradeNotificationsHint.copy();
+			disableTradeNotificationsHint.setPlaceholderArguments("command", commandText);
+
+			// Last trade time format:
+			try {
+				lastTradeTimeFormatter = DateTimeFormatter.ofPattern(lastTradeTimeFormat).withZone(ZoneId.systemDefault());
+			} catch (IllegalArgumentException e) {
+				Log.warning(INSTANCE.getLogPrefix() + "'last-trade-time-format' is not a valid time format ('"
+						+ lastTradeTimeFormat + "'). Reverting to default.");
+				lastTradeTimeFormat = "yyyy-MM-dd HH:mm:ss";
+				lastTradeTimeFormatter = DateTimeFormatter.ofPattern(lastTradeTimeFormat).withZone(ZoneId.systemDefault());
+			}
+		}
+
+		private static boolean isFlagSet(int index, int flag) {
+			return (index & (1 << flag)) != 0;
+		}
+
+		private static int toFlag(boolean value, int flag) {
+			return value ? (1 << flag) : 0;
+		}
+
+		/**
+		 * Gets the template of the trade notification that is sent to players that are notified about all trades.
+		 * 
+		 * @param buy
+		 *            <code>true</code> if the result item of the trade is currency
+		 * @param twoItems
+		 *            <code>true</code> if the trade involves two offered items
+		 * @param playerShop
+		 *            <code>true</code> if the shop is a player shop
+		 * @param namedShop
+		 *            <code>true</code> if the shop has a name
+		 * @param multipleTrades
+		 *            <code>true</code> if the notification covers multiple trades
+		 * @return the message template
+		 */
+		public static MessageTemplate getTradeNotification(	boolean buy, boolean twoItems, boolean playerShop,
+															boolean namedShop, boolean multipleTrades) {
+			int index = toFlag(buy, 0) | toFlag(twoItems, 1) | toFlag(playerShop, 2) | toFlag(namedShop, 3)
+					| toFlag(multipleTrades, 4);
+			return tradeNotifications[index];
+		}
+
+		/**
+		 * Gets the template of the trade notification that is sent to shop owners.
+		 * 
+		 * @param buy
+		 *            <code>true</code> if the result item of the trade is currency
+		 * @param twoItems
+		 *            <code>true</code> if the trade involves two offered items
+		 * @param namedShop
+		 *            <code>true</code> if the shop has a name
+		 * @param multipleTrades
+		 *            <code>true</code> if the notification covers multiple trades
+		 * @return the message template
+		 */
+		public static MessageTemplate getOwnerTradeNotification(	boolean buy, boolean twoItems, boolean namedShop,
+																	boolean multipleTrades) {
+			int index = toFlag(buy, 0) | toFlag(twoItems, 1) | toFlag(namedShop, 2) | toFlag(multipleTrades, 3);
+			return ownerTradeNotifications[index];
+		}
+
+		private DerivedMessages() {
+		}
+	}
+
 	/////
 
 	private static final String LANG_FOLDER = "lang";
@@ -529,5 +704,8 @@ public class Messages extends Config {
 
 		// Load the config:
 		super.load(configData);
+
+		// Update the derived messages:
+		DerivedMessages.setup();
 	}
 }
@@ -1,5 +1,6 @@
 package com.nisovin.shopkeepers.shopkeeper;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -34,6 +35,7 @@ import com.nisovin.shopkeepers.api.ui.UISession;
 import com.nisovin.shopkeepers.api.ui.UIType;
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.lang.Messages.DerivedMessages;
 import com.nisovin.shopkeepers.shopobjects.AbstractShopObject;
 import com.nisovin.shopkeepers.shopobjects.AbstractShopObjectType;
 import com.nisovin.shopkeepers.shopobjects.ShopObjectData;
@@ -147,6 +149,7 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	// The ChunkCoords under which the shopkeeper is currently stored:
 	private ChunkCoords lastChunkCoords = null;
 	private String name = ""; // Not null, can be empty
+	private SKShopkeeperTradeStatistics tradeStatistics = new SKShopkeeperTradeStatistics(); // Not null
 
 	// Map of dynamically evaluated message arguments:
 	private final Map<String, Supplier<Object>> messageArgumentsMap = new HashMap<>();
@@ -348,6 +351,9 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 		}
 		this.updateChunkCoords();
 
+		// Trade statistics:
+		this.loadTradeStatistics(shopkeeperData);
+
 		// Create the shop object:
 		this.shopObject = this.createShopObject(objectType, null);
 
@@ -436,6 +442,11 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 			shopkeeperData.set(YAW, yaw);
 		}
 
+		// Trade statistics:
+		// These are not part of the dynamic state, since restoring a previous dynamic state (eg. via snapshots) is not
+		// supposed to reset them.
+		shopkeeperData.set(TRADE_STATISTICS, tradeStatistics.isEmpty() ? null : tradeStatistics);
+
 		// Dynamic shopkeeper and shop object data:
 		this.saveDynamicState(shopkeeperData);
 	}
@@ -869,6 +880,16 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 		messageArguments.put("location", () -> this.getPositionString());
 		messageArguments.put("type", () -> this.getType().getIdentifier());
 		messageArguments.put("object_type", () -> this.getShopObject().getType().getIdentifier());
+		messageArguments.put("trades", () -> tradeStatistics.getTradesCount());
+		messageArguments.put("trades_last_hour", () -> tradeStatistics.getTradesInLastHour());
+		messageArguments.put("trades_last_day", () -> tradeStatistics.getTradesInLastDay());
+		messageArguments.put("items_in", () -> tradeStatistics.getItemsIn());
+		messageArguments.put("items_out", () -> tradeStatistics.getItemsOut());
+		messageArguments.put("currency_volume", () -> tradeStatistics.getCurrencyVolume());
+		messageArguments.put("last_trade", () -> {
+			Instant lastTrade = tradeStatistics.getLastTradeTimestamp();
+			return (lastTrade != null) ? DerivedMessages.lastTradeTimeFormatter.format(lastTrade) : "-";
+		});
 	}
 
 	// NAMING
@@ -954,6 +975,30 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	@Override
 	public abstract List<? extends TradingRecipe> getTradingRecipes(Player player);
 
+	public static final Property<SKShopkeeperTradeStatistics> TRADE_STATISTICS = new BasicProperty<SKShopkeeperTradeStatistics>()
+			.dataKeyAccessor("tradeStatistics", SKShopkeeperTradeStatistics.SERIALIZER)
+			.nullable() // Null if there have been no trades yet
+			.defaultValue(null)
+			.build();
+
+	// Invalid trade statistics are reset instead of preventing the shopkeeper from being loaded.
+	private void loadTradeStatistics(ShopkeeperData shopkeeperData) {
+		SKShopkeeperTradeStatistics loadedTradeStatistics;
+		try {
+			loadedTradeStatistics = shopkeeperData.get(TRADE_STATISTICS);
+		} catch (InvalidDataException e) {
+			Log.warning(this.getLogPrefix() + "Resetting invalid trade statistics: " + e.getMessage());
+			loadedTradeStatistics = null;
+			this.markDirty();
+		}
+		this.tradeStatistics = (loadedTradeStatistics != null) ? loadedTradeStatistics : new SKShopkeeperTradeStatistics();
+	}
+
+	@Override
+	public SKShopkeeperTradeStatistics getTradeStatistics() {
+		return tradeStatistics;
+	}
+
 	// USER INTERFACES
 
 	@Override
@@ -660,6 +660,9 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		// Inform shopkeeper:
 		shopkeeper.informRemoval(cause);
 
+		// Inform the UI registry, now that the shopkeeper is no longer valid:
+		plugin.getUIRegistry().onShopkeeperRemoved(shopkeeper);
+
 		// Remove shopkeeper by unique id and session id:
 		UUID shopkeeperUniqueId = shopkeeper.getUniqueId();
 		shopkeepersByUUID.remove(shopkeeperUniqueId);
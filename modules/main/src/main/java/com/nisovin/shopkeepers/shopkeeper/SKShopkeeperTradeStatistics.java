@@ -0,0 +1,196 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperTradeStatistics;
+import com.nisovin.shopkeepers.util.data.DataContainer;
+import com.nisovin.shopkeepers.util.data.InvalidDataException;
+import com.nisovin.shopkeepers.util.data.serialization.DataSerializer;
+import com.nisovin.shopkeepers.util.data.serialization.java.DataContainerSerializers;
+import com.nisovin.shopkeepers.util.java.RollingCounter;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+public class SKShopkeeperTradeStatistics implements ShopkeeperTradeStatistics {
+
+	private static final String DATA_KEY_TRADES = "trades";
+	private static final String DATA_KEY_ITEMS_IN = "itemsIn";
+	private static final String DATA_KEY_ITEMS_OUT = "itemsOut";
+	private static final String DATA_KEY_CURRENCY_VOLUME = "currencyVolume";
+	private static final String DATA_KEY_LAST_TRADE = "lastTrade";
+	private static final String DATA_KEY_LAST_HOUR = "lastHour";
+	private static final String DATA_KEY_LAST_DAY = "lastDay";
+
+	/**
+	 * A {@link DataSerializer} for {@link SKShopkeeperTradeStatistics}.
+	 * <p>
+	 * Every deserialization returns a new instance.
+	 */
+	public static final DataSerializer<SKShopkeeperTradeStatistics> SERIALIZER = new DataSerializer<SKShopkeeperTradeStatistics>() {
+		@Override
+		public Object serialize(SKShopkeeperTradeStatistics value) {
+			Validate.notNull(value, "value is null");
+			return value.save().serialize();
+		}
+
+		@Override
+		public SKShopkeeperTradeStatistics deserialize(Object data) throws InvalidDataException {
+			DataContainer dataContainer = DataContainerSerializers.DEFAULT.deserialize(data);
+			SKShopkeeperTradeStatistics statistics = new SKShopkeeperTradeStatistics();
+			statistics.load(dataContainer);
+			return statistics;
+		}
+	};
+
+	private long tradesCount = 0L;
+	private long itemsIn = 0L;
+	private long itemsOut = 0L;
+	private long currencyVolume = 0L;
+	private long lastTradeMillis = 0L; // 0 if there have been no trades yet
+	// 60 buckets of one minute:
+	private final RollingCounter tradesInLastHour = new RollingCounter(60, TimeUnit.MINUTES.toMillis(1L));
+	// 24 buckets of one hour:
+	private final RollingCounter tradesInLastDay = new RollingCounter(24, TimeUnit.HOURS.toMillis(1L));
+
+	public SKShopkeeperTradeStatistics() {
+	}
+
+	/**
+	 * Checks if there have been no trades yet.
+	 * 
+	 * @return <code>true</code> if there have been no trades yet
+	 */
+	public boolean isEmpty() {
+		return (tradesCount == 0L);
+	}
+
+	/**
+	 * Adds the given trades to these statistics.
+	 * 
+	 * @param timestamp
+	 *            the time of the trades, not <code>null</code>
+	 * @param tradeCount
+	 *            the number of equivalent trades, positive
+	 * @param itemsIn
+	 *            the amount of items received by the shopkeeper per trade
+	 * @param itemsOut
+	 *            the amount of items provided by the shopkeeper per trade
+	 * @param currencyVolume
+	 *            the value of the traded currency items per trade
+	 */
+	public void addTrades(Instant timestamp, int tradeCount, int itemsIn, int itemsOut, int currencyVolume) {
+		Validate.notNull(timestamp, "timestamp is null");
+		Validate.isTrue(tradeCount > 0, "tradeCount has to be positive");
+		long timestampMillis = timestamp.toEpochMilli();
+		this.tradesCount += tradeCount;
+		this.itemsIn += (long) itemsIn * tradeCount;
+		this.itemsOut += (long) itemsOut * tradeCount;
+		this.currencyVolume += (long) currencyVolume * tradeCount;
+		this.lastTradeMillis = Math.max(lastTradeMillis, timestampMillis);
+		tradesInLastHour.add(timestampMillis, tradeCount);
+		tradesInLastDay.add(timestampMillis, tradeCount);
+	}
+
+	// STORAGE
+
+	private DataContainer save() {
+		long nowMillis = System.currentTimeMillis();
+		DataContainer dataContainer = DataContainer.create();
+		dataContainer.set(DATA_KEY_TRADES, tradesCount);
+		dataContainer.set(DATA_KEY_ITEMS_IN, itemsIn);
+		dataContainer.set(DATA_KEY_ITEMS_OUT, itemsOut);
+		dataContainer.set(DATA_KEY_CURRENCY_VOLUME, currencyVolume);
+		if (lastTradeMillis != 0L) {
+			dataContainer.set(DATA_KEY_LAST_TRADE, lastTradeMillis);
+		}
+		saveBuckets(tradesInLastHour, nowMillis, dataContainer, DATA_KEY_LAST_HOUR);
+		saveBuckets(tradesInLastDay, nowMillis, dataContainer, DATA_KEY_LAST_DAY);
+		return dataContainer;
+	}
+
+	// The buckets are stored as a mapping from their start time (in milliseconds since the epoch) to their counts.
+	private static void saveBuckets(RollingCounter counter, long nowMillis, DataContainer dataContainer, String key) {
+		DataContainer bucketsData = DataContainer.create();
+		counter.forEachBucket(nowMillis, (startMillis, count) -> {
+			bucketsData.set(String.valueOf(startMillis), count);
+		});
+		if (!bucketsData.isEmpty()) {
+			dataContainer.set(key, bucketsData.serialize());
+		}
+	}
+
+	private void load(DataContainer dataContainer) throws InvalidDataException {
+		this.tradesCount = loadCount(dataContainer, DATA_KEY_TRADES);
+		this.itemsIn = loadCount(dataContainer, DATA_KEY_ITEMS_IN);
+		this.itemsOut = loadCount(dataContainer, DATA_KEY_ITEMS_OUT);
+		this.currencyVolume = loadCount(dataContainer, DATA_KEY_CURRENCY_VOLUME);
+		this.lastTradeMillis = loadCount(dataContainer, DATA_KEY_LAST_TRADE);
+		loadBuckets(tradesInLastHour, dataContainer, DATA_KEY_LAST_HOUR);
+		loadBuckets(tradesInLastDay, dataContainer, DATA_KEY_LAST_DAY);
+	}
+
+	private static long loadCount(DataContainer dataContainer, String key) throws InvalidDataException {
+		if (!dataContainer.contains(key)) return 0L;
+		if (!dataContainer.isNumber(key)) {
+			throw new InvalidDataException("Trade statistic '" + key + "' is not a number!");
+		}
+		long count = dataContainer.getLong(key);
+		if (count < 0L) {
+			throw new InvalidDataException("Trade statistic '" + key + "' is negative!");
+		}
+		return count;
+	}
+
+	private static void loadBuckets(RollingCounter counter, DataContainer dataContainer, String key) throws InvalidDataException {
+		counter.clear();
+		DataContainer bucketsData = dataContainer.getContainer(key);
+		if (bucketsData == null) return;
+		for (String bucketKey : bucketsData.getKeys()) {
+			long startMillis;
+			try {
+				startMillis = Long.parseLong(bucketKey);
+			} catch (NumberFormatException e) {
+				throw new InvalidDataException("Invalid bucket start time in trade statistic '" + key + "': " + bucketKey);
+			}
+			counter.add(startMillis, loadCount(bucketsData, bucketKey));
+		}
+	}
+
+	// STATISTICS
+
+	@Override
+	public long getTradesCount() {
+		return tradesCount;
+	}
+
+	@Override
+	public long getItemsIn() {
+		return itemsIn;
+	}
+
+	@Override
+	public long getItemsOut() {
+		return itemsOut;
+	}
+
+	@Override
+	public long getCurrencyVolume() {
+		return currencyVolume;
+	}
+
+	@Override
+	public Instant getLastTradeTimestamp() {
+		if (lastTradeMillis == 0L) return null;
+		return Instant.ofEpochMilli(lastTradeMillis);
+	}
+
+	@Override
+	public long getTradesInLastHour() {
+		return tradesInLastHour.getCount(System.currentTimeMillis());
+	}
+
+	@Override
+	public long getTradesInLastDay() {
+		return tradesInLastDay.getCount(System.currentTimeMillis());
+	}
+}
@@ -1,10 +1,12 @@
 package com.nisovin.shopkeepers.shopkeeper;
 
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.MerchantRecipe;
 
 import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.bukkit.MerchantUtils;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 
@@ -12,6 +14,8 @@ import com.nisovin.shopkeepers.util.java.Validate;
 public class SKTradingRecipe extends TradingRecipeDraft implements TradingRecipe {
 
 	private final boolean outOfStock;
+	// Lazily created:
+	private MerchantRecipe merchantRecipe = null;
 
 	/**
 	 * Creates a {@link SKTradingRecipe}.
@@ -102,6 +106,22 @@ public class SKTradingRecipe extends TradingRecipeDraft implements TradingRecipe
 		return outOfStock;
 	}
 
+	/**
+	 * Gets the {@link MerchantRecipe} that corresponds to this trading recipe.
+	 * <p>
+	 * The merchant recipe is only created once and then reused for all players that are shown this trading recipe. It
+	 * must therefore not be modified. Merchants copy the merchant recipes when they are set up, so it is safe to pass
+	 * the returned merchant recipe to merchants.
+	 * 
+	 * @return the merchant recipe, not <code>null</code>
+	 */
+	public final MerchantRecipe getMerchantRecipe() {
+		if (merchantRecipe == null) {
+			merchantRecipe = MerchantUtils.createMerchantRecipe((TradingRecipe) this);
+		}
+		return merchantRecipe;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
@@ -1,6 +1,5 @@
 package com.nisovin.shopkeepers.shopkeeper.admin.regular;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.bukkit.entity.Player;
@@ -13,6 +12,7 @@ import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
 import com.nisovin.shopkeepers.ui.SKDefaultUITypes;
 import com.nisovin.shopkeepers.ui.editor.DefaultTradingRecipesAdapter;
 import com.nisovin.shopkeepers.ui.editor.EditorHandler;
+import com.nisovin.shopkeepers.ui.editor.LazyTradingRecipeDrafts;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 
 public class RegularAdminShopEditorHandler extends EditorHandler {
@@ -29,14 +29,11 @@ public class RegularAdminShopEditorHandler extends EditorHandler {
 		@Override
 		public List<TradingRecipeDraft> getTradingRecipes() {
 			// Add the shopkeeper's offers:
-			List<? extends TradeOffer> offers = shopkeeper.getOffers();
-			List<TradingRecipeDraft> recipes = new ArrayList<>(offers.size());
-			offers.forEach(offer -> {
-				// The offer returns immutable items, so there is no need to copy them.
-				TradingRecipeDraft recipe = new TradingRecipeDraft(offer.getResultItem(), offer.getItem1(), offer.getItem2());
-				recipes.add(recipe);
-			});
-			return recipes;
+			// Admin shops can have many offers, so we only create the trading recipe drafts of the viewed editor pages.
+			// The offer returns immutable items, so there is no need to copy them.
+			return new LazyTradingRecipeDrafts<TradeOffer>(shopkeeper.getOffers(),
+					offer -> new TradingRecipeDraft(offer.getResultItem(), offer.getItem1(), offer.getItem2())
+			);
 		}
 
 		@Override
@@ -1,12 +1,15 @@
 package com.nisovin.shopkeepers.shopobjects.living;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -19,11 +22,19 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.scheduler.BukkitTask;
 
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopobjects.living.MobBehaviorMetrics;
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.compat.NMSManager;
 import com.nisovin.shopkeepers.config.Settings;
@@ -31,10 +42,11 @@ import com.nisovin.shopkeepers.util.bukkit.EntityUtils;
 import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
 import com.nisovin.shopkeepers.util.bukkit.WorldUtils;
 import com.nisovin.shopkeepers.util.java.CyclicCounter;
+import com.nisovin.shopkeepers.util.java.LongHashSet;
 import com.nisovin.shopkeepers.util.java.RateLimiter;
 import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.timer.RollingTimings;
 import com.nisovin.shopkeepers.util.timer.Timer;
-import com.nisovin.shopkeepers.util.timer.Timings;
 
 /**
  * Handles gravity and look-at-nearby-players behavior.
@@ -42,16 +54,16 @@ import com.nisovin.shopkeepers.util.timer.Timings;
  * It is assumed that entities usually don't change their initial chunk: Their gravity and AI activation depend on
  * whether their initial chunk has players nearby, rather than whether their current chunk has players nearby.
  */
-public class LivingEntityAI implements Listener {
+public class LivingEntityAI implements MobBehaviorMetrics, Listener {
 
 	/**
-	 * Determines how often AI activations are rechecked (every X ticks).
+	 * Determines how often the tracked chunks of all online players are reconciled with their current locations (every
+	 * X ticks).
 	 * <p>
-	 * We also separately react to player joins and teleports in order to quickly activate the AI of nearby shopkeepers
-	 * in those cases. Note that this only has an effect if the nearby chunks were already loaded and their shopkeepers
-	 * were already spawned. However, if this is not the case, the chunk will be marked as active by default anyways
-	 * already once the shopkeepers are spawned (which can happen deferred to chunk loading, due to the deferred chunk
-	 * activation and the spawn queue).
+	 * The chunk activations are updated incrementally whenever a player crosses a chunk border (see
+	 * {@link PlayerMoveEvent}, which also includes teleports), joins, or quits. However, players do not trigger move
+	 * events in all cases in which their location changes (eg. when they ride vehicles, or when they respawn). The
+	 * periodic reconciliation takes these location changes into account.
 	 */
 	// 30 ticks is quick enough to fluently react even to players flying in creative mode with default flying speed.
 	public static final int AI_ACTIVATION_TICK_RATE = 30;
@@ -63,6 +75,12 @@ public class LivingEntityAI implements Listener {
 	 * chunks around the player.
 	 */
 	private static final int AI_ACTIVATION_CHUNK_RANGE = 1;
+	/**
+	 * The period in ticks in which we update the {@link AITier} of an entity based on the distance to the nearest
+	 * player.
+	 */
+	private static final int AI_TIER_UPDATE_PERIOD_TICKS = 10;
+	private static final CyclicCounter nextAITierUpdateOffset = new CyclicCounter(1, AI_TIER_UPDATE_PERIOD_TICKS + 1);
 	// Regarding gravity activation range:
 	// Players can see shop entities from further away, so we use a large enough range for the activation of falling
 	// checks (configurable in the config, default 4).
@@ -86,8 +104,21 @@ public class LivingEntityAI implements Listener {
 	private static final int FALLING_CHECK_PERIOD_TICKS = 10;
 	private static final CyclicCounter nextFallingCheckOffset = new CyclicCounter(1, FALLING_CHECK_PERIOD_TICKS + 1);
 
+	// JFR is not available on all Java 8 runtimes:
+	private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+	private static boolean isJfrAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
 	// Temporarily re-used objects:
 	private static final Location sharedLocation = new Location(null, 0, 0, 0);
+	private static final Location sharedPlayerLocation = new Location(null, 0, 0, 0);
 	private static final MutableChunkCoords sharedChunkCoords = new MutableChunkCoords();
 
 	private final ShopkeepersPlugin plugin;
@@ -110,6 +141,37 @@ public class LivingEntityAI implements Listener {
 	 * version (on some Minecraft versions the NoAI entity flag does not disable the gravity of mobs).
 	 */
 	private boolean customGravityEnabled;
+	/**
+	 * The chunk range around players in which gravity is active, or <code>-1</code> if our custom gravity handling is
+	 * disabled.
+	 * <p>
+	 * This is fixed while the player proximity index is in use, so that the activations of players are removed for the
+	 * same chunks to which they have been added.
+	 */
+	private int gravityChunkRange;
+	/**
+	 * Whether we detect block changes in the chunks of the entities in order to skip the falling checks of entities
+	 * that are known to still rest on the ground.
+	 * <p>
+	 * This is only enabled if our custom gravity handling is enabled and if it has been enabled in the config, since
+	 * the listener for block physics updates is invoked very frequently.
+	 */
+	private boolean blockChangeDetectionEnabled;
+	/**
+	 * The configured ground recheck period in ticks converted to the number of falling checks: Every X-th falling check
+	 * is performed even if the entity is known to still rest on the ground.
+	 * <p>
+	 * If the detection of block changes is enabled, once an entity has been found to rest on the ground, the resolved
+	 * ground height is cached and its subsequent falling checks are skipped as long as the entity remains at the same
+	 * location and no block changes are detected in its block column. However, since we might not detect all kinds of
+	 * block changes (eg. block changes by other plugins that skip physics updates), we still perform a falling check
+	 * every 'gravity-ground-recheck-period' ticks.
+	 */
+	private int groundRecheckPeriod;
+	/**
+	 * Entities in the {@link AITier#REDUCED_RATE reduced rate AI tier} only tick their AI every X-th behavior update.
+	 */
+	private int reducedRateAITickPeriod;
 
 	private static class EntityData {
 		private final LivingEntity entity;
@@ -118,47 +180,125 @@ public class LivingEntityAI implements Listener {
 		public final RateLimiter fallingCheckLimiter = new RateLimiter(FALLING_CHECK_PERIOD_TICKS, nextFallingCheckOffset.getAndIncrement());
 		public boolean falling = false;
 		public double distanceToGround = 0.0D;
-
-		public EntityData(LivingEntity entity, ChunkData chunkData) {
+		// The cached height of the ground that the entity has been found to rest on, or NaN if unknown. This is only
+		// valid as long as no block changes are detected in the entity's block column:
+		public double groundY = Double.NaN;
+		public int groundBlockX;
+		public int groundBlockZ;
+		public int skippedFallingChecks = 0;
+		// Initial threshold between [1, AI_TIER_UPDATE_PERIOD_TICKS] for load balancing:
+		public final RateLimiter aiTierUpdateLimiter = new RateLimiter(AI_TIER_UPDATE_PERIOD_TICKS, nextAITierUpdateOffset.getAndIncrement());
+		// Full rate by default for fast initial reactions in case players are nearby:
+		public AITier aiTier = AITier.FULL_RATE;
+		public final RateLimiter reducedRateAILimiter;
+
+		public EntityData(LivingEntity entity, ChunkData chunkData, int reducedRateAITickPeriod) {
 			this.entity = entity;
 			this.chunkData = chunkData;
+			this.reducedRateAILimiter = new RateLimiter(reducedRateAITickPeriod);
 		}
 	}
 
 	private static class ChunkData {
 		private final ChunkCoords chunkCoords;
+		private final World world;
+		private final WorldStatistics worldStatistics;
 		// We don't expect there to be many entities within a single chunk, so using a list is okay:
 		private final List<EntityData> entities = new ArrayList<>();
-		// Active by default for fast initial reactions in case players are nearby:
+		public boolean activeAI;
 		public boolean activeGravity;
-		public boolean activeAI = true;
+		// The block columns of this chunk in which blocks have changed since its entities were last processed:
+		public final BitSet dirtyColumns = new BitSet(16 * 16);
 
-		public ChunkData(ChunkCoords chunkCoords, boolean activeGravity) {
+		public ChunkData(	ChunkCoords chunkCoords, World world, WorldStatistics worldStatistics, boolean activeAI,
+							boolean activeGravity) {
 			this.chunkCoords = chunkCoords;
+			this.world = world;
+			this.worldStatistics = worldStatistics;
+			this.activeAI = activeAI;
 			this.activeGravity = activeGravity;
 		}
 	}
 
+	/**
+	 * The rate at which the AI of an entity is ticked, based on the distance to the nearest player.
+	 */
+	private static enum AITier {
+		/**
+		 * The AI is ticked every behavior update.
+		 */
+		FULL_RATE,
+		/**
+		 * The AI is only ticked every {@link LivingEntityAI#reducedRateAITickPeriod} behavior updates.
+		 */
+		REDUCED_RATE,
+		/**
+		 * The AI is not ticked, since there is no player in range that the entity could look at.
+		 */
+		OUT_OF_RANGE;
+	}
+
+	// The per-world counterparts of the statistics, maintained in the same way as the total statistics.
+	private static class WorldStatistics {
+		// The number of chunks with entities in this world:
+		public int chunksCount = 0;
+		public int activeAIChunksCount = 0;
+		public int activeAIEntityCount = 0;
+		public int activeGravityChunksCount = 0;
+		public int activeGravityEntityCount = 0;
+	}
+
+	// The number of online players in whose AI and gravity activation ranges a chunk is located.
+	private static class ChunkActivation {
+		public int aiPlayers = 0;
+		public int gravityPlayers = 0;
+	}
+
 	private final Map<ChunkCoords, ChunkData> chunks = new LinkedHashMap<>();
 	// Index for fast removal: Entity -> EntityData
 	private final Map<LivingEntity, EntityData> entities = new HashMap<>();
+	// The keys of the chunks that contain entities, per world, for cheap lookups on hot paths: Unlike the chunk index,
+	// this does not require the world name, and the worlds are compared by identity.
+	private final Map<World, LongHashSet> chunkKeysByWorld = new IdentityHashMap<>();
+
+	// Player proximity index:
+	// The chunks that the online players were last known to be in:
+	private final Map<UUID, ChunkCoords> playerChunks = new HashMap<>();
+	// The online players in each chunk, based on their tracked chunks. Only contains entries for chunks with players:
+	private final Map<ChunkCoords, List<Player>> chunkPlayers = new HashMap<>();
+	// Only contains entries for chunks in range of at least one player:
+	private final Map<ChunkCoords, ChunkActivation> chunkActivations = new HashMap<>();
+
+	private final BlockChangeListener blockChangeListener = new BlockChangeListener();
+
 
 	private BukkitTask aiTask = null;
 	private boolean currentlyRunning = false;
 
 	// Statistics:
+	// Only contains entries for worlds with entities:
+	private final Map<String, WorldStatistics> worldStatistics = new HashMap<>();
 	private int activeAIChunksCount = 0;
 	private int activeAIEntityCount = 0;
 
 	private int activeGravityChunksCount = 0;
 	private int activeGravityEntityCount = 0;
-
-	private final Timer totalTimings = new Timer();
-	// Note: This only captures the periodic full activation updates, and not the player-specific activations triggered
-	// by player joins and teleports.
-	private final Timer activationTimings = new Timer();
-	private final Timer gravityTimings = new Timer();
-	private final Timer aiTimings = new Timer();
+	// The AI tier populations among the entities with active AI that are not falling:
+	private int fullRateAIEntityCount = 0;
+	private int reducedRateAIEntityCount = 0;
+	private int outOfRangeAIEntityCount = 0;
+
+	private final Timer totalTimer = new Timer();
+	private final Timer activationTimer = new Timer();
+	private final Timer gravityTimer = new Timer();
+	private final Timer aiTimer = new Timer();
+
+	private final RollingTimings totalTimings = new RollingTimings();
+	// Note: This only captures the periodic reconciliations of the player chunks, and not the chunk activation updates
+	// triggered by player movements, joins, and quits.
+	private final RollingTimings activationTimings = new RollingTimings();
+	private final RollingTimings gravityTimings = new RollingTimings();
+	private final RollingTimings aiTimings = new RollingTimings();
 
 	public LivingEntityAI(ShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -170,9 +310,20 @@ public class LivingEntityAI implements Listener {
 		maxFallingDistancePerUpdate = Settings.mobBehaviorTickPeriod * MAX_FALLING_DISTANCE_PER_TICK;
 		gravityCollisionCheckRange = maxFallingDistancePerUpdate + 0.1D;
 		customGravityEnabled = _isCustomGravityEnabled();
+		gravityChunkRange = customGravityEnabled ? Settings.gravityChunkRange : -1;
+		blockChangeDetectionEnabled = customGravityEnabled && Settings.detectGravityBlockChanges;
+		groundRecheckPeriod = Math.max(1, Settings.gravityGroundRecheckPeriod / FALLING_CHECK_PERIOD_TICKS);
+		reducedRateAITickPeriod = Settings.mobAiReducedRatePeriod;
 
-		// Register listener:
+		// Register listeners:
 		Bukkit.getPluginManager().registerEvents(this, plugin);
+		if (blockChangeDetectionEnabled) {
+			// Only required for our custom gravity handling, and only if enabled in the config:
+			Bukkit.getPluginManager().registerEvents(blockChangeListener, plugin);
+		}
+
+		// Setup the player proximity index:
+		Bukkit.getOnlinePlayers().forEach(player -> this.updatePlayerChunk(player, player.getLocation()));
 
 		// Start task:
 		this.startTask();
@@ -180,10 +331,16 @@ public class LivingEntityAI implements Listener {
 
 	public void onDisable() {
 		assert !currentlyRunning;
-		HandlerList.unregisterAll(this); // Unregister listener
+		// Unregister listeners:
+		HandlerList.unregisterAll(this);
+		HandlerList.unregisterAll(blockChangeListener);
 		this.stopTask();
 		chunks.clear();
 		entities.clear();
+		chunkKeysByWorld.clear();
+		playerChunks.clear();
+		chunkPlayers.clear();
+		chunkActivations.clear();
 		this.resetStatistics();
 	}
 
@@ -198,35 +355,50 @@ public class LivingEntityAI implements Listener {
 		// Determine entity chunk (asserts that the entity won't move!):
 		// We assert that the chunk is loaded (checked above by isValid call).
 		sharedChunkCoords.set(entity.getLocation(sharedLocation));
+		World world = sharedLocation.getWorld();
 		sharedLocation.setWorld(null); // Reset
 
 		// Add chunk entry:
 		ChunkData chunkData = chunks.get(sharedChunkCoords);
 		if (chunkData == null) {
 			ChunkCoords chunkCoords = new ChunkCoords(sharedChunkCoords); // Copy
-			chunkData = new ChunkData(chunkCoords, customGravityEnabled);
+			ChunkActivation chunkActivation = chunkActivations.get(chunkCoords);
+			boolean activeAI = (chunkActivation != null && chunkActivation.aiPlayers > 0);
+			boolean activeGravity = (chunkActivation != null && chunkActivation.gravityPlayers > 0);
+			WorldStatistics chunkWorldStatistics = worldStatistics.computeIfAbsent(
+					chunkCoords.getWorldName(),
+					key -> new WorldStatistics()
+			);
+			chunkWorldStatistics.chunksCount++;
+			chunkData = new ChunkData(chunkCoords, world, chunkWorldStatistics, activeAI, activeGravity);
 			chunks.put(chunkCoords, chunkData);
+			long chunkKey = getChunkKey(chunkCoords.getChunkX(), chunkCoords.getChunkZ());
+			chunkKeysByWorld.computeIfAbsent(world, key -> new LongHashSet()).add(chunkKey);
 
 			// Update chunk statistics:
 			if (chunkData.activeAI) {
 				activeAIChunksCount++;
+				chunkWorldStatistics.activeAIChunksCount++;
 			}
 			if (chunkData.activeGravity) {
 				activeGravityChunksCount++;
+				chunkWorldStatistics.activeGravityChunksCount++;
 			}
 		}
 
 		// Add entity entry:
-		EntityData entityData = new EntityData(entity, chunkData);
+		EntityData entityData = new EntityData(entity, chunkData, reducedRateAITickPeriod);
 		entities.put(entity, entityData);
 		chunkData.entities.add(entityData);
 
 		// Update entity statistics:
 		if (chunkData.activeAI) {
 			activeAIEntityCount++;
+			chunkData.worldStatistics.activeAIEntityCount++;
 		}
 		if (chunkData.activeGravity) {
 			activeGravityEntityCount++;
+			chunkData.worldStatistics.activeGravityEntityCount++;
 		}
 
 		// Start the AI task, if it isn't already running:
@@ -242,74 +414,144 @@ public class LivingEntityAI implements Listener {
 		ChunkData chunkData = entityData.chunkData;
 		chunkData.entities.remove(entityData);
 		if (chunkData.entities.isEmpty()) {
-			chunks.remove(chunkData.chunkCoords);
+			ChunkCoords chunkCoords = chunkData.chunkCoords;
+			chunks.remove(chunkCoords);
+			LongHashSet chunkKeys = chunkKeysByWorld.get(chunkData.world);
+			if (chunkKeys != null) {
+				chunkKeys.remove(getChunkKey(chunkCoords.getChunkX(), chunkCoords.getChunkZ()));
+				if (chunkKeys.isEmpty()) {
+					chunkKeysByWorld.remove(chunkData.world);
+				}
+			}
 
 			// Update chunk statistics:
+			WorldStatistics chunkWorldStatistics = chunkData.worldStatistics;
 			if (chunkData.activeAI) {
 				activeAIChunksCount--;
+				chunkWorldStatistics.activeAIChunksCount--;
 			}
 			if (chunkData.activeGravity) {
 				activeGravityChunksCount--;
+				chunkWorldStatistics.activeGravityChunksCount--;
+			}
+			if (--chunkWorldStatistics.chunksCount == 0) {
+				worldStatistics.remove(chunkCoords.getWorldName());
 			}
 		}
 
 		// Update entity statistics:
 		if (chunkData.activeAI) {
 			activeAIEntityCount--;
+			chunkData.worldStatistics.activeAIEntityCount--;
 		}
 		if (chunkData.activeGravity) {
 			activeGravityEntityCount--;
+			chunkData.worldStatistics.activeGravityEntityCount--;
 		}
 	}
 
 	// STATISTICS
 
 	private void resetStatistics() {
+		worldStatistics.clear();
 		activeAIChunksCount = 0;
 		activeAIEntityCount = 0;
 
 		activeGravityChunksCount = 0;
 		activeGravityEntityCount = 0;
 
+		fullRateAIEntityCount = 0;
+		reducedRateAIEntityCount = 0;
+		outOfRangeAIEntityCount = 0;
+
 		totalTimings.reset();
 		activationTimings.reset();
 		gravityTimings.reset();
 		aiTimings.reset();
 	}
 
+	@Override
 	public int getEntityCount() {
 		return entities.size();
 	}
 
+	@Override
 	public int getActiveAIChunksCount() {
 		return activeAIChunksCount;
 	}
 
+	@Override
+	public int getActiveAIChunksCount(String worldName) {
+		Validate.notNull(worldName, "worldName is null");
+		WorldStatistics statistics = worldStatistics.get(worldName);
+		return (statistics != null) ? statistics.activeAIChunksCount : 0;
+	}
+
+	@Override
 	public int getActiveAIEntityCount() {
 		return activeAIEntityCount;
 	}
 
+	@Override
+	public int getActiveAIEntityCount(String worldName) {
+		Validate.notNull(worldName, "worldName is null");
+		WorldStatistics statistics = worldStatistics.get(worldName);
+		return (statistics != null) ? statistics.activeAIEntityCount : 0;
+	}
+
+	public int getFullRateAIEntityCount() {
+		return fullRateAIEntityCount;
+	}
+
+	public int getReducedRateAIEntityCount() {
+		return reducedRateAIEntityCount;
+	}
+
+	public int getOutOfRangeAIEntityCount() {
+		return outOfRangeAIEntityCount;
+	}
+
+	@Override
 	public int getActiveGravityChunksCount() {
 		return activeGravityChunksCount;
 	}
 
+	@Override
+	public int getActiveGravityChunksCount(String worldName) {
+		Validate.notNull(worldName, "worldName is null");
+		WorldStatistics statistics = worldStatistics.get(worldName);
+		return (statistics != null) ? statistics.activeGravityChunksCount : 0;
+	}
+
+	@Override
 	public int getActiveGravityEntityCount() {
 		return activeGravityEntityCount;
 	}
 
-	public Timings getTotalTimings() {
+	@Override
+	public int getActiveGravityEntityCount(String worldName) {
+		Validate.notNull(worldName, "worldName is null");
+		WorldStatistics statistics = worldStatistics.get(worldName);
+		return (statistics != null) ? statistics.activeGravityEntityCount : 0;
+	}
+
+	@Override
+	public RollingTimings getTotalTimings() {
 		return totalTimings;
 	}
 
-	public Timings getActivationTimings() {
+	@Override
+	public RollingTimings getActivationTimings() {
 		return activationTimings;
 	}
 
-	public Timings getGravityTimings() {
+	@Override
+	public RollingTimings getGravityTimings() {
 		return gravityTimings;
 	}
 
-	public Timings getAITimings() {
+	@Override
+	public RollingTimings getAITimings() {
 		return aiTimings;
 	}
 
@@ -347,23 +589,34 @@ public class LivingEntityAI implements Listener {
 
 			currentlyRunning = true;
 
+			// Null if JFR is not available, or if the event is not enabled:
+			MobBehaviorUpdateEvent jfrEvent = JFR_AVAILABLE ? MobBehaviorUpdateEvent.beginIfEnabled() : null;
+
 			// Start timings:
-			totalTimings.start();
-			gravityTimings.startPaused();
-			aiTimings.startPaused();
+			totalTimer.start();
+			gravityTimer.startPaused();
+			aiTimer.startPaused();
 
-			// Freshly determine active chunks/entities (near players) every AI_ACTIVATION_TICK_RATE ticks:
+			// Reconcile the tracked player chunks every AI_ACTIVATION_TICK_RATE ticks:
 			if (aiActivationLimiter.request(Settings.mobBehaviorTickPeriod)) {
-				updateChunkActivations();
+				reconcilePlayerChunks();
 			}
 
 			// Process entities:
 			processEntities();
 
 			// Stop timings:
-			totalTimings.stop();
-			gravityTimings.stop();
-			aiTimings.stop();
+			totalTimer.stop();
+			gravityTimer.stop();
+			aiTimer.stop();
+			totalTimings.record(totalTimer.getLastTimeNanos());
+			gravityTimings.record(gravityTimer.getLastTimeNanos());
+			aiTimings.record(aiTimer.getLastTimeNanos());
+
+			if (jfrEvent != null) {
+				jfrEvent.complete(entities.size(), activeAIEntityCount, activeGravityEntityCount,
+						gravityTimer.getLastTimeNanos(), aiTimer.getLastTimeNanos());
+			}
 
 			currentlyRunning = false;
 		}
@@ -371,101 +624,113 @@ public class LivingEntityAI implements Listener {
 
 	// CHUNK ACTIVATIONS
 
-	private void updateChunkActivations() {
-		activationTimings.start();
-
-		// Deactivate all chunks:
-		chunks.values().forEach(chunkData -> {
-			chunkData.activeAI = false;
-			chunkData.activeGravity = false;
-		});
-		activeAIChunksCount = 0;
-		activeGravityChunksCount = 0;
-
-		// Activate chunks around online players:
+	private void reconcilePlayerChunks() {
+		activationTimer.start();
 		for (Player player : Bukkit.getOnlinePlayers()) {
-			this.activateNearbyChunks(player);
+			this.updatePlayerChunk(player, player.getLocation(sharedLocation));
 		}
-
-		activationTimings.stop();
+		sharedLocation.setWorld(null); // Reset
+		activationTimer.stop();
+		activationTimings.record(activationTimer.getLastTimeNanos());
 	}
 
-	// Note: This only activates chunks around the player, but does not deactivate any chunks that have previously been
-	// activated by the player. The periodic full activation update deactivates all chunks that no longer require
-	// activation.
-	private void activateNearbyChunks(Player player) {
-		World world = player.getWorld();
-		Location location = player.getLocation(sharedLocation);
+	// Updates the chunk activations if the player has moved into a different chunk.
+	private void updatePlayerChunk(Player player, Location location) {
+		World world = location.getWorld();
+		if (world == null) return;
+		String worldName = world.getName();
 		// Note: On some Paper versions with their async chunk loading, the player's current chunk may sometimes not be
 		// loaded yet. We therefore avoid accessing (and thereby loading) that chunk here, but instead only use its
-		// coordinates. The subsequent activation of nearby chunks only considers loaded chunks.
+		// coordinates.
 		int chunkX = ChunkCoords.fromBlock(location.getBlockX());
 		int chunkZ = ChunkCoords.fromBlock(location.getBlockZ());
 
-		this.activateNearbyChunks(world, chunkX, chunkZ, AI_ACTIVATION_CHUNK_RANGE, ActivationType.AI);
-		if (customGravityEnabled) {
-			assert Settings.gravityChunkRange >= 0;
-			this.activateNearbyChunks(world, chunkX, chunkZ, Settings.gravityChunkRange, ActivationType.GRAVITY);
+		UUID playerId = player.getUniqueId();
+		ChunkCoords previousChunk = playerChunks.get(playerId);
+		if (previousChunk != null && previousChunk.matches(worldName, chunkX, chunkZ)) {
+			return; // The player is still in the same chunk
 		}
-		sharedLocation.setWorld(null); // Reset
+
+		ChunkCoords newChunk = new ChunkCoords(worldName, chunkX, chunkZ);
+		playerChunks.put(playerId, newChunk);
+		if (previousChunk != null) {
+			this.removeChunkPlayer(previousChunk, player);
+			this.updateNearbyChunkActivations(previousChunk, -1);
+		}
+		chunkPlayers.computeIfAbsent(newChunk, key -> new ArrayList<>(1)).add(player);
+		this.updateNearbyChunkActivations(newChunk, 1);
 	}
 
-	private void activateNearbyChunksDelayed(Player player) {
-		if (!player.isOnline()) return; // Player is no longer online
-		Bukkit.getScheduler().runTask(plugin, new ActivateNearbyChunksDelayedTask(player));
+	private void removePlayer(Player player) {
+		ChunkCoords previousChunk = playerChunks.remove(player.getUniqueId());
+		if (previousChunk != null) {
+			this.removeChunkPlayer(previousChunk, player);
+			this.updateNearbyChunkActivations(previousChunk, -1);
+		}
 	}
 
-	private class ActivateNearbyChunksDelayedTask implements Runnable {
+	private void removeChunkPlayer(ChunkCoords chunk, Player player) {
+		List<Player> players = chunkPlayers.get(chunk);
+		if (players == null) return;
+		players.remove(player);
+		if (players.isEmpty()) {
+			chunkPlayers.remove(chunk);
+		}
+	}
 
-		private final Player player;
+	// Adds or removes a player at the given chunk to or from the activation counts of the nearby chunks.
+	private void updateNearbyChunkActivations(ChunkCoords centerChunk, int playerDelta) {
+		assert centerChunk != null && (playerDelta == 1 || playerDelta == -1);
+		String worldName = centerChunk.getWorldName();
+		int centerChunkX = centerChunk.getChunkX();
+		int centerChunkZ = centerChunk.getChunkZ();
+		int chunkRadius = Math.max(AI_ACTIVATION_CHUNK_RANGE, gravityChunkRange);
+		for (int offsetX = -chunkRadius; offsetX <= chunkRadius; offsetX++) {
+			for (int offsetZ = -chunkRadius; offsetZ <= chunkRadius; offsetZ++) {
+				int distance = Math.max(Math.abs(offsetX), Math.abs(offsetZ));
+				boolean inAIRange = (distance <= AI_ACTIVATION_CHUNK_RANGE);
+				boolean inGravityRange = (distance <= gravityChunkRange);
+				this.updateChunkActivation(worldName, centerChunkX + offsetX, centerChunkZ + offsetZ,
+						inAIRange ? playerDelta : 0, inGravityRange ? playerDelta : 0);
+			}
+		}
+	}
 
-		ActivateNearbyChunksDelayedTask(Player player) {
-			assert player != null;
-			this.player = player;
+	private void updateChunkActivation(String worldName, int chunkX, int chunkZ, int aiPlayersDelta, int gravityPlayersDelta) {
+		if (aiPlayersDelta == 0 && gravityPlayersDelta == 0) return;
+		sharedChunkCoords.set(worldName, chunkX, chunkZ);
+		ChunkActivation chunkActivation = chunkActivations.get(sharedChunkCoords);
+		if (chunkActivation == null) {
+			assert aiPlayersDelta >= 0 && gravityPlayersDelta >= 0;
+			chunkActivation = new ChunkActivation();
+			chunkActivations.put(new ChunkCoords(sharedChunkCoords), chunkActivation);
 		}
 
-		@Override
-		public void run() {
-			if (!player.isOnline()) return; // Player is no longer online
-			activateNearbyChunks(player);
+		boolean wasActiveAI = (chunkActivation.aiPlayers > 0);
+		boolean wasActiveGravity = (chunkActivation.gravityPlayers > 0);
+		chunkActivation.aiPlayers += aiPlayersDelta;
+		chunkActivation.gravityPlayers += gravityPlayersDelta;
+		assert chunkActivation.aiPlayers >= 0 && chunkActivation.gravityPlayers >= 0;
+		boolean activeAI = (chunkActivation.aiPlayers > 0);
+		boolean activeGravity = (chunkActivation.gravityPlayers > 0);
+		if (!activeAI && !activeGravity) {
+			chunkActivations.remove(sharedChunkCoords);
 		}
-	}
 
-	private static enum ActivationType {
-		GRAVITY,
-		AI;
-	}
+		if (activeAI == wasActiveAI && activeGravity == wasActiveGravity) return; // The activation has not changed
 
-	private void activateNearbyChunks(World world, int centerChunkX, int centerChunkZ, int chunkRadius, ActivationType activationType) {
-		assert world != null && chunkRadius >= 0 && activationType != null;
-		String worldName = world.getName();
-		int minChunkX = centerChunkX - chunkRadius;
-		int maxChunkX = centerChunkX + chunkRadius;
-		int minChunkZ = centerChunkZ - chunkRadius;
-		int maxChunkZ = centerChunkZ + chunkRadius;
-		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
-			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
-				sharedChunkCoords.set(worldName, chunkX, chunkZ);
-				ChunkData chunkData = chunks.get(sharedChunkCoords);
-				if (chunkData == null) continue;
-
-				switch (activationType) {
-				case GRAVITY:
-					if (!chunkData.activeGravity) {
-						chunkData.activeGravity = true;
-						activeGravityChunksCount++;
-					}
-					break;
-				case AI:
-					if (!chunkData.activeAI) {
-						chunkData.activeAI = true;
-						activeAIChunksCount++;
-					}
-					break;
-				default:
-					throw new IllegalStateException("Unexpected activation type: " + activationType);
-				}
-			}
+		// Update the chunk's shopkeeper entities, if there are any:
+		ChunkData chunkData = chunks.get(sharedChunkCoords);
+		if (chunkData == null) return;
+		if (chunkData.activeAI != activeAI) {
+			chunkData.activeAI = activeAI;
+			activeAIChunksCount += activeAI ? 1 : -1;
+			chunkData.worldStatistics.activeAIChunksCount += activeAI ? 1 : -1;
+		}
+		if (chunkData.activeGravity != activeGravity) {
+			chunkData.activeGravity = activeGravity;
+			activeGravityChunksCount += activeGravity ? 1 : -1;
+			chunkData.worldStatistics.activeGravityChunksCount += activeGravity ? 1 : -1;
 		}
 	}
 
@@ -474,6 +739,13 @@ public class LivingEntityAI implements Listener {
 	private void processEntities() {
 		activeAIEntityCount = 0;
 		activeGravityEntityCount = 0;
+		fullRateAIEntityCount = 0;
+		reducedRateAIEntityCount = 0;
+		outOfRangeAIEntityCount = 0;
+		worldStatistics.values().forEach(statistics -> {
+			statistics.activeAIEntityCount = 0;
+			statistics.activeGravityEntityCount = 0;
+		});
 
 		if (activeAIChunksCount == 0 && activeGravityChunksCount == 0) {
 			// There is no need to process any entities if there are no chunks with active AI or gravity:
@@ -490,6 +762,17 @@ public class LivingEntityAI implements Listener {
 			return;
 		}
 
+		BitSet dirtyColumns = chunkData.dirtyColumns;
+		if (!dirtyColumns.isEmpty()) {
+			// The affected entities need to check again whether they are still resting on the ground:
+			chunkData.entities.forEach(entityData -> {
+				if (dirtyColumns.get(getColumnIndex(entityData.groundBlockX, entityData.groundBlockZ))) {
+					entityData.groundY = Double.NaN;
+				}
+			});
+			dirtyColumns.clear();
+		}
+
 		chunkData.entities.forEach(this::processEntity);
 	}
 
@@ -511,20 +794,22 @@ public class LivingEntityAI implements Listener {
 		ChunkData chunkData = entityData.chunkData;
 
 		// Process gravity:
-		gravityTimings.resume();
+		gravityTimer.resume();
 		if (chunkData.activeGravity) {
 			activeGravityEntityCount++;
+			chunkData.worldStatistics.activeGravityEntityCount++;
 			processGravity(entityData);
 		}
-		gravityTimings.pause();
+		gravityTimer.pause();
 
 		// Process AI:
-		aiTimings.resume();
+		aiTimer.resume();
 		if (chunkData.activeAI) {
 			activeAIEntityCount++;
+			chunkData.worldStatistics.activeAIEntityCount++;
 			processAI(entityData);
 		}
-		aiTimings.pause();
+		aiTimer.pause();
 	}
 
 	// GRAVITY
@@ -541,6 +826,13 @@ public class LivingEntityAI implements Listener {
 		// the entity stops its current fall the limiter will wait a full cycle before we check again if the entity is
 		// falling again.
 		if (entityData.falling || entityData.fallingCheckLimiter.request(Settings.mobBehaviorTickPeriod)) {
+			// Skip the check if the entity is known to still rest on the ground:
+			if (!entityData.falling && blockChangeDetectionEnabled && this.isRestingOnCachedGround(entityData)
+					&& ++entityData.skippedFallingChecks < groundRecheckPeriod) {
+				return;
+			}
+			entityData.skippedFallingChecks = 0;
+
 			// Check if the entity is supposed to (continue to) fall by performing a ray cast towards the ground:
 			// Note: One attempt of optimizing this has been to only perform the raytrace if the data of the block below
 			// the entity is still the same. However, it turns out that, performance-wise, even accessing the chunk /
@@ -563,10 +855,19 @@ public class LivingEntityAI implements Listener {
 			}
 
 			entityData.distanceToGround = WorldUtils.getCollisionDistanceToGround(entityLocation, gravityCollisionCheckRange, collidableFluids);
-			sharedLocation.setWorld(null); // Reset
 			boolean falling = (entityData.distanceToGround >= DISTANCE_TO_GROUND_THRESHOLD);
 			entityData.falling = falling;
 
+			// Cache the ground height if the entity rests on the ground:
+			if (falling) {
+				entityData.groundY = Double.NaN;
+			} else {
+				entityData.groundY = entityLocation.getY() - entityData.distanceToGround;
+				entityData.groundBlockX = entityLocation.getBlockX();
+				entityData.groundBlockZ = entityLocation.getBlockZ();
+			}
+			sharedLocation.setWorld(null); // Reset
+
 			// Tick falling:
 			if (falling) {
 				// Prevents SPIGOT-3948 / MC-130725
@@ -581,6 +882,27 @@ public class LivingEntityAI implements Listener {
 		}
 	}
 
+	// Checks if the entity is known to still rest on its cached ground, without having to check for block collisions.
+	private boolean isRestingOnCachedGround(EntityData entityData) {
+		if (Double.isNaN(entityData.groundY)) return false;
+		// Other plugins might have moved the entity:
+		Location entityLocation = entityData.entity.getLocation(sharedLocation);
+		boolean resting = entityLocation.getBlockX() == entityData.groundBlockX
+				&& entityLocation.getBlockZ() == entityData.groundBlockZ
+				&& Math.abs(entityLocation.getY() - entityData.groundY) < DISTANCE_TO_GROUND_THRESHOLD;
+		sharedLocation.setWorld(null); // Reset
+		return resting;
+	}
+
+	private static long getChunkKey(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	// The index of the block column within its chunk:
+	private static int getColumnIndex(int blockX, int blockZ) {
+		return ((blockX & 15) << 4) | (blockZ & 15);
+	}
+
 	// Gets run every behavior update while falling:
 	private void tickFalling(EntityData entityData) {
 		assert entityData.falling && entityData.distanceToGround >= DISTANCE_TO_GROUND_THRESHOLD;
@@ -604,14 +926,132 @@ public class LivingEntityAI implements Listener {
 		sharedLocation.setWorld(null); // Reset
 	}
 
+	// Marks the block columns in which blocks have changed, so that the entities in these columns check again whether
+	// they are still resting on the ground.
+	private class BlockChangeListener implements Listener {
+
+		BlockChangeListener() {
+		}
+
+		private void onBlockChanged(Block block) {
+			// Most block changes are not located inside the chunks of the entities. We therefore first check the cheap
+			// chunk key index before we look up the chunk's data:
+			World world = block.getWorld();
+			LongHashSet chunkKeys = chunkKeysByWorld.get(world);
+			if (chunkKeys == null) return; // There are no entities in this world
+			int chunkX = ChunkCoords.fromBlock(block.getX());
+			int chunkZ = ChunkCoords.fromBlock(block.getZ());
+			if (!chunkKeys.contains(getChunkKey(chunkX, chunkZ))) return;
+
+			sharedChunkCoords.set(world.getName(), chunkX, chunkZ);
+			ChunkData chunkData = chunks.get(sharedChunkCoords);
+			if (chunkData == null) return;
+			chunkData.dirtyColumns.set(getColumnIndex(block.getX(), block.getZ()));
+		}
+
+		// Note: Most block changes (including those by other plugins) trigger physics updates of the neighboring
+		// blocks, including the block above the changed block.
+		@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+		void onBlockPhysics(BlockPhysicsEvent event) {
+			this.onBlockChanged(event.getBlock());
+		}
+
+		@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+		void onBlockBreak(BlockBreakEvent event) {
+			this.onBlockChanged(event.getBlock());
+		}
+
+		@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+		void onBlockPlace(BlockPlaceEvent event) {
+			this.onBlockChanged(event.getBlock());
+		}
+
+		@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+		void onBlockExplosion(BlockExplodeEvent event) {
+			event.blockList().forEach(this::onBlockChanged);
+		}
+
+		@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+		void onEntityExplosion(EntityExplodeEvent event) {
+			event.blockList().forEach(this::onBlockChanged);
+		}
+	}
+
 	// ENTITY AI
 
 	private void processAI(EntityData entityData) {
 		// Only tick AI if not currently falling:
-		if (!entityData.falling) {
-			LivingEntity entity = entityData.entity;
+		if (entityData.falling) return;
+
+		LivingEntity entity = entityData.entity;
+		if (entityData.aiTierUpdateLimiter.request(Settings.mobBehaviorTickPeriod)) {
+			entityData.aiTier = this.determineAITier(entityData);
+		}
+
+		switch (entityData.aiTier) {
+		case FULL_RATE:
+			fullRateAIEntityCount++;
 			this.tickAI(entity);
+			break;
+		case REDUCED_RATE:
+			reducedRateAIEntityCount++;
+			// Note: We do not compensate for the skipped AI ticks. Consequently, these entities turn their head more
+			// slowly towards players.
+			if (entityData.reducedRateAILimiter.request()) {
+				this.tickAI(entity);
+			}
+			break;
+		case OUT_OF_RANGE:
+			outOfRangeAIEntityCount++;
+			break;
+		default:
+			throw new IllegalStateException("Unexpected AI tier: " + entityData.aiTier);
+		}
+	}
+
+	private AITier determineAITier(EntityData entityData) {
+		Location entityLocation = entityData.entity.getLocation(sharedLocation);
+		double distanceSq = this.getDistanceSqToNearestPlayer(entityData.chunkData.chunkCoords, entityLocation);
+		sharedLocation.setWorld(null); // Reset
+
+		int fullRateRange = Settings.mobAiFullRateRange;
+		if (distanceSq <= fullRateRange * fullRateRange) return AITier.FULL_RATE;
+		int range = Settings.mobAiRange;
+		if (distanceSq <= range * range) return AITier.REDUCED_RATE;
+		return AITier.OUT_OF_RANGE;
+	}
+
+	// Only considers the players in the same and the directly adjacent chunks of the entity's chunk, based on their
+	// tracked chunks: Since the 'mob-ai-range' is at most 12 blocks, players further away are out of range anyway.
+	// Returns Double.MAX_VALUE if there are no players in these chunks.
+	private double getDistanceSqToNearestPlayer(ChunkCoords centerChunk, Location location) {
+		String worldName = centerChunk.getWorldName();
+		int centerChunkX = centerChunk.getChunkX();
+		int centerChunkZ = centerChunk.getChunkZ();
+		double x = location.getX();
+		double y = location.getY();
+		double z = location.getZ();
+		double nearestDistanceSq = Double.MAX_VALUE;
+		for (int chunkX = centerChunkX - 1; chunkX <= centerChunkX + 1; chunkX++) {
+			for (int chunkZ = centerChunkZ - 1; chunkZ <= centerChunkZ + 1; chunkZ++) {
+				sharedChunkCoords.set(worldName, chunkX, chunkZ);
+				List<Player> players = chunkPlayers.get(sharedChunkCoords);
+				if (players == null) continue;
+
+				for (Player player : players) {
+					Location playerLocation = player.getLocation(sharedPlayerLocation);
+					double dx = playerLocation.getX() - x;
+					double dy = playerLocation.getY() - y;
+					double dz = playerLocation.getZ() - z;
+					double distanceSq = dx * dx + dy * dy + dz * dz;
+					if (distanceSq < nearestDistanceSq) {
+						nearestDistanceSq = distanceSq;
+					}
+				}
+			}
 		}
+		sharedPlayerLocation.setWorld(null); // Reset
+		return nearestDistanceSq;
 	}
 
 	// Gets run every behavior update while in range of players:
@@ -624,18 +1064,37 @@ public class LivingEntityAI implements Listener {
 
 	// EVENT HANDLERS
 
-	// By reacting to player joins and teleports we can very quickly activate chunks around players that suddenly
-	// appear near shopkeepers.
+	// By reacting to player joins and movements we can very quickly activate chunks around players that suddenly appear
+	// near shopkeepers.
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	void onPlayerJoin(PlayerJoinEvent event) {
-		// Activate chunks around the player after the server has completely handled the join.
-		// Note: This also checks if the player is still online (some other plugin might have kicked the player during
-		// the event) and otherwise ignores the request.
 		Player player = event.getPlayer();
-		this.activateNearbyChunksDelayed(player);
+		this.updatePlayerChunk(player, player.getLocation(sharedLocation));
+		sharedLocation.setWorld(null); // Reset
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerQuit(PlayerQuitEvent event) {
+		this.removePlayer(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onPlayerMove(PlayerMoveEvent event) {
+		// The target location can be null in some circumstances (eg. when a player enters an end gateway, but there is
+		// no end world). We ignore the event in this case.
+		Location targetLocation = event.getTo();
+		if (targetLocation == null) return;
+
+		// Most movements do not cross chunk borders:
+		if (ChunkCoords.isSameChunk(event.getFrom(), targetLocation)) return;
+
+		this.updatePlayerChunk(event.getPlayer(), targetLocation);
 	}
 
+	// Note: PlayerTeleportEvents use their own handler list and are therefore not handled by onPlayerMove. This also
+	// handles teleports to other worlds, which would otherwise leave the player registered in the chunk of the
+	// previous world.
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	void onPlayerTeleport(PlayerTeleportEvent event) {
 		// The target location can be null in some circumstances (eg. when a player enters an end gateway, but there is
@@ -643,8 +1102,6 @@ public class LivingEntityAI implements Listener {
 		Location targetLocation = event.getTo();
 		if (targetLocation == null) return;
 
-		// Activate chunks around the player after the teleport:
-		Player player = event.getPlayer();
-		this.activateNearbyChunksDelayed(player);
+		this.updatePlayerChunk(event.getPlayer(), targetLocation);
 	}
 }
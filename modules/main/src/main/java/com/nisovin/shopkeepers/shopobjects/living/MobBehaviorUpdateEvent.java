@@ -0,0 +1,81 @@
+package com.nisovin.shopkeepers.shopobjects.living;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A JFR event that is recorded for every behavior update of the {@link LivingEntityAI}.
+ * <p>
+ * This allows the processing time of the shopkeeper mobs to be attributed during production profiling, without having
+ * to enable any debug options. JFR is not available on all Java 8 runtimes, so this class must only be loaded after
+ * checking that JFR is available.
+ */
+@Name("com.nisovin.shopkeepers.MobBehaviorUpdate")
+@Label("Shopkeeper Mob Behavior Update")
+@Category("Shopkeepers")
+@Description("A behavior update (gravity and AI) of the shopkeeper mobs.")
+@StackTrace(false)
+final class MobBehaviorUpdateEvent extends Event {
+
+	/**
+	 * Creates and begins a new {@link MobBehaviorUpdateEvent} if the event is enabled in any active JFR recording.
+	 * 
+	 * @return the started event, or <code>null</code> if the event is not enabled
+	 */
+	static MobBehaviorUpdateEvent beginIfEnabled() {
+		MobBehaviorUpdateEvent event = new MobBehaviorUpdateEvent();
+		if (!event.isEnabled()) return null;
+		event.begin();
+		return event;
+	}
+
+	@Label("Entities")
+	int entities;
+
+	@Label("Active AI Entities")
+	int activeAIEntities;
+
+	@Label("Active Gravity Entities")
+	int activeGravityEntities;
+
+	@Label("Gravity Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long gravityDuration;
+
+	@Label("AI Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long aiDuration;
+
+	private MobBehaviorUpdateEvent() {
+	}
+
+	/**
+	 * Ends and commits this event.
+	 * 
+	 * @param entities
+	 *            the number of entities
+	 * @param activeAIEntities
+	 *            the number of entities whose AI has been processed
+	 * @param activeGravityEntities
+	 *            the number of entities whose gravity has been processed
+	 * @param gravityDurationNanos
+	 *            the duration of the gravity processing in nanoseconds
+	 * @param aiDurationNanos
+	 *            the duration of the AI processing in nanoseconds
+	 */
+	void complete(int entities, int activeAIEntities, int activeGravityEntities, long gravityDurationNanos, long aiDurationNanos) {
+		this.end();
+		if (!this.shouldCommit()) return;
+		this.entities = entities;
+		this.activeAIEntities = activeAIEntities;
+		this.activeGravityEntities = activeGravityEntities;
+		this.gravityDuration = gravityDurationNanos;
+		this.aiDuration = aiDurationNanos;
+		this.commit();
+	}
+}
@@ -52,7 +52,13 @@ public class SpigotText {
 
 		public static void sendMessage(CommandSender recipient, Text message) {
 			assert recipient != null && message != null;
-			BaseComponent component = toSpigot(message);
+			BaseComponent component;
+			if (message.isPlainText()) {
+				// Only uses text, formatting, and placeholders with plain text arguments:
+				component = toSpigot(message.toPlainText());
+			} else {
+				component = toSpigot(message);
+			}
 			if (debugging) {
 				Log.info("Text: " + message);
 				Log.info("Plain text: " + message.toPlainText());
@@ -138,33 +144,10 @@ public class SpigotText {
 			BaseComponent component;
 			boolean ignoreChild = false;
 			if (text instanceof FormattingText) {
-				ChatColor formatting = ((FormattingText) text).getFormatting();
-				if (formatting == ChatColor.RESET) {
-					textStyle.reset();
-					current = newTextComponent(parent, textStyle);
-					current.setColor(toSpigot(ChatColor.RESET));
-				} else if (formatting.isColor()) {
-					textStyle.setColor(formatting);
-					if (current == null || hasText(current) || hasExtra(current)) {
-						current = newTextComponent(parent, textStyle);
-					} else {
-						current.setColor(toSpigot(formatting));
-					}
-				} else {
-					assert formatting.isFormat();
-					textStyle.setFormatting(formatting);
-					if (current == null || hasText(current) || hasExtra(current)) {
-						current = newTextComponent(parent, textStyle);
-					} else {
-						setFormatting(current, formatting);
-					}
-				}
+				current = applyFormatting(((FormattingText) text).getFormatting(), current, parent, textStyle);
 				component = current;
 			} else if (text instanceof PlainText) {
-				if (current == null || hasText(current) || hasExtra(current)) {
-					current = newTextComponent(parent, textStyle);
-				}
-				current.setText(((PlainText) text).getText());
+				current = appendText(((PlainText) text).getText(), current, parent, textStyle);
 				component = current;
 			} else if (text instanceof PlaceholderText) {
 				PlaceholderText placeholderText = (PlaceholderText) text;
@@ -238,6 +221,69 @@ public class SpigotText {
 			return component;
 		}
 
+		// Converts the given plain text with legacy color codes in a single pass. The resulting components match the
+		// conversion of the corresponding parsed Text.
+		private static BaseComponent toSpigot(String plainText) {
+			assert plainText != null;
+			BaseComponent root = new TextComponent();
+			TextStyle textStyle = new TextStyle();
+			TextComponent current = null;
+			final int length = plainText.length();
+			int textStart = 0;
+			for (int i = 0; i < length - 1; ++i) {
+				if (plainText.charAt(i) != ChatColor.COLOR_CHAR) continue;
+				ChatColor formatting = ChatColor.getByChar(Character.toLowerCase(plainText.charAt(i + 1)));
+				if (formatting == null) continue; // Treat as regular character
+
+				if (textStart < i) {
+					current = appendText(plainText.substring(textStart, i), current, root, textStyle);
+				}
+				current = applyFormatting(formatting, current, root, textStyle);
+				i += 1; // Skip color character
+				textStart = i + 1;
+			}
+			if (textStart < length) {
+				appendText(plainText.substring(textStart), current, root, textStyle);
+			}
+			return root;
+		}
+
+		// Returns the new current component.
+		private static TextComponent applyFormatting(ChatColor formatting, TextComponent current, BaseComponent parent, TextStyle textStyle) {
+			assert formatting != null && parent != null && textStyle != null;
+			if (formatting == ChatColor.RESET) {
+				textStyle.reset();
+				current = newTextComponent(parent, textStyle);
+				current.setColor(toSpigot(ChatColor.RESET));
+			} else if (formatting.isColor()) {
+				textStyle.setColor(formatting);
+				if (current == null || hasText(current) || hasExtra(current)) {
+					current = newTextComponent(parent, textStyle);
+				} else {
+					current.setColor(toSpigot(formatting));
+				}
+			} else {
+				assert formatting.isFormat();
+				textStyle.setFormatting(formatting);
+				if (current == null || hasText(current) || hasExtra(current)) {
+					current = newTextComponent(parent, textStyle);
+				} else {
+					setFormatting(current, formatting);
+				}
+			}
+			return current;
+		}
+
+		// Returns the new current component.
+		private static TextComponent appendText(String text, TextComponent current, BaseComponent parent, TextStyle textStyle) {
+			assert text != null && parent != null && textStyle != null;
+			if (current == null || hasText(current) || hasExtra(current)) {
+				current = newTextComponent(parent, textStyle);
+			}
+			current.setText(text);
+			return current;
+		}
+
 		private static TextComponent newTextComponent(BaseComponent parent, TextStyle textStyle) {
 			assert parent != null && textStyle != null;
 			TextComponent component = new TextComponent();
@@ -24,9 +24,6 @@ public abstract class AbstractText implements Text {
 	private Text child = null;
 	private Text next = null;
 
-	// TODO Cache plain text? Requires childs to inform parents on changes to their translation or placeholder
-	// arguments. -> Might not even be worth it in the presence of dynamic arguments.
-
 	protected AbstractText() {
 	}
 
@@ -172,8 +169,24 @@ public abstract class AbstractText implements Text {
 
 	// PLAIN TEXT
 
+	/**
+	 * Gets the {@link CompiledText} of this Text, which is used to render its plain text in a single pass.
+	 * <p>
+	 * Only Texts whose structure can no longer change can be compiled.
+	 * 
+	 * @return the compiled Text, or <code>null</code> if this Text cannot be compiled
+	 */
+	CompiledText getCompiledText() {
+		return null;
+	}
+
 	@Override
 	public String toPlainText() {
+		CompiledText compiledText = this.getCompiledText();
+		if (compiledText != null) {
+			return compiledText.toPlainText();
+		}
+
 		StringBuilder builder = new StringBuilder();
 		this.appendPlainText(builder, false);
 		return builder.toString();
@@ -181,6 +194,11 @@ public abstract class AbstractText implements Text {
 
 	@Override
 	public String toPlainFormatText() {
+		CompiledText compiledText = this.getCompiledText();
+		if (compiledText != null) {
+			return compiledText.toPlainFormatText();
+		}
+
 		StringBuilder builder = new StringBuilder();
 		this.appendPlainText(builder, true);
 		return builder.toString();
@@ -202,6 +220,11 @@ public abstract class AbstractText implements Text {
 
 	@Override
 	public boolean isPlainText() {
+		CompiledText compiledText = this.getCompiledText();
+		if (compiledText != null) {
+			return compiledText.isPlainText();
+		}
+
 		// Child:
 		Text child = this.getChild();
 		if (child != null && !child.isPlainText()) {
@@ -0,0 +1,131 @@
+package com.nisovin.shopkeepers.text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A flattened representation of a built {@link Text} that only consists of {@link PlainText plain texts},
+ * {@link FormattingText formattings} and {@link PlaceholderText placeholders}, such as the Texts produced by
+ * {@link Text#parse(String)}.
+ * <p>
+ * The Text is flattened into an immutable array of literal segments, which already contain the corresponding color and
+ * formatting codes, and placeholder segments. The placeholder segments dynamically render the currently assigned
+ * placeholder arguments. The plain text of Texts without placeholders and the plain format text of all Texts are
+ * rendered only once.
+ * <p>
+ * This relies on the structure of built Texts not changing anymore.
+ */
+final class CompiledText {
+
+	/**
+	 * Flattens the given built {@link Text}.
+	 * 
+	 * @param text
+	 *            the built Text
+	 * @return the compiled Text, or <code>null</code> if the Text uses other text features than plain text, formatting
+	 *         or placeholders
+	 */
+	static CompiledText compile(Text text) {
+		assert text != null;
+		List<Object> segments = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		if (!flatten(text, segments, literal)) return null;
+		if (literal.length() > 0) {
+			segments.add(literal.toString());
+		}
+		return new CompiledText(segments.toArray());
+	}
+
+	// Returns false if the Text cannot be flattened.
+	private static boolean flatten(Text text, List<Object> segments, StringBuilder literal) {
+		while (text != null) {
+			if (text instanceof PlaceholderText) {
+				// The placeholder argument is rendered dynamically:
+				if (literal.length() > 0) {
+					segments.add(literal.toString());
+					literal.setLength(0);
+				}
+				segments.add(text);
+				text = text.getNext();
+				continue;
+			}
+
+			if (text instanceof PlainText) {
+				literal.append(((PlainText) text).getText());
+			} else if (text instanceof FormattingText) {
+				literal.append(((FormattingText) text).getFormatting().toString());
+			} else {
+				return false;
+			}
+
+			Text child = text.getChild();
+			if (child != null && !flatten(child, segments, literal)) {
+				return false;
+			}
+			text = text.getNext();
+		}
+		return true;
+	}
+
+	// Literal Strings (including formatting codes) and PlaceholderTexts:
+	private final Object[] segments;
+	private final boolean hasPlaceholders;
+	// Cached renderings:
+	private final String plainText; // Null if there are placeholders
+	private final String plainFormatText; // Not null
+
+	private CompiledText(Object[] segments) {
+		assert segments != null;
+		this.segments = segments;
+
+		boolean hasPlaceholders = false;
+		StringBuilder builder = new StringBuilder();
+		for (Object segment : segments) {
+			if (segment instanceof PlaceholderText) {
+				hasPlaceholders = true;
+				builder.append(((PlaceholderText) segment).getFormattedPlaceholderKey());
+			} else {
+				builder.append((String) segment);
+			}
+		}
+		this.hasPlaceholders = hasPlaceholders;
+		this.plainFormatText = builder.toString();
+		this.plainText = hasPlaceholders ? null : plainFormatText;
+	}
+
+	String toPlainText() {
+		if (plainText != null) return plainText; // Static text
+
+		StringBuilder builder = new StringBuilder();
+		for (Object segment : segments) {
+			if (segment instanceof PlaceholderText) {
+				PlaceholderText placeholder = (PlaceholderText) segment;
+				Text argument = placeholder.getPlaceholderArgument();
+				if (argument != null) {
+					builder.append(argument.toPlainText());
+				} else {
+					builder.append(placeholder.getFormattedPlaceholderKey());
+				}
+			} else {
+				builder.append((String) segment);
+			}
+		}
+		return builder.toString();
+	}
+
+	String toPlainFormatText() {
+		return plainFormatText;
+	}
+
+	boolean isPlainText() {
+		if (!hasPlaceholders) return true;
+		for (Object segment : segments) {
+			if (!(segment instanceof PlaceholderText)) continue;
+			Text argument = ((PlaceholderText) segment).getPlaceholderArgument();
+			if (argument != null && !argument.isPlainText()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
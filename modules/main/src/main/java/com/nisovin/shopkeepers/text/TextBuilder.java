@@ -17,6 +17,9 @@ import com.nisovin.shopkeepers.util.text.MessageArguments;
 public abstract class TextBuilder extends AbstractText {
 
 	private boolean built = false;
+	// Lazily setup once the Text has been built:
+	private CompiledText compiledText = null;
+	private boolean compilable = true;
 
 	protected TextBuilder() {
 	}
@@ -76,6 +79,22 @@ public abstract class TextBuilder extends AbstractText {
 		return (text instanceof TextBuilder) && !((TextBuilder) text).isBuilt();
 	}
 
+	// PLAIN TEXT
+
+	@Override
+	CompiledText getCompiledText() {
+		// The structure of built Texts can no longer change:
+		if (!built || !compilable) return null;
+		if (compiledText == null) {
+			compiledText = CompiledText.compile(this);
+			if (compiledText == null) {
+				// Uses text features that cannot be flattened:
+				compilable = false;
+			}
+		}
+		return compiledText;
+	}
+
 	// PLACEHOLDER ARGUMENTS
 
 	@Override
@@ -0,0 +1,267 @@
+package com.nisovin.shopkeepers.tradelog;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.bukkit.SingletonTask;
+import com.nisovin.shopkeepers.util.java.Retry;
+import com.nisovin.shopkeepers.util.java.ThrowableUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.java.VoidCallable;
+import com.nisovin.shopkeepers.util.logging.Log;
+import com.nisovin.shopkeepers.util.yaml.YamlUtils;
+
+/**
+ * Base class for {@link TradeLogger}s that buffer the logged trades and then write them to storage in batches via an
+ * asynchronous save task.
+ * <p>
+ * This handles the scheduling of delayed saves, the retrying of failed writes, and informing admins about failed
+ * saves. Subclasses are responsible for buffering the trades and writing them to storage.
+ */
+public abstract class AbstractTradeLogger implements TradeLogger {
+
+	private static final int DELAYED_SAVE_TICKS = 600; // 30 seconds
+
+	private static final int SAVE_MAX_ATTEMPTS = 20;
+	private static final long SAVE_RETRY_DELAY_MILLIS = 25L;
+	protected static final long SAVE_ERROR_MSG_THROTTLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	protected final Plugin plugin;
+	// The name of the trade log, used in log and error messages. Eg. "CSV trade log".
+	private final String logName;
+	private final SaveTask saveTask;
+	private BukkitTask delayedSaveTask = null;
+	private boolean lastSaveFailed = false;
+	private long lastSaveErrorMsgMillis = 0L;
+	// This is reset to the current configuration value prior to every save. This ensures that the value of this setting
+	// remains constant during the save and does not differ for the items of the trades that are being saved as part of
+	// the same batch.
+	protected boolean logItemMetadata;
+
+	protected AbstractTradeLogger(Plugin plugin, String logName) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notEmpty(logName, "logName is null or empty");
+		this.plugin = plugin;
+		this.logName = logName;
+		this.saveTask = new SaveTask(plugin);
+	}
+
+	@Override
+	public void flush() {
+		this.savePending();
+		saveTask.awaitExecutions();
+	}
+
+	/**
+	 * Checks whether there are trades that still need to be saved.
+	 *
+	 * @return <code>true</code> if there are trades to save
+	 */
+	protected abstract boolean isDirty();
+
+	protected final void savePendingDelayed() {
+		if (!this.isDirty()) {
+			// There are no pending trades to save:
+			return;
+		}
+		if (delayedSaveTask != null) {
+			// There is already a delayed save in progress:
+			return;
+		}
+
+		delayedSaveTask = SchedulerUtils.runTaskLaterOrOmit(plugin, () -> {
+			delayedSaveTask = null;
+			this.savePending();
+		}, DELAYED_SAVE_TICKS);
+	}
+
+	private void cancelDelayedSave() {
+		if (delayedSaveTask != null) {
+			delayedSaveTask.cancel();
+			delayedSaveTask = null;
+		}
+	}
+
+	protected final void savePending() {
+		if (!this.isDirty()) {
+			// There are no pending trades to save:
+			return;
+		}
+		this.runSave();
+	}
+
+	// Runs the save task even if there are no trades to save.
+	protected final void runSave() {
+		saveTask.run(); // Usually async, but may be sync during plugin disable
+	}
+
+	protected final boolean isLastSaveFailed() {
+		return lastSaveFailed;
+	}
+
+	// Only valid during and after the save task's sync callback.
+	protected final long getSaveExecutionDuration() {
+		return saveTask.getExecutionDuration();
+	}
+
+	// Only valid during and after the save task's sync callback.
+	protected final String getSaveTimingString() {
+		return saveTask.getExecutionTimingString();
+	}
+
+	/**
+	 * Prepares the save on the server's main thread.
+	 * <p>
+	 * Subclasses are expected to move their buffered trades into the batch of trades that is saved. The default
+	 * implementation resets the local logItemMetadata setting.
+	 */
+	protected void prepareSave() {
+		logItemMetadata = Settings.logItemMetadata;
+	}
+
+	/**
+	 * Saves the trades that have been prepared by {@link #prepareSave()}.
+	 * <p>
+	 * This is usually invoked asynchronously.
+	 *
+	 * @return <code>true</code> if the save succeeded
+	 */
+	protected abstract boolean executeSave();
+
+	/**
+	 * Invoked on the server's main thread after the save has been executed.
+	 * <p>
+	 * If the save failed, subclasses are expected to requeue the unsaved trades. Afterwards, a delayed retry of the
+	 * save is scheduled and admins are informed about the issue.
+	 *
+	 * @param saveSucceeded
+	 *            <code>true</code> if the save succeeded
+	 */
+	protected abstract void onSaveCompleted(boolean saveSucceeded);
+
+	private class SaveTask extends SingletonTask {
+
+		private boolean saveSucceeded = false;
+
+		SaveTask(Plugin plugin) {
+			super(plugin);
+		}
+
+		@Override
+		protected void prepare() {
+			// Stop any active delayed save task:
+			cancelDelayedSave();
+
+			prepareSave();
+		}
+
+		@Override
+		protected void execute() {
+			saveSucceeded = executeSave();
+		}
+
+		@Override
+		protected void syncCallback() {
+			lastSaveFailed = !saveSucceeded;
+			onSaveCompleted(saveSucceeded);
+
+			if (!saveSucceeded) {
+				// Save failed:
+
+				// Attempt the save again after a short delay:
+				// However, during the final save attempt during plugin disable, this is skipped and data might be lost.
+				savePendingDelayed();
+
+				// Inform admins about the issue (throttled to once every 5 minutes):
+				long nowMillis = System.currentTimeMillis();
+				if (Math.abs(nowMillis - lastSaveErrorMsgMillis) > SAVE_ERROR_MSG_THROTTLE_MILLIS) {
+					lastSaveErrorMsgMillis = nowMillis;
+					String errorMsg = ChatColor.DARK_RED + "[Shopkeepers] " + ChatColor.RED + "Logging trades to the "
+							+ logName + " failed! Please check the server logs and look into the issue!";
+					for (Player player : Bukkit.getOnlinePlayers()) {
+						if (player.hasPermission(ShopkeepersPlugin.ADMIN_PERMISSION)) {
+							player.sendMessage(errorMsg);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the given write operation, and retries it a limited number of times if it fails.
+	 * <p>
+	 * The write operation needs to ensure that reattempts do not log any trades a second time.
+	 * <p>
+	 * May be invoked asynchronously.
+	 *
+	 * @param write
+	 *            the write operation
+	 * @return <code>true</code> on success
+	 */
+	protected final boolean writeWithRetry(VoidCallable write) {
+		try {
+			Retry.retry(write, SAVE_MAX_ATTEMPTS, (attemptNumber, exception, retry) -> {
+				// Trade logging failed:
+				assert exception != null;
+				// Don't spam with errors and stacktraces: Only print them once for the first failed saving attempt
+				// (and again for the last failed attempt), and otherwise log a compact description of the issue:
+				String errorMsg = "Failed to log trades to the " + logName + " (attempt " + attemptNumber + ")";
+				if (attemptNumber == 1) {
+					Log.severe(errorMsg, exception);
+				} else {
+					String issue = ThrowableUtils.getDescription(exception);
+					Log.severe(errorMsg + ": " + issue);
+				}
+
+				// Try again after a small delay:
+				if (retry) {
+					try {
+						Thread.sleep(SAVE_RETRY_DELAY_MILLIS);
+					} catch (InterruptedException e) {
+						// Restore the interrupt status for anyone interested in it, but otherwise ignore the interrupt
+						// here, because we prefer to keep retrying to still save the data to disk after all:
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			return true;
+		} catch (Exception e) {
+			Log.severe("Failed to log trades to the " + logName + "! Data might have been lost! :(", e);
+			return false;
+		}
+	}
+
+	// Note: We log the item metadata in Yaml format. Since this is what Bukkit natively supports for serializing and
+	// deserializing ItemStacks, this ensures that we are able to load the data again and recreate the original
+	// ItemStack (if we ever wish to).
+	// An alternative would be to log it in Json format, which may have better library support across languages.
+	// However, Gson (the Json library included with the Minecraft server and Bukkit) will not properly preserve certain
+	// data types by default (at least not if we don't provide detailed custom deserializers for every type of data that
+	// we may want to deserialize, or a deserializer that replicates Yaml's parsing of certain primitive types, which is
+	// actually not that easily possible): For instance, if the numeric data type of a loaded Json number is unknown,
+	// Gson loads it as a double by default (without there being an easy way to change that). But since some parts of
+	// Bukkit's ItemStack deserialization have strict expectations regarding the type of data to deserialize, the
+	// deserialization from Json may fail for this data.
+	public static String serializeItemMetadata(UnmodifiableItemStack itemStack) {
+		// If the logging of item metadata is enabled, we not only store the item's ItemMeta (if it has any), but also
+		// its data version. We therefore serialize the complete item stack here, but then remove the item's type and
+		// amount again, since these properties are already getting stored separately.
+		Map<String, Object> itemData = itemStack.serialize(); // Assert: The returned Map is modifiable.
+		itemData.remove("type");
+		itemData.remove("amount");
+		// In order to ensure single-line records, we format the Yaml compactly:
+		String yaml = YamlUtils.toCompactYaml(itemData);
+		return yaml;
+	}
+}
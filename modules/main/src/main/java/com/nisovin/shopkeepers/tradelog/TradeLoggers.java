@@ -12,9 +12,12 @@ import org.bukkit.plugin.Plugin;
 
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
 import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.tradelog.binary.BinaryTradeLogger;
 import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogger;
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.tradelog.sqlite.SqliteTradeLogger;
 import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
 import com.nisovin.shopkeepers.util.trading.MergedTrades;
 import com.nisovin.shopkeepers.util.trading.TradeMerger;
 import com.nisovin.shopkeepers.util.trading.TradeMerger.MergeMode;
@@ -31,6 +34,8 @@ public class TradeLoggers implements Listener {
 	// the typically chosen merge durations to be small enough for this to not be an issue. Also, the order in which the
 	// trades took place is still preserved.
 	private TradeMerger tradeMerger;
+	private CsvTradeLogger csvTradeLogger = null; // Null if disabled
+	private SqliteTradeLogger sqliteTradeLogger = null; // Null if disabled
 	private boolean enabled = false;
 
 	public TradeLoggers(Plugin plugin) {
@@ -52,7 +57,19 @@ public class TradeLoggers implements Listener {
 		tradeMerger.onEnable();
 
 		if (Settings.logTradesToCsv) {
-			loggers.add(new CsvTradeLogger(plugin));
+			csvTradeLogger = new CsvTradeLogger(plugin);
+			loggers.add(csvTradeLogger);
+		}
+		if (Settings.logTradesToSqlite) {
+			if (SqliteTradeLogger.isDriverAvailable()) {
+				sqliteTradeLogger = new SqliteTradeLogger(plugin);
+				loggers.add(sqliteTradeLogger);
+			} else {
+				Log.warning("Cannot log trades to SQLite: The server does not provide the SQLite JDBC driver!");
+			}
+		}
+		if (Settings.logTradesToBinary) {
+			loggers.add(new BinaryTradeLogger(plugin));
 		}
 
 		Bukkit.getPluginManager().registerEvents(this, plugin);
@@ -71,6 +88,26 @@ public class TradeLoggers implements Listener {
 		// Wait for any pending writes to complete:
 		loggers.forEach(TradeLogger::flush);
 		loggers.clear();
+		csvTradeLogger = null;
+		sqliteTradeLogger = null;
+	}
+
+	/**
+	 * Gets the {@link CsvTradeLogger}.
+	 * 
+	 * @return the CSV trade logger, or <code>null</code> if the logging of trades to CSV is disabled
+	 */
+	public CsvTradeLogger getCsvTradeLogger() {
+		return csvTradeLogger;
+	}
+
+	/**
+	 * Gets the {@link SqliteTradeLogger}.
+	 * 
+	 * @return the SQLite trade logger, or <code>null</code> if the logging of trades to SQLite is disabled
+	 */
+	public SqliteTradeLogger getSqliteTradeLogger() {
+		return sqliteTradeLogger;
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -0,0 +1,538 @@
+package com.nisovin.shopkeepers.tradelog.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
+import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.java.StringUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.java.VarInts;
+import com.nisovin.shopkeepers.util.yaml.YamlUtils;
+
+/**
+ * A block of trades of a binary trade log file.
+ * <p>
+ * The trades of a block are stored column by column: The players, shops, and items that are referenced by the trades
+ * of the block are stored once inside dictionaries at the start of the block, and the trades refer to them by their
+ * index. The timestamps are stored as the differences to their preceding timestamps, and all numbers are stored as
+ * variable-length integers. This allows aggregations over certain columns (eg. the traded items and amounts) to be
+ * computed without having to construct the {@link TradeRecord}s and their items.
+ * <p>
+ * The items of trades are only deserialized on demand, and at most once for each distinct item of the block.
+ */
+public class BinaryTradeLogBlock {
+
+	/**
+	 * Encodes the given trades into the payload of a block.
+	 * 
+	 * @param trades
+	 *            the trades, not empty, in the order in which they took place
+	 * @param itemMetadataProvider
+	 *            provides the serialized metadata of the given items, or an empty String if the item metadata is not
+	 *            logged
+	 * @return the payload
+	 */
+	static byte[] encode(List<? extends TradeRecord> trades, Function<UnmodifiableItemStack, String> itemMetadataProvider) {
+		assert trades != null && !trades.isEmpty() && itemMetadataProvider != null;
+		return new Encoder(itemMetadataProvider).encode(trades);
+	}
+
+	private static class Encoder {
+
+		private final Function<UnmodifiableItemStack, String> itemMetadataProvider;
+		private final Map<PlayerRecord, Integer> playerIds = new LinkedHashMap<>();
+		private final Map<ShopRecord, Integer> shopIds = new LinkedHashMap<>();
+		// Item type names do not contain colons: "<type>:<metadata>"
+		private final Map<String, Integer> itemIds = new HashMap<>();
+		private final List<String> itemTypes = new ArrayList<>();
+		private final List<String> itemMetadata = new ArrayList<>();
+
+		Encoder(Function<UnmodifiableItemStack, String> itemMetadataProvider) {
+			this.itemMetadataProvider = itemMetadataProvider;
+		}
+
+		byte[] encode(List<? extends TradeRecord> trades) {
+			int tradesCount = trades.size();
+			long[] timestamps = new long[tradesCount];
+			int[] playerColumn = new int[tradesCount];
+			int[] shopColumn = new int[tradesCount];
+			int[] item1Column = new int[tradesCount];
+			int[] item1Amounts = new int[tradesCount];
+			int[] item2Column = new int[tradesCount]; // -1 if there is no second item
+			int[] item2Amounts = new int[tradesCount]; // 0 if there is no second item
+			int[] resultItemColumn = new int[tradesCount];
+			int[] resultItemAmounts = new int[tradesCount];
+			int[] tradeCounts = new int[tradesCount];
+
+			for (int i = 0; i < tradesCount; i++) {
+				TradeRecord trade = trades.get(i);
+				timestamps[i] = trade.getTimestamp().toEpochMilli();
+				playerColumn[i] = this.getPlayerId(trade.getPlayer());
+				shopColumn[i] = this.getShopId(trade.getShop());
+				item1Column[i] = this.getItemId(trade.getItem1());
+				item1Amounts[i] = trade.getItem1().getAmount();
+				UnmodifiableItemStack item2 = trade.getItem2(); // Can be null
+				item2Column[i] = (item2 != null) ? this.getItemId(item2) : -1;
+				item2Amounts[i] = (item2 != null) ? item2.getAmount() : 0;
+				resultItemColumn[i] = this.getItemId(trade.getResultItem());
+				resultItemAmounts[i] = trade.getResultItem().getAmount();
+				tradeCounts[i] = trade.getTradeCount();
+			}
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (DataOutputStream out = new DataOutputStream(bytes)) {
+				VarInts.writeVarInt(out, tradesCount);
+
+				// Dictionaries:
+				VarInts.writeVarInt(out, playerIds.size());
+				for (PlayerRecord player : playerIds.keySet()) {
+					writeUUID(out, player.getUniqueId());
+					writeString(out, player.getName());
+				}
+				VarInts.writeVarInt(out, shopIds.size());
+				for (ShopRecord shop : shopIds.keySet()) {
+					writeUUID(out, shop.getUniqueId());
+					writeString(out, shop.getTypeId());
+					writeString(out, shop.getName());
+					PlayerRecord owner = shop.getOwner();
+					VarInts.writeVarInt(out, (owner != null) ? (playerIds.get(owner) + 1) : 0);
+					writeString(out, StringUtils.getOrEmpty(shop.getWorldName()));
+					VarInts.writeSignedVarLong(out, shop.getX());
+					VarInts.writeSignedVarLong(out, shop.getY());
+					VarInts.writeSignedVarLong(out, shop.getZ());
+				}
+				VarInts.writeVarInt(out, itemTypes.size());
+				for (int itemId = 0; itemId < itemTypes.size(); itemId++) {
+					writeString(out, itemTypes.get(itemId));
+					writeString(out, itemMetadata.get(itemId));
+				}
+
+				// Columns:
+				long previousTimestamp = 0L;
+				for (long timestamp : timestamps) {
+					VarInts.writeSignedVarLong(out, timestamp - previousTimestamp);
+					previousTimestamp = timestamp;
+				}
+				writeColumn(out, playerColumn);
+				writeColumn(out, shopColumn);
+				writeColumn(out, item1Column);
+				writeColumn(out, item1Amounts);
+				for (int itemId : item2Column) {
+					VarInts.writeVarInt(out, itemId + 1); // 0 if there is no second item
+				}
+				writeColumn(out, item2Amounts);
+				writeColumn(out, resultItemColumn);
+				writeColumn(out, resultItemAmounts);
+				writeColumn(out, tradeCounts);
+			} catch (IOException e) {
+				throw new AssertionError(e); // Not expected to occur for in-memory streams
+			}
+			return bytes.toByteArray();
+		}
+
+		private int getPlayerId(PlayerRecord player) {
+			return playerIds.computeIfAbsent(player, key -> playerIds.size());
+		}
+
+		private int getShopId(ShopRecord shop) {
+			Integer shopId = shopIds.get(shop);
+			if (shopId != null) return shopId;
+
+			// The owner is referenced via the players dictionary:
+			PlayerRecord owner = shop.getOwner();
+			if (owner != null) {
+				this.getPlayerId(owner);
+			}
+			shopId = shopIds.size();
+			shopIds.put(shop, shopId);
+			return shopId;
+		}
+
+		private int getItemId(UnmodifiableItemStack itemStack) {
+			String type = itemStack.getType().name();
+			String metadata = itemMetadataProvider.apply(itemStack);
+			return itemIds.computeIfAbsent(type + ":" + metadata, key -> {
+				itemTypes.add(type);
+				itemMetadata.add(metadata);
+				return itemTypes.size() - 1;
+			});
+		}
+	}
+
+	private static void writeUUID(DataOutput out, UUID uuid) throws IOException {
+		out.writeLong(uuid.getMostSignificantBits());
+		out.writeLong(uuid.getLeastSignificantBits());
+	}
+
+	private static UUID readUUID(DataInput in) throws IOException {
+		return new UUID(in.readLong(), in.readLong());
+	}
+
+	// Unlike DataOutput#writeUTF, this is not limited in length.
+	private static void writeString(DataOutput out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		VarInts.writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = VarInts.readVarInt(in);
+		if (length > in.available()) {
+			throw new IOException("String length exceeds the block size: " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeColumn(DataOutput out, int[] column) throws IOException {
+		for (int value : column) {
+			VarInts.writeVarInt(out, value);
+		}
+	}
+
+	private static int[] readColumn(DataInput in, int length, int bound) throws IOException {
+		int[] column = new int[length];
+		for (int i = 0; i < length; i++) {
+			column[i] = readBoundedVarInt(in, bound);
+		}
+		return column;
+	}
+
+	// Reads a variable-length integer that is smaller than the given bound.
+	private static int readBoundedVarInt(DataInput in, int bound) throws IOException {
+		int value = VarInts.readVarInt(in);
+		if (value >= bound) {
+			throw new IOException("Value out of bounds: " + value);
+		}
+		return value;
+	}
+
+	/**
+	 * Decodes the given block payload.
+	 * 
+	 * @param payload
+	 *            the payload
+	 * @return the decoded block
+	 * @throws IOException
+	 *             if the payload is invalid
+	 */
+	static BinaryTradeLogBlock decode(byte[] payload) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+			return new BinaryTradeLogBlock(in);
+		} catch (IllegalArgumentException e) {
+			// Invalid player or shop data:
+			throw new IOException("Invalid block data: " + e.getMessage(), e);
+		}
+	}
+
+	private final int tradesCount;
+	private final PlayerRecord[] players;
+	private final ShopRecord[] shops;
+	private final String[] itemTypes;
+	private final String[] itemMetadata;
+	private final ItemStack[] itemStacks; // Lazily deserialized, with an amount of 1
+	private final long[] timestamps;
+	private final int[] playerColumn;
+	private final int[] shopColumn;
+	private final int[] item1Column;
+	private final int[] item1Amounts;
+	private final int[] item2Column; // -1 if there is no second item
+	private final int[] item2Amounts; // 0 if there is no second item
+	private final int[] resultItemColumn;
+	private final int[] resultItemAmounts;
+	private final int[] tradeCounts;
+
+	private BinaryTradeLogBlock(DataInputStream in) throws IOException {
+		tradesCount = VarInts.readVarInt(in);
+		// Each trade occupies at least one byte in each column:
+		if (tradesCount > in.available()) {
+			throw new IOException("Trades count exceeds the block size: " + tradesCount);
+		}
+
+		// Dictionaries:
+		int playersCount = readBoundedVarInt(in, in.available() + 1);
+		players = new PlayerRecord[playersCount];
+		for (int i = 0; i < playersCount; i++) {
+			UUID uniqueId = readUUID(in);
+			players[i] = PlayerRecord.of(uniqueId, readString(in));
+		}
+		int shopsCount = readBoundedVarInt(in, in.available() + 1);
+		shops = new ShopRecord[shopsCount];
+		for (int i = 0; i < shopsCount; i++) {
+			UUID uniqueId = readUUID(in);
+			String typeId = readString(in);
+			String name = readString(in);
+			int ownerId = readBoundedVarInt(in, playersCount + 1) - 1;
+			PlayerRecord owner = (ownerId >= 0) ? players[ownerId] : null;
+			String worldName = StringUtils.getNotEmpty(readString(in)); // Null for virtual shops
+			int x = (int) VarInts.readSignedVarLong(in);
+			int y = (int) VarInts.readSignedVarLong(in);
+			int z = (int) VarInts.readSignedVarLong(in);
+			shops[i] = new ShopRecord(uniqueId, typeId, owner, name, worldName, x, y, z);
+		}
+		int itemsCount = readBoundedVarInt(in, in.available() + 1);
+		itemTypes = new String[itemsCount];
+		itemMetadata = new String[itemsCount];
+		itemStacks = new ItemStack[itemsCount];
+		for (int i = 0; i < itemsCount; i++) {
+			itemTypes[i] = readString(in);
+			itemMetadata[i] = readString(in);
+		}
+
+		// Columns:
+		timestamps = new long[tradesCount];
+		long timestamp = 0L;
+		for (int i = 0; i < tradesCount; i++) {
+			timestamp += VarInts.readSignedVarLong(in);
+			timestamps[i] = timestamp;
+		}
+		playerColumn = readColumn(in, tradesCount, playersCount);
+		shopColumn = readColumn(in, tradesCount, shopsCount);
+		item1Column = readColumn(in, tradesCount, itemsCount);
+		item1Amounts = readColumn(in, tradesCount, Integer.MAX_VALUE);
+		item2Column = readColumn(in, tradesCount, itemsCount + 1);
+		for (int i = 0; i < tradesCount; i++) {
+			item2Column[i] -= 1;
+		}
+		item2Amounts = readColumn(in, tradesCount, Integer.MAX_VALUE);
+		resultItemColumn = readColumn(in, tradesCount, itemsCount);
+		resultItemAmounts = readColumn(in, tradesCount, Integer.MAX_VALUE);
+		tradeCounts = readColumn(in, tradesCount, Integer.MAX_VALUE);
+
+		if (in.available() > 0) {
+			throw new IOException("Unexpected data at the end of the block!");
+		}
+	}
+
+	/**
+	 * Gets the number of trades in this block.
+	 * 
+	 * @return the number of trades
+	 */
+	public int size() {
+		return tradesCount;
+	}
+
+	/**
+	 * Gets the timestamp of the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the timestamp in milliseconds since the epoch
+	 */
+	public long getTimestampMillis(int index) {
+		return timestamps[index];
+	}
+
+	/**
+	 * Gets the player of the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the player
+	 */
+	public PlayerRecord getPlayer(int index) {
+		return players[playerColumn[index]];
+	}
+
+	/**
+	 * Gets the shop of the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the shop
+	 */
+	public ShopRecord getShop(int index) {
+		return shops[shopColumn[index]];
+	}
+
+	/**
+	 * Gets the id of the first item of the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the item id
+	 * @see #getItemType(int)
+	 */
+	public int getItem1Id(int index) {
+		return item1Column[index];
+	}
+
+	/**
+	 * Gets the amount of the first item of the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the item amount
+	 */
+	public int getItem1Amount(int index) {
+		return item1Amounts[index];
+	}
+
+	/**
+	 * Gets the id of the second item of the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the item id, or <code>-1</code> if the trade has no second item
+	 * @see #getItemType(int)
+	 */
+	public int getItem2Id(int index) {
+		return item2Column[index];
+	}
+
+	/**
+	 * Gets the amount of the second item of the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the item amount, or <code>0</code> if the trade has no second item
+	 */
+	public int getItem2Amount(int index) {
+		return item2Amounts[index];
+	}
+
+	/**
+	 * Gets the id of the result item of the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the item id
+	 * @see #getItemType(int)
+	 */
+	public int getResultItemId(int index) {
+		return resultItemColumn[index];
+	}
+
+	/**
+	 * Gets the amount of the result item of the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the item amount
+	 */
+	public int getResultItemAmount(int index) {
+		return resultItemAmounts[index];
+	}
+
+	/**
+	 * Gets the number of equivalent trades that are represented by the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the trade count
+	 */
+	public int getTradeCount(int index) {
+		return tradeCounts[index];
+	}
+
+	/**
+	 * Gets the type name of the item with the given id.
+	 * <p>
+	 * Item ids are only valid within the same block.
+	 * 
+	 * @param itemId
+	 *            the item id
+	 * @return the item type name
+	 */
+	public String getItemType(int itemId) {
+		return itemTypes[itemId];
+	}
+
+	/**
+	 * Gets the serialized metadata of the item with the given id.
+	 * <p>
+	 * Item ids are only valid within the same block.
+	 * 
+	 * @param itemId
+	 *            the item id
+	 * @return the serialized item metadata, empty if the item metadata has not been logged
+	 */
+	public String getItemMetadata(int itemId) {
+		return itemMetadata[itemId];
+	}
+
+	/**
+	 * Gets the item with the given id and amount.
+	 * <p>
+	 * Item ids are only valid within the same block.
+	 * 
+	 * @param itemId
+	 *            the item id
+	 * @param amount
+	 *            the item amount
+	 * @return the item
+	 * @throws IllegalArgumentException
+	 *             if the item cannot be deserialized
+	 */
+	public UnmodifiableItemStack getItem(int itemId, int amount) {
+		ItemStack itemStack = itemStacks[itemId];
+		if (itemStack == null) {
+			itemStack = deserializeItem(itemTypes[itemId], itemMetadata[itemId]);
+			itemStacks[itemId] = itemStack;
+		}
+		return UnmodifiableItemStack.of(ItemUtils.copyWithAmount(itemStack, amount));
+	}
+
+	// See CsvTradeLogReader#parseItem.
+	private static ItemStack deserializeItem(String type, String metadata) {
+		if (metadata.isEmpty()) {
+			Material material = Material.matchMaterial(type);
+			Validate.notNull(material, () -> "Unknown item type: " + type);
+			return new ItemStack(material, 1);
+		} else {
+			Map<String, Object> itemData = new LinkedHashMap<>();
+			itemData.put("type", type);
+			itemData.put("amount", 1);
+			Map<String, Object> metadataMap = YamlUtils.fromYaml(metadata); // Can be null
+			if (metadataMap != null) {
+				itemData.putAll(metadataMap);
+			}
+			return ItemStack.deserialize(itemData);
+		}
+	}
+
+	/**
+	 * Creates a {@link TradeRecord} for the specified trade.
+	 * 
+	 * @param index
+	 *            the trade index
+	 * @return the trade record
+	 * @throws IllegalArgumentException
+	 *             if one of the items of the trade cannot be deserialized
+	 */
+	public TradeRecord getTradeRecord(int index) {
+		int item2Id = item2Column[index];
+		return new TradeRecord(
+				Instant.ofEpochMilli(timestamps[index]),
+				this.getPlayer(index),
+				this.getShop(index),
+				this.getItem(resultItemColumn[index], resultItemAmounts[index]),
+				this.getItem(item1Column[index], item1Amounts[index]),
+				(item2Id >= 0) ? this.getItem(item2Id, item2Amounts[index]) : null,
+				tradeCounts[index]
+		);
+	}
+}
@@ -0,0 +1,186 @@
+package com.nisovin.shopkeepers.tradelog.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.tradelog.AbstractTradeLogger;
+import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogReader;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Converts the CSV trade log files inside a trade logs folder into binary trade log files.
+ * <p>
+ * The CSV trade log files are not modified. Days for which there already exists a binary trade log file are skipped,
+ * so that trades are not converted twice if the trades of these days have already been logged to the binary trade log
+ * or been converted before.
+ * <p>
+ * The CSV trade log does not store the names of shops, and it only stores the metadata of items if this has been
+ * enabled at the time the trades were logged. The converted trades therefore have empty shop names, and only store the
+ * metadata of items that have any.
+ * <p>
+ * This performs file IO and is therefore meant to be run asynchronously.
+ */
+public class BinaryTradeLogConverter {
+
+	// Blocks of this size are large enough to benefit from the dictionary encoding, and small enough to not require
+	// much memory during the conversion:
+	private static final int TRADES_PER_BLOCK = 4096;
+
+	private final Path tradeLogsFolder;
+
+	private int convertedFilesCount = 0;
+	private long convertedTradesCount = 0L;
+	private int createdFilesCount = 0;
+	private int skippedDaysCount = 0;
+
+	/**
+	 * Creates a new {@link BinaryTradeLogConverter}.
+	 * 
+	 * @param tradeLogsFolder
+	 *            the folder that contains the CSV trade log files, and that the binary trade log files are written to
+	 */
+	public BinaryTradeLogConverter(Path tradeLogsFolder) {
+		Validate.notNull(tradeLogsFolder, "tradeLogsFolder is null");
+		this.tradeLogsFolder = tradeLogsFolder;
+	}
+
+	/**
+	 * Converts the CSV trade log files.
+	 * 
+	 * @throws IOException
+	 *             if a CSV trade log file cannot be read or a binary trade log file cannot be written
+	 */
+	public void convert() throws IOException {
+		// Group the CSV trade log files by their date:
+		Map<LocalDate, List<Path>> csvLogFilesByDate = new LinkedHashMap<>();
+		for (Path csvLogFile : CsvTradeLogReader.getLogFiles(tradeLogsFolder)) {
+			LocalDate date = CsvTradeLogReader.getLogDate(csvLogFile);
+			csvLogFilesByDate.computeIfAbsent(date, key -> new ArrayList<>()).add(csvLogFile);
+		}
+
+		for (Entry<LocalDate, List<Path>> entry : csvLogFilesByDate.entrySet()) {
+			String date = entry.getKey().toString(); // yyyy-MM-dd
+			Path logFile = BinaryTradeLogFiles.getLogFile(tradeLogsFolder, date);
+			if (Files.exists(logFile)) {
+				skippedDaysCount++;
+				continue;
+			}
+
+			List<Path> csvLogFiles = entry.getValue();
+			if (!this.convert(csvLogFiles, logFile)) {
+				skippedDaysCount++;
+				continue;
+			}
+			convertedFilesCount += csvLogFiles.size();
+		}
+	}
+
+	// Writes to a temporary file first, so that we do not leave behind a partially converted log file.
+	// Returns false if the log file has been created in the meantime.
+	private boolean convert(List<Path> csvLogFiles, Path logFile) throws IOException {
+		Path tempFile = logFile.resolveSibling(logFile.getFileName().toString() + ".tmp");
+		long tradesCount = 0L;
+		try (	CsvTradeLogReader reader = new CsvTradeLogReader(csvLogFiles);
+				OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+			out.write(BinaryTradeLogFiles.getHeader());
+			List<TradeRecord> trades = new ArrayList<>(TRADES_PER_BLOCK);
+			TradeRecord trade;
+			while ((trade = reader.read()) != null) {
+				trades.add(trade);
+				if (trades.size() >= TRADES_PER_BLOCK) {
+					tradesCount += writeBlock(out, trades);
+				}
+			}
+			if (!trades.isEmpty()) {
+				tradesCount += writeBlock(out, trades);
+			}
+		} catch (IOException e) {
+			FileUtils.deleteIfExists(tempFile);
+			throw e;
+		}
+
+		if (tradesCount == 0L) {
+			// The CSV trade log files do not contain any trades:
+			FileUtils.deleteIfExists(tempFile);
+			return true;
+		}
+
+		FileUtils.fsync(tempFile);
+		// The BinaryTradeLogger might have created the log file in the meantime. It only creates log files while
+		// holding the write lock, so checking and moving under the lock does not replace any logged trades:
+		synchronized (BinaryTradeLogFiles.WRITE_LOCK) {
+			if (Files.exists(logFile)) {
+				FileUtils.deleteIfExists(tempFile);
+				return false;
+			}
+			FileUtils.moveFile(tempFile, logFile, Log.getLogger());
+		}
+		FileUtils.fsyncParentDirectory(logFile);
+		convertedTradesCount += tradesCount;
+		createdFilesCount++;
+		return true;
+	}
+
+	// Writes the given trades as one block and then clears them. Returns the number of written trades.
+	private static int writeBlock(OutputStream out, List<TradeRecord> trades) throws IOException {
+		byte[] payload = BinaryTradeLogBlock.encode(trades, BinaryTradeLogConverter::getItemMetadata);
+		out.write(BinaryTradeLogFiles.frameBlock(payload));
+		int tradesCount = trades.size();
+		trades.clear();
+		return tradesCount;
+	}
+
+	private static String getItemMetadata(UnmodifiableItemStack itemStack) {
+		if (!itemStack.hasItemMeta()) return "";
+		return AbstractTradeLogger.serializeItemMetadata(itemStack);
+	}
+
+	/**
+	 * Gets the number of converted CSV trade log files.
+	 * 
+	 * @return the number of converted CSV trade log files
+	 */
+	public int getConvertedFilesCount() {
+		return convertedFilesCount;
+	}
+
+	/**
+	 * Gets the number of converted trades.
+	 * 
+	 * @return the number of converted trades
+	 */
+	public long getConvertedTradesCount() {
+		return convertedTradesCount;
+	}
+
+	/**
+	 * Gets the number of created binary trade log files.
+	 * 
+	 * @return the number of created binary trade log files
+	 */
+	public int getCreatedFilesCount() {
+		return createdFilesCount;
+	}
+
+	/**
+	 * Gets the number of days that have been skipped, because there already exists a binary trade log file for them.
+	 * 
+	 * @return the number of skipped days
+	 */
+	public int getSkippedDaysCount() {
+		return skippedDaysCount;
+	}
+}
@@ -0,0 +1,124 @@
+package com.nisovin.shopkeepers.tradelog.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Naming and layout of the binary trade log files.
+ * <p>
+ * Trades are logged to one file per day: {@code trades-<yyyy-MM-dd>.sktl}. Each file starts with a header that consists
+ * of a magic number and the format version. The header is followed by a sequence of blocks, each consisting of the
+ * length of the block's payload, the payload (see {@link BinaryTradeLogBlock}), and the CRC32 checksum of the payload.
+ * Each save appends one block to the log file of each day that it contains trades for. Blocks are therefore
+ * self-contained: If a block is incomplete or corrupted, only the trades of that block are lost.
+ */
+final class BinaryTradeLogFiles {
+
+	static final String TRADE_LOGS_FOLDER = "trade-logs";
+
+	static final int MAGIC = 0x534B544C; // "SKTL"
+	static final int FORMAT_VERSION = 1;
+	static final int HEADER_SIZE = 5; // Magic number (int) and format version (byte)
+	// Guards against reading bogus block lengths of corrupted files:
+	static final int MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+	// Held while a log file is written to or created, so that the BinaryTradeLogger and the BinaryTradeLogConverter do
+	// not write to the same log file concurrently:
+	static final Object WRITE_LOCK = new Object();
+
+	// Trades are assigned to the log file of the day they took place in the system's timezone, similar to the CSV trade
+	// log. The logged timestamps themselves are independent of the timezone.
+	static final ZoneId ZONE = ZoneId.systemDefault();
+	static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZONE);
+
+	private static final String FILE_NAME_PREFIX = "trades-";
+	private static final String FILE_EXTENSION = ".sktl";
+	// Groups: date
+	private static final Pattern FILE_NAME_PATTERN = Pattern.compile(
+			Pattern.quote(FILE_NAME_PREFIX) + "(\\d{4}-\\d{2}-\\d{2})" + Pattern.quote(FILE_EXTENSION)
+	);
+
+	static Path getLogFile(Path tradeLogsFolder, String date) {
+		return tradeLogsFolder.resolve(FILE_NAME_PREFIX + date + FILE_EXTENSION);
+	}
+
+	// Returns null if the given file is not a binary trade log file.
+	static LocalDate parseLogDate(Path file) {
+		Matcher matcher = FILE_NAME_PATTERN.matcher(file.getFileName().toString());
+		if (!matcher.matches()) return null;
+		try {
+			return LocalDate.parse(matcher.group(1));
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the binary trade log files inside the given folder, sorted by date.
+	 * 
+	 * @param tradeLogsFolder
+	 *            the trade logs folder
+	 * @return the log files, not <code>null</code>, empty if the folder does not exist
+	 * @throws IOException
+	 *             if the folder cannot be read
+	 */
+	static List<Path> getLogFiles(Path tradeLogsFolder) throws IOException {
+		List<Path> logFiles = new ArrayList<>();
+		if (!Files.isDirectory(tradeLogsFolder)) return logFiles;
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(tradeLogsFolder, FILE_NAME_PREFIX + "*" + FILE_EXTENSION)) {
+			for (Path file : files) {
+				if (parseLogDate(file) == null) continue;
+				logFiles.add(file);
+			}
+		}
+		// The file names only differ in their dates, which are sorted lexicographically:
+		logFiles.sort(null);
+		return logFiles;
+	}
+
+	static byte[] getHeader() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeByte(FORMAT_VERSION);
+		} catch (IOException e) {
+			throw new AssertionError(e); // Not expected to occur for in-memory streams
+		}
+		return bytes.toByteArray();
+	}
+
+	// Prefixes the given block payload with its length and appends its checksum.
+	static byte[] frameBlock(byte[] payload) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 8);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(payload.length);
+			out.write(payload);
+			out.writeInt(getChecksum(payload));
+		} catch (IOException e) {
+			throw new AssertionError(e); // Not expected to occur for in-memory streams
+		}
+		return bytes.toByteArray();
+	}
+
+	static int getChecksum(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+		return (int) crc.getValue();
+	}
+
+	private BinaryTradeLogFiles() {
+	}
+}
@@ -0,0 +1,238 @@
+package com.nisovin.shopkeepers.tradelog.binary;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.plugin.Plugin;
+
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Reads the {@link BinaryTradeLogBlock blocks} and {@link TradeRecord}s of binary trade log files one at a time, without
+ * loading the log files into memory.
+ * <p>
+ * Blocks that are incomplete or corrupted (eg. because the server crashed while the block was written) are skipped
+ * with a warning, and so are trade records whose items cannot be deserialized.
+ */
+public class BinaryTradeLogReader implements Closeable {
+
+	/**
+	 * Gets the folder that contains the binary trade log files.
+	 * 
+	 * @param plugin
+	 *            the plugin
+	 * @return the trade logs folder
+	 */
+	public static Path getTradeLogsFolder(Plugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		return plugin.getDataFolder().toPath().resolve(BinaryTradeLogFiles.TRADE_LOGS_FOLDER);
+	}
+
+	/**
+	 * Gets the binary trade log files inside the given folder, sorted from the oldest to the most recent log file.
+	 * 
+	 * @param tradeLogsFolder
+	 *            the trade logs folder
+	 * @return the log files, empty if the folder does not exist
+	 * @throws IOException
+	 *             if the folder cannot be read
+	 */
+	public static List<Path> getLogFiles(Path tradeLogsFolder) throws IOException {
+		Validate.notNull(tradeLogsFolder, "tradeLogsFolder is null");
+		return BinaryTradeLogFiles.getLogFiles(tradeLogsFolder);
+	}
+
+	/**
+	 * Gets the date of the trades that are logged in the given binary trade log file.
+	 * 
+	 * @param logFile
+	 *            the log file
+	 * @return the date, or <code>null</code> if the given file is not a binary trade log file
+	 */
+	public static LocalDate getLogDate(Path logFile) {
+		Validate.notNull(logFile, "logFile is null");
+		return BinaryTradeLogFiles.parseLogDate(logFile);
+	}
+
+	private final List<Path> logFiles;
+	private int nextLogFileIndex = 0;
+
+	// The currently read log file:
+	private Path logFile = null;
+	private DataInputStream in = null;
+	private int blockNumber = 0;
+
+	// The currently read block:
+	private BinaryTradeLogBlock block = null;
+	private int nextTradeIndex = 0;
+
+	/**
+	 * Creates a new {@link BinaryTradeLogReader}.
+	 * 
+	 * @param logFiles
+	 *            the log files to read, in the order in which they are read, not <code>null</code>
+	 */
+	public BinaryTradeLogReader(List<Path> logFiles) {
+		Validate.notNull(logFiles, "logFiles is null");
+		Validate.noNullElements(logFiles, "logFiles contains null");
+		this.logFiles = new ArrayList<>(logFiles);
+	}
+
+	/**
+	 * Reads the next {@link TradeRecord}.
+	 * 
+	 * @return the next trade record, or <code>null</code> if there are no more trade records to read
+	 * @throws IOException
+	 *             if a log file cannot be read
+	 */
+	public TradeRecord read() throws IOException {
+		while (true) {
+			if (block == null || nextTradeIndex >= block.size()) {
+				block = this.readBlock();
+				nextTradeIndex = 0;
+				if (block == null) {
+					return null; // There are no more blocks to read
+				}
+				continue;
+			}
+
+			int tradeIndex = nextTradeIndex++;
+			try {
+				return block.getTradeRecord(tradeIndex);
+			} catch (RuntimeException e) {
+				Log.warning("Skipping invalid trade record in binary trade log file '" + this.getLogFileName()
+						+ "' (block " + blockNumber + ", trade " + (tradeIndex + 1) + "): " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Reads the next {@link BinaryTradeLogBlock}.
+	 * <p>
+	 * Aggregations can use this to process the logged trades column by column, without having to create the
+	 * {@link TradeRecord}s. This skips any remaining trades of the block that is currently read by {@link #read()}.
+	 * 
+	 * @return the next block, or <code>null</code> if there are no more blocks to read
+	 * @throws IOException
+	 *             if a log file cannot be read
+	 */
+	public BinaryTradeLogBlock readBlock() throws IOException {
+		block = null;
+		while (true) {
+			if (in == null) {
+				if (!this.openNextLogFile()) {
+					return null; // There are no more log files to read
+				}
+				continue;
+			}
+
+			int payloadLength;
+			try {
+				payloadLength = in.readInt();
+			} catch (EOFException e) {
+				// End of the current log file:
+				this.closeLogFile();
+				continue;
+			}
+			blockNumber++;
+
+			if (payloadLength < 0 || payloadLength > BinaryTradeLogFiles.MAX_BLOCK_SIZE) {
+				// We cannot locate the subsequent blocks:
+				Log.warning("Skipping the remainder of binary trade log file '" + this.getLogFileName()
+						+ "': Invalid size of block " + blockNumber + ".");
+				this.closeLogFile();
+				continue;
+			}
+
+			byte[] payload = new byte[payloadLength];
+			int checksum;
+			try {
+				in.readFully(payload);
+				checksum = in.readInt();
+			} catch (EOFException e) {
+				Log.warning("Skipping incomplete block " + blockNumber + " at the end of binary trade log file '"
+						+ this.getLogFileName() + "'.");
+				this.closeLogFile();
+				continue;
+			}
+
+			if (checksum != BinaryTradeLogFiles.getChecksum(payload)) {
+				Log.warning("Skipping corrupted block " + blockNumber + " of binary trade log file '"
+						+ this.getLogFileName() + "': Checksum mismatch.");
+				continue;
+			}
+
+			try {
+				return BinaryTradeLogBlock.decode(payload);
+			} catch (IOException e) {
+				Log.warning("Skipping invalid block " + blockNumber + " of binary trade log file '"
+						+ this.getLogFileName() + "': " + e.getMessage());
+			}
+		}
+	}
+
+	private String getLogFileName() {
+		return (logFile != null) ? logFile.getFileName().toString() : "";
+	}
+
+	// Returns false if there are no more log files.
+	private boolean openNextLogFile() throws IOException {
+		while (nextLogFileIndex < logFiles.size()) {
+			Path logFile = logFiles.get(nextLogFileIndex++);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)));
+			this.logFile = logFile;
+			this.in = in;
+			this.blockNumber = 0;
+
+			// Read the header:
+			int magic;
+			int formatVersion;
+			try {
+				magic = in.readInt();
+				formatVersion = in.readUnsignedByte();
+			} catch (EOFException e) {
+				// Empty log file:
+				this.closeLogFile();
+				continue;
+			}
+			if (magic != BinaryTradeLogFiles.MAGIC) {
+				Log.warning("Skipping binary trade log file '" + logFile.getFileName() + "': Not a trade log file.");
+				this.closeLogFile();
+				continue;
+			}
+			if (formatVersion != BinaryTradeLogFiles.FORMAT_VERSION) {
+				Log.warning("Skipping binary trade log file '" + logFile.getFileName()
+						+ "': Unsupported format version " + formatVersion + ".");
+				this.closeLogFile();
+				continue;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private void closeLogFile() throws IOException {
+		if (in == null) return;
+		DataInputStream in = this.in;
+		this.in = null;
+		this.logFile = null;
+		in.close();
+	}
+
+	@Override
+	public void close() throws IOException {
+		block = null;
+		this.closeLogFile();
+		nextLogFileIndex = logFiles.size();
+	}
+}
@@ -0,0 +1,199 @@
+package com.nisovin.shopkeepers.tradelog.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.plugin.Plugin;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.tradelog.AbstractTradeLogger;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.LRUCache;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Logs trades to day-partitioned binary trade log files.
+ * <p>
+ * The trades are stored column by column and compactly encoded (see {@link BinaryTradeLogBlock}). This requires
+ * considerably less storage space than the CSV trade log, which makes it suitable to retain the logged trades over long
+ * periods of time, and allows the logged trades to be scanned faster. Use {@link BinaryTradeLogReader} to read the
+ * logged trades, and {@link BinaryTradeLogConverter} to convert existing CSV trade logs.
+ */
+public class BinaryTradeLogger extends AbstractTradeLogger {
+
+	private static final int ITEM_METADATA_CACHE_SIZE = 256;
+
+	private final Path tradeLogsFolder;
+	private List<TradeRecord> pending = new ArrayList<>();
+	private List<TradeRecord> saving = new ArrayList<>();
+
+	// The following state is only accessed by the save task, or while no save is in progress:
+	// See CsvTradeLogger:
+	private final Map<UnmodifiableItemStack, String> itemMetadataCache = new LRUCache<>(ITEM_METADATA_CACHE_SIZE);
+	// The number of trades of the current save that have already been written:
+	private int savedCount = 0;
+
+	public BinaryTradeLogger(Plugin plugin) {
+		super(plugin, "binary trade log");
+		this.tradeLogsFolder = BinaryTradeLogReader.getTradeLogsFolder(plugin);
+	}
+
+	@Override
+	public void logTrade(TradeRecord trade) {
+		pending.add(trade);
+
+		// We do not trigger a save right away, because it is likely for there to be more trades to log in the immediate
+		// future. Larger batches of trades also result in a more compact encoding.
+		this.savePendingDelayed();
+	}
+
+	@Override
+	protected boolean isDirty() {
+		return !pending.isEmpty();
+	}
+
+	@Override
+	protected void prepareSave() {
+		// Reset local logItemMetadata setting:
+		super.prepareSave();
+
+		// Swap the pending and saving lists of trades:
+		assert saving.isEmpty();
+		List<TradeRecord> temp = saving;
+		saving = pending;
+		pending = temp;
+		savedCount = 0;
+	}
+
+	@Override
+	protected boolean executeSave() {
+		return this.writeWithRetry(() -> {
+			this.writeTrades();
+		});
+	}
+
+	@Override
+	protected void onSaveCompleted(boolean saveSucceeded) {
+		this.printDebugInfo(saveSucceeded);
+
+		if (!saveSucceeded) {
+			// Add the unsaved trades to the front of the pending trades:
+			pending.addAll(0, saving.subList(savedCount, saving.size()));
+		}
+
+		// Reset:
+		saving.clear();
+	}
+
+	private void printDebugInfo(boolean saveSucceeded) {
+		Log.debug(() -> {
+			StringBuilder sb = new StringBuilder();
+			sb.append("Logged trades to the binary trade log (");
+			sb.append(saving.size()).append(" records");
+			if (savedCount < saving.size()) {
+				sb.append(", ").append(saving.size() - savedCount).append(" failed to log");
+			}
+			sb.append("): ");
+			sb.append(this.getSaveTimingString());
+			if (!saveSucceeded) {
+				sb.append(" -- Logging failed!");
+			}
+			return sb.toString();
+		});
+	}
+
+	// Appends one block to the log file of each day that the unsaved trades took place in. If this fails, the trades of
+	// the preceding days have already been logged and are not logged again by subsequent attempts.
+	private void writeTrades() throws IOException {
+		while (savedCount < saving.size()) {
+			int start = savedCount;
+			String date = getLogDate(saving.get(start));
+			int end = start + 1;
+			while (end < saving.size() && date.equals(getLogDate(saving.get(end)))) {
+				end++;
+			}
+
+			byte[] payload = BinaryTradeLogBlock.encode(saving.subList(start, end), this::getItemMetadata);
+			this.appendBlock(BinaryTradeLogFiles.getLogFile(tradeLogsFolder, date), payload);
+			savedCount = end;
+		}
+	}
+
+	private static String getLogDate(TradeRecord trade) {
+		return BinaryTradeLogFiles.DATE_FORMAT.format(trade.getTimestamp());
+	}
+
+	private void appendBlock(Path logFile, byte[] payload) throws IOException {
+		// The BinaryTradeLogConverter does not create a log file while we write to it:
+		synchronized (BinaryTradeLogFiles.WRITE_LOCK) {
+			this.appendBlockLocked(logFile, payload);
+		}
+	}
+
+	private void appendBlockLocked(Path logFile, byte[] payload) throws IOException {
+		FileUtils.createParentDirectories(logFile);
+		boolean created = !logFile.toFile().exists();
+		OpenOption[] openOptions = new OpenOption[] {
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ
+		};
+		try (FileChannel channel = FileChannel.open(logFile, openOptions)) {
+			long size = channel.size();
+			if (size > 0L) {
+				// Do not append to files that are not binary trade log files:
+				ByteBuffer header = ByteBuffer.allocate(BinaryTradeLogFiles.HEADER_SIZE);
+				while (header.hasRemaining()) {
+					if (channel.read(header, header.position()) < 0) break; // End of file
+				}
+				header.flip();
+				if (header.remaining() < BinaryTradeLogFiles.HEADER_SIZE
+						|| header.getInt() != BinaryTradeLogFiles.MAGIC
+						|| header.get() != BinaryTradeLogFiles.FORMAT_VERSION) {
+					throw new IOException("Not a binary trade log file of the current format: " + logFile);
+				}
+			}
+
+			channel.position(size);
+			try {
+				if (size == 0L) {
+					writeFully(channel, BinaryTradeLogFiles.getHeader());
+				}
+				writeFully(channel, BinaryTradeLogFiles.frameBlock(payload));
+				channel.force(false);
+			} catch (IOException e) {
+				// Remove the partially written block, so that subsequent blocks can still be read:
+				try {
+					channel.truncate(size);
+				} catch (IOException e2) {
+					e.addSuppressed(e2);
+				}
+				throw e;
+			}
+		}
+		if (created) {
+			FileUtils.fsyncParentDirectory(logFile);
+		}
+	}
+
+	private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	// See CsvTradeLogger#getItemMetadata: We log the item metadata in the same compact Yaml format.
+	private String getItemMetadata(UnmodifiableItemStack itemStack) {
+		assert itemStack != null;
+		if (!logItemMetadata) return ""; // Disabled
+
+		return itemMetadataCache.computeIfAbsent(itemStack, AbstractTradeLogger::serializeItemMetadata);
+	}
+}
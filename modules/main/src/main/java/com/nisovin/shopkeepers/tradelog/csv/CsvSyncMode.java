@@ -0,0 +1,24 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+/**
+ * Specifies when the CSV trade logger ensures that the logged trades are persisted to the storage device.
+ */
+public enum CsvSyncMode {
+	/**
+	 * Every written trade record is synchronously persisted before the next trade is written.
+	 * <p>
+	 * This is the most durable, but also the slowest mode.
+	 */
+	RECORD,
+	/**
+	 * The trades are written without waiting for each individual write to be persisted, and the log file is synced
+	 * once after each batch of written trades.
+	 */
+	BATCH,
+	/**
+	 * Like {@link #BATCH}, but the log files are synced at most once per configured sync period. If no further trades
+	 * are written in the meantime, the log files are synced once the sync period has elapsed. Trades written since the
+	 * last sync may be lost if the server crashes.
+	 */
+	PERIODIC;
+}
@@ -0,0 +1,147 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Naming of the CSV trade log files.
+ * <p>
+ * Trades are logged to one file per day: {@code trades-<yyyy-MM-dd>.csv}. If the size of the daily log files is
+ * limited, or if the log file of the day has already been compressed, additional trades of that day are logged to
+ * consecutively numbered parts: {@code trades-<yyyy-MM-dd>-<part>.csv}. Compressed log files have the additional
+ * extension {@code .gz}.
+ */
+final class CsvTradeLogFiles {
+
+	static final String TRADE_LOGS_FOLDER = "trade-logs";
+
+	// TODO This uses the system locale and timezone currently. Config option(s) to change the locale and timezone? Or
+	// always store in UTC?
+	static final ZoneId ZONE = ZoneId.systemDefault();
+	static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZONE);
+	static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZONE);
+
+	private static final String FILE_NAME_PREFIX = "trades-";
+	private static final String FILE_EXTENSION = ".csv";
+	private static final String COMPRESSED_FILE_EXTENSION = ".gz";
+	// Groups: date, part (optional), compressed extension (optional)
+	private static final Pattern FILE_NAME_PATTERN = Pattern.compile(
+			Pattern.quote(FILE_NAME_PREFIX) + "(\\d{4}-\\d{2}-\\d{2})(?:-(\\d+))?"
+					+ Pattern.quote(FILE_EXTENSION) + "(" + Pattern.quote(COMPRESSED_FILE_EXTENSION) + ")?"
+	);
+
+	/**
+	 * Information about a trade log file, derived from its file name.
+	 */
+	static final class LogFile {
+
+		final Path path;
+		final String date;
+		final int part;
+		final boolean compressed;
+
+		private LogFile(Path path, String date, int part, boolean compressed) {
+			this.path = path;
+			this.date = date;
+			this.part = part;
+			this.compressed = compressed;
+		}
+
+		LocalDate getLocalDate() {
+			return LocalDate.parse(date);
+		}
+	}
+
+	// Sorted by date and part. Uncompressed files are sorted before compressed files of the same date and part.
+	private static final Comparator<LogFile> LOG_FILE_ORDER = Comparator.<LogFile, String>comparing(logFile -> logFile.date)
+			.thenComparingInt(logFile -> logFile.part)
+			.thenComparing(logFile -> logFile.compressed);
+
+	static Path getLogFile(Path tradeLogsFolder, String date, int part) {
+		String partSuffix = (part == 0) ? "" : ("-" + part);
+		return tradeLogsFolder.resolve(FILE_NAME_PREFIX + date + partSuffix + FILE_EXTENSION);
+	}
+
+	static Path getCompressedFile(Path logFile) {
+		return logFile.resolveSibling(logFile.getFileName().toString() + COMPRESSED_FILE_EXTENSION);
+	}
+
+	// Returns null if the given file is not a trade log file.
+	static LogFile parseLogFile(Path file) {
+		Matcher matcher = FILE_NAME_PATTERN.matcher(file.getFileName().toString());
+		if (!matcher.matches()) return null;
+		String date = matcher.group(1);
+		try {
+			LocalDate.parse(date);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+		String partString = matcher.group(2);
+		int part;
+		try {
+			part = (partString == null) ? 0 : Integer.parseInt(partString);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		boolean compressed = (matcher.group(3) != null);
+		return new LogFile(file, date, part, compressed);
+	}
+
+	/**
+	 * Gets the trade log files inside the given folder, sorted by date and part.
+	 * <p>
+	 * If the folder contains both the uncompressed and the compressed variant of a log file (for example, if the server
+	 * crashed during the compression of the log file), only the uncompressed log file is returned.
+	 *
+	 * @param tradeLogsFolder
+	 *            the trade logs folder
+	 * @param date
+	 *            the date in the format {@code yyyy-MM-dd}, or <code>null</code> to get the log files of all dates
+	 * @return the log files, not <code>null</code>, empty if the folder does not exist
+	 * @throws IOException
+	 *             if the folder cannot be read
+	 */
+	static List<LogFile> getLogFiles(Path tradeLogsFolder, String date) throws IOException {
+		List<LogFile> logFiles = new ArrayList<>();
+		if (!Files.isDirectory(tradeLogsFolder)) return logFiles;
+
+		String glob = FILE_NAME_PREFIX + ((date != null) ? date : "") + "*";
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(tradeLogsFolder, glob)) {
+			for (Path file : files) {
+				LogFile logFile = parseLogFile(file);
+				if (logFile == null) continue;
+				if (date != null && !date.equals(logFile.date)) continue;
+				logFiles.add(logFile);
+			}
+		}
+		logFiles.sort(LOG_FILE_ORDER);
+
+		// Remove compressed files whose uncompressed variant still exists:
+		// Since uncompressed files are sorted before their compressed variant, these files are adjacent.
+		LogFile previous = null;
+		for (int i = 0; i < logFiles.size(); i++) {
+			LogFile logFile = logFiles.get(i);
+			if (previous != null && logFile.compressed && !previous.compressed
+					&& logFile.date.equals(previous.date) && logFile.part == previous.part) {
+				logFiles.remove(i--);
+				continue;
+			}
+			previous = logFile;
+		}
+		return logFiles;
+	}
+
+	private CsvTradeLogFiles() {
+	}
+}
@@ -0,0 +1,299 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogFiles.LogFile;
+import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
+import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.csv.CsvParser;
+import com.nisovin.shopkeepers.util.java.StringUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+import com.nisovin.shopkeepers.util.yaml.YamlUtils;
+
+/**
+ * Reads the {@link TradeRecord}s of CSV trade log files one at a time, without loading the log files into memory.
+ * <p>
+ * This supports both uncompressed and compressed (gzip) log files. Trade records that cannot be parsed are skipped
+ * with a warning.
+ * <p>
+ * The CSV trade log does not store the names of the shops. The shop names of the read trade records are therefore
+ * always empty.
+ */
+public class CsvTradeLogReader implements Closeable {
+
+	/**
+	 * Gets the folder that contains the CSV trade log files.
+	 *
+	 * @param plugin
+	 *            the plugin
+	 * @return the trade logs folder
+	 */
+	public static Path getTradeLogsFolder(Plugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		return plugin.getDataFolder().toPath().resolve(CsvTradeLogFiles.TRADE_LOGS_FOLDER);
+	}
+
+	/**
+	 * Gets the CSV trade log files inside the given folder, sorted from the oldest to the most recent log file.
+	 *
+	 * @param tradeLogsFolder
+	 *            the trade logs folder
+	 * @return the log files, empty if the folder does not exist
+	 * @throws IOException
+	 *             if the folder cannot be read
+	 */
+	public static List<Path> getLogFiles(Path tradeLogsFolder) throws IOException {
+		Validate.notNull(tradeLogsFolder, "tradeLogsFolder is null");
+		List<LogFile> logFiles = CsvTradeLogFiles.getLogFiles(tradeLogsFolder, null);
+		List<Path> paths = new ArrayList<>(logFiles.size());
+		logFiles.forEach(logFile -> paths.add(logFile.path));
+		return paths;
+	}
+
+	/**
+	 * Gets the date of the trades that are logged in the given CSV trade log file.
+	 *
+	 * @param logFile
+	 *            the log file
+	 * @return the date, or <code>null</code> if the given file is not a CSV trade log file
+	 */
+	public static LocalDate getLogDate(Path logFile) {
+		Validate.notNull(logFile, "logFile is null");
+		LogFile parsedLogFile = CsvTradeLogFiles.parseLogFile(logFile);
+		return (parsedLogFile != null) ? parsedLogFile.getLocalDate() : null;
+	}
+
+	private final CsvParser csv = new CsvParser();
+	private final List<Path> logFiles;
+	private int nextLogFileIndex = 0;
+
+	// The currently read log file:
+	private Path logFile = null;
+	private LocalDate logDate = null;
+	private BufferedReader reader = null;
+	private int lineNumber = 0;
+	// The indices of the CSV_HEADER columns within the current log file:
+	private final int[] columns = new int[CsvTradeLogger.CSV_HEADER.size()];
+	// The number of columns of the current log file. Any columns that are not part of the CSV_HEADER are ignored.
+	private int columnCount = 0;
+
+	/**
+	 * Creates a new {@link CsvTradeLogReader}.
+	 *
+	 * @param logFiles
+	 *            the log files to read, in the order in which they are read, not <code>null</code>
+	 */
+	public CsvTradeLogReader(List<Path> logFiles) {
+		Validate.notNull(logFiles, "logFiles is null");
+		Validate.noNullElements(logFiles, "logFiles contains null");
+		this.logFiles = new ArrayList<>(logFiles);
+	}
+
+	/**
+	 * Reads the next {@link TradeRecord}.
+	 *
+	 * @return the next trade record, or <code>null</code> if there are no more trade records to read
+	 * @throws IOException
+	 *             if a log file cannot be read
+	 */
+	public TradeRecord read() throws IOException {
+		while (true) {
+			if (reader == null) {
+				if (!this.openNextLogFile()) {
+					return null; // There are no more log files to read
+				}
+				continue;
+			}
+
+			String line = reader.readLine();
+			if (line == null) {
+				// End of the current log file:
+				this.closeLogFile();
+				continue;
+			}
+			lineNumber++;
+			if (line.isEmpty()) continue;
+
+			try {
+				return this.parseTradeRecord(line);
+			} catch (RuntimeException e) {
+				Log.warning("Skipping invalid trade record in CSV trade log file '" + logFile.getFileName()
+						+ "' (line " + lineNumber + "): " + e.getMessage());
+			}
+		}
+	}
+
+	// Returns false if there are no more log files.
+	private boolean openNextLogFile() throws IOException {
+		while (nextLogFileIndex < logFiles.size()) {
+			Path logFile = logFiles.get(nextLogFileIndex++);
+			LogFile parsedLogFile = CsvTradeLogFiles.parseLogFile(logFile);
+			if (parsedLogFile == null) {
+				throw new IOException("Not a CSV trade log file: " + logFile);
+			}
+
+			// The log file might have been compressed in the meantime:
+			boolean compressed = parsedLogFile.compressed;
+			if (!compressed && !Files.exists(logFile)) {
+				Path compressedFile = CsvTradeLogFiles.getCompressedFile(logFile);
+				if (Files.exists(compressedFile)) {
+					logFile = compressedFile;
+					compressed = true;
+				}
+			}
+
+			InputStream in = Files.newInputStream(logFile);
+			try {
+				if (compressed) {
+					in = new GZIPInputStream(in);
+				}
+			} catch (IOException e) {
+				in.close();
+				throw e;
+			}
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+			this.logFile = logFile;
+			this.logDate = parsedLogFile.getLocalDate();
+			this.reader = reader;
+			this.lineNumber = 0;
+
+			// Read the header:
+			String header = reader.readLine();
+			if (header == null) {
+				// Empty log file:
+				this.closeLogFile();
+				continue;
+			}
+			lineNumber++;
+			if (!this.readColumns(header)) {
+				Log.warning("Skipping CSV trade log file '" + logFile.getFileName() + "': Unexpected header.");
+				this.closeLogFile();
+				continue;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	// Returns false if the header is missing any of the expected columns.
+	private boolean readColumns(String header) {
+		List<String> headerFields;
+		try {
+			headerFields = csv.parseRecord(header);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		List<String> expectedColumns = CsvTradeLogger.CSV_HEADER;
+		for (int i = 0; i < expectedColumns.size(); i++) {
+			int column = headerFields.indexOf(expectedColumns.get(i));
+			if (column == -1) return false;
+			columns[i] = column;
+		}
+		columnCount = headerFields.size();
+		return true;
+	}
+
+	private void closeLogFile() throws IOException {
+		if (reader == null) return;
+		BufferedReader reader = this.reader;
+		this.reader = null;
+		this.logFile = null;
+		this.logDate = null;
+		reader.close();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.closeLogFile();
+		nextLogFileIndex = logFiles.size();
+	}
+
+	// Throws a RuntimeException if the record is invalid.
+	private TradeRecord parseTradeRecord(String line) {
+		List<String> fields = csv.parseRecord(line);
+		Validate.isTrue(fields.size() == columnCount, "Unexpected number of fields: " + fields.size());
+		// See CsvTradeLogger.CSV_HEADER for the order of the columns:
+		int i = 0;
+		LocalTime time = LocalTime.parse(this.field(fields, i++), CsvTradeLogFiles.TIME_FORMAT);
+		Instant timestamp = LocalDateTime.of(logDate, time).atZone(CsvTradeLogFiles.ZONE).toInstant();
+
+		UUID playerUniqueId = UUID.fromString(this.field(fields, i++));
+		String playerName = this.field(fields, i++);
+		PlayerRecord player = PlayerRecord.of(playerUniqueId, playerName);
+
+		UUID shopUniqueId = UUID.fromString(this.field(fields, i++));
+		String shopTypeId = this.field(fields, i++);
+		String worldName = StringUtils.getNotEmpty(this.field(fields, i++)); // Null for virtual shops
+		int x = Integer.parseInt(this.field(fields, i++));
+		int y = Integer.parseInt(this.field(fields, i++));
+		int z = Integer.parseInt(this.field(fields, i++));
+		String shopOwnerId = this.field(fields, i++);
+		String shopOwnerName = this.field(fields, i++);
+		PlayerRecord shopOwner = null;
+		if (!shopOwnerId.isEmpty()) {
+			shopOwner = PlayerRecord.of(UUID.fromString(shopOwnerId), shopOwnerName);
+		}
+		ShopRecord shop = new ShopRecord(shopUniqueId, shopTypeId, shopOwner, "", worldName, x, y, z);
+
+		UnmodifiableItemStack item1 = this.parseItem(this.field(fields, i++), this.field(fields, i++), this.field(fields, i++));
+		UnmodifiableItemStack item2 = this.parseItem(this.field(fields, i++), this.field(fields, i++), this.field(fields, i++));
+		UnmodifiableItemStack resultItem = this.parseItem(this.field(fields, i++), this.field(fields, i++), this.field(fields, i++));
+		Validate.notNull(item1, "Missing item1!");
+		Validate.notNull(resultItem, "Missing result item!");
+		int tradeCount = Integer.parseInt(this.field(fields, i++));
+
+		return new TradeRecord(timestamp, player, shop, resultItem, item1, item2, tradeCount);
+	}
+
+	private String field(List<String> fields, int columnIndex) {
+		return fields.get(columns[columnIndex]);
+	}
+
+	// Returns null if the item type is empty.
+	private UnmodifiableItemStack parseItem(String type, String amount, String metadata) {
+		if (type.isEmpty()) return null;
+		int itemAmount = Integer.parseInt(amount);
+		ItemStack itemStack;
+		if (metadata.isEmpty()) {
+			Material material = Material.matchMaterial(type);
+			Validate.notNull(material, () -> "Unknown item type: " + type);
+			itemStack = new ItemStack(material, itemAmount);
+		} else {
+			// See CsvTradeLogger#getItemMetadata:
+			Map<String, Object> itemData = new LinkedHashMap<>();
+			itemData.put("type", type);
+			itemData.put("amount", itemAmount);
+			Map<String, Object> metadataMap = YamlUtils.fromYaml(metadata); // Can be null
+			if (metadataMap != null) {
+				itemData.putAll(metadataMap);
+			}
+			itemStack = ItemStack.deserialize(itemData);
+		}
+		return UnmodifiableItemStack.of(itemStack);
+	}
+}
@@ -1,55 +1,60 @@
 package com.nisovin.shopkeepers.tradelog.csv;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
-import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
-import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask;
 
-import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.config.Settings;
-import com.nisovin.shopkeepers.tradelog.TradeLogger;
+import com.nisovin.shopkeepers.tradelog.AbstractTradeLogger;
+import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogFiles.LogFile;
 import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
 import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
-import com.nisovin.shopkeepers.util.bukkit.SingletonTask;
+import com.nisovin.shopkeepers.util.bukkit.Ticks;
 import com.nisovin.shopkeepers.util.csv.CsvFormatter;
 import com.nisovin.shopkeepers.util.java.FileUtils;
-import com.nisovin.shopkeepers.util.java.Retry;
+import com.nisovin.shopkeepers.util.java.LRUCache;
 import com.nisovin.shopkeepers.util.java.StringUtils;
-import com.nisovin.shopkeepers.util.java.ThrowableUtils;
-import com.nisovin.shopkeepers.util.java.Validate;
-import com.nisovin.shopkeepers.util.java.VoidCallable;
 import com.nisovin.shopkeepers.util.logging.Log;
-import com.nisovin.shopkeepers.util.yaml.YamlUtils;
 
 /**
  * Logs trades to CSV files.
  */
-public class CsvTradeLogger implements TradeLogger {
+public class CsvTradeLogger extends AbstractTradeLogger {
 
-	private static final String TRADE_LOGS_FOLDER = "trade-logs";
-	private static final String FILE_NAME_PREFIX = "trades-";
-	private static final List<String> CSV_HEADER = Arrays.asList(
+	static final List<String> CSV_HEADER = Arrays.asList(
 			"time", "player_uuid", "player_name",
 			"shop_uuid", "shop_type", "shop_world", "shop_x", "shop_y", "shop_z",
 			"shop_owner_uuid", "shop_owner_name",
@@ -59,17 +64,18 @@ public class CsvTradeLogger implements TradeLogger {
 			"trade_count"
 	);
 
-	// TODO This uses the system locale and timezone currently. Config option(s) to change the locale and timezone? Or
-	// always store in UTC?
-	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneId.systemDefault());
-	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
-	private static final int DELAYED_SAVE_TICKS = 600; // 30 seconds
+	private static final int ITEM_METADATA_CACHE_SIZE = 256;
+	private static final int UUID_STRING_CACHE_SIZE = 1024;
 
-	private static final int SAVE_MAX_ATTEMPTS = 20;
-	private static final long SAVE_RETRY_DELAY_MILLIS = 25L;
-	private static final long SAVE_ERROR_MSG_THROTTLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+	// Trades that could not be logged are appended to this file (inside the plugin folder) and then replayed in chunks
+	// during subsequent saves:
+	private static final String SPILL_FILE_NAME = "csv-trade-log-spill.txt";
+	// The offset of the next spilled trade to replay is persisted to this file, so that spilled trades that have
+	// already been logged are not logged again after a restart:
+	private static final String SPILL_OFFSET_FILE_NAME = "csv-trade-log-spill-offset.txt";
+	// The maximum number of spilled trades to replay per save:
+	private static final int SPILL_REPLAY_CHUNK_SIZE = 10000;
 
-	private final Plugin plugin;
 	private final Path tradeLogsFolder;
 	// Note: Even though the CSV format allows quoted fields to span across multiple lines, we want each CSV record to
 	// only span a single line. However, even though we do not want fields to contain unescaped newlines, we do not
@@ -79,197 +85,485 @@ public class CsvTradeLogger implements TradeLogger {
 	private final CsvFormatter csv = new CsvFormatter()
 			.escapeNewlines(false)
 			.warnOnNewlines();
-	private List<TradeRecord> pending = new ArrayList<>();
-	private final SaveTask saveTask;
-	private BukkitTask delayedSaveTask = null;
-	// This is reset to the current configuration value prior to every save. This ensures that the value of this setting
-	// remains constant during the save and does not differ for the items of the trades that are being saved as part of
-	// the same batch.
-	private boolean logItemMetadata;
+	// Shops usually trade the same items and with the same players again and again. We therefore cache the serialized
+	// metadata of recently logged items, as well as the string representations of recently logged player, shop and
+	// owner ids, across batches of logged trades. Since the items of trade records are immutable, we can use the items
+	// themselves as cache keys. These caches are only accessed by the save task.
+	private final Map<UnmodifiableItemStack, String> itemMetadataCache = new LRUCache<>(ITEM_METADATA_CACHE_SIZE);
+	private final Map<UUID, String> uuidStringCache = new LRUCache<>(UUID_STRING_CACHE_SIZE);
+	// The trades that are waiting to be logged, oldest first. The size of this buffer is limited by the configured
+	// capacity: If it is full, the buffered trades are saved, or spilled if the previous save failed. If the buffer is
+	// still full because the save is still in progress, or because the trades could not be spilled, the oldest
+	// buffered trades are dropped.
+	private final Deque<TradeRecord> pending = new ArrayDeque<>();
+	// Whether the next save shall spill the buffered trades right away, instead of trying to log them:
+	private boolean spillRequested = false;
+	private final Path spillFile;
+	private final Path spillOffsetFile;
+	// Whether the spill file contains trades that still need to be replayed:
+	private boolean hasSpilledTrades;
+	// Whether there are log files that have been written to but not yet synced (PERIODIC sync mode). Only accessed on
+	// the main thread.
+	private boolean hasUnsyncedLogFiles = false;
+	private BukkitTask delayedSyncTask = null;
+	// These are reset to the current configuration values prior to every save, like the logItemMetadata setting:
+	private CsvSyncMode syncMode;
+	private long syncPeriodNanos;
+	private long maxFileSizeBytes; // 0 if disabled
+	private boolean compressFinishedFiles;
+
+	// The following state is only accessed by the save task, or while no save is in progress:
+	// The log files that have been written to but not yet synced (PERIODIC sync mode):
+	private final Set<Path> unsyncedLogFiles = new LinkedHashSet<>();
+	private long lastSyncNanos = System.nanoTime();
+	// The number of syncs during the current save:
+	private int syncCount = 0;
+	// The log file that we currently log the trades of its date to:
+	private String currentLogDate = null;
+	private Path currentLogFile = null;
+	// The log file that we logged today's trades to when we last compressed the finished log files, or null if the
+	// last compression failed:
+	private Path lastCompressionActiveLogFile = null;
+	// The offset of the next spilled trade to replay inside the spill file:
+	private long spillReplayOffset = 0L;
+
+	// The state of the current save:
+	private final List<TradeRecord> saving = new ArrayList<>();
+	private boolean spillOnly = false;
+	private SaveContext saveContext = null;
+	// The following state is updated during the execution of the save:
+	private int replayingCount = 0;
+	private int replayedSaveCount = 0;
+	// Whether there remain spilled trades after the replayed chunk:
+	private boolean replayRemaining = false;
+	// The new trades that are appended to the spill file:
+	private List<LogEntry> spillingEntries = Collections.emptyList();
+	private boolean spillSucceeded = false;
+	private boolean spillFileRemaining = false;
+	private boolean unsyncedLogFilesRemaining = false;
+
+	// Metrics:
+	private long spilledCount = 0L;
+	private long replayedCount = 0L;
+	private long droppedCount = 0L;
+	private long lastDropWarningMillis = 0L;
 
 	public CsvTradeLogger(Plugin plugin) {
-		Validate.notNull(plugin, "plugin is null");
-		this.plugin = plugin;
-		this.tradeLogsFolder = plugin.getDataFolder().toPath().resolve(TRADE_LOGS_FOLDER);
-		this.saveTask = new SaveTask(plugin);
+		super(plugin, "CSV trade log");
+		this.tradeLogsFolder = plugin.getDataFolder().toPath().resolve(CsvTradeLogFiles.TRADE_LOGS_FOLDER);
+		this.spillFile = plugin.getDataFolder().toPath().resolve(SPILL_FILE_NAME);
+		this.spillOffsetFile = plugin.getDataFolder().toPath().resolve(SPILL_OFFSET_FILE_NAME);
+
+		// Replay any trades that have been spilled during a previous server session:
+		this.hasSpilledTrades = Files.exists(spillFile);
+		if (hasSpilledTrades) {
+			this.spillReplayOffset = this.loadSpillReplayOffset();
+			Log.info("Found trades that could previously not be logged to the CSV trade log. Trying to log them now.");
+			this.savePendingDelayed();
+		}
 	}
 
 	@Override
 	public void logTrade(TradeRecord trade) {
-		pending.add(trade);
+		int bufferCapacity = Settings.csvTradeLogBufferCapacity;
+		while (pending.size() >= bufferCapacity) {
+			// The buffer is full: Drop the oldest buffered trade.
+			pending.removeFirst();
+			this.onTradesDropped(1);
+		}
+		pending.addLast(trade);
+
+		if (pending.size() >= bufferCapacity) {
+			// The buffer is full: Save the buffered trades right away. If the previous save failed, we spill the
+			// buffered trades to disk instead, to not continuously retry the save while the storage issue persists.
+			// The trades are logged once the delayed retry of the save succeeds.
+			spillRequested = this.isLastSaveFailed();
+			this.savePending();
+		} else {
+			// We do not trigger a save right away, because it is likely for there to be more trades to log in the
+			// immediate future:
+			this.savePendingDelayed();
+		}
+	}
+
+	private void onTradesDropped(int count) {
+		droppedCount += count;
+
+		// Throttled to once every 5 minutes:
+		long nowMillis = System.currentTimeMillis();
+		if (Math.abs(nowMillis - lastDropWarningMillis) > SAVE_ERROR_MSG_THROTTLE_MILLIS) {
+			lastDropWarningMillis = nowMillis;
+			Log.warning("The CSV trade log buffer is full! Dropping the oldest buffered trades. Dropped trades so far: "
+					+ droppedCount);
+		}
+	}
+
+	// METRICS
+
+	/**
+	 * Gets the number of trades that are currently buffered in memory, waiting to be logged.
+	 * 
+	 * @return the number of buffered trades
+	 */
+	public int getBufferedCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Gets the total number of trades that could not be logged and have been spilled to the spill file.
+	 * 
+	 * @return the number of spilled trades
+	 */
+	public long getSpilledCount() {
+		return spilledCount;
+	}
+
+	/**
+	 * Gets the total number of spilled trades that have been successfully logged afterwards.
+	 * 
+	 * @return the number of replayed trades
+	 */
+	public long getReplayedCount() {
+		return replayedCount;
+	}
+
+	/**
+	 * Gets the total number of trades that have been dropped because the buffer was full.
+	 * 
+	 * @return the number of dropped trades
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
 
-		// We do not trigger a save right away, because it is likely for there to be more trades to log in the immediate
-		// future:
-		this.savePendingDelayed();
+	/**
+	 * Checks whether the spill file contains trades that still need to be replayed.
+	 * 
+	 * @return <code>true</code> if there are spilled trades
+	 */
+	public boolean hasSpilledTrades() {
+		return hasSpilledTrades;
 	}
 
 	@Override
 	public void flush() {
-		this.savePending();
-		saveTask.awaitExecutions();
+		super.flush();
+
+		// Sync any log files that have not yet been synced (PERIODIC sync mode):
+		// Since there is no save in progress, it is safe to access the unsynced log files here.
+		this.cancelDelayedSync();
+		this.syncLogFiles();
+		hasUnsyncedLogFiles = false;
 	}
 
-	private boolean isDirty() {
-		return !pending.isEmpty();
+	@Override
+	protected boolean isDirty() {
+		return !pending.isEmpty() || hasSpilledTrades;
 	}
 
-	private void savePendingDelayed() {
-		if (!this.isDirty()) {
-			// There are no pending trades to save:
-			return;
-		}
-		if (delayedSaveTask != null) {
-			// There is already a delayed save in progress:
+	// Schedules a save that syncs the unsynced log files once the sync period has elapsed (PERIODIC sync mode), even if
+	// no further trades are logged in the meantime.
+	private void syncDelayed() {
+		if (!hasUnsyncedLogFiles) return;
+		if (delayedSyncTask != null) {
+			// There is already a delayed sync in progress:
 			return;
 		}
 
-		delayedSaveTask = SchedulerUtils.runTaskLaterOrOmit(plugin, () -> {
-			delayedSaveTask = null;
-			this.savePending();
-		}, DELAYED_SAVE_TICKS);
+		long delayTicks = Math.max(1L, Ticks.fromMillis(Settings.csvTradeLogSyncPeriodMillis));
+		delayedSyncTask = SchedulerUtils.runTaskLaterOrOmit(plugin, () -> {
+			delayedSyncTask = null;
+			if (!hasUnsyncedLogFiles) return;
+			// The save syncs the log files if the sync period has elapsed, even if there are no trades to save:
+			this.runSave();
+		}, delayTicks);
 	}
 
-	private void cancelDelayedSave() {
-		if (delayedSaveTask != null) {
-			delayedSaveTask.cancel();
-			delayedSaveTask = null;
+	private void cancelDelayedSync() {
+		if (delayedSyncTask != null) {
+			delayedSyncTask.cancel();
+			delayedSyncTask = null;
 		}
 	}
 
-	private void savePending() {
-		if (!this.isDirty()) {
-			// There are no pending trades to save:
-			return;
-		}
-		saveTask.run(); // Usually async, but may be sync during plugin disable
-	}
+	// SAVE
 
-	private class SaveTask extends SingletonTask {
+	@Override
+	protected void prepareSave() {
+		// Reset local logItemMetadata and sync settings:
+		super.prepareSave();
+		syncMode = Settings.csvTradeLogSyncMode;
+		syncPeriodNanos = TimeUnit.MILLISECONDS.toNanos(Settings.csvTradeLogSyncPeriodMillis);
+		syncCount = 0;
+		maxFileSizeBytes = Settings.csvTradeLogMaxFileSizeMb * 1024L * 1024L;
+		compressFinishedFiles = Settings.csvTradeLogCompressFinishedFiles;
+
+		// Move the pending trades into the saving list:
+		assert saving.isEmpty();
+		saving.addAll(pending);
+		pending.clear();
+		spillOnly = spillRequested;
+		spillRequested = false;
+
+		assert saveContext == null;
+		replayingCount = 0;
+		replayedSaveCount = 0;
+		replayRemaining = false;
+		assert spillingEntries.isEmpty();
+		spillSucceeded = false;
+		spillFileRemaining = hasSpilledTrades;
+	}
 
-		private List<TradeRecord> saving = new ArrayList<>();
-		private SaveContext saveContext = null;
-		private boolean saveSucceeded = false;
-		private long lastSaveErrorMsgMillis = 0L;
+	@Override
+	protected boolean executeSave() {
+		// Format the new trades:
+		// This happens only once per save, and not again for every retry of a failed save attempt.
+		List<LogEntry> newEntries = new ArrayList<>(saving.size());
+		for (TradeRecord trade : saving) {
+			newEntries.add(new LogEntry(trade, getLogDate(trade.getTimestamp()), this.toCSVRecord(trade)));
+		}
 
-		SaveTask(Plugin plugin) {
-			super(plugin);
+		if (spillOnly) {
+			// Spill the new trades right away, without trying to log them or to replay previously spilled trades:
+			// The save is still considered failed, so that the delayed retry of the save takes place.
+			saveContext = new SaveContext(Collections.emptyList());
+			spillingEntries = newEntries;
+			if (!spillingEntries.isEmpty()) {
+				spillSucceeded = this.spillEntries(spillingEntries);
+			}
+			spillFileRemaining = Files.exists(spillFile);
+			unsyncedLogFilesRemaining = !unsyncedLogFiles.isEmpty();
+			return false;
 		}
 
-		@Override
-		protected void prepare() {
-			// Stop any active delayed save task:
-			cancelDelayedSave();
+		// Replay the next chunk of spilled trades first, to preserve the order of the logged trades:
+		// If the spill file cannot be read, we keep it and try again during the next save.
+		List<LogEntry> entries = new ArrayList<>();
+		boolean spillFileLoaded = this.loadSpilledEntries(entries);
+		replayingCount = entries.size();
+		if (spillFileLoaded && !replayRemaining) {
+			entries.addAll(newEntries);
+		} else {
+			// There remain spilled trades that are not replayed during this save: To preserve the order of the logged
+			// trades, we append the new trades to the spill file and replay them after the remaining spilled trades.
+			spillingEntries = newEntries;
+		}
 
-			// Reset local logItemMetadata setting:
-			logItemMetadata = Settings.logItemMetadata;
+		// Setup new SaveContext:
+		saveContext = new SaveContext(entries);
 
-			// Swap the pending and saving lists of trades:
-			assert saving.isEmpty();
-			List<TradeRecord> temp = saving;
-			saving = pending;
-			pending = temp;
+		boolean writeSucceeded = this.writeTradesToDisk(saveContext);
+		assert writeSucceeded ? !saveContext.hasUnsavedTrades() : saveContext.hasUnsavedTrades();
 
-			// Setup new SaveContext:
-			assert saveContext == null;
-			saveContext = new SaveContext(saving);
+		// Skip the replayed spilled trades that have been logged, even if the save failed partially:
+		// The spilled trades that we failed to replay remain stored inside the spill file.
+		for (LogEntry entry : saveContext.getSavedEntries()) {
+			if (entry.trade != null) break; // New trade: All subsequent entries are new trades as well.
+			spillReplayOffset = entry.spillEndOffset;
+			replayedSaveCount++;
 		}
 
-		@Override
-		protected void execute() {
-			saveSucceeded = writeTradesToDisk(saveContext);
-			assert saveSucceeded ? !saveContext.hasUnsavedTrades() : saveContext.hasUnsavedTrades();
+		if (!writeSucceeded && spillingEntries.isEmpty()) {
+			// Spill the unsaved new trades to disk, so that we don't need to keep them in memory:
+			spillingEntries = new ArrayList<>();
+			for (LogEntry entry : saveContext.getUnsavedEntries()) {
+				if (entry.trade != null) {
+					spillingEntries.add(entry);
+				}
+			}
+		}
+		if (!spillingEntries.isEmpty()) {
+			spillSucceeded = this.spillEntries(spillingEntries);
 		}
 
-		@Override
-		protected void syncCallback() {
-			this.printDebugInfo();
+		if (spillFileRemaining && spillFileLoaded && !replayRemaining && replayedSaveCount == replayingCount
+				&& (spillingEntries.isEmpty() || !spillSucceeded)) {
+			// All spilled trades have been logged now:
+			this.deleteSpillFile();
+		} else if (replayedSaveCount > 0) {
+			this.saveSpillReplayOffset();
+		}
+		spillFileRemaining = Files.exists(spillFile);
 
-			if (!saveSucceeded) {
-				// Save failed:
+		// Sync the written log files if the sync period has elapsed (PERIODIC sync mode):
+		if (!unsyncedLogFiles.isEmpty() && (System.nanoTime() - lastSyncNanos) >= syncPeriodNanos) {
+			this.syncLogFiles();
+		}
+		unsyncedLogFilesRemaining = !unsyncedLogFiles.isEmpty();
 
-				// Add the unsaved trades to the front of the pending trades:
-				pending.addAll(0, saveContext.getUnsavedTrades());
+		// Compress the log files that we no longer log to:
+		// We skip this if the save is executed synchronously (eg. during plugin disable), because it can take a
+		// while. The files are compressed during a later save instead.
+		if (compressFinishedFiles && !SchedulerUtils.isMainThread()) {
+			this.compressFinishedLogFiles();
+		}
+		return spillFileLoaded && writeSucceeded && (spillingEntries.isEmpty() || spillSucceeded);
+	}
 
-				// Attempt the save again after a short delay:
-				// However, during the final save attempt during plugin disable, this is skipped and data might be lost.
-				savePendingDelayed();
+	@Override
+	protected void onSaveCompleted(boolean saveSucceeded) {
+		this.printDebugInfo(saveSucceeded);
+
+		hasSpilledTrades = spillFileRemaining;
+		hasUnsyncedLogFiles = unsyncedLogFilesRemaining;
+		// Sync the remaining unsynced log files once the sync period has elapsed (PERIODIC sync mode):
+		this.syncDelayed();
+		if (replayedSaveCount > 0) {
+			replayedCount += replayedSaveCount;
+			Log.info("Logged " + replayedSaveCount + " previously spilled trades to the CSV trade log.");
+		}
 
-				// Inform admins about the issue (throttled to once every 5 minutes):
-				long nowMillis = System.currentTimeMillis();
-				if (Math.abs(nowMillis - lastSaveErrorMsgMillis) > SAVE_ERROR_MSG_THROTTLE_MILLIS) {
-					lastSaveErrorMsgMillis = nowMillis;
-					String errorMsg = ChatColor.DARK_RED + "[Shopkeepers] " + ChatColor.RED + "Logging trades to the CSV trade log failed!"
-							+ " Please check the server logs and look into the issue!";
-					for (Player player : Bukkit.getOnlinePlayers()) {
-						if (player.hasPermission(ShopkeepersPlugin.ADMIN_PERMISSION)) {
-							player.sendMessage(errorMsg);
-						}
-					}
-				}
+		if (!spillingEntries.isEmpty()) {
+			if (spillSucceeded) {
+				// The new trades have been spilled to disk:
+				spilledCount += spillingEntries.size();
+			} else {
+				// Add the new trades that we failed to spill to the front of the pending trades:
+				// If this exceeds the buffer capacity, the oldest trades are dropped.
+				this.requeueTrades(spillingEntries);
 			}
+		}
 
-			// Reset:
-			saveContext = null;
-			saving.clear();
+		if (saveSucceeded && replayRemaining) {
+			// Replay the next chunk of spilled trades:
+			SchedulerUtils.runTaskOrOmit(plugin, this::savePending);
 		}
 
-		private void printDebugInfo() {
-			Log.debug(() -> {
-				StringBuilder sb = new StringBuilder();
-				sb.append("Logged trades to the CSV trade log (");
+		// Reset:
+		saveContext = null;
+		saving.clear();
+		spillingEntries = Collections.emptyList();
+	}
 
-				// Number of logged trade records:
-				sb.append(saving.size()).append(" records");
+	private void requeueTrades(List<LogEntry> entries) {
+		int bufferCapacity = Settings.csvTradeLogBufferCapacity;
+		ListIterator<LogEntry> iterator = entries.listIterator(entries.size());
+		int dropped = 0;
+		while (iterator.hasPrevious()) {
+			TradeRecord trade = iterator.previous().trade;
+			assert trade != null;
+			if (pending.size() >= bufferCapacity) {
+				dropped++;
+			} else {
+				pending.addFirst(trade);
+			}
+		}
+		if (dropped > 0) {
+			this.onTradesDropped(dropped);
+		}
+	}
 
-				// Number of trade records that we failed to log:
-				if (saveContext.hasUnsavedTrades()) {
-					sb.append(", ").append(saveContext.getUnsavedTrades().size()).append(" failed to log");
-				}
+	private void printDebugInfo(boolean saveSucceeded) {
+		Log.debug(() -> {
+			StringBuilder sb = new StringBuilder();
+			sb.append("Logged trades to the CSV trade log (");
 
-				// Timing summary:
-				sb.append("): ");
-				sb.append(this.getExecutionTimingString());
+			// Number of logged trade records:
+			int totalCount = saveContext.getEntries().size();
+			int unsavedCount = saveContext.getUnsavedEntries().size();
+			int savedCount = totalCount - unsavedCount;
+			sb.append(totalCount).append(" records");
 
-				// Failure indicator:
-				if (!saveSucceeded) {
-					if (saveContext.getUnsavedTrades().size() == saving.size()) {
-						sb.append(" -- Logging failed!");
-					} else {
-						sb.append(" -- Logging partially failed!");
-					}
+			// Number of replayed spilled trade records:
+			if (replayingCount > 0) {
+				sb.append(", ").append(replayingCount).append(" replayed");
+			}
+
+			// Number of trade records that we failed to log:
+			if (unsavedCount > 0) {
+				sb.append(", ").append(unsavedCount).append(" failed to log");
+			}
+
+			// Number of new trade records that have been appended to the spill file:
+			if (!spillingEntries.isEmpty()) {
+				sb.append(", ").append(spillingEntries.size());
+				sb.append(spillSucceeded ? " spilled" : " failed to spill");
+			}
+
+			// Write throughput and number of syncs:
+			long executionDurationMillis = this.getSaveExecutionDuration();
+			if (executionDurationMillis > 0) {
+				sb.append(", ").append(savedCount * 1000L / executionDurationMillis).append(" records/s");
+			}
+			sb.append(", sync mode: ").append(syncMode);
+			sb.append(", syncs: ").append(syncCount);
+
+			// Timing summary:
+			sb.append("): ");
+			sb.append(this.getSaveTimingString());
+
+			// Failure indicator:
+			if (spillOnly) {
+				sb.append(" -- Spilled the buffered trades after a previously failed save!");
+			} else if (!saveSucceeded) {
+				if (unsavedCount == totalCount) {
+					sb.append(" -- Logging failed!");
+				} else {
+					sb.append(" -- Logging partially failed!");
 				}
-				return sb.toString();
-			});
+			}
+			return sb.toString();
+		});
+	}
+
+	// A formatted trade record, together with the date of the log file to log it to.
+	private static class LogEntry {
+
+		final TradeRecord trade; // Null for spilled trades that are replayed
+		final String date;
+		final String record; // Includes the record separator
+		// The offset inside the spill file after this replayed spilled trade, or -1 for new trades:
+		final long spillEndOffset;
+
+		LogEntry(TradeRecord trade, String date, String record) {
+			this(trade, date, record, -1L);
+		}
+
+		LogEntry(TradeRecord trade, String date, String record, long spillEndOffset) {
+			assert date != null && record != null;
+			this.trade = trade;
+			this.date = date;
+			this.record = record;
+			this.spillEndOffset = spillEndOffset;
 		}
 	}
 
 	private static class SaveContext {
 
-		private final List<TradeRecord> trades;
+		private final List<LogEntry> entries;
 		private int nextUnsaved = 0;
 
-		SaveContext(List<TradeRecord> trades) {
-			assert trades != null && !trades.contains(null);
-			this.trades = trades;
+		SaveContext(List<LogEntry> entries) {
+			assert entries != null && !entries.contains(null);
+			this.entries = entries;
+		}
+
+		public List<LogEntry> getEntries() {
+			return entries;
 		}
 
 		public boolean hasUnsavedTrades() {
-			return (nextUnsaved < trades.size());
+			return (nextUnsaved < entries.size());
 		}
 
 		// Returns null if there are no more unsaved trades.
 		// Does not move the cursor forward until onTradeSuccessfullySaved() has been called.
-		public TradeRecord getNextUnsavedTrade() {
+		public LogEntry getNextUnsavedEntry() {
 			if (!this.hasUnsavedTrades()) return null;
-			return trades.get(nextUnsaved);
+			return entries.get(nextUnsaved);
 		}
 
 		// May return a sublist view:
-		public List<TradeRecord> getUnsavedTrades() {
+		public List<LogEntry> getSavedEntries() {
+			return entries.subList(0, nextUnsaved);
+		}
+
+		// May return a sublist view:
+		public List<LogEntry> getUnsavedEntries() {
 			if (!this.hasUnsavedTrades()) {
 				return Collections.emptyList();
 			} else {
-				return trades.subList(nextUnsaved, trades.size());
+				return entries.subList(nextUnsaved, entries.size());
 			}
 		}
 
@@ -278,35 +572,285 @@ public class CsvTradeLogger implements TradeLogger {
 		}
 	}
 
-	private Path getLogFile(Instant timestamp) {
+	// SPILL FILE
+
+	// Each line of the spill file consists of the date of the target log file, followed by a comma and the formatted
+	// CSV record without its record separator. Since the CSV formatter does not escape newlines, we escape the newlines
+	// and backslashes of the spilled records, so that each spilled record occupies exactly one line.
+	// New spilled trades are appended to the spill file, and the replayed trades are skipped by advancing the replay
+	// offset. The spill file is deleted once all of its trades have been logged.
+
+	// Only invoked on the main thread during construction.
+	// Returns 0 if there is no persisted offset, or if it cannot be read.
+	private long loadSpillReplayOffset() {
+		if (!Files.exists(spillOffsetFile)) return 0L;
+		try {
+			String offsetString = new String(Files.readAllBytes(spillOffsetFile), StandardCharsets.UTF_8).trim();
+			long offset = Long.parseLong(offsetString);
+			if (offset < 0 || offset > Files.size(spillFile)) {
+				throw new IOException("Invalid offset: " + offsetString);
+			}
+			return offset;
+		} catch (IOException | NumberFormatException e) {
+			Log.severe("Failed to read the CSV trade log spill offset file! Spilled trades that have already been"
+					+ " logged might be logged again.", e);
+			return 0L;
+		}
+	}
+
+	// Only invoked by the save task.
+	private void saveSpillReplayOffset() {
+		try {
+			Path tempFile = spillOffsetFile.resolveSibling(SPILL_OFFSET_FILE_NAME + ".tmp");
+			Files.write(tempFile, Long.toString(spillReplayOffset).getBytes(StandardCharsets.UTF_8));
+			FileUtils.fsync(tempFile);
+			FileUtils.moveFile(tempFile, spillOffsetFile, Log.getLogger());
+			FileUtils.fsyncParentDirectory(spillOffsetFile);
+		} catch (IOException e) {
+			// We still skip the logged spilled trades during the current server session.
+			Log.severe("Failed to save the CSV trade log spill offset! Spilled trades that have already been"
+					+ " logged might be logged again after a restart.", e);
+		}
+	}
+
+	// Loads the next chunk of spilled trades, starting at the current replay offset, and determines whether there
+	// remain spilled trades after this chunk. Only invoked by the save task.
+	// Returns false if the spill file exists but could not be read.
+	private boolean loadSpilledEntries(List<LogEntry> entries) {
+		if (!Files.exists(spillFile)) return true;
+		List<LogEntry> spilledEntries = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			long offset = Math.min(spillReplayOffset, fileSize);
+			channel.position(offset);
+			// Not closed separately, since this closes the channel:
+			InputStream input = new BufferedInputStream(Channels.newInputStream(channel));
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			int nextByte;
+			while (spilledEntries.size() < SPILL_REPLAY_CHUNK_SIZE && (nextByte = input.read()) != -1) {
+				offset++;
+				if (nextByte != '\n') {
+					line.write(nextByte);
+					continue;
+				}
+
+				LogEntry entry = parseSpilledEntry(new String(line.toByteArray(), StandardCharsets.UTF_8), offset);
+				line.reset();
+				if (entry != null) {
+					spilledEntries.add(entry);
+				}
+			}
+			if (line.size() > 0) {
+				// The last line is incomplete, eg. because the server crashed while trades were spilled:
+				Log.warning("Skipping incomplete last line in the CSV trade log spill file.");
+			}
+			replayRemaining = (offset < fileSize);
+		} catch (IOException e) {
+			Log.severe("Failed to read the CSV trade log spill file!", e);
+			return false;
+		}
+		entries.addAll(spilledEntries);
+		return true;
+	}
+
+	// Returns null if the line is empty or invalid.
+	private static LogEntry parseSpilledEntry(String line, long endOffset) {
+		if (line.isEmpty()) return null;
+		int separatorIndex = line.indexOf(',');
+		if (separatorIndex <= 0) {
+			Log.warning("Skipping invalid line in the CSV trade log spill file: " + line);
+			return null;
+		}
+		String date = line.substring(0, separatorIndex);
+		// Our CSV records use '\n' as record separator:
+		String record = StringUtils.unescapeNewlinesAndBackslash(line.substring(separatorIndex + 1)) + "\n";
+		return new LogEntry(null, date, record, endOffset);
+	}
+
+	// Appends the given entries to the spill file. Only invoked by the save task.
+	// If this fails, any partially appended entries are truncated again.
+	// Returns true on success.
+	private boolean spillEntries(List<LogEntry> entries) {
+		assert !entries.isEmpty();
+		try {
+			if (!Files.exists(spillFile)) {
+				// Start a new spill file: Any remaining offset file belongs to a previous spill file.
+				FileUtils.deleteIfExists(spillOffsetFile);
+				spillReplayOffset = 0L;
+			}
+			FileUtils.createParentDirectories(spillFile);
+			OpenOption[] openOptions = new OpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.WRITE };
+			try (FileChannel channel = FileChannel.open(spillFile, openOptions)) {
+				long originalSize = channel.size();
+				try {
+					channel.position(originalSize);
+					// Not closed separately, since this closes the channel:
+					Writer writer = new BufferedWriter(new OutputStreamWriter(
+							Channels.newOutputStream(channel),
+							StandardCharsets.UTF_8
+					));
+					if (endsWithoutNewline(channel, originalSize)) {
+						// Terminate the incomplete last line:
+						writer.write('\n');
+					}
+					for (LogEntry entry : entries) {
+						String record = entry.record;
+						assert record.endsWith("\n");
+						writer.write(entry.date);
+						writer.write(',');
+						writer.write(StringUtils.escapeNewlinesAndBackslash(record.substring(0, record.length() - 1)));
+						writer.write('\n');
+					}
+					writer.flush();
+					channel.force(true);
+				} catch (IOException e) {
+					try {
+						channel.truncate(originalSize);
+					} catch (IOException e2) {
+						e.addSuppressed(e2);
+					}
+					throw e;
+				}
+			}
+			FileUtils.fsyncParentDirectory(spillFile);
+			return true;
+		} catch (IOException e) {
+			Log.severe("Failed to spill " + entries.size() + " trades to the CSV trade log spill file!", e);
+			return false;
+		}
+	}
+
+	private static boolean endsWithoutNewline(FileChannel channel, long size) throws IOException {
+		if (size == 0) return false;
+		ByteBuffer lastByte = ByteBuffer.allocate(1);
+		channel.read(lastByte, size - 1);
+		return lastByte.get(0) != '\n';
+	}
+
+	// Only invoked by the save task.
+	private void deleteSpillFile() {
+		try {
+			FileUtils.deleteIfExists(spillFile);
+			spillReplayOffset = 0L;
+			FileUtils.deleteIfExists(spillOffsetFile);
+		} catch (IOException e) {
+			// If we keep the spill file, we skip its logged trades via the persisted replay offset.
+			Log.severe("Failed to delete the CSV trade log spill file!", e);
+			if (Files.exists(spillFile)) {
+				this.saveSpillReplayOffset();
+			}
+		}
+	}
+
+	private static String getLogDate(Instant timestamp) {
 		assert timestamp != null;
-		return tradeLogsFolder.resolve(FILE_NAME_PREFIX + DATE_FORMAT.format(timestamp) + ".csv");
-	}
-
-	// Note: We log the item metadata in Yaml format. Since this is what Bukkit natively supports for serializing and
-	// deserializing ItemStacks, this ensures that we are able to load the data again and recreate the original
-	// ItemStack (if we ever wish to).
-	// An alternative would be to log it in Json format, which may have better library support across languages.
-	// However, Gson (the Json library included with the Minecraft server and Bukkit) will not properly preserve certain
-	// data types by default (at least not if we don't provide detailed custom deserializers for every type of data that
-	// we may want to deserialize, or a deserializer that replicates Yaml's parsing of certain primitive types, which is
-	// actually not that easily possible): For instance, if the numeric data type of a loaded Json number is unknown,
-	// Gson loads it as a double by default (without there being an easy way to change that). But since some parts of
-	// Bukkit's ItemStack deserialization have strict expectations regarding the type of data to deserialize, the
-	// deserialization from Json may fail for this data.
+		return CsvTradeLogFiles.DATE_FORMAT.format(timestamp);
+	}
+
+	// Gets the log file to log the trades of the specified date to.
+	// This is usually the log file of that date. However, if the log file has already been compressed, or if it has
+	// reached the maximum file size, we log to a new part of that date instead.
+	private Path getLogFile(String date) throws IOException {
+		assert date != null;
+		if (date.equals(currentLogDate) && Files.exists(currentLogFile)
+				&& (maxFileSizeBytes <= 0 || Files.size(currentLogFile) < maxFileSizeBytes)) {
+			return currentLogFile;
+		}
+
+		// Find the last existing part of the date:
+		List<LogFile> logFiles = CsvTradeLogFiles.getLogFiles(tradeLogsFolder, date);
+		Path logFile;
+		if (logFiles.isEmpty()) {
+			logFile = CsvTradeLogFiles.getLogFile(tradeLogsFolder, date, 0);
+		} else {
+			LogFile lastLogFile = logFiles.get(logFiles.size() - 1);
+			if (!lastLogFile.compressed && (maxFileSizeBytes <= 0 || Files.size(lastLogFile.path) < maxFileSizeBytes)) {
+				logFile = lastLogFile.path;
+			} else {
+				logFile = CsvTradeLogFiles.getLogFile(tradeLogsFolder, date, lastLogFile.part + 1);
+			}
+		}
+
+		currentLogDate = date;
+		currentLogFile = logFile;
+		return logFile;
+	}
+
+	// Compresses all uncompressed log files, except the log file that we currently log today's trades to.
+	// Log files are only finished when we start to log to a new log file, i.e. once per day, or when the maximum file
+	// size is reached. We therefore only scan the log files when the log file that we log today's trades to changes.
+	// If the compression of a log file fails, we log the issue and try again during the next save.
+	private void compressFinishedLogFiles() {
+		List<LogFile> logFiles;
+		Path activeLogFile;
+		try {
+			activeLogFile = this.getLogFile(getLogDate(Instant.now()));
+			if (activeLogFile.equals(lastCompressionActiveLogFile)) {
+				// The finished log files have already been compressed:
+				return;
+			}
+			logFiles = CsvTradeLogFiles.getLogFiles(tradeLogsFolder, null);
+		} catch (IOException e) {
+			Log.severe("Failed to determine the CSV trade log files to compress!", e);
+			return;
+		}
+
+		boolean compressionFailed = false;
+		for (LogFile logFile : logFiles) {
+			if (logFile.compressed) continue;
+			if (logFile.path.equals(activeLogFile)) continue;
+
+			// Sync any pending writes to the file before we compress and delete it:
+			if (unsyncedLogFiles.contains(logFile.path)) {
+				this.syncLogFiles();
+			}
+
+			try {
+				this.compressLogFile(logFile.path);
+			} catch (IOException e) {
+				Log.severe("Failed to compress the CSV trade log file '" + logFile.path.getFileName() + "'!", e);
+				compressionFailed = true;
+			}
+		}
+		lastCompressionActiveLogFile = compressionFailed ? null : activeLogFile;
+	}
+
+	private void compressLogFile(Path logFile) throws IOException {
+		Path compressedFile = CsvTradeLogFiles.getCompressedFile(logFile);
+		Path tempFile = compressedFile.resolveSibling(compressedFile.getFileName().toString() + ".tmp");
+
+		// Write the compressed data to a temporary file first, so that we never end up with a partially written
+		// compressed log file:
+		try (	InputStream in = Files.newInputStream(logFile);
+				OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempFile))) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		}
+		FileUtils.fsync(tempFile);
+		FileUtils.moveFile(tempFile, compressedFile, Log.getLogger());
+		FileUtils.fsyncParentDirectory(compressedFile);
+
+		// If the server crashes before we were able to delete the uncompressed log file, the compressed log file is
+		// ignored and written again during the next compression.
+		FileUtils.delete(logFile);
+		FileUtils.fsyncParentDirectory(logFile);
+		Log.debug(() -> "Compressed the CSV trade log file '" + logFile.getFileName() + "'.");
+	}
+
+	// See AbstractTradeLogger#serializeItemMetadata
 	private String getItemMetadata(UnmodifiableItemStack itemStack) {
 		assert itemStack != null;
 		if (!logItemMetadata) return ""; // Disabled
 
-		// If the logging of item metadata is enabled, we not only store the item's ItemMeta (if it has any), but also
-		// its data version. We therefore serialize the complete item stack here, but then remove the item's type and
-		// amount again, since these properties are already getting stored separately.
-		Map<String, Object> itemData = itemStack.serialize(); // Assert: The returned Map is modifiable.
-		itemData.remove("type");
-		itemData.remove("amount");
-		// In order to ensure single-line CSV records, we format the Yaml compactly:
-		String yaml = YamlUtils.toCompactYaml(itemData);
-		return yaml;
+		return itemMetadataCache.computeIfAbsent(itemStack, AbstractTradeLogger::serializeItemMetadata);
+	}
+
+	private String getUUIDString(UUID uuid) {
+		assert uuid != null;
+		return uuidStringCache.computeIfAbsent(uuid, UUID::toString);
 	}
 
 	private String toCSVRecord(TradeRecord trade) {
@@ -319,7 +863,7 @@ public class CsvTradeLogger implements TradeLogger {
 		String shopOwnerId = "";
 		String shopOwnerName = "";
 		if (shopOwner != null) {
-			shopOwnerId = shopOwner.getUniqueId().toString();
+			shopOwnerId = this.getUUIDString(shopOwner.getUniqueId());
 			shopOwnerName = shopOwner.getName();
 		}
 
@@ -343,8 +887,8 @@ public class CsvTradeLogger implements TradeLogger {
 		// "result_item_type", "result_item_amount", "result_item_metadata",
 		// "trade_count"
 		return csv.formatRecord(Arrays.asList(
-				TIME_FORMAT.format(timestamp), player.getUniqueId(), player.getName(),
-				shop.getUniqueId(), shop.getTypeId(), worldName, shop.getX(), shop.getY(), shop.getZ(),
+				CsvTradeLogFiles.TIME_FORMAT.format(timestamp), this.getUUIDString(player.getUniqueId()), player.getName(),
+				this.getUUIDString(shop.getUniqueId()), shop.getTypeId(), worldName, shop.getX(), shop.getY(), shop.getZ(),
 				shopOwnerId, shopOwnerName,
 				item1.getType().name(), item1.getAmount(), this.getItemMetadata(item1),
 				item2Type, item2Amount, item2Metadata,
@@ -356,39 +900,25 @@ public class CsvTradeLogger implements TradeLogger {
 
 	// May be invoked asynchronously.
 	// Returns true on success.
-	public boolean writeTradesToDisk(SaveContext saveContext) {
-		try {
-			Retry.retry((VoidCallable) () -> {
-				this.writeTradesToLogFile(saveContext);
-			}, SAVE_MAX_ATTEMPTS, (attemptNumber, exception, retry) -> {
-				// Trade logging failed:
-				assert exception != null;
-				// Don't spam with errors and stacktraces: Only print them once for the first failed saving attempt
-				// (and again for the last failed attempt), and otherwise log a compact description of the issue:
-				String errorMsg = "Failed to log trades to the CSV trade log (attempt " + attemptNumber + ")";
-				if (attemptNumber == 1) {
-					Log.severe(errorMsg, exception);
-				} else {
-					String issue = ThrowableUtils.getDescription(exception);
-					Log.severe(errorMsg + ": " + issue);
-				}
+	private boolean writeTradesToDisk(SaveContext saveContext) {
+		return this.writeWithRetry(() -> {
+			this.writeTradesToLogFile(saveContext);
+		});
+	}
 
-				// Try again after a small delay:
-				if (retry) {
-					try {
-						Thread.sleep(SAVE_RETRY_DELAY_MILLIS);
-					} catch (InterruptedException e) {
-						// Restore the interrupt status for anyone interested in it, but otherwise ignore the interrupt
-						// here, because we prefer to keep retrying to still save the data to disk after all:
-						Thread.currentThread().interrupt();
-					}
-				}
-			});
-			return true;
-		} catch (Exception e) {
-			Log.severe("Failed to log trades to the CSV trade log! Data might have been lost! :(", e);
-			return false;
+	// Syncs the log files that have been written to but not yet been synced.
+	// Only invoked by the save task, or while no save is in progress.
+	private void syncLogFiles() {
+		for (Path logFile : unsyncedLogFiles) {
+			try {
+				FileUtils.fsync(logFile);
+				syncCount++;
+			} catch (IOException e) {
+				Log.severe("Failed to sync the CSV trade log file '" + logFile.getFileName() + "'!", e);
+			}
 		}
+		unsyncedLogFiles.clear();
+		lastSyncNanos = System.nanoTime();
 	}
 
 	/*
@@ -400,8 +930,11 @@ public class CsvTradeLogger implements TradeLogger {
 	 * Measures:
 	 * - We write to the log files via a single thread only, and assume that no other processes write to them
 	 *   (concurrent reads should not be an issue).
-	 * - We use synchronous IO to ensure that each trade is actually persisted to the storage before we assume it
-	 *   to have been successfully logged.
+	 * - By default, we use synchronous IO to ensure that each trade is actually persisted to the storage before we
+	 *   assume it to have been successfully logged. Since syncing every write is slow, the sync mode can be changed
+	 *   to only sync the log file once after each batch of trades, or periodically. In these modes, trades are
+	 *   considered logged once they have been written, and trades that have not yet been synced may be lost if the
+	 *   server crashes.
 	 * - If the logging of a trade fails for some reasons, we retry it until it succeeds. However, for this to not
 	 *   result in trades being partially logged, or logged multiple times, the logging has to be atomic. I.e. it has
 	 *   to either succeed completely, or fail completely. See the notes on that below.
@@ -422,10 +955,11 @@ public class CsvTradeLogger implements TradeLogger {
 	// consecutive trades that need to be logged to the same log file, and then recursively invokes itself to write the
 	// remaining trades to other log files.
 	private void writeTradesToLogFile(SaveContext saveContext) throws IOException {
-		TradeRecord trade = saveContext.getNextUnsavedTrade();
-		if (trade == null) return; // There are no unsaved trades
+		LogEntry entry = saveContext.getNextUnsavedEntry();
+		if (entry == null) return; // There are no unsaved trades
 
-		Path logFile = this.getLogFile(trade.getTimestamp());
+		String logDate = entry.date;
+		Path logFile = this.getLogFile(logDate);
 
 		// Create the parent directories if they are missing:
 		FileUtils.createParentDirectories(logFile);
@@ -444,34 +978,34 @@ public class CsvTradeLogger implements TradeLogger {
 			FileUtils.checkIsFileWritable(logFile);
 		}
 
-		OpenOption[] openOptions;
+		List<OpenOption> openOptions = new ArrayList<>(4);
 		if (isNew) {
 			// Create the new file, but fail if the assumption that the file does not yet exist turns out to no longer
 			// hold when we actually attempt to create the file:
-			openOptions = new OpenOption[] {
-				StandardOpenOption.CREATE_NEW, // Create new file, fail if it already exists
-				StandardOpenOption.WRITE, // Open for write access
-				StandardOpenOption.APPEND, // Append to the end of the file
-				StandardOpenOption.DSYNC // Ensure that each write is persisted to storage before we continue
-			};
-		} else {
-			// Fails if the file no longer exists when the attempt to open it:
-			openOptions = new OpenOption[] {
-				StandardOpenOption.WRITE,
-				StandardOpenOption.APPEND,
-				StandardOpenOption.DSYNC
-			};
-			// Note: Opening the file for writing will also fail if the file is actually a directory instead of a
-			// regular file.
+			openOptions.add(StandardOpenOption.CREATE_NEW); // Create new file, fail if it already exists
+		}
+		// Fails if the file no longer exists when the attempt to open it:
+		// Note: Opening the file for writing will also fail if the file is actually a directory instead of a regular
+		// file.
+		openOptions.add(StandardOpenOption.WRITE); // Open for write access
+		openOptions.add(StandardOpenOption.APPEND); // Append to the end of the file
+		if (syncMode == CsvSyncMode.RECORD) {
+			// Ensure that each write is persisted to storage before we continue:
+			openOptions.add(StandardOpenOption.DSYNC);
 		}
 
 		// TODO Use the file encoding specified inside the config? Or add a separate setting?
 		boolean done = false;
-		try (Writer writer = FileUtils.newUnbufferedWriter(logFile, StandardCharsets.UTF_8, openOptions)) {
+		try (Writer writer = FileUtils.newUnbufferedWriter(logFile, StandardCharsets.UTF_8, openOptions.toArray(new OpenOption[0]))) {
 			// Even though we use an unbuffered writer, we flush after every write just in case, and to make our intent
 			// more clear.
 			// TODO What if we receive an IOException during a flush? Has the trade been logged or not at that point?
 
+			if (syncMode != CsvSyncMode.RECORD) {
+				// Remember to sync the written trades later:
+				unsyncedLogFiles.add(logFile);
+			}
+
 			if (isNew) {
 				// Fsync the parent directory to ensure that the newly created log file has been successfully persisted.
 				// We do this prior to writing to the new file, so that we can be sure that nothing has been written to
@@ -490,7 +1024,7 @@ public class CsvTradeLogger implements TradeLogger {
 			// be logged to the same log file before we close it again:
 			do {
 				// Write the new trade record:
-				writer.write(this.toCSVRecord(trade));
+				writer.write(entry.record);
 				writer.flush();
 
 				// If we did not throw an IOException up until this point, we assume that the trade has been
@@ -498,11 +1032,12 @@ public class CsvTradeLogger implements TradeLogger {
 				saveContext.onTradeSuccessfullySaved();
 
 				// Get the next trade to save:
-				trade = saveContext.getNextUnsavedTrade();
-				if (trade == null) break; // There are no more trades to save
+				entry = saveContext.getNextUnsavedEntry();
+				if (entry == null) break; // There are no more trades to save
 
-				Path nextLogFile = this.getLogFile(trade.getTimestamp());
-				if (!logFile.equals(nextLogFile)) {
+				// Note: We only check whether the maximum file size has been reached once for every batch of trades
+				// that we log to the same file.
+				if (!logDate.equals(entry.date)) {
 					break;
 				} // Else: Continue.
 			} while (true);
@@ -520,6 +1055,13 @@ public class CsvTradeLogger implements TradeLogger {
 			}
 		}
 
+		// In the BATCH sync mode, we sync the written trades now:
+		// Since the trades are already considered logged at this point, a failed sync does not trigger a retry, which
+		// would log the trades a second time.
+		if (syncMode == CsvSyncMode.BATCH) {
+			this.syncLogFiles();
+		}
+
 		// Recursively log the remaining trades to their target log files:
 		if (saveContext.hasUnsavedTrades()) {
 			this.writeTradesToLogFile(saveContext);
@@ -67,7 +67,27 @@ public class TradeRecord {
 	private final UnmodifiableItemStack item2; // Can be null
 	private final int tradeCount;
 
-	private TradeRecord(Instant timestamp, PlayerRecord player, ShopRecord shop, UnmodifiableItemStack resultItem,
+	/**
+	 * Creates a new {@link TradeRecord}.
+	 * <p>
+	 * The given items are expected to be immutable.
+	 * 
+	 * @param timestamp
+	 *            the timestamp of the trade, not <code>null</code>
+	 * @param player
+	 *            the trading player, not <code>null</code>
+	 * @param shop
+	 *            the involved shop, not <code>null</code>
+	 * @param resultItem
+	 *            the result item, not <code>null</code>
+	 * @param item1
+	 *            the first item provided by the player, not <code>null</code>
+	 * @param item2
+	 *            the second item provided by the player, can be <code>null</code>
+	 * @param tradeCount
+	 *            the number of equal trades represented by this record, positive
+	 */
+	public TradeRecord(	Instant timestamp, PlayerRecord player, ShopRecord shop, UnmodifiableItemStack resultItem,
 						UnmodifiableItemStack item1, UnmodifiableItemStack item2, int tradeCount) {
 		Validate.notNull(timestamp, "timestamp is null");
 		Validate.notNull(player, "player is null");
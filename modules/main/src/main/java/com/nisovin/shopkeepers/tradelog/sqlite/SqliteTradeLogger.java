@@ -0,0 +1,518 @@
+package com.nisovin.shopkeepers.tradelog.sqlite;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.bukkit.plugin.Plugin;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.tradelog.AbstractTradeLogger;
+import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
+import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.LRUCache;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Logs trades to an SQLite database.
+ * <p>
+ * Unlike the CSV trade log, the database can be efficiently queried for the trades of a specific shop, shop owner, or
+ * player, and within a specific time range.
+ * <p>
+ * The SQLite JDBC driver is not shipped with the plugin, but provided by the server. Use {@link #isDriverAvailable()}
+ * to check if it is available.
+ */
+public class SqliteTradeLogger extends AbstractTradeLogger {
+
+	private static final String DRIVER_CLASS = "org.sqlite.JDBC";
+	private static final String TRADE_LOGS_FOLDER = "trade-logs";
+	private static final String DATABASE_FILE = "trades.db";
+
+	// Incremented whenever the database schema changes:
+	private static final int SCHEMA_VERSION = 1;
+	// The player, shop, and item rows are not updated once created. Instead, if their data changes, we insert new
+	// rows. Trades reference these rows by their row id.
+	private static final String[] SCHEMA = {
+		"CREATE TABLE IF NOT EXISTS player ("
+				+ "id INTEGER PRIMARY KEY, "
+				+ "uuid TEXT NOT NULL, "
+				+ "name TEXT NOT NULL, "
+				+ "UNIQUE (uuid, name))",
+		"CREATE TABLE IF NOT EXISTS shop ("
+				+ "id INTEGER PRIMARY KEY, "
+				+ "uuid TEXT NOT NULL, "
+				+ "type TEXT NOT NULL, "
+				+ "name TEXT NOT NULL, "
+				+ "owner_id INTEGER REFERENCES player (id), " // Null for admin shops
+				+ "world TEXT, " // Null for virtual shops
+				+ "x INTEGER NOT NULL, "
+				+ "y INTEGER NOT NULL, "
+				+ "z INTEGER NOT NULL)",
+		"CREATE INDEX IF NOT EXISTS shop_uuid ON shop (uuid)",
+		"CREATE INDEX IF NOT EXISTS shop_owner ON shop (owner_id)",
+		"CREATE TABLE IF NOT EXISTS item ("
+				+ "id INTEGER PRIMARY KEY, "
+				+ "type TEXT NOT NULL, "
+				+ "metadata TEXT NOT NULL, " // Empty if the item metadata is not logged
+				+ "UNIQUE (type, metadata))",
+		"CREATE TABLE IF NOT EXISTS trade ("
+				+ "id INTEGER PRIMARY KEY, "
+				+ "time INTEGER NOT NULL, " // Epoch millis
+				+ "player_id INTEGER NOT NULL REFERENCES player (id), "
+				+ "shop_id INTEGER NOT NULL REFERENCES shop (id), "
+				+ "item1_id INTEGER NOT NULL REFERENCES item (id), "
+				+ "item1_amount INTEGER NOT NULL, "
+				+ "item2_id INTEGER REFERENCES item (id), "
+				+ "item2_amount INTEGER, "
+				+ "result_item_id INTEGER NOT NULL REFERENCES item (id), "
+				+ "result_item_amount INTEGER NOT NULL, "
+				+ "trade_count INTEGER NOT NULL)",
+		"CREATE INDEX IF NOT EXISTS trade_time ON trade (time)",
+		"CREATE INDEX IF NOT EXISTS trade_shop_time ON trade (shop_id, time)",
+		"CREATE INDEX IF NOT EXISTS trade_player_time ON trade (player_id, time)"
+	};
+
+	private static final String SELECT_PLAYER = "SELECT id FROM player WHERE uuid = ? AND name = ?";
+	private static final String INSERT_PLAYER = "INSERT INTO player (uuid, name) VALUES (?, ?)";
+	// 'IS' compares null values as equal:
+	private static final String SELECT_SHOP = "SELECT id FROM shop WHERE uuid = ? AND type = ? AND name = ?"
+			+ " AND owner_id IS ? AND world IS ? AND x = ? AND y = ? AND z = ?";
+	private static final String INSERT_SHOP = "INSERT INTO shop (uuid, type, name, owner_id, world, x, y, z)"
+			+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String SELECT_ITEM = "SELECT id FROM item WHERE type = ? AND metadata = ?";
+	private static final String INSERT_ITEM = "INSERT INTO item (type, metadata) VALUES (?, ?)";
+	private static final String INSERT_TRADE = "INSERT INTO trade (time, player_id, shop_id,"
+			+ " item1_id, item1_amount, item2_id, item2_amount, result_item_id, result_item_amount, trade_count)"
+			+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	// The trade_shop_time index is used for both the shop lookup and the ordering by time:
+	private static final String COUNT_SHOP_TRADES = "SELECT COUNT(*) FROM trade"
+			+ " WHERE shop_id IN (SELECT id FROM shop WHERE uuid = ?)";
+	private static final String SELECT_SHOP_TRADES = "SELECT trade.time, player.uuid, player.name,"
+			+ " item1.type, trade.item1_amount, item2.type, trade.item2_amount,"
+			+ " result_item.type, trade.result_item_amount, trade.trade_count"
+			+ " FROM trade"
+			+ " JOIN player ON player.id = trade.player_id"
+			+ " JOIN item AS item1 ON item1.id = trade.item1_id"
+			+ " LEFT JOIN item AS item2 ON item2.id = trade.item2_id"
+			+ " JOIN item AS result_item ON result_item.id = trade.result_item_id"
+			+ " WHERE trade.shop_id IN (SELECT id FROM shop WHERE uuid = ?)"
+			+ " ORDER BY trade.time DESC, trade.id DESC"
+			+ " LIMIT ? OFFSET ?";
+
+	// The maximum number of cached player and shop row ids, before the cache is cleared:
+	private static final int MAX_CACHED_IDS = 10000;
+	private static final int ITEM_ID_CACHE_SIZE = 256;
+
+	/**
+	 * Checks if the SQLite JDBC driver is available.
+	 *
+	 * @return <code>true</code> if the driver is available
+	 */
+	public static boolean isDriverAvailable() {
+		try {
+			Class.forName(DRIVER_CLASS);
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private final Path databaseFile;
+	private final String databaseUrl;
+	private List<TradeRecord> pending = new ArrayList<>();
+	private List<TradeRecord> saving = new ArrayList<>();
+
+	// The following state is only accessed by the save task, or while no save is in progress:
+	private Connection connection = null;
+	// Cached row ids of the already inserted players, shops, and items. These are only valid for committed rows and
+	// therefore reset when a transaction fails. Since the items of trade records are immutable, we can use the items
+	// themselves as cache keys. This avoids having to serialize the metadata of recently logged items again.
+	private final Map<PlayerRecord, Long> playerIds = new HashMap<>();
+	private final Map<ShopRecord, Long> shopIds = new HashMap<>();
+	private final Map<UnmodifiableItemStack, Long> itemIds = new LRUCache<>(ITEM_ID_CACHE_SIZE);
+
+	public SqliteTradeLogger(Plugin plugin) {
+		super(plugin, "trade log database");
+		this.databaseFile = plugin.getDataFolder().toPath().resolve(TRADE_LOGS_FOLDER).resolve(DATABASE_FILE);
+		this.databaseUrl = "jdbc:sqlite:" + databaseFile.toAbsolutePath().toString();
+	}
+
+	@Override
+	public void logTrade(TradeRecord trade) {
+		pending.add(trade);
+
+		// We do not trigger a save right away, because it is likely for there to be more trades to log in the immediate
+		// future:
+		this.savePendingDelayed();
+	}
+
+	@Override
+	public void flush() {
+		super.flush();
+
+		// Since there is no save in progress, it is safe to close the connection here. It is reopened by the next save.
+		this.closeConnection();
+	}
+
+	@Override
+	protected boolean isDirty() {
+		return !pending.isEmpty();
+	}
+
+	@Override
+	protected void prepareSave() {
+		// Reset local logItemMetadata setting:
+		super.prepareSave();
+
+		// Swap the pending and saving lists of trades:
+		assert saving.isEmpty();
+		List<TradeRecord> temp = saving;
+		saving = pending;
+		pending = temp;
+	}
+
+	@Override
+	protected boolean executeSave() {
+		return this.writeWithRetry(() -> {
+			this.writeTrades(saving);
+		});
+	}
+
+	@Override
+	protected void onSaveCompleted(boolean saveSucceeded) {
+		this.printDebugInfo(saveSucceeded);
+
+		if (!saveSucceeded) {
+			// Add the unsaved trades to the front of the pending trades:
+			// Since each save is a single transaction, either all or none of the trades have been saved.
+			pending.addAll(0, saving);
+		}
+
+		// Reset:
+		saving.clear();
+	}
+
+	private void printDebugInfo(boolean saveSucceeded) {
+		Log.debug(() -> {
+			StringBuilder sb = new StringBuilder();
+			sb.append("Logged trades to the trade log database (");
+			sb.append(saving.size()).append(" records");
+			sb.append("): ");
+			sb.append(this.getSaveTimingString());
+			if (!saveSucceeded) {
+				sb.append(" -- Logging failed!");
+			}
+			return sb.toString();
+		});
+	}
+
+	// Writes all given trades within a single transaction: Either all or none of the trades are logged. This also
+	// ensures that the database only needs to sync its data to the storage once per batch of trades.
+	private void writeTrades(List<TradeRecord> trades) throws Exception {
+		Connection connection = this.getConnection();
+		boolean committed = false;
+		try {
+			try (	PreparedStatement insertTrade = connection.prepareStatement(INSERT_TRADE);
+					TradeWriter writer = new TradeWriter(connection)) {
+				for (TradeRecord trade : trades) {
+					UnmodifiableItemStack item2 = trade.getItem2(); // Can be null
+					insertTrade.setLong(1, trade.getTimestamp().toEpochMilli());
+					insertTrade.setLong(2, writer.getPlayerId(trade.getPlayer()));
+					insertTrade.setLong(3, writer.getShopId(trade.getShop()));
+					insertTrade.setLong(4, writer.getItemId(trade.getItem1()));
+					insertTrade.setInt(5, trade.getItem1().getAmount());
+					if (item2 != null) {
+						insertTrade.setLong(6, writer.getItemId(item2));
+						insertTrade.setInt(7, item2.getAmount());
+					} else {
+						insertTrade.setNull(6, Types.INTEGER);
+						insertTrade.setNull(7, Types.INTEGER);
+					}
+					insertTrade.setLong(8, writer.getItemId(trade.getResultItem()));
+					insertTrade.setInt(9, trade.getResultItem().getAmount());
+					insertTrade.setInt(10, trade.getTradeCount());
+					insertTrade.addBatch();
+				}
+				insertTrade.executeBatch();
+			}
+			connection.commit();
+			committed = true;
+		} finally {
+			if (!committed) {
+				// The row ids of any newly inserted rows are no longer valid:
+				this.clearCachedIds();
+				// Close the connection (rolls back the transaction). It is reopened by the next attempt:
+				this.closeConnection();
+			}
+		}
+
+		// Limit the memory usage of the cached row ids:
+		if (playerIds.size() > MAX_CACHED_IDS || shopIds.size() > MAX_CACHED_IDS) {
+			this.clearCachedIds();
+		}
+	}
+
+	// Looks up or inserts the player, shop, and item rows referenced by the trades.
+	private class TradeWriter implements AutoCloseable {
+
+		private final PreparedStatement selectPlayer;
+		private final PreparedStatement insertPlayer;
+		private final PreparedStatement selectShop;
+		private final PreparedStatement insertShop;
+		private final PreparedStatement selectItem;
+		private final PreparedStatement insertItem;
+
+		TradeWriter(Connection connection) throws SQLException {
+			selectPlayer = connection.prepareStatement(SELECT_PLAYER);
+			insertPlayer = connection.prepareStatement(INSERT_PLAYER, Statement.RETURN_GENERATED_KEYS);
+			selectShop = connection.prepareStatement(SELECT_SHOP);
+			insertShop = connection.prepareStatement(INSERT_SHOP, Statement.RETURN_GENERATED_KEYS);
+			selectItem = connection.prepareStatement(SELECT_ITEM);
+			insertItem = connection.prepareStatement(INSERT_ITEM, Statement.RETURN_GENERATED_KEYS);
+		}
+
+		long getPlayerId(PlayerRecord player) throws SQLException {
+			Long id = playerIds.get(player);
+			if (id != null) return id;
+
+			selectPlayer.setString(1, player.getUniqueId().toString());
+			selectPlayer.setString(2, player.getName());
+			id = queryId(selectPlayer);
+			if (id == null) {
+				insertPlayer.setString(1, player.getUniqueId().toString());
+				insertPlayer.setString(2, player.getName());
+				id = insert(insertPlayer);
+			}
+			playerIds.put(player, id);
+			return id;
+		}
+
+		long getShopId(ShopRecord shop) throws SQLException {
+			Long id = shopIds.get(shop);
+			if (id != null) return id;
+
+			PlayerRecord owner = shop.getOwner(); // Can be null
+			Long ownerId = (owner != null) ? this.getPlayerId(owner) : null;
+			this.setShopParameters(selectShop, shop, ownerId);
+			id = queryId(selectShop);
+			if (id == null) {
+				this.setShopParameters(insertShop, shop, ownerId);
+				id = insert(insertShop);
+			}
+			shopIds.put(shop, id);
+			return id;
+		}
+
+		private void setShopParameters(PreparedStatement statement, ShopRecord shop, Long ownerId) throws SQLException {
+			statement.setString(1, shop.getUniqueId().toString());
+			statement.setString(2, shop.getTypeId());
+			statement.setString(3, shop.getName());
+			if (ownerId != null) {
+				statement.setLong(4, ownerId);
+			} else {
+				statement.setNull(4, Types.INTEGER);
+			}
+			statement.setString(5, shop.getWorldName()); // Can be null
+			statement.setInt(6, shop.getX());
+			statement.setInt(7, shop.getY());
+			statement.setInt(8, shop.getZ());
+		}
+
+		long getItemId(UnmodifiableItemStack itemStack) throws SQLException {
+			Long id = itemIds.get(itemStack);
+			if (id != null) return id;
+
+			String type = itemStack.getType().name();
+			String metadata = getItemMetadata(itemStack);
+			selectItem.setString(1, type);
+			selectItem.setString(2, metadata);
+			id = queryId(selectItem);
+			if (id == null) {
+				insertItem.setString(1, type);
+				insertItem.setString(2, metadata);
+				id = insert(insertItem);
+			}
+			itemIds.put(itemStack, id);
+			return id;
+		}
+
+		// Returns null if there is no matching row.
+		private Long queryId(PreparedStatement select) throws SQLException {
+			try (ResultSet resultSet = select.executeQuery()) {
+				return resultSet.next() ? resultSet.getLong(1) : null;
+			}
+		}
+
+		private long insert(PreparedStatement insert) throws SQLException {
+			insert.executeUpdate();
+			try (ResultSet generatedKeys = insert.getGeneratedKeys()) {
+				if (!generatedKeys.next()) {
+					throw new SQLException("Missing generated row id!");
+				}
+				return generatedKeys.getLong(1);
+			}
+		}
+
+		@Override
+		public void close() throws SQLException {
+			selectPlayer.close();
+			insertPlayer.close();
+			selectShop.close();
+			insertShop.close();
+			selectItem.close();
+			insertItem.close();
+		}
+	}
+
+	// See AbstractTradeLogger#serializeItemMetadata
+	private String getItemMetadata(UnmodifiableItemStack itemStack) {
+		assert itemStack != null;
+		if (!logItemMetadata) return ""; // Disabled
+
+		return serializeItemMetadata(itemStack);
+	}
+
+	private void clearCachedIds() {
+		playerIds.clear();
+		shopIds.clear();
+		itemIds.clear();
+	}
+
+	// Opens the connection if it is not yet open.
+	private Connection getConnection() throws Exception {
+		if (connection != null) return connection;
+
+		FileUtils.createParentDirectories(databaseFile);
+		Connection connection = this.openConnection();
+		try {
+			try (Statement statement = connection.createStatement()) {
+				// Write-ahead logging allows queries to run concurrently to the logging of trades:
+				statement.execute("PRAGMA journal_mode = WAL");
+				statement.execute("PRAGMA foreign_keys = ON");
+				// Setup the database schema:
+				for (String schemaStatement : SCHEMA) {
+					statement.execute(schemaStatement);
+				}
+				statement.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+			}
+			// We commit the trades in batches:
+			connection.setAutoCommit(false);
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		this.connection = connection;
+		return connection;
+	}
+
+	private Connection openConnection() throws Exception {
+		Class.forName(DRIVER_CLASS);
+		return DriverManager.getConnection(databaseUrl);
+	}
+
+	private void closeConnection() {
+		if (connection == null) return;
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			Log.warning("Failed to close the trade log database connection!", e);
+		}
+		connection = null;
+	}
+
+	/**
+	 * Asynchronously queries a page of the logged trades of the specified shop.
+	 * <p>
+	 * The trades are ordered from the most recent to the oldest trade. Trades that have not yet been written to the
+	 * database are not included.
+	 * <p>
+	 * The callback is invoked on the server's main thread. If the query fails, the callback is invoked with
+	 * <code>null</code>. If the plugin is disabled in the meantime, the callback is not invoked.
+	 *
+	 * @param shopUniqueId
+	 *            the shop's unique id
+	 * @param offset
+	 *            the number of trades to skip, not negative
+	 * @param limit
+	 *            the maximum number of trades to return, positive
+	 * @param callback
+	 *            the callback that receives the query result
+	 */
+	public void queryShopTrades(UUID shopUniqueId, int offset, int limit, Consumer<TradeLogQueryResult> callback) {
+		Validate.notNull(shopUniqueId, "shopUniqueId is null");
+		Validate.isTrue(offset >= 0, "offset cannot be negative");
+		Validate.isTrue(limit > 0, "limit has to be positive");
+		Validate.notNull(callback, "callback is null");
+		SchedulerUtils.runAsyncTaskOrOmit(plugin, () -> {
+			TradeLogQueryResult result;
+			try {
+				result = this.queryShopTrades(shopUniqueId, offset, limit);
+			} catch (Exception e) {
+				Log.severe("Failed to query the trade log database!", e);
+				result = null;
+			}
+			TradeLogQueryResult finalResult = result;
+			SchedulerUtils.runOnMainThreadOrOmit(plugin, () -> callback.accept(finalResult));
+		});
+	}
+
+	// Uses a separate connection, so that the query does not interfere with the logging of trades.
+	private TradeLogQueryResult queryShopTrades(UUID shopUniqueId, int offset, int limit) throws Exception {
+		if (!databaseFile.toFile().exists()) {
+			// No trades have been logged yet:
+			return new TradeLogQueryResult(0, new ArrayList<>(0));
+		}
+
+		try (Connection connection = this.openConnection()) {
+			String shopId = shopUniqueId.toString();
+			int totalCount;
+			try (PreparedStatement countTrades = connection.prepareStatement(COUNT_SHOP_TRADES)) {
+				countTrades.setString(1, shopId);
+				try (ResultSet resultSet = countTrades.executeQuery()) {
+					totalCount = resultSet.next() ? resultSet.getInt(1) : 0;
+				}
+			}
+
+			List<TradeLogQueryResult.Entry> entries = new ArrayList<>(Math.min(limit, totalCount));
+			try (PreparedStatement selectTrades = connection.prepareStatement(SELECT_SHOP_TRADES)) {
+				selectTrades.setString(1, shopId);
+				selectTrades.setInt(2, limit);
+				selectTrades.setInt(3, offset);
+				try (ResultSet resultSet = selectTrades.executeQuery()) {
+					while (resultSet.next()) {
+						entries.add(new TradeLogQueryResult.Entry(
+								Instant.ofEpochMilli(resultSet.getLong(1)),
+								UUID.fromString(resultSet.getString(2)),
+								resultSet.getString(3),
+								resultSet.getString(4),
+								resultSet.getInt(5),
+								resultSet.getString(6), // Can be null
+								resultSet.getInt(7), // 0 if null
+								resultSet.getString(8),
+								resultSet.getInt(9),
+								resultSet.getInt(10)
+						));
+					}
+				}
+			}
+			return new TradeLogQueryResult(totalCount, entries);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package com.nisovin.shopkeepers.tradelog.sqlite;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A page of trades that have been queried from the trade log database.
+ */
+public class TradeLogQueryResult {
+
+	/**
+	 * A logged trade, as it is stored inside the trade log database.
+	 * <p>
+	 * Unlike a {@link com.nisovin.shopkeepers.tradelog.data.TradeRecord}, this only provides the types and amounts of
+	 * the traded items, but not their metadata.
+	 */
+	public static class Entry {
+
+		private final Instant timestamp; // Not null
+		private final UUID playerUniqueId; // Not null
+		private final String playerName; // Not null
+		private final String item1Type; // Not null
+		private final int item1Amount;
+		private final String item2Type; // Can be null
+		private final int item2Amount; // 0 if there is no second item
+		private final String resultItemType; // Not null
+		private final int resultItemAmount;
+		private final int tradeCount;
+
+		Entry(	Instant timestamp, UUID playerUniqueId, String playerName,
+				String item1Type, int item1Amount, String item2Type, int item2Amount,
+				String resultItemType, int resultItemAmount, int tradeCount) {
+			assert timestamp != null && playerUniqueId != null && playerName != null;
+			assert item1Type != null && resultItemType != null;
+			this.timestamp = timestamp;
+			this.playerUniqueId = playerUniqueId;
+			this.playerName = playerName;
+			this.item1Type = item1Type;
+			this.item1Amount = item1Amount;
+			this.item2Type = item2Type;
+			this.item2Amount = item2Amount;
+			this.resultItemType = resultItemType;
+			this.resultItemAmount = resultItemAmount;
+			this.tradeCount = tradeCount;
+		}
+
+		/**
+		 * Gets the timestamp of the trade.
+		 *
+		 * @return the timestamp
+		 */
+		public Instant getTimestamp() {
+			return timestamp;
+		}
+
+		/**
+		 * Gets the unique id of the trading player.
+		 *
+		 * @return the player's unique id
+		 */
+		public UUID getPlayerUniqueId() {
+			return playerUniqueId;
+		}
+
+		/**
+		 * Gets the name of the trading player at the time of the trade.
+		 *
+		 * @return the player's name
+		 */
+		public String getPlayerName() {
+			return playerName;
+		}
+
+		/**
+		 * Gets the type of the first item provided by the player.
+		 *
+		 * @return the item type
+		 */
+		public String getItem1Type() {
+			return item1Type;
+		}
+
+		/**
+		 * Gets the amount of the first item provided by the player.
+		 *
+		 * @return the item amount
+		 */
+		public int getItem1Amount() {
+			return item1Amount;
+		}
+
+		/**
+		 * Gets the type of the second item provided by the player.
+		 *
+		 * @return the item type, or <code>null</code> if there is no second item
+		 */
+		public String getItem2Type() {
+			return item2Type;
+		}
+
+		/**
+		 * Gets the amount of the second item provided by the player.
+		 *
+		 * @return the item amount, or <code>0</code> if there is no second item
+		 */
+		public int getItem2Amount() {
+			return item2Amount;
+		}
+
+		/**
+		 * Gets the type of the result item.
+		 *
+		 * @return the item type
+		 */
+		public String getResultItemType() {
+			return resultItemType;
+		}
+
+		/**
+		 * Gets the amount of the result item.
+		 *
+		 * @return the item amount
+		 */
+		public int getResultItemAmount() {
+			return resultItemAmount;
+		}
+
+		/**
+		 * Gets the number of equal trades that are represented by this entry.
+		 *
+		 * @return the trade count
+		 */
+		public int getTradeCount() {
+			return tradeCount;
+		}
+	}
+
+	private final int totalCount;
+	private final List<Entry> entries; // Not null, unmodifiable
+
+	TradeLogQueryResult(int totalCount, List<Entry> entries) {
+		Validate.notNull(entries, "entries is null");
+		this.totalCount = totalCount;
+		this.entries = Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * Gets the total number of logged trades that match the query.
+	 *
+	 * @return the total number of matching trades
+	 */
+	public int getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * Gets the queried page of logged trades, ordered from the most recent to the oldest trade.
+	 *
+	 * @return an unmodifiable view on the queried trades
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+}
@@ -0,0 +1,68 @@
+package com.nisovin.shopkeepers.tradelog.stats;
+
+import org.bukkit.Material;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.config.Settings;
+
+/**
+ * An immutable snapshot of the configured currency items, which can be safely used asynchronously.
+ * <p>
+ * Like the price calculation of the player shop editors, this only compares the item types.
+ */
+public final class CurrencyValues {
+
+	/**
+	 * Creates a {@link CurrencyValues} snapshot of the current {@link Settings}.
+	 * <p>
+	 * This has to be called on the server's main thread.
+	 *
+	 * @return the currency values
+	 */
+	public static CurrencyValues fromSettings() {
+		Material highCurrencyType = Settings.isHighCurrencyEnabled() ? Settings.highCurrencyItem.getType() : null;
+		return new CurrencyValues(Settings.currencyItem.getType(), highCurrencyType, Settings.highCurrencyValue);
+	}
+
+	private final Material currencyType; // Not null
+	private final Material highCurrencyType; // Null if disabled
+	private final int highCurrencyValue;
+
+	private CurrencyValues(Material currencyType, Material highCurrencyType, int highCurrencyValue) {
+		this.currencyType = currencyType;
+		this.highCurrencyType = highCurrencyType;
+		this.highCurrencyValue = highCurrencyValue;
+	}
+
+	/**
+	 * Checks if the given item is a currency item.
+	 *
+	 * @param itemStack
+	 *            the item, can be <code>null</code>
+	 * @return <code>true</code> if the item is a currency item
+	 */
+	public boolean isCurrency(UnmodifiableItemStack itemStack) {
+		if (itemStack == null) return false;
+		Material type = itemStack.getType();
+		return type == currencyType || type == highCurrencyType;
+	}
+
+	/**
+	 * Gets the currency value of the given item.
+	 *
+	 * @param itemStack
+	 *            the item, can be <code>null</code>
+	 * @return the currency value, or <code>0</code> if the item is not a currency item
+	 */
+	public int getValue(UnmodifiableItemStack itemStack) {
+		if (itemStack == null) return 0;
+		Material type = itemStack.getType();
+		if (type == currencyType) {
+			return itemStack.getAmount();
+		} else if (type == highCurrencyType) {
+			return itemStack.getAmount() * highCurrencyValue;
+		} else {
+			return 0;
+		}
+	}
+}
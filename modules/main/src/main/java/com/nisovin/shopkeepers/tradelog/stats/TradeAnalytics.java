@@ -0,0 +1,207 @@
+package com.nisovin.shopkeepers.tradelog.stats;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogReader;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatistics.Entry;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Computes {@link TradeStatistics} from CSV trade log files.
+ * <p>
+ * The log files are streamed, i.e. they are not loaded into memory, and processed in parallel by a fork-join pool.
+ * This blocks the calling thread until all log files have been processed, and is therefore meant to be invoked
+ * asynchronously.
+ */
+public class TradeAnalytics {
+
+	/**
+	 * Receives progress updates during the processing of the log files.
+	 * <p>
+	 * This is invoked by the worker threads.
+	 */
+	public interface ProgressListener {
+
+		/**
+		 * Called after a log file has been processed.
+		 *
+		 * @param processedFiles
+		 *            the number of processed log files
+		 * @param totalFiles
+		 *            the total number of log files
+		 */
+		public void onProgress(int processedFiles, int totalFiles);
+	}
+
+	private static final int TOP_ENTRIES_IN_REPORT = 50;
+
+	private final CurrencyValues currencyValues;
+	private final List<Path> logFiles;
+	private final ProgressListener progressListener; // Can be null
+	private final AtomicInteger processedFiles = new AtomicInteger();
+	private final AtomicInteger failedFiles = new AtomicInteger();
+
+	/**
+	 * Creates a new {@link TradeAnalytics}.
+	 *
+	 * @param currencyValues
+	 *            the currency values, not <code>null</code>
+	 * @param logFiles
+	 *            the log files, sorted from the oldest to the most recent log file, not <code>null</code>
+	 * @param progressListener
+	 *            the progress listener, or <code>null</code>
+	 */
+	public TradeAnalytics(CurrencyValues currencyValues, List<Path> logFiles, ProgressListener progressListener) {
+		Validate.notNull(currencyValues, "currencyValues is null");
+		Validate.notNull(logFiles, "logFiles is null");
+		this.currencyValues = currencyValues;
+		this.logFiles = new ArrayList<>(logFiles);
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Gets the number of log files that could not be read (completely).
+	 *
+	 * @return the number of failed log files
+	 */
+	public int getFailedFilesCount() {
+		return failedFiles.get();
+	}
+
+	/**
+	 * Processes the log files using the specified number of threads.
+	 *
+	 * @param parallelism
+	 *            the number of threads, positive
+	 * @return the aggregated statistics
+	 */
+	public TradeStatistics compute(int parallelism) {
+		Validate.isTrue(parallelism > 0, "parallelism has to be positive");
+		if (logFiles.isEmpty()) return new TradeStatistics(currencyValues);
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			return pool.invoke(new ProcessLogFilesTask(0, logFiles.size()));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// Processes the log files within the given index range, and merges the statistics of the older log files with the
+	// statistics of the more recent log files.
+	private class ProcessLogFilesTask extends RecursiveTask<TradeStatistics> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int start; // Inclusive
+		private final int end; // Exclusive
+
+		ProcessLogFilesTask(int start, int end) {
+			assert start < end;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected TradeStatistics compute() {
+			if (end - start == 1) {
+				return processLogFile(logFiles.get(start));
+			}
+
+			int middle = (start + end) >>> 1;
+			ProcessLogFilesTask olderFiles = new ProcessLogFilesTask(start, middle);
+			olderFiles.fork();
+			TradeStatistics statistics = new ProcessLogFilesTask(middle, end).compute();
+			TradeStatistics olderStatistics = olderFiles.join();
+			olderStatistics.merge(statistics);
+			return olderStatistics;
+		}
+	}
+
+	private TradeStatistics processLogFile(Path logFile) {
+		TradeStatistics statistics = new TradeStatistics(currencyValues);
+		try (CsvTradeLogReader reader = new CsvTradeLogReader(Collections.singletonList(logFile))) {
+			TradeRecord trade;
+			while ((trade = reader.read()) != null) {
+				statistics.add(trade);
+			}
+		} catch (IOException e) {
+			// We keep the statistics of the trades that we were able to read:
+			failedFiles.incrementAndGet();
+			Log.warning("Failed to read the trade log file '" + logFile.getFileName() + "'!", e);
+		}
+
+		int processed = processedFiles.incrementAndGet();
+		if (progressListener != null) {
+			progressListener.onProgress(processed, logFiles.size());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Writes a report of the given statistics to the specified file.
+	 *
+	 * @param statistics
+	 *            the statistics, not <code>null</code>
+	 * @param title
+	 *            the title of the report, not <code>null</code>
+	 * @param reportFile
+	 *            the report file, not <code>null</code>
+	 * @throws IOException
+	 *             if the report cannot be written
+	 */
+	public static void writeReport(TradeStatistics statistics, String title, Path reportFile) throws IOException {
+		Validate.notNull(statistics, "statistics is null");
+		Validate.notNull(title, "title is null");
+		Validate.notNull(reportFile, "reportFile is null");
+		FileUtils.createParentDirectories(reportFile);
+		try (Writer writer = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+			writer.write(title + "\n\n");
+			writer.write("Trades: " + statistics.getTrades() + "\n");
+			writer.write("Currency volume: " + statistics.getCurrencyVolume() + "\n");
+			writer.write("Shops: " + statistics.getShopsCount() + "\n");
+			writer.write("Players: " + statistics.getPlayersCount() + "\n");
+
+			writer.write("\nTop traded goods (traded amount | trades):\n");
+			writeEntries(writer, statistics.getTopItems(TOP_ENTRIES_IN_REPORT), Entry::getItemAmount, Entry::getTrades);
+			writer.write("\nTop shops (currency volume | trades):\n");
+			writeEntries(writer, statistics.getTopShops(TOP_ENTRIES_IN_REPORT),
+					Entry::getCurrencyVolume, Entry::getTrades);
+			writer.write("\nTop shop owners (currency volume | trades):\n");
+			writeEntries(writer, statistics.getTopShopOwners(TOP_ENTRIES_IN_REPORT),
+					Entry::getCurrencyVolume, Entry::getTrades);
+			writer.write("\nMost active players (trades | currency volume):\n");
+			writeEntries(writer, statistics.getMostActivePlayers(TOP_ENTRIES_IN_REPORT),
+					Entry::getTrades, Entry::getCurrencyVolume);
+
+			writer.write("\nTrades by hour of day (aggregated over all days):\n");
+			long[] tradesByHourOfDay = statistics.getTradesByHourOfDay();
+			for (int hour = 0; hour < tradesByHourOfDay.length; hour++) {
+				writer.write(String.format("  %02d:00: %d\n", hour, tradesByHourOfDay[hour]));
+			}
+		}
+	}
+
+	private static void writeEntries(	Writer writer, List<Entry> entries, ToLongFunction<Entry> value,
+										ToLongFunction<Entry> secondaryValue) throws IOException {
+		int rank = 1;
+		for (Entry entry : entries) {
+			writer.write("  " + (rank++) + ". " + entry.getName() + ": " + value.applyAsLong(entry)
+					+ " | " + secondaryValue.applyAsLong(entry) + "\n");
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package com.nisovin.shopkeepers.tradelog.stats;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
+import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Aggregated statistics about logged trades.
+ * <p>
+ * The memory usage only depends on the number of distinct items, shops, and players, but not on the number of
+ * aggregated trades. Statistics that have been aggregated independently, for example for different trade log files,
+ * can be {@link #merge(TradeStatistics) merged}.
+ * <p>
+ * The currency volume of a trade is the {@link CurrencyValues currency value} of all items that are exchanged in the
+ * trade, i.e. the currency paid by the trading player (eg. to selling shops), as well as the currency paid out to the
+ * trading player (eg. by buying shops).
+ * <p>
+ * The traded goods of a trade are the result item, unless it is a currency item (eg. for buying shops). In that case,
+ * the traded goods are the first item provided by the trading player.
+ * <p>
+ * This is not thread-safe.
+ */
+public class TradeStatistics {
+
+	/**
+	 * The aggregated statistics of a single item type, shop, shop owner, or player.
+	 */
+	public static class Entry {
+
+		private String name;
+		private long trades = 0L;
+		private long itemAmount = 0L;
+		private long currencyVolume = 0L;
+
+		private Entry(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Gets the display name of this entry.
+		 * <p>
+		 * For shops, shop owners, and players, this is the most recently encountered name.
+		 *
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the number of trades.
+		 *
+		 * @return the number of trades
+		 */
+		public long getTrades() {
+			return trades;
+		}
+
+		/**
+		 * Gets the total amount of traded goods.
+		 *
+		 * @return the item amount
+		 */
+		public long getItemAmount() {
+			return itemAmount;
+		}
+
+		/**
+		 * Gets the total currency volume.
+		 *
+		 * @return the currency volume
+		 */
+		public long getCurrencyVolume() {
+			return currencyVolume;
+		}
+
+		private void add(long trades, long itemAmount, long currencyVolume) {
+			this.trades += trades;
+			this.itemAmount += itemAmount;
+			this.currencyVolume += currencyVolume;
+		}
+
+		private void merge(Entry other) {
+			this.add(other.trades, other.itemAmount, other.currencyVolume);
+		}
+	}
+
+	private static final ZoneId ZONE = ZoneId.systemDefault();
+
+	private final CurrencyValues currencyValues;
+	private long trades = 0L;
+	private long currencyVolume = 0L;
+	// A histogram of the trades by their hour of the day, aggregated over all days:
+	private final long[] tradesByHourOfDay = new long[24];
+	private final Map<String, Entry> items = new HashMap<>();
+	private final Map<UUID, Entry> shops = new HashMap<>();
+	private final Map<UUID, Entry> shopOwners = new HashMap<>();
+	private final Map<UUID, Entry> players = new HashMap<>();
+
+	/**
+	 * Creates new and empty {@link TradeStatistics}.
+	 *
+	 * @param currencyValues
+	 *            the currency values used to determine the currency volume and traded goods of trades, not
+	 *            <code>null</code>
+	 */
+	public TradeStatistics(CurrencyValues currencyValues) {
+		Validate.notNull(currencyValues, "currencyValues is null");
+		this.currencyValues = currencyValues;
+	}
+
+	/**
+	 * Adds the given trade to these statistics.
+	 *
+	 * @param trade
+	 *            the trade, not <code>null</code>
+	 */
+	public void add(TradeRecord trade) {
+		Validate.notNull(trade, "trade is null");
+		int tradeCount = trade.getTradeCount();
+		UnmodifiableItemStack resultItem = trade.getResultItem();
+		UnmodifiableItemStack item1 = trade.getItem1();
+		UnmodifiableItemStack item2 = trade.getItem2(); // Can be null
+		UnmodifiableItemStack goods = currencyValues.isCurrency(resultItem) ? item1 : resultItem;
+		long itemAmount = (long) goods.getAmount() * tradeCount;
+		long currencyVolume = (long) (currencyValues.getValue(item1) + currencyValues.getValue(item2)
+				+ currencyValues.getValue(resultItem)) * tradeCount;
+
+		this.trades += tradeCount;
+		this.currencyVolume += currencyVolume;
+		tradesByHourOfDay[trade.getTimestamp().atZone(ZONE).getHour()] += tradeCount;
+
+		String itemType = goods.getType().name();
+		items.computeIfAbsent(itemType, Entry::new).add(tradeCount, itemAmount, currencyVolume);
+
+		ShopRecord shop = trade.getShop();
+		String shopName = shop.getName().isEmpty() ? shop.getUniqueId().toString() : shop.getName();
+		getEntry(shops, shop.getUniqueId(), shopName).add(tradeCount, itemAmount, currencyVolume);
+
+		PlayerRecord shopOwner = shop.getOwner();
+		if (shopOwner != null) {
+			getEntry(shopOwners, shopOwner.getUniqueId(), shopOwner.getName())
+					.add(tradeCount, itemAmount, currencyVolume);
+		}
+
+		PlayerRecord player = trade.getPlayer();
+		getEntry(players, player.getUniqueId(), player.getName()).add(tradeCount, itemAmount, currencyVolume);
+	}
+
+	// Also updates the name of existing entries.
+	private static Entry getEntry(Map<UUID, Entry> entries, UUID uniqueId, String name) {
+		Entry entry = entries.computeIfAbsent(uniqueId, uuid -> new Entry(name));
+		entry.name = name;
+		return entry;
+	}
+
+	/**
+	 * Merges the given statistics into these statistics.
+	 * <p>
+	 * The given statistics are expected to be of trades that took place after the trades of these statistics. The
+	 * names of the shops and players are updated accordingly.
+	 *
+	 * @param other
+	 *            the other statistics, not <code>null</code>
+	 */
+	public void merge(TradeStatistics other) {
+		Validate.notNull(other, "other is null");
+		this.trades += other.trades;
+		this.currencyVolume += other.currencyVolume;
+		for (int hour = 0; hour < tradesByHourOfDay.length; hour++) {
+			tradesByHourOfDay[hour] += other.tradesByHourOfDay[hour];
+		}
+		mergeEntries(items, other.items);
+		mergeEntries(shops, other.shops);
+		mergeEntries(shopOwners, other.shopOwners);
+		mergeEntries(players, other.players);
+	}
+
+	private static <K> void mergeEntries(Map<K, Entry> entries, Map<K, Entry> otherEntries) {
+		otherEntries.forEach((key, otherEntry) -> {
+			Entry entry = entries.computeIfAbsent(key, k -> new Entry(otherEntry.name));
+			entry.name = otherEntry.name;
+			entry.merge(otherEntry);
+		});
+	}
+
+	/**
+	 * Gets the total number of trades.
+	 *
+	 * @return the number of trades
+	 */
+	public long getTrades() {
+		return trades;
+	}
+
+	/**
+	 * Gets the total currency volume.
+	 *
+	 * @return the currency volume
+	 */
+	public long getCurrencyVolume() {
+		return currencyVolume;
+	}
+
+	/**
+	 * Gets the number of trades for each hour of the day (in the system's timezone), aggregated over all days.
+	 * <p>
+	 * This is a histogram of the times of day at which the trades took place, and not a time series.
+	 *
+	 * @return a copy of the number of trades per hour of the day, indexed by the hour of the day
+	 */
+	public long[] getTradesByHourOfDay() {
+		return tradesByHourOfDay.clone();
+	}
+
+	/**
+	 * Gets the number of distinct shops that were involved in trades.
+	 *
+	 * @return the number of shops
+	 */
+	public int getShopsCount() {
+		return shops.size();
+	}
+
+	/**
+	 * Gets the number of distinct players that traded.
+	 *
+	 * @return the number of players
+	 */
+	public int getPlayersCount() {
+		return players.size();
+	}
+
+	/**
+	 * Gets the item types with the highest traded amounts of goods.
+	 *
+	 * @param limit
+	 *            the maximum number of entries to return
+	 * @return the entries, sorted in descending order
+	 */
+	public List<Entry> getTopItems(int limit) {
+		return getTopEntries(items, Entry::getItemAmount, limit);
+	}
+
+	/**
+	 * Gets the shops with the highest currency volumes.
+	 *
+	 * @param limit
+	 *            the maximum number of entries to return
+	 * @return the entries, sorted in descending order
+	 */
+	public List<Entry> getTopShops(int limit) {
+		return getTopEntries(shops, Entry::getCurrencyVolume, limit);
+	}
+
+	/**
+	 * Gets the shop owners with the highest currency volumes.
+	 *
+	 * @param limit
+	 *            the maximum number of entries to return
+	 * @return the entries, sorted in descending order
+	 */
+	public List<Entry> getTopShopOwners(int limit) {
+		return getTopEntries(shopOwners, Entry::getCurrencyVolume, limit);
+	}
+
+	/**
+	 * Gets the players with the most trades.
+	 *
+	 * @param limit
+	 *            the maximum number of entries to return
+	 * @return the entries, sorted in descending order
+	 */
+	public List<Entry> getMostActivePlayers(int limit) {
+		return getTopEntries(players, Entry::getTrades, limit);
+	}
+
+	private static List<Entry> getTopEntries(Map<?, Entry> entries, ToLongFunction<Entry> value, int limit) {
+		Validate.isTrue(limit >= 0, "limit cannot be negative");
+		List<Entry> sorted = new ArrayList<>(entries.values());
+		sorted.sort(Comparator.comparingLong(value).reversed().thenComparing(Entry::getName));
+		return (sorted.size() > limit) ? new ArrayList<>(sorted.subList(0, limit)) : sorted;
+	}
+}
@@ -3,6 +3,7 @@ package com.nisovin.shopkeepers.tradenotifications;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -24,10 +25,14 @@ public class NotificationUserPreferences implements Listener {
 	}
 
 	private final Plugin plugin;
+	// Invoked when a player toggles their trade notifications:
+	private final Consumer<Player> notifyOnTradesChangeListener;
 	private final Map<UUID, UserPreferences> userPreferences = new HashMap<>();
 
-	public NotificationUserPreferences(Plugin plugin) {
+	public NotificationUserPreferences(Plugin plugin, Consumer<Player> notifyOnTradesChangeListener) {
+		Validate.notNull(notifyOnTradesChangeListener, "notifyOnTradesChangeListener is null");
 		this.plugin = plugin;
+		this.notifyOnTradesChangeListener = notifyOnTradesChangeListener;
 	}
 
 	public void onEnable() {
@@ -57,7 +62,10 @@ public class NotificationUserPreferences implements Listener {
 	}
 
 	public void setNotifyOnTrades(Player player, boolean notify) {
-		this.getOrCreateUserPreferences(player).notifyOnTrades = notify;
+		UserPreferences preferences = this.getOrCreateUserPreferences(player);
+		if (preferences.notifyOnTrades == notify) return; // No change
+		preferences.notifyOnTrades = notify;
+		notifyOnTradesChangeListener.accept(player);
 	}
 
 	private void clearUserPreferences(Player player) {
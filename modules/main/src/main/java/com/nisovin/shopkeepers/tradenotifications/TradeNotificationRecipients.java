@@ -0,0 +1,138 @@
+package com.nisovin.shopkeepers.tradenotifications;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Keeps track of the online players that are eligible to receive (non-owner) trade notifications.
+ * <p>
+ * Instead of checking the permissions and preferences of all online players for every trade, we only check them when
+ * players join, change their world, or toggle their trade notifications. Bukkit does not provide an event for when the
+ * permissions of players change (eg. via permission plugins). We therefore also periodically re-check the permissions
+ * of all online players, so that permission changes are taken into account after a short delay.
+ */
+class TradeNotificationRecipients implements Listener {
+
+	// ~10 seconds (can be longer if the server lags)
+	private static final long REFRESH_INTERVAL_TICKS = 20L * 10;
+
+	private final Plugin plugin;
+	private final NotificationUserPreferences userPreferences;
+	// Only accessed on the main thread:
+	private final Set<Player> adminShopRecipients = new LinkedHashSet<>();
+	private final Set<Player> playerShopRecipients = new LinkedHashSet<>();
+	private final Collection<Player> adminShopRecipientsView = Collections.unmodifiableSet(adminShopRecipients);
+	private final Collection<Player> playerShopRecipientsView = Collections.unmodifiableSet(playerShopRecipients);
+	private BukkitTask refreshTask = null;
+
+	TradeNotificationRecipients(Plugin plugin, NotificationUserPreferences userPreferences) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(userPreferences, "userPreferences is null");
+		this.plugin = plugin;
+		this.userPreferences = userPreferences;
+	}
+
+	void onEnable() {
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+		this.refreshAll();
+		refreshTask = Bukkit.getScheduler().runTaskTimer(plugin, this::refreshAll, REFRESH_INTERVAL_TICKS, REFRESH_INTERVAL_TICKS);
+	}
+
+	void onDisable() {
+		if (refreshTask != null) {
+			refreshTask.cancel();
+			refreshTask = null;
+		}
+		HandlerList.unregisterAll(this);
+		adminShopRecipients.clear();
+		playerShopRecipients.clear();
+	}
+
+	/**
+	 * Gets the online players that are eligible to receive trade notifications for trades with admin or player shops.
+	 * <p>
+	 * These players have the corresponding trade notifications permission and have not disabled their trade
+	 * notifications. The returned collection is an unmodifiable view that reflects subsequent changes. It must not be
+	 * iterated while the eligible players might change (eg. while players join or quit).
+	 * 
+	 * @param playerShop
+	 *            <code>true</code> to get the recipients of trade notifications for player shops, <code>false</code>
+	 *            for admin shops
+	 * @return an unmodifiable view on the eligible recipients
+	 */
+	Collection<Player> getRecipients(boolean playerShop) {
+		return playerShop ? playerShopRecipientsView : adminShopRecipientsView;
+	}
+
+	private void refreshAll() {
+		adminShopRecipients.clear();
+		playerShopRecipients.clear();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			this.addIfEligible(player);
+		}
+	}
+
+	/**
+	 * Re-checks whether the given player is eligible to receive trade notifications.
+	 * <p>
+	 * This needs to be invoked whenever the trade notification preferences of the player change.
+	 * 
+	 * @param player
+	 *            the player
+	 */
+	void refresh(Player player) {
+		this.remove(player);
+		if (!player.isOnline()) return;
+		this.addIfEligible(player);
+	}
+
+	private void addIfEligible(Player player) {
+		if (!userPreferences.isNotifyOnTrades(player)) return;
+		if (PermissionUtils.hasPermission(player, ShopkeepersPlugin.TRADE_NOTIFICATIONS_ADMIN)) {
+			adminShopRecipients.add(player);
+		}
+		if (PermissionUtils.hasPermission(player, ShopkeepersPlugin.TRADE_NOTIFICATIONS_PLAYER)) {
+			playerShopRecipients.add(player);
+		}
+	}
+
+	private void remove(Player player) {
+		adminShopRecipients.remove(player);
+		playerShopRecipients.remove(player);
+	}
+
+	// Permission plugins usually set up the permissions of joining players at an earlier event priority.
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerJoin(PlayerJoinEvent event) {
+		this.refresh(event.getPlayer());
+	}
+
+	// Some permission plugins support per-world permissions.
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+		this.refresh(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerQuit(PlayerQuitEvent event) {
+		this.remove(event.getPlayer());
+	}
+}
@@ -1,9 +1,5 @@
 package com.nisovin.shopkeepers.tradenotifications;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Supplier;
-
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -19,9 +15,9 @@ import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.config.Settings;
-import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.lang.MessageTemplate;
+import com.nisovin.shopkeepers.lang.Messages.DerivedMessages;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
-import com.nisovin.shopkeepers.text.ClickEventText.Action;
 import com.nisovin.shopkeepers.text.Text;
 import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
@@ -41,14 +37,16 @@ public class TradeNotifications implements Listener {
 	private static class TradeContext {
 
 		private final MergedTrades mergedTrades;
-		private final Lazy<MessageArguments> shopMessageArguments;
-		private final Lazy<Map<String, Object>> tradeMessageArguments;
+		private final Lazy<MessageArguments> messageArguments;
 		private final Lazy<Boolean> isResultItemCurrency;
 
 		TradeContext(MergedTrades mergedTrades) {
 			this.mergedTrades = mergedTrades;
-			shopMessageArguments = new Lazy<>(() -> ((AbstractShopkeeper) this.getShopkeeper()).getMessageArguments("shop_"));
-			tradeMessageArguments = new Lazy<>(() -> createTradeMessageArguments(this));
+			messageArguments = new Lazy<>(() -> {
+				MessageArguments tradeMessageArguments = this::getTradeMessageArgument;
+				AbstractShopkeeper shopkeeper = (AbstractShopkeeper) this.getShopkeeper();
+				return tradeMessageArguments.combinedWith(shopkeeper.getMessageArguments("shop_"));
+			});
 			isResultItemCurrency = new Lazy<>(() -> Settings.isCurrencyItem(this.getResultItem()));
 		}
 
@@ -100,35 +98,49 @@ public class TradeNotifications implements Listener {
 			return mergedTrades.getTradeCount();
 		}
 
-		public MessageArguments getShopMessageArguments() {
-			return shopMessageArguments.get();
+		/**
+		 * Gets the message arguments for the trade and shop related placeholders of the trade notifications.
+		 * 
+		 * @return the message arguments
+		 */
+		public MessageArguments getMessageArguments() {
+			return messageArguments.get();
 		}
 
-		public Map<String, Object> getTradeMessageArguments() {
-			return tradeMessageArguments.get();
+		// Only the arguments for the placeholders that are actually used by the message are created.
+		private Object getTradeMessageArgument(String key) {
+			switch (key) {
+			case "player":
+				return this.getTradingPlayer().getName();
+			case "playerId":
+				return this.getTradingPlayer().getUniqueId().toString();
+			case "resultItem":
+				return TextUtils.getItemText(this.getResultItem());
+			case "resultItemAmount":
+				return this.getResultItem().getAmount();
+			case "item1":
+				return TextUtils.getItemText(this.getOfferedItem1());
+			case "item1Amount":
+				return this.getOfferedItem1().getAmount();
+			case "item2":
+				return TextUtils.getItemText(this.getOfferedItem2());
+			case "item2Amount":
+				return ItemUtils.getItemStackAmount(this.getOfferedItem2());
+			case "count":
+				return this.getTradeCount();
+			default:
+				return null;
+			}
 		}
 	}
 
-	private static Map<String, Object> createTradeMessageArguments(TradeContext tradeContext) {
-		Player player = tradeContext.getTradingPlayer();
-		Map<String, Object> msgArgs = new HashMap<>();
-		msgArgs.put("player", player.getName());
-		msgArgs.put("playerId", (Supplier<Object>) () -> player.getUniqueId().toString());
-		msgArgs.put("resultItem", (Supplier<Object>) () -> TextUtils.getItemText(tradeContext.getResultItem()));
-		msgArgs.put("resultItemAmount", (Supplier<Object>) () -> tradeContext.getResultItem().getAmount());
-		msgArgs.put("item1", (Supplier<Object>) () -> TextUtils.getItemText(tradeContext.getOfferedItem1()));
-		msgArgs.put("item1Amount", (Supplier<Object>) () -> tradeContext.getOfferedItem1().getAmount());
-		msgArgs.put("item2", (Supplier<Object>) () -> TextUtils.getItemText(tradeContext.getOfferedItem2()));
-		msgArgs.put("item2Amount", (Supplier<Object>) () -> ItemUtils.getItemStackAmount(tradeContext.getOfferedItem2()));
-		return msgArgs;
-	}
-
 	// TODO Make these configurable
 	private static final long TRADE_MERGE_DURATION_TICKS = 300L; // 15 seconds
 	private static final long NEXT_MERGE_TIMEOUT_TICKS = 100L; // 5 seconds
 
 	private final Plugin plugin;
 	private final NotificationUserPreferences userPreferences;
+	private final TradeNotificationRecipients recipients;
 	private final TradeMerger tradeMerger;
 
 	private boolean enabled;
@@ -136,7 +148,8 @@ public class TradeNotifications implements Listener {
 	public TradeNotifications(Plugin plugin) {
 		Validate.notNull(plugin, "plugin is null");
 		this.plugin = plugin;
-		this.userPreferences = new NotificationUserPreferences(plugin);
+		this.userPreferences = new NotificationUserPreferences(plugin, this::onNotifyOnTradesChanged);
+		this.recipients = new TradeNotificationRecipients(plugin, userPreferences);
 		this.tradeMerger = new TradeMerger(plugin, MergeMode.DURATION, this::onTradesCompleted)
 				.withMergeDurations(TRADE_MERGE_DURATION_TICKS, NEXT_MERGE_TIMEOUT_TICKS);
 	}
@@ -147,6 +160,7 @@ public class TradeNotifications implements Listener {
 
 		Bukkit.getPluginManager().registerEvents(this, plugin);
 		userPreferences.onEnable();
+		recipients.onEnable();
 		tradeMerger.onEnable();
 	}
 
@@ -155,6 +169,7 @@ public class TradeNotifications implements Listener {
 		enabled = false;
 
 		tradeMerger.onDisable();
+		recipients.onDisable();
 		userPreferences.onDisable();
 		HandlerList.unregisterAll(this);
 	}
@@ -163,6 +178,11 @@ public class TradeNotifications implements Listener {
 		return userPreferences;
 	}
 
+	private void onNotifyOnTradesChanged(Player player) {
+		if (!enabled) return;
+		recipients.refresh(player);
+	}
+
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	void onTradeCompleted(ShopkeeperTradeEvent event) {
 		tradeMerger.mergeTrade(event);
@@ -179,20 +199,18 @@ public class TradeNotifications implements Listener {
 		if (!Settings.notifyPlayersAboutTrades) return;
 
 		Player shopOwner = null;
-		String tradeNotificationPermission = ShopkeepersPlugin.TRADE_NOTIFICATIONS_ADMIN;
-		if (tradeContext.getShopkeeper() instanceof PlayerShopkeeper) {
-			tradeNotificationPermission = ShopkeepersPlugin.TRADE_NOTIFICATIONS_PLAYER;
+		boolean isPlayerShop = (tradeContext.getShopkeeper() instanceof PlayerShopkeeper);
+		if (isPlayerShop) {
 			shopOwner = ((PlayerShopkeeper) tradeContext.getShopkeeper()).getOwner();
 		}
 
+		// The recipients have the required permission and have not disabled their trade notifications:
 		Lazy<Text> tradeNotification = new Lazy<>(() -> this.getTradeNotificationMessage(tradeContext));
-		for (Player player : Bukkit.getOnlinePlayers()) {
+		for (Player player : recipients.getRecipients(isPlayerShop)) {
 			// Avoid notifying the shop owner twice.
 			// Note that the shop owner may have deactivated the trade notification for this particular shopkeeper. In
 			// this case, they will not receive either type of trade notification.
 			if (player == shopOwner && Settings.notifyShopOwnersAboutTrades) continue;
-			if (!userPreferences.isNotifyOnTrades(player)) continue;
-			if (!PermissionUtils.hasPermission(player, tradeNotificationPermission)) continue;
 
 			// Note: We also send trade notifications for own trades (i.e. when the trading player matches the recipient
 			// of the notification).
@@ -206,62 +224,17 @@ public class TradeNotifications implements Listener {
 		assert tradeContext != null;
 		Shopkeeper shopkeeper = tradeContext.getShopkeeper();
 
-		Text message;
-		// We avoid checking for specific shop types (eg. buying shop) and instead check if the result item is currency:
-		if (tradeContext.isResultItemCurrency()) {
-			if (tradeContext.hasOfferedItem2()) {
-				message = Messages.buyNotificationTwoItems;
-			} else {
-				message = Messages.buyNotificationOneItem;
-			}
-		} else {
-			if (tradeContext.hasOfferedItem2()) {
-				message = Messages.tradeNotificationTwoItems;
-			} else {
-				message = Messages.tradeNotificationOneItem;
-			}
-		}
-
-		Text shopText;
-		if (shopkeeper.getName().isEmpty()) {
-			if (shopkeeper instanceof PlayerShopkeeper) {
-				shopText = Messages.tradeNotificationPlayerShop;
-			} else {
-				shopText = Messages.tradeNotificationAdminShop;
-			}
-		} else {
-			if (shopkeeper instanceof PlayerShopkeeper) {
-				shopText = Messages.tradeNotificationNamedPlayerShop;
-			} else {
-				shopText = Messages.tradeNotificationNamedAdminShop;
-			}
-		}
-
-		Text tradeCountText = Text.EMPTY;
-		if (tradeContext.getTradeCount() > 1) {
-			tradeCountText = Messages.tradeNotificationTradeCount;
-		}
-
-		return this.getTradeNotificationMessage(tradeContext, message, shopText, tradeCountText);
-	}
-
-	private Text getTradeNotificationMessage(TradeContext tradeContext, Text message, Text shopText, Text tradeCountText) {
-		assert tradeContext != null;
-		MessageArguments shopMsgArgs = tradeContext.getShopMessageArguments();
-		Map<String, Object> tradeMsgArgs = tradeContext.getTradeMessageArguments();
-
-		shopText.setPlaceholderArguments(shopMsgArgs);
 		// TODO Display more shop information as hover text? Add a click event or insertion text to automatically copy
 		// the shop coordinates or id, or insert a teleport command to teleport to the shop?
-		tradeMsgArgs.put("shop", shopText);
-
-		tradeCountText.setPlaceholderArguments("count", tradeContext.getTradeCount());
-		tradeMsgArgs.put("trade_count", tradeCountText);
-
-		message.setPlaceholderArguments(tradeMsgArgs);
-		message.setPlaceholderArguments(shopMsgArgs);
-
-		return message;
+		// We avoid checking for specific shop types (eg. buying shop) and instead check if the result item is currency:
+		MessageTemplate message = DerivedMessages.getTradeNotification(
+				tradeContext.isResultItemCurrency(),
+				tradeContext.hasOfferedItem2(),
+				shopkeeper instanceof PlayerShopkeeper,
+				!shopkeeper.getName().isEmpty(),
+				tradeContext.getTradeCount() > 1
+		);
+		return message.apply(tradeContext.getMessageArguments());
 	}
 
 	private void sendOwnerTradeNotifications(TradeContext tradeContext) {
@@ -288,54 +261,21 @@ public class TradeNotifications implements Listener {
 		Shopkeeper shopkeeper = tradeContext.getShopkeeper();
 
 		// We avoid checking for specific shop types (eg. buying shop) and instead check if the result item is currency:
-		boolean isBuy = tradeContext.isResultItemCurrency();
-		Text message;
-		if (isBuy) {
-			if (tradeContext.hasOfferedItem2()) {
-				message = Messages.ownerBuyNotificationTwoItems;
-			} else {
-				message = Messages.ownerBuyNotificationOneItem;
-			}
-		} else {
-			if (tradeContext.hasOfferedItem2()) {
-				message = Messages.ownerTradeNotificationTwoItems;
-			} else {
-				message = Messages.ownerTradeNotificationOneItem;
-			}
-		}
-
-		Text shopText;
-		if (isBuy) {
-			if (shopkeeper.getName().isEmpty()) {
-				shopText = Messages.ownerBuyNotificationShop;
-			} else {
-				shopText = Messages.ownerBuyNotificationNamedShop;
-			}
-		} else {
-			if (shopkeeper.getName().isEmpty()) {
-				shopText = Messages.ownerTradeNotificationShop;
-			} else {
-				shopText = Messages.ownerTradeNotificationNamedShop;
-			}
-		}
-
-		Text tradeCountText = Text.EMPTY;
-		if (tradeContext.getTradeCount() > 1) {
-			tradeCountText = Messages.ownerTradeNotificationTradeCount;
-		}
-
-		return this.getTradeNotificationMessage(tradeContext, message, shopText, tradeCountText);
+		MessageTemplate message = DerivedMessages.getOwnerTradeNotification(
+				tradeContext.isResultItemCurrency(),
+				tradeContext.hasOfferedItem2(),
+				!shopkeeper.getName().isEmpty(),
+				tradeContext.getTradeCount() > 1
+		);
+		return message.apply(tradeContext.getMessageArguments());
 	}
 
 	private void sendDisableTradeNotificationsHint(Player player) {
-		if (!PermissionUtils.hasPermission(player, ShopkeepersPlugin.NOTIFY_TRADES_PERMISSION)) return;
-
 		// We only send this once per session:
 		if (userPreferences.hasReceivedDisableTradeNotificationsHint(player)) return;
+		if (!PermissionUtils.hasPermission(player, ShopkeepersPlugin.NOTIFY_TRADES_PERMISSION)) return;
 		userPreferences.setReceivedDisableTradeNotificationsHint(player, true);
 
-		Text command = Messages.disableTradeNotificationsHintCommand.copy(); // TODO Avoid this copy
-		Text commandText = Text.clickEvent(Action.SUGGEST_COMMAND, command.toPlainText()).next(command).getRoot();
-		TextUtils.sendMessage(player, Messages.disableTradeNotificationsHint, "command", commandText);
+		TextUtils.sendMessage(player, DerivedMessages.disableTradeNotificationsHint);
 	}
 }
@@ -0,0 +1,232 @@
+package com.nisovin.shopkeepers.trading;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+
+import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
+import com.nisovin.shopkeepers.api.trading.PostTradeBus;
+import com.nisovin.shopkeepers.api.trading.PostTradeSubscriber;
+import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.util.bukkit.SingletonTask;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Captures {@link SKTradeSnapshot snapshots} of completed trades and passes them in batches to the registered
+ * {@link PostTradeSubscriber subscribers}, which process them asynchronously.
+ * <p>
+ * The snapshots are only captured if there are any subscribers. The capturing of the snapshots and the bookkeeping of
+ * the queue happen on the server's main thread. Only the subscribers are invoked asynchronously.
+ */
+public class SKPostTradeBus implements PostTradeBus, Listener {
+
+	private static class Subscription {
+
+		private final Plugin plugin;
+		private final PostTradeSubscriber subscriber;
+
+		Subscription(Plugin plugin, PostTradeSubscriber subscriber) {
+			this.plugin = plugin;
+			this.subscriber = subscriber;
+		}
+	}
+
+	private final Plugin plugin;
+	// Read asynchronously:
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+	private final DispatchTask dispatchTask;
+	private List<SKTradeSnapshot> pending = new ArrayList<>();
+	// The number of trades of the dispatch that is currently in progress. These still count against the queue capacity.
+	private int dispatchingCount = 0;
+	private boolean enabled = false;
+
+	// This is reset to the current configuration value whenever the bus is enabled.
+	private int queueCapacity;
+
+	// Metrics:
+	private int maxQueuedCount = 0;
+	private long publishedCount = 0L;
+	private long processedCount = 0L;
+	private long droppedCount = 0L;
+	private long batchCount = 0L;
+
+	public SKPostTradeBus(Plugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+		this.dispatchTask = new DispatchTask(plugin);
+	}
+
+	public void onEnable() {
+		enabled = true;
+		queueCapacity = Settings.postTradeQueueCapacity;
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+	}
+
+	public void onDisable() {
+		if (!enabled) return;
+		enabled = false;
+
+		// Stop reacting to new trades:
+		HandlerList.unregisterAll(this);
+
+		// Process any pending trades and wait for the processing to complete:
+		this.dispatchPending();
+		dispatchTask.shutdown();
+
+		// Note: We keep the subscriptions of other plugins across reloads of the Shopkeepers plugin.
+		// TODO Remove this once other plugins are expected to re-register their subscribers on reloads?
+	}
+
+	@Override
+	public void subscribe(Plugin plugin, PostTradeSubscriber subscriber) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(subscriber, "subscriber is null");
+		subscriptions.add(new Subscription(plugin, subscriber));
+	}
+
+	@Override
+	public void unsubscribe(PostTradeSubscriber subscriber) {
+		Validate.notNull(subscriber, "subscriber is null");
+		subscriptions.removeIf(subscription -> subscription.subscriber == subscriber);
+	}
+
+	@Override
+	public void unsubscribeAll(Plugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		subscriptions.removeIf(subscription -> subscription.plugin == plugin);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPluginDisable(PluginDisableEvent event) {
+		this.unsubscribeAll(event.getPlugin());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onTradeCompleted(ShopkeeperTradeEvent event) {
+		if (subscriptions.isEmpty()) return; // No one is interested in the trade
+
+		publishedCount++;
+		if (this.getQueuedCount() >= queueCapacity) {
+			// The subscribers are not able to keep up with the trades:
+			droppedCount++;
+			Log.debug(() -> "Post trade queue is full: Dropped trade of player " + event.getPlayer().getName());
+			return;
+		}
+
+		pending.add(SKTradeSnapshot.create(event));
+		maxQueuedCount = Math.max(maxQueuedCount, this.getQueuedCount());
+
+		// If there is already a dispatch in progress, this triggers another dispatch once the current dispatch
+		// completes. All trades that are published in the meantime are then dispatched together:
+		this.dispatchPending();
+	}
+
+	private void dispatchPending() {
+		if (pending.isEmpty()) return;
+		dispatchTask.run(); // Usually async, but may be sync during plugin disable
+	}
+
+	// METRICS
+
+	@Override
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	@Override
+	public int getQueuedCount() {
+		return pending.size() + dispatchingCount;
+	}
+
+	@Override
+	public int getMaxQueuedCount() {
+		return maxQueuedCount;
+	}
+
+	@Override
+	public long getPublishedCount() {
+		return publishedCount;
+	}
+
+	@Override
+	public long getProcessedCount() {
+		return processedCount;
+	}
+
+	@Override
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	@Override
+	public long getBatchCount() {
+		return batchCount;
+	}
+
+	private class DispatchTask extends SingletonTask {
+
+		private List<SKTradeSnapshot> dispatching = new ArrayList<>();
+		// This is reset to the current configuration value prior to every dispatch.
+		private int batchSize;
+		private int dispatchedBatches;
+
+		DispatchTask(Plugin plugin) {
+			super(plugin);
+		}
+
+		@Override
+		protected void prepare() {
+			batchSize = Settings.postTradeBatchSize;
+			dispatchedBatches = 0;
+
+			// Swap the pending and dispatching lists of trades:
+			assert dispatching.isEmpty();
+			List<SKTradeSnapshot> temp = dispatching;
+			dispatching = pending;
+			pending = temp;
+			dispatchingCount = dispatching.size();
+		}
+
+		@Override
+		protected void execute() {
+			int tradeCount = dispatching.size();
+			for (int start = 0; start < tradeCount; start += batchSize) {
+				int end = Math.min(start + batchSize, tradeCount);
+				List<SKTradeSnapshot> batch = Collections.unmodifiableList(dispatching.subList(start, end));
+				for (Subscription subscription : subscriptions) {
+					try {
+						subscription.subscriber.processTrades(batch);
+					} catch (Throwable e) {
+						Log.severe("Error while processing trades by post trade subscriber of plugin "
+								+ subscription.plugin.getName(), e);
+					}
+				}
+				dispatchedBatches++;
+			}
+		}
+
+		@Override
+		protected void syncCallback() {
+			Log.debug(() -> "Dispatched " + dispatching.size() + " trades in " + dispatchedBatches
+					+ " batches to post trade subscribers: " + this.getExecutionTimingString());
+
+			// Update metrics:
+			processedCount += dispatching.size();
+			batchCount += dispatchedBatches;
+
+			// Reset:
+			dispatching.clear();
+			dispatchingCount = 0;
+		}
+	}
+}
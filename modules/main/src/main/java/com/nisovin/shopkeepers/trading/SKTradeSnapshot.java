@@ -0,0 +1,194 @@
+package com.nisovin.shopkeepers.trading;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.trading.TradeSnapshot;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
+import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * An immutable {@link TradeSnapshot}.
+ * <p>
+ * This reuses the {@link PlayerRecord} and {@link ShopRecord} of the trade log to capture the state of the involved
+ * player and shopkeeper.
+ */
+public final class SKTradeSnapshot implements TradeSnapshot {
+
+	/**
+	 * Creates a {@link SKTradeSnapshot} for the given {@link ShopkeeperTradeEvent}.
+	 * <p>
+	 * This has to be called on the server's main thread.
+	 * 
+	 * @param tradeEvent
+	 *            the trade event, not <code>null</code>
+	 * @return the trade snapshot
+	 */
+	public static SKTradeSnapshot create(ShopkeeperTradeEvent tradeEvent) {
+		Validate.notNull(tradeEvent, "tradeEvent is null");
+		Instant timestamp = Instant.now();
+		PlayerRecord player = PlayerRecord.of(tradeEvent.getPlayer());
+		ShopRecord shop = ShopRecord.of(tradeEvent.getShopkeeper());
+		int shopkeeperId = tradeEvent.getShopkeeper().getId();
+		// These items are immutable:
+		TradingRecipe tradingRecipe = tradeEvent.getTradingRecipe();
+		UnmodifiableItemStack offeredItem1 = tradeEvent.getOfferedItem1();
+		UnmodifiableItemStack offeredItem2 = tradeEvent.getOfferedItem2();
+		boolean itemOrderSwapped = tradeEvent.isItemOrderSwapped();
+		return new SKTradeSnapshot(timestamp, player, shop, shopkeeperId, tradingRecipe, offeredItem1, offeredItem2,
+				itemOrderSwapped);
+	}
+
+	private final Instant timestamp; // Not null
+	private final PlayerRecord player; // Not null
+	private final ShopRecord shop; // Not null
+	private final int shopkeeperId;
+	private final TradingRecipe tradingRecipe; // Not null
+	private final UnmodifiableItemStack offeredItem1; // Not null
+	private final UnmodifiableItemStack offeredItem2; // Can be null
+	private final boolean itemOrderSwapped;
+
+	private SKTradeSnapshot(Instant timestamp, PlayerRecord player, ShopRecord shop, int shopkeeperId,
+							TradingRecipe tradingRecipe, UnmodifiableItemStack offeredItem1,
+							UnmodifiableItemStack offeredItem2, boolean itemOrderSwapped) {
+		assert timestamp != null && player != null && shop != null && tradingRecipe != null && offeredItem1 != null;
+		this.timestamp = timestamp;
+		this.player = player;
+		this.shop = shop;
+		this.shopkeeperId = shopkeeperId;
+		this.tradingRecipe = tradingRecipe;
+		this.offeredItem1 = offeredItem1;
+		this.offeredItem2 = offeredItem2;
+		this.itemOrderSwapped = itemOrderSwapped;
+	}
+
+	@Override
+	public Instant getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Gets the {@link PlayerRecord} of the trading player.
+	 * 
+	 * @return the player record, not <code>null</code>
+	 */
+	public PlayerRecord getPlayer() {
+		return player;
+	}
+
+	@Override
+	public UUID getPlayerUniqueId() {
+		return player.getUniqueId();
+	}
+
+	@Override
+	public String getPlayerName() {
+		return player.getName();
+	}
+
+	/**
+	 * Gets the {@link ShopRecord} of the involved shopkeeper.
+	 * 
+	 * @return the shop record, not <code>null</code>
+	 */
+	public ShopRecord getShop() {
+		return shop;
+	}
+
+	@Override
+	public int getShopkeeperId() {
+		return shopkeeperId;
+	}
+
+	@Override
+	public UUID getShopkeeperUniqueId() {
+		return shop.getUniqueId();
+	}
+
+	@Override
+	public String getShopTypeId() {
+		return shop.getTypeId();
+	}
+
+	@Override
+	public String getShopName() {
+		return shop.getName();
+	}
+
+	@Override
+	public String getShopWorldName() {
+		return shop.getWorldName();
+	}
+
+	@Override
+	public int getShopX() {
+		return shop.getX();
+	}
+
+	@Override
+	public int getShopY() {
+		return shop.getY();
+	}
+
+	@Override
+	public int getShopZ() {
+		return shop.getZ();
+	}
+
+	@Override
+	public UUID getShopOwnerUniqueId() {
+		PlayerRecord owner = shop.getOwner();
+		return (owner != null) ? owner.getUniqueId() : null;
+	}
+
+	@Override
+	public String getShopOwnerName() {
+		PlayerRecord owner = shop.getOwner();
+		return (owner != null) ? owner.getName() : null;
+	}
+
+	@Override
+	public TradingRecipe getTradingRecipe() {
+		return tradingRecipe;
+	}
+
+	@Override
+	public UnmodifiableItemStack getOfferedItem1() {
+		return offeredItem1;
+	}
+
+	@Override
+	public UnmodifiableItemStack getOfferedItem2() {
+		return offeredItem2;
+	}
+
+	@Override
+	public boolean isItemOrderSwapped() {
+		return itemOrderSwapped;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("SKTradeSnapshot [timestamp=");
+		builder.append(timestamp);
+		builder.append(", player=");
+		builder.append(player);
+		builder.append(", shop=");
+		builder.append(shop);
+		builder.append(", shopkeeperId=");
+		builder.append(shopkeeperId);
+		builder.append(", offeredItem1=");
+		builder.append(offeredItem1);
+		builder.append(", offeredItem2=");
+		builder.append(offeredItem2);
+		builder.append(", itemOrderSwapped=");
+		builder.append(itemOrderSwapped);
+		builder.append("]");
+		return builder.toString();
+	}
+}
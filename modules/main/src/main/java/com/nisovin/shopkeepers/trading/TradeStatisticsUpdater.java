@@ -0,0 +1,118 @@
+package com.nisovin.shopkeepers.trading;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.config.Settings.DerivedSettings;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.tradelog.stats.CurrencyValues;
+import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.trading.MergedTrades;
+import com.nisovin.shopkeepers.util.trading.TradeMerger;
+import com.nisovin.shopkeepers.util.trading.TradeMerger.MergeMode;
+
+/**
+ * Updates the {@link AbstractShopkeeper#getTradeStatistics() trade statistics} of shopkeepers.
+ * <p>
+ * In order to not update the statistics for each individual trade triggered by the same click (eg. shift clicks), we
+ * merge the trades of the same click event. The updated shopkeepers are only marked dirty once per tick.
+ */
+public class TradeStatisticsUpdater implements Listener {
+
+	private final Plugin plugin;
+	private TradeMerger tradeMerger;
+	// The shopkeepers whose statistics have been updated, but which have not yet been marked dirty:
+	private final Set<AbstractShopkeeper> dirtyShopkeepers = new LinkedHashSet<>();
+	private BukkitTask markDirtyTask = null;
+	private boolean enabled = false;
+
+	public TradeStatisticsUpdater(Plugin plugin) {
+		Validate.notNull(plugin, "plugin is null");
+		this.plugin = plugin;
+	}
+
+	public void onEnable() {
+		enabled = true;
+		tradeMerger = new TradeMerger(plugin, MergeMode.SAME_CLICK_EVENT, this::processTrades);
+		tradeMerger.onEnable();
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+	}
+
+	public void onDisable() {
+		if (!enabled) return;
+		enabled = false;
+
+		// Stop reacting to new trades:
+		HandlerList.unregisterAll(this);
+
+		// Process any pending trades:
+		tradeMerger.onDisable();
+
+		// Mark the updated shopkeepers dirty right away:
+		if (markDirtyTask != null) {
+			markDirtyTask.cancel();
+			markDirtyTask = null;
+		}
+		this.markShopkeepersDirty();
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onTradeCompleted(ShopkeeperTradeEvent event) {
+		tradeMerger.mergeTrade(event);
+	}
+
+	private void processTrades(MergedTrades trades) {
+		AbstractShopkeeper shopkeeper = (AbstractShopkeeper) trades.getInitialTrade().getShopkeeper();
+		if (!shopkeeper.isValid()) return; // The shopkeeper has been removed in the meantime
+
+		// This snapshot is updated whenever the settings change:
+		CurrencyValues currencyValues = DerivedSettings.currencyValues;
+		UnmodifiableItemStack resultItem = trades.getResultItem();
+		UnmodifiableItemStack offeredItem1 = trades.getOfferedItem1();
+		UnmodifiableItemStack offeredItem2 = trades.getOfferedItem2();
+		int itemsIn = offeredItem1.getAmount() + ItemUtils.getItemStackAmount(offeredItem2);
+		int itemsOut = resultItem.getAmount();
+		int currencyVolume = currencyValues.getValue(resultItem)
+				+ currencyValues.getValue(offeredItem1)
+				+ currencyValues.getValue(offeredItem2);
+
+		shopkeeper.getTradeStatistics().addTrades(trades.getTimestamp(), trades.getTradeCount(), itemsIn, itemsOut, currencyVolume);
+		this.markDirtyDelayed(shopkeeper);
+	}
+
+	// Marks the shopkeeper dirty during the next tick, together with any other shopkeepers whose statistics have been
+	// updated in the meantime.
+	private void markDirtyDelayed(AbstractShopkeeper shopkeeper) {
+		dirtyShopkeepers.add(shopkeeper);
+		if (markDirtyTask != null) return; // There is already a task pending
+
+		markDirtyTask = SchedulerUtils.runTaskOrOmit(plugin, () -> {
+			markDirtyTask = null;
+			this.markShopkeepersDirty();
+		});
+		if (markDirtyTask == null) {
+			// The plugin is being disabled: Mark the shopkeeper dirty right away.
+			this.markShopkeepersDirty();
+		}
+	}
+
+	private void markShopkeepersDirty() {
+		dirtyShopkeepers.forEach(shopkeeper -> {
+			if (!shopkeeper.isValid()) return; // The shopkeeper has been removed in the meantime
+			shopkeeper.markDirty();
+		});
+		dirtyShopkeepers.clear();
+	}
+}
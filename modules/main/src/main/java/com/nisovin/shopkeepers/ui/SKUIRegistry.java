@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -34,6 +33,11 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 	// Player id -> UI session
 	private final Map<UUID, SKUISession> uiSessions = new HashMap<>();
 	private final Collection<SKUISession> uiSessionsView = Collections.unmodifiableCollection(uiSessions.values());
+	// Secondary indices:
+	private final UISessionIndex uiSessionIndex = new UISessionIndex();
+
+	// Statistics:
+	private long droppedClicksCount = 0L;
 
 	public SKUIRegistry(ShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -47,6 +51,7 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 	public void onDisable() {
 		// Close all open UIs:
 		this.abortUISessions();
+		uiSessionIndex.clear();
 		HandlerList.unregisterAll(uiListener);
 	}
 
@@ -141,38 +146,36 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 	@Override
 	public Collection<? extends SKUISession> getUISessions(Shopkeeper shopkeeper) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
-		List<SKUISession> sessions = new ArrayList<>();
-		for (SKUISession session : uiSessionsView) {
-			if (session.getShopkeeper() == shopkeeper) {
-				sessions.add(session);
-			}
-		}
-		return sessions;
+		return uiSessionIndex.getUISessions(shopkeeper);
 	}
 
 	@Override
 	public Collection<? extends SKUISession> getUISessions(Shopkeeper shopkeeper, UIType uiType) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
 		Validate.notNull(uiType, "uiType is null");
-		List<SKUISession> sessions = new ArrayList<>();
-		for (SKUISession session : uiSessionsView) {
-			if (session.getShopkeeper() == shopkeeper && session.getUIType() == uiType) {
-				sessions.add(session);
-			}
-		}
-		return sessions;
+		return uiSessionIndex.getUISessions(shopkeeper, uiType);
 	}
 
 	@Override
-	public Collection<? extends UISession> getUISessions(UIType uiType) {
+	public Collection<? extends SKUISession> getUISessions(UIType uiType) {
 		Validate.notNull(uiType, "uiType is null");
-		List<SKUISession> sessions = new ArrayList<>();
-		for (SKUISession session : uiSessionsView) {
-			if (session.getUIType() == uiType) {
-				sessions.add(session);
-			}
-		}
-		return sessions;
+		return uiSessionIndex.getUISessions(uiType);
+	}
+
+	// STATISTICS
+
+	void onClickDropped() {
+		droppedClicksCount++;
+	}
+
+	/**
+	 * Gets the number of inventory interactions that were ignored because they exceeded the click budget of their UI
+	 * session.
+	 * 
+	 * @return the number of dropped inventory interactions
+	 */
+	public long getDroppedClicksCount() {
+		return droppedClicksCount;
 	}
 
 	@Override
@@ -206,12 +209,14 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 	}
 
 	private void onSessionStart(SKUISession session) {
+		uiSessionIndex.add(session);
 		Log.debug(() -> "UI session '" + session.getUIType().getIdentifier() + "' started for player "
 				+ session.getPlayer().getName() + ".");
 	}
 
 	// closeEvent can be null.
 	private void onSessionEnd(SKUISession session, InventoryCloseEvent closeEvent) {
+		uiSessionIndex.remove(session);
 		Log.debug(() -> "UI session '" + session.getUIType().getIdentifier() + "' ended for player "
 				+ session.getPlayer().getName() + ".");
 		session.getUIHandler().onInventoryClose(session.getPlayer(), closeEvent); // Inform UI handler
@@ -238,8 +243,8 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 
 	@Override
 	public void abortUISessions(Shopkeeper shopkeeper) {
-		// Note: The returned collection is already a copy.
-		for (UISession session : this.getUISessions(shopkeeper)) {
+		// Copy to prevent concurrent modifications:
+		for (UISession session : new ArrayList<>(this.getUISessions(shopkeeper))) {
 			session.abort();
 		}
 	}
@@ -256,12 +261,24 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 		});
 	}
 
+	/**
+	 * Informs the UI registry that the given shopkeeper has been removed.
+	 * <p>
+	 * The shopkeeper is expected to no longer be {@link Shopkeeper#isValid() valid}. Its remaining UI sessions are
+	 * aborted delayed via {@link #abortUISessionsDelayed(Shopkeeper)}.
+	 * 
+	 * @param shopkeeper
+	 *            the removed shopkeeper, not <code>null</code>
+	 */
+	public void onShopkeeperRemoved(Shopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		uiSessionIndex.onShopkeeperRemoved(shopkeeper);
+	}
+
 	private void deactivateUIs(Shopkeeper shopkeeper) {
 		assert shopkeeper != null;
-		for (SKUISession session : uiSessionsView) {
-			if (session.getShopkeeper() == shopkeeper) {
-				session.deactivateUI();
-			}
+		for (SKUISession session : this.getUISessions(shopkeeper)) {
+			session.deactivateUI();
 		}
 	}
 }
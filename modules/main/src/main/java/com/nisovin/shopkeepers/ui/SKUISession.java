@@ -1,22 +1,30 @@
 package com.nisovin.shopkeepers.ui;
 
+import java.util.concurrent.TimeUnit;
+
 import org.bukkit.entity.Player;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ui.UISession;
+import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 
 public final class SKUISession implements UISession {
 
+	private static final long CLICK_BUDGET_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
 	private final UIHandler uiHandler;
 	private final Player player;
 	// Can be null for UIs that are not associated with some shopkeeper:
 	private final AbstractShopkeeper shopkeeper;
 	private boolean uiActive = true;
 	private boolean valid = true;
+	// The click budget of the current period:
+	private long clickBudgetPeriodStart;
+	private int clickBudgetUsed = 0;
 
 	public SKUISession(UIHandler uiHandler, Player player, AbstractShopkeeper shopkeeper) {
 		Validate.notNull(uiHandler, "uiHandler is null");
@@ -24,6 +32,7 @@ public final class SKUISession implements UISession {
 		this.uiHandler = uiHandler;
 		this.player = player;
 		this.shopkeeper = shopkeeper; // Can be null
+		this.clickBudgetPeriodStart = System.nanoTime();
 	}
 
 	@Override
@@ -60,6 +69,29 @@ public final class SKUISession implements UISession {
 		uiActive = true;
 	}
 
+	/**
+	 * Consumes one inventory interaction of the click budget of this session.
+	 * <p>
+	 * The click budget allows up to {@link Settings#maxUiClicksPerSecond} inventory interactions per second.
+	 * 
+	 * @return <code>true</code> if the inventory interaction is within the click budget and can be processed,
+	 *         <code>false</code> if it exceeds the click budget and is supposed to be ignored
+	 */
+	final boolean consumeClickBudget() {
+		int maxClicks = Settings.maxUiClicksPerSecond;
+		if (maxClicks <= 0) return true; // Disabled
+
+		long now = System.nanoTime();
+		if (now - clickBudgetPeriodStart >= CLICK_BUDGET_PERIOD_NANOS) {
+			// Start a new period:
+			clickBudgetPeriodStart = now;
+			clickBudgetUsed = 0;
+		}
+		if (clickBudgetUsed >= maxClicks) return false;
+		clickBudgetUsed++;
+		return true;
+	}
+
 	final void onSessionEnd() {
 		valid = false;
 	}
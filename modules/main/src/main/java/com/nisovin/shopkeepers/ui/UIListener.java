@@ -20,10 +20,14 @@ import org.bukkit.inventory.InventoryView;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.util.interaction.TestPlayerInteractEvent;
+import com.nisovin.shopkeepers.util.java.RateLimiter;
 import com.nisovin.shopkeepers.util.logging.Log;
 
 class UIListener implements Listener {
 
+	// Macro clients can trigger hundreds of dropped clicks per second, so we only log every Nth dropped click:
+	private static final int DROPPED_CLICKS_LOG_THRESHOLD = 100;
+
 	private final SKUIRegistry uiRegistry;
 
 	// The relation between early and late event handling are maintained via stacks, in case something (a plugin) is
@@ -49,6 +53,7 @@ class UIListener implements Listener {
 	};
 	private final Deque<UIHandler> clickHandlerStack = new ArrayDeque<>();
 	private final Deque<UIHandler> dragHandlerStack = new ArrayDeque<>();
+	private final RateLimiter droppedClicksLogLimiter = new RateLimiter(DROPPED_CLICKS_LOG_THRESHOLD);
 
 	UIListener(SKUIRegistry uiRegistry) {
 		this.uiRegistry = uiRegistry;
@@ -95,6 +100,20 @@ class UIListener implements Listener {
 		return true;
 	}
 
+	private boolean checkClickBudget(InventoryInteractEvent event, Player player, SKUISession session) {
+		if (session.consumeClickBudget()) return true;
+
+		// The interaction exceeds the click budget of the session:
+		event.setCancelled(true);
+		uiRegistry.onClickDropped();
+		if (droppedClicksLogLimiter.request()) {
+			Log.debug(() -> "Ignoring inventory interaction by " + player.getName()
+					+ ": Exceeded the limit of " + Settings.maxUiClicksPerSecond + " clicks per second. (Dropped clicks in total: "
+					+ uiRegistry.getDroppedClicksCount() + ")");
+		}
+		return false;
+	}
+
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	void onInventoryClose(InventoryCloseEvent event) {
 		if (!(event.getPlayer() instanceof Player)) {
@@ -116,8 +135,8 @@ class UIListener implements Listener {
 			player = (Player) event.getWhoClicked();
 			Player finalPlayer = player;
 			assert player.equals(session.getPlayer());
-			// Validate session:
-			if (this.validateSession(event, player, session)) {
+			// Validate session and click budget:
+			if (this.validateSession(event, player, session) && this.checkClickBudget(event, player, session)) {
 				uiHandler = session.getUIHandler();
 
 				// Debug information:
@@ -165,8 +184,8 @@ class UIListener implements Listener {
 			player = (Player) event.getWhoClicked();
 			Player finalPlayer = player;
 			assert player.equals(session.getPlayer());
-			// Validate session:
-			if (this.validateSession(event, player, session)) {
+			// Validate session and click budget:
+			if (this.validateSession(event, player, session) && this.checkClickBudget(event, player, session)) {
 				uiHandler = session.getUIHandler();
 
 				// Debug information:
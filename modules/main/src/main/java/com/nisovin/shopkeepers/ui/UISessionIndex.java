@@ -0,0 +1,187 @@
+package com.nisovin.shopkeepers.ui;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.ui.UIType;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+
+/**
+ * Secondary indices of the UI sessions of the {@link SKUIRegistry}, by shopkeeper and by UI type.
+ */
+final class UISessionIndex {
+
+	// The UI sessions of a specific shopkeeper.
+	private static final class ShopkeeperUISessions {
+
+		private final Set<SKUISession> uiSessions = new LinkedHashSet<>();
+		// Empty entries are removed.
+		private final Map<UIType, Set<SKUISession>> uiSessionsByUIType = new HashMap<>();
+	}
+
+	/**
+	 * An unmodifiable view on the UI sessions of an index entry.
+	 * <p>
+	 * Since empty index entries are removed, the view looks up the current index entry on every access, so that it
+	 * reflects all subsequent changes.
+	 */
+	private static final class UISessionsView extends AbstractCollection<SKUISession> {
+
+		private final Supplier<Set<SKUISession>> uiSessionsSupplier; // Supplies null if there is no index entry
+
+		UISessionsView(Supplier<Set<SKUISession>> uiSessionsSupplier) {
+			assert uiSessionsSupplier != null;
+			this.uiSessionsSupplier = uiSessionsSupplier;
+		}
+
+		private Set<SKUISession> getUISessions() {
+			Set<SKUISession> uiSessions = uiSessionsSupplier.get();
+			return (uiSessions != null) ? uiSessions : Collections.emptySet();
+		}
+
+		@Override
+		public Iterator<SKUISession> iterator() {
+			Iterator<SKUISession> iterator = this.getUISessions().iterator();
+			// Does not support removal:
+			return new Iterator<SKUISession>() {
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public SKUISession next() {
+					return iterator.next();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return this.getUISessions().size();
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			return this.getUISessions().contains(object);
+		}
+	}
+
+	// Only contains entries for shopkeepers with UI sessions.
+	private final Map<Shopkeeper, ShopkeeperUISessions> uiSessionsByShopkeeper = new HashMap<>();
+	// The views of the shopkeepers are retained until the shopkeeper is removed. We only retain the views of valid
+	// shopkeepers, so that we do not retain the views of shopkeepers that have already been removed.
+	private final Map<Shopkeeper, Collection<SKUISession>> uiSessionsByShopkeeperViews = new HashMap<>();
+	// The number of UI types is limited. We therefore retain the entries and views of UI types without UI sessions.
+	private final Map<UIType, Set<SKUISession>> uiSessionsByUIType = new HashMap<>();
+	private final Map<UIType, Collection<SKUISession>> uiSessionsByUITypeViews = new HashMap<>();
+
+	UISessionIndex() {
+	}
+
+	Collection<SKUISession> getUISessions(Shopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		Collection<SKUISession> view = uiSessionsByShopkeeperViews.get(shopkeeper);
+		if (view == null) {
+			view = new UISessionsView(() -> {
+				ShopkeeperUISessions shopkeeperUISessions = uiSessionsByShopkeeper.get(shopkeeper);
+				return (shopkeeperUISessions != null) ? shopkeeperUISessions.uiSessions : null;
+			});
+			if (shopkeeper.isValid()) {
+				uiSessionsByShopkeeperViews.put(shopkeeper, view);
+			}
+		}
+		return view;
+	}
+
+	Collection<SKUISession> getUISessions(Shopkeeper shopkeeper, UIType uiType) {
+		assert shopkeeper != null && uiType != null;
+		return new UISessionsView(() -> {
+			ShopkeeperUISessions shopkeeperUISessions = uiSessionsByShopkeeper.get(shopkeeper);
+			return (shopkeeperUISessions != null) ? shopkeeperUISessions.uiSessionsByUIType.get(uiType) : null;
+		});
+	}
+
+	Collection<SKUISession> getUISessions(UIType uiType) {
+		assert uiType != null;
+		return uiSessionsByUITypeViews.computeIfAbsent(uiType, key -> {
+			return Collections.unmodifiableSet(this.getUITypeSessions(key));
+		});
+	}
+
+	private Set<SKUISession> getUITypeSessions(UIType uiType) {
+		return uiSessionsByUIType.computeIfAbsent(uiType, key -> new LinkedHashSet<>());
+	}
+
+	void add(SKUISession session) {
+		assert session != null;
+		UIType uiType = session.getUIType();
+		AbstractShopkeeper shopkeeper = session.getShopkeeper();
+		if (shopkeeper != null) {
+			ShopkeeperUISessions shopkeeperUISessions = uiSessionsByShopkeeper.computeIfAbsent(
+					shopkeeper,
+					key -> new ShopkeeperUISessions()
+			);
+			shopkeeperUISessions.uiSessions.add(session);
+			shopkeeperUISessions.uiSessionsByUIType.computeIfAbsent(uiType, key -> new LinkedHashSet<>()).add(session);
+		}
+		this.getUITypeSessions(uiType).add(session);
+	}
+
+	void remove(SKUISession session) {
+		assert session != null;
+		UIType uiType = session.getUIType();
+		AbstractShopkeeper shopkeeper = session.getShopkeeper();
+		if (shopkeeper != null) {
+			ShopkeeperUISessions shopkeeperUISessions = uiSessionsByShopkeeper.get(shopkeeper);
+			if (shopkeeperUISessions != null) {
+				shopkeeperUISessions.uiSessions.remove(session);
+				Set<SKUISession> shopkeeperUITypeSessions = shopkeeperUISessions.uiSessionsByUIType.get(uiType);
+				if (shopkeeperUITypeSessions != null) {
+					shopkeeperUITypeSessions.remove(session);
+					if (shopkeeperUITypeSessions.isEmpty()) {
+						shopkeeperUISessions.uiSessionsByUIType.remove(uiType);
+					}
+				}
+				if (shopkeeperUISessions.uiSessions.isEmpty()) {
+					uiSessionsByShopkeeper.remove(shopkeeper);
+				}
+			}
+		}
+		Set<SKUISession> uiTypeSessions = uiSessionsByUIType.get(uiType);
+		if (uiTypeSessions != null) {
+			uiTypeSessions.remove(session);
+		}
+	}
+
+	// Called once the shopkeeper is no longer valid. Any remaining UI sessions of the shopkeeper are removed from the
+	// index once they end.
+	void onShopkeeperRemoved(Shopkeeper shopkeeper) {
+		assert shopkeeper != null && !shopkeeper.isValid();
+		uiSessionsByShopkeeperViews.remove(shopkeeper);
+	}
+
+	// For tests and debugging:
+	boolean hasShopkeeperEntry(Shopkeeper shopkeeper) {
+		return uiSessionsByShopkeeper.containsKey(shopkeeper);
+	}
+
+	// For tests and debugging:
+	int getCachedShopkeeperViewsCount() {
+		return uiSessionsByShopkeeperViews.size();
+	}
+
+	void clear() {
+		uiSessionsByShopkeeper.clear();
+		uiSessionsByShopkeeperViews.clear();
+		uiSessionsByUIType.values().forEach(Set::clear);
+	}
+}
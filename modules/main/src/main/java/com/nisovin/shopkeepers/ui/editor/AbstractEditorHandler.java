@@ -19,6 +19,7 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
 
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.lang.Messages;
 import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
@@ -143,19 +144,42 @@ public abstract class AbstractEditorHandler extends UIHandler {
 		return Settings.maxTradesPages;
 	}
 
+	// Only updates the slots whose items have changed.
 	protected void setTradeColumn(Inventory inventory, int column, TradingRecipeDraft recipe) {
 		if (inventory == null) return;
+		this.setTradeSlot(inventory, column + RESULT_ITEM_OFFSET, recipe.getResultItem());
+		this.setTradeSlot(inventory, column + ITEM_1_OFFSET, recipe.getItem1());
+		this.setTradeSlot(inventory, column + ITEM_2_OFFSET, recipe.getItem2());
+	}
+
+	private void setTradeSlot(Inventory inventory, int slot, UnmodifiableItemStack item) {
+		// The trades area can be edited by the player, so we compare with the current inventory contents:
+		if (ItemUtils.equals(item, inventory.getItem(slot))) return;
 		// The inventory implementations create NMS copies of the items, so we do not need to copy them ourselves here:
-		inventory.setItem(column + RESULT_ITEM_OFFSET, ItemUtils.asItemStackOrNull(recipe.getResultItem()));
-		inventory.setItem(column + ITEM_1_OFFSET, ItemUtils.asItemStackOrNull(recipe.getItem1()));
-		inventory.setItem(column + ITEM_2_OFFSET, ItemUtils.asItemStackOrNull(recipe.getItem2()));
+		inventory.setItem(slot, ItemUtils.asItemStackOrNull(item));
 	}
 
-	// TODO Avoid creating new TradingRecipeDraft objects here and instead update the drafts of the session?
-	protected TradingRecipeDraft getTradingRecipe(Inventory inventory, int column) {
+	/**
+	 * Gets the trading recipe that is represented by the specified column of the given inventory.
+	 * <p>
+	 * If the items of the given previous recipe match the items in the inventory, the previous recipe is returned
+	 * instead of creating a new {@link TradingRecipeDraft}.
+	 * 
+	 * @param inventory
+	 *            the editor inventory
+	 * @param column
+	 *            the column
+	 * @param previousRecipe
+	 *            the recipe that is currently stored for this column, can be <code>null</code>
+	 * @return the trading recipe, not <code>null</code>
+	 */
+	protected TradingRecipeDraft getTradingRecipe(Inventory inventory, int column, TradingRecipeDraft previousRecipe) {
 		ItemStack resultItem = inventory.getItem(column + RESULT_ITEM_OFFSET);
 		ItemStack item1 = inventory.getItem(column + ITEM_1_OFFSET);
 		ItemStack item2 = inventory.getItem(column + ITEM_2_OFFSET);
+		if (previousRecipe != null && previousRecipe.areItemsEqual(resultItem, item1, item2)) {
+			return previousRecipe;
+		}
 		return new TradingRecipeDraft(resultItem, item1, item2);
 	}
 
@@ -227,9 +251,9 @@ public abstract class AbstractEditorHandler extends UIHandler {
 				if (newPage == currentPage) return false; // Page has not changed
 
 				// Update page:
+				// Only the changed slots are sent to the player:
 				session.setPage(newPage);
 				setupPage(player, newPage);
-				player.updateInventory();
 				return true;
 			}
 		};
@@ -268,9 +292,9 @@ public abstract class AbstractEditorHandler extends UIHandler {
 				if (newPage == currentPage) return false; // Page has not changed
 
 				// Update page:
+				// Only the changed slots are sent to the player:
 				session.setPage(newPage);
 				setupPage(player, newPage);
-				player.updateInventory();
 				return true;
 			}
 		};
@@ -496,45 +520,29 @@ public abstract class AbstractEditorHandler extends UIHandler {
 		assert session != null;
 		Inventory inventory = session.getInventory();
 
-		// clear trades area:
-		for (int i = TRADES_ROW_1_START; i <= TRADES_ROW_1_END; ++i) {
-			inventory.setItem(i, null);
-		}
-		for (int i = TRADES_ROW_2_START; i <= TRADES_ROW_2_END; ++i) {
-			inventory.setItem(i, null);
-		}
-		for (int i = TRADES_ROW_3_START; i <= TRADES_ROW_3_END; ++i) {
-			inventory.setItem(i, null);
-		}
-
-		// Insert trades:
+		// Insert trades (empty columns clear the previous trades):
 		int page = session.getCurrentPage();
 		assert page >= 1;
 		List<TradingRecipeDraft> recipes = session.getRecipes();
 		int recipesPerPage = COLUMNS_PER_ROW;
 		int startIndex = (page - 1) * recipesPerPage;
-		for (int column = 0, i = startIndex; column < COLUMNS_PER_ROW && i < recipes.size(); ++column, ++i) {
-			TradingRecipeDraft recipe = recipes.get(i);
+		for (int column = 0, i = startIndex; column < TRADES_COLUMNS; ++column, ++i) {
+			TradingRecipeDraft recipe = (i < recipes.size()) ? recipes.get(i) : TradingRecipeDraft.EMPTY;
 			this.setTradeColumn(inventory, column, recipe);
 		}
 	}
 
 	protected void setupTradesPageBar(Session session) {
 		assert session != null;
-		Inventory inventory = session.getInventory();
-		// Clear page bar area:
-		for (int i = TRADES_PAGE_BAR_START; i <= TRADES_PAGE_BAR_END; ++i) {
-			inventory.setItem(i, null);
-		}
-
-		// Insert buttons:
+		// Insert buttons (empty slots clear the previous icons):
 		Button[] buttons = this.getTradesPageBarButtons();
 		for (int i = 0; i < buttons.length; ++i) {
 			Button button = buttons[i];
-			if (button == null) continue;
-			ItemStack icon = button.getIcon(session);
-			if (icon == null) continue;
-			inventory.setItem(button.getSlot(), icon);
+			ItemStack icon = null;
+			if (button != null) {
+				icon = button.getIcon(session);
+			}
+			session.setIcon(TRADES_PAGE_BAR_START + i, icon);
 		}
 	}
 
@@ -544,14 +552,16 @@ public abstract class AbstractEditorHandler extends UIHandler {
 		this.setupButtons(session);
 	}
 
+	// The server sends the changed slots of the open inventory to the player, so we do not need to resend the whole
+	// inventory here.
 	void updateButtonsInAllSessions() {
 		for (Session session : sessions.values()) {
 			this.updateButtons(session);
-			session.getPlayer().updateInventory();
 		}
 	}
 
 	// Also used to refresh all button icons in an already open inventory.
+	// Only updates the slots whose icons have changed.
 	protected void setupButtons(Session session) {
 		Inventory inventory = session.getInventory();
 		final int inventorySize = inventory.getSize();
@@ -567,7 +577,7 @@ public abstract class AbstractEditorHandler extends UIHandler {
 			}
 			// Null will clear the slot (required if this is called to refresh the buttons in an already setup
 			// inventory):
-			inventory.setItem(slot, icon);
+			session.setIcon(slot, icon);
 		}
 	}
 
@@ -575,8 +585,7 @@ public abstract class AbstractEditorHandler extends UIHandler {
 		int slot = button.getSlot();
 		for (Session session : sessions.values()) {
 			ItemStack icon = button.getIcon(session);
-			session.getInventory().setItem(slot, icon);
-			session.getPlayer().updateInventory();
+			session.setIcon(slot, icon);
 		}
 	}
 
@@ -732,10 +741,10 @@ public abstract class AbstractEditorHandler extends UIHandler {
 			recipes.add(TradingRecipeDraft.EMPTY);
 		}
 
-		// Replace recipes:
+		// Replace the recipes that have changed:
 		for (int column = 0; column < TRADES_COLUMNS; column++) {
-			TradingRecipeDraft recipeDraft = this.getTradingRecipe(inventory, column);
 			int recipeIndex = startIndex + column;
+			TradingRecipeDraft recipeDraft = this.getTradingRecipe(inventory, column, recipes.get(recipeIndex));
 			recipes.set(recipeIndex, recipeDraft);
 		}
 	}
@@ -50,9 +50,16 @@ public abstract class DefaultTradingRecipesAdapter<O> implements TradingRecipesA
 
 		List<O> newOffers = new ArrayList<>(this.getOffers());
 		final int oldOffersSize = newOffers.size();
+		LazyTradingRecipeDrafts<?> lazyRecipes = (recipes instanceof LazyTradingRecipeDrafts) ? (LazyTradingRecipeDrafts<?>) recipes : null;
 		int changedOffers = 0;
 		boolean clearedAtLeastOneOffer = false;
 		for (int index = 0; index < recipes.size(); index++) {
+			if (lazyRecipes != null && index < oldOffersSize) {
+				// Keep the old offer if its trading recipe draft has never been created (i.e. it has not been edited):
+				Object pendingOffer = lazyRecipes.getPendingOffer(index);
+				if (pendingOffer != null && pendingOffer == newOffers.get(index)) continue;
+			}
+
 			TradingRecipeDraft recipe = recipes.get(index);
 			Validate.notNull(recipe, "recipes contains null");
 			// The recipe is also considered invalid if the created offer is null:
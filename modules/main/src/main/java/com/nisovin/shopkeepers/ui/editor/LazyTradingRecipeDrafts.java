@@ -0,0 +1,127 @@
+package com.nisovin.shopkeepers.ui.editor;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A modifiable list of {@link TradingRecipeDraft}s that only creates the trading recipe drafts for the merchant's
+ * offers once they are accessed.
+ * <p>
+ * The editor only accesses the trading recipe drafts of the pages that are actually viewed by the player. Creating the
+ * trading recipe drafts lazily therefore avoids having to convert all of the merchant's offers when the editor is
+ * opened. {@link DefaultTradingRecipesAdapter} also skips offers whose trading recipe drafts have never been created
+ * when the edited trading recipe drafts are applied.
+ * <p>
+ * Inserting or removing trading recipe drafts at positions other than at the end of the list creates all pending
+ * trading recipe drafts first.
+ * 
+ * @param <O>
+ *            the type of offer the merchant uses to represent its trading recipes
+ */
+public class LazyTradingRecipeDrafts<O> extends AbstractList<TradingRecipeDraft> implements RandomAccess {
+
+	private final List<? extends O> offers; // Not null, unmodifiable snapshot
+	private final Function<? super O, ? extends TradingRecipeDraft> draftFactory; // Not null
+	// Null entries indicate pending trading recipe drafts. These can only occur for indices of the offers list, and
+	// they correspond to the offer at the same index.
+	private final List<TradingRecipeDraft> drafts;
+
+	/**
+	 * Creates a new {@link LazyTradingRecipeDrafts}.
+	 * <p>
+	 * The given list of offers is copied.
+	 * 
+	 * @param offers
+	 *            the merchant's offers, not <code>null</code>
+	 * @param draftFactory
+	 *            creates the trading recipe draft for an offer, not <code>null</code>
+	 */
+	public LazyTradingRecipeDrafts(List<? extends O> offers, Function<? super O, ? extends TradingRecipeDraft> draftFactory) {
+		Validate.notNull(offers, "offers is null");
+		Validate.notNull(draftFactory, "draftFactory is null");
+		this.offers = Collections.unmodifiableList(new ArrayList<>(offers));
+		this.draftFactory = draftFactory;
+		this.drafts = new ArrayList<>(Collections.nCopies(offers.size(), null));
+	}
+
+	/**
+	 * Checks whether the trading recipe draft at the specified index has already been created.
+	 * 
+	 * @param index
+	 *            the index
+	 * @return <code>true</code> if the trading recipe draft has already been created
+	 */
+	public boolean isCreated(int index) {
+		return drafts.get(index) != null;
+	}
+
+	/**
+	 * Gets the offer whose trading recipe draft at the specified index has not yet been created.
+	 * 
+	 * @param index
+	 *            the index
+	 * @return the offer, or <code>null</code> if the trading recipe draft at the specified index has already been
+	 *         created
+	 */
+	public O getPendingOffer(int index) {
+		if (this.isCreated(index)) return null;
+		return offers.get(index);
+	}
+
+	private void createAllDrafts() {
+		for (int index = 0; index < drafts.size(); index++) {
+			this.get(index);
+		}
+	}
+
+	@Override
+	public TradingRecipeDraft get(int index) {
+		TradingRecipeDraft draft = drafts.get(index);
+		if (draft == null) {
+			draft = draftFactory.apply(offers.get(index));
+			Validate.State.notNull(draft, "draftFactory returned null");
+			drafts.set(index, draft);
+		}
+		return draft;
+	}
+
+	@Override
+	public int size() {
+		return drafts.size();
+	}
+
+	@Override
+	public TradingRecipeDraft set(int index, TradingRecipeDraft element) {
+		Validate.notNull(element, "element is null");
+		TradingRecipeDraft previous = drafts.set(index, element);
+		if (previous == null) {
+			// The replaced trading recipe draft has not been created yet:
+			previous = draftFactory.apply(offers.get(index));
+		}
+		return previous;
+	}
+
+	@Override
+	public void add(int index, TradingRecipeDraft element) {
+		Validate.notNull(element, "element is null");
+		if (index != drafts.size()) {
+			// This would shift the pending trading recipe drafts:
+			this.createAllDrafts();
+		}
+		drafts.add(index, element);
+	}
+
+	@Override
+	public TradingRecipeDraft remove(int index) {
+		// This would shift the pending trading recipe drafts:
+		this.createAllDrafts();
+		return drafts.remove(index);
+	}
+}
@@ -1,11 +1,14 @@
 package com.nisovin.shopkeepers.ui.editor;
 
 import java.util.List;
+import java.util.Objects;
 
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
 
 import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 
 /**
@@ -17,6 +20,8 @@ public class Session {
 	private final List<TradingRecipeDraft> recipes;
 	private final Inventory inventory;
 	private int currentPage = 1;
+	// The icons that were last set in the inventory, indexed by slot. Null for empty slots.
+	private final ItemStack[] icons;
 
 	protected Session(Player player, List<TradingRecipeDraft> recipes, Inventory inventory) {
 		Validate.notNull(player, "player is null");
@@ -25,6 +30,7 @@ public class Session {
 		this.player = player;
 		this.recipes = recipes;
 		this.inventory = inventory;
+		this.icons = new ItemStack[inventory.getSize()];
 	}
 
 	public final Player getPlayer() {
@@ -47,4 +53,27 @@ public class Session {
 	public final List<TradingRecipeDraft> getRecipes() {
 		return recipes;
 	}
+
+	/**
+	 * Sets the icon of the specified slot of the inventory, unless the slot already contains an equal icon.
+	 * <p>
+	 * The icon is compared with the icon that was last set for the slot via this method. This is therefore only meant to
+	 * be used for slots whose contents cannot be modified by the player, such as the slots of the editor buttons.
+	 * <p>
+	 * The given icon is not copied, but is expected to not be modified afterwards.
+	 * 
+	 * @param slot
+	 *            the slot
+	 * @param icon
+	 *            the icon, or <code>null</code> to clear the slot
+	 * @return <code>true</code> if the slot has been updated
+	 */
+	boolean setIcon(int slot, ItemStack icon) {
+		icon = ItemUtils.getNullIfEmpty(icon);
+		if (Objects.equals(icons[slot], icon)) return false;
+		icons[slot] = icon;
+		// The inventory implementations create NMS copies of the items, so we do not need to copy them ourselves here:
+		inventory.setItem(slot, icon);
+		return true;
+	}
 }
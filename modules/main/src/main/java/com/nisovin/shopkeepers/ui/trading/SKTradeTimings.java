@@ -0,0 +1,68 @@
+package com.nisovin.shopkeepers.ui.trading;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.nisovin.shopkeepers.api.shopkeeper.ShopType;
+import com.nisovin.shopkeepers.api.trading.TradePhase;
+import com.nisovin.shopkeepers.api.trading.TradeTimings;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.timer.RollingTimings;
+
+/**
+ * Records the processing times of the individual {@link TradePhase phases} of the trades handled by the
+ * {@link TradingHandler}, separately for each {@link ShopType}.
+ */
+public class SKTradeTimings implements TradeTimings {
+
+	private static final TradePhase[] PHASES = TradePhase.values();
+
+	private final Map<ShopType<?>, RollingTimings[]> timingsByShopType = new LinkedHashMap<>();
+	private final Collection<? extends ShopType<?>> shopTypesView = Collections.unmodifiableSet(timingsByShopType.keySet());
+
+	public SKTradeTimings() {
+	}
+
+	/**
+	 * Records the duration of the specified {@link TradePhase}.
+	 * 
+	 * @param shopType
+	 *            the shop type of the involved shopkeeper, not <code>null</code>
+	 * @param phase
+	 *            the trade phase, not <code>null</code>
+	 * @param durationNanos
+	 *            the duration in nanoseconds
+	 */
+	public void record(ShopType<?> shopType, TradePhase phase, long durationNanos) {
+		assert shopType != null && phase != null;
+		RollingTimings[] phaseTimings = timingsByShopType.computeIfAbsent(shopType, key -> {
+			RollingTimings[] timings = new RollingTimings[PHASES.length];
+			for (int i = 0; i < timings.length; i++) {
+				timings[i] = new RollingTimings();
+			}
+			return timings;
+		});
+		phaseTimings[phase.ordinal()].record(durationNanos);
+	}
+
+	@Override
+	public Collection<? extends ShopType<?>> getShopTypes() {
+		return shopTypesView;
+	}
+
+	@Override
+	public RollingTimings getTimings(ShopType<?> shopType, TradePhase phase) {
+		Validate.notNull(shopType, "shopType is null");
+		Validate.notNull(phase, "phase is null");
+		RollingTimings[] phaseTimings = timingsByShopType.get(shopType);
+		if (phaseTimings == null) return null;
+		return phaseTimings[phase.ordinal()];
+	}
+
+	@Override
+	public void reset() {
+		timingsByShopType.clear();
+	}
+}
@@ -0,0 +1,189 @@
+package com.nisovin.shopkeepers.ui.trading;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.bukkit.inventory.ItemStack;
+
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+
+/**
+ * The trading state of a player.
+ * <p>
+ * This keeps track of the trading recipes that are currently displayed to the player, in the same order as the
+ * recipes of the merchant. This allows the trade handling to look up the trading recipe that corresponds to the
+ * selected merchant recipe, instead of having to convert the active merchant recipe back into a trading recipe for
+ * every click.
+ * <p>
+ * The context also provides scratch state that is reused across the clicks of the player: The result of the last
+ * {@link #matchSelectedRecipe(int, ItemStack, ItemStack, ItemStack) recipe match}, and a buffer for the storage
+ * contents of the player's inventory during shift-click trading.
+ */
+final class TradingContext {
+
+	/**
+	 * Compares an offered item with a required item of a trading recipe, in the same way as Minecraft does when it
+	 * matches the offered items to the merchant recipes.
+	 */
+	@FunctionalInterface
+	interface ItemMatcher {
+
+		/**
+		 * Checks if the offered item matches the required item.
+		 * <p>
+		 * This ignores the item amounts.
+		 * 
+		 * @param offeredItem
+		 *            the offered item, can be <code>null</code>
+		 * @param requiredItem
+		 *            the required item, can be <code>null</code>
+		 * @return <code>true</code> if the items match
+		 */
+		public boolean matches(@ReadOnly ItemStack offeredItem, UnmodifiableItemStack requiredItem);
+	}
+
+	static final int ITEM_ORDER_NO_MATCH = -1;
+	static final int ITEM_ORDER_REGULAR = 0;
+	static final int ITEM_ORDER_SWAPPED = 1;
+
+	// The size of the storage contents of player inventories (hotbar and main contents):
+	static final int PLAYER_STORAGE_SIZE = 36;
+
+	private final ItemMatcher itemMatcher;
+	// Null if the merchant recipes might not correspond to these trading recipes, for example because blocked dummy
+	// recipes were inserted.
+	private List<? extends TradingRecipe> recipes;
+
+	// The result of the last successful recipe match:
+	private TradingRecipe matchedRecipe = null;
+	private int matchedItemOrder = ITEM_ORDER_NO_MATCH;
+
+	// Reused for every trade of a shift-click. Cleared after each click, so that we don't retain any items.
+	private final ItemStack[] playerStorageContents = new ItemStack[PLAYER_STORAGE_SIZE];
+
+	TradingContext(List<? extends TradingRecipe> recipes, ItemMatcher itemMatcher) {
+		assert itemMatcher != null;
+		this.recipes = recipes;
+		this.itemMatcher = itemMatcher;
+	}
+
+	/**
+	 * Sets the trading recipes that are currently displayed to the player.
+	 * 
+	 * @param recipes
+	 *            the trading recipes in the same order as the merchant recipes, or <code>null</code> if the merchant
+	 *            recipes do not correspond to the trading recipes
+	 */
+	void setRecipes(List<? extends TradingRecipe> recipes) {
+		this.recipes = recipes;
+	}
+
+	/**
+	 * Gets the trading recipe at the specified index, if it is not out of stock and its result item equals the given
+	 * item.
+	 * <p>
+	 * This does not check whether the recipe is actually the one Minecraft uses for the current trade: If the selected
+	 * recipe does not match the offered items, Minecraft may use a different recipe with an equal result item.
+	 * 
+	 * @param recipeIndex
+	 *            the index of the selected merchant recipe
+	 * @param resultItem
+	 *            the item in the result slot
+	 * @return the trading recipe, or <code>null</code> if there is no corresponding trading recipe
+	 */
+	TradingRecipe getTradingRecipe(int recipeIndex, @ReadOnly ItemStack resultItem) {
+		List<? extends TradingRecipe> recipes = this.recipes;
+		if (recipes == null) return null;
+		if (recipeIndex < 0 || recipeIndex >= recipes.size()) return null;
+		TradingRecipe recipe = recipes.get(recipeIndex);
+		if (recipe.isOutOfStock()) return null;
+		if (!recipe.getResultItem().equals(resultItem)) return null;
+		return recipe;
+	}
+
+	/**
+	 * Checks if the trading recipe at the specified index is the one that Minecraft uses for the trade with the given
+	 * offered items and result item.
+	 * <p>
+	 * If the selected recipe matches the offered items, Minecraft uses it for the trade. On success, the matched
+	 * recipe and the used item order are available via {@link #getMatchedRecipe()} and {@link #getMatchedItemOrder()}
+	 * until the next match.
+	 * 
+	 * @param recipeIndex
+	 *            the index of the selected merchant recipe
+	 * @param offeredItem1
+	 *            the item in the first buy slot, can be <code>null</code>
+	 * @param offeredItem2
+	 *            the item in the second buy slot, can be <code>null</code>
+	 * @param resultItem
+	 *            the item in the result slot
+	 * @return <code>true</code> if the selected recipe matches
+	 */
+	boolean matchSelectedRecipe(	int recipeIndex, @ReadOnly ItemStack offeredItem1, @ReadOnly ItemStack offeredItem2,
+								@ReadOnly ItemStack resultItem) {
+		matchedRecipe = null;
+		matchedItemOrder = ITEM_ORDER_NO_MATCH;
+		TradingRecipe recipe = this.getTradingRecipe(recipeIndex, resultItem);
+		if (recipe == null) return false;
+		int itemOrder = getItemOrder(itemMatcher, offeredItem1, offeredItem2, recipe);
+		if (itemOrder == ITEM_ORDER_NO_MATCH) return false;
+		matchedRecipe = recipe;
+		matchedItemOrder = itemOrder;
+		return true;
+	}
+
+	TradingRecipe getMatchedRecipe() {
+		return matchedRecipe;
+	}
+
+	int getMatchedItemOrder() {
+		return matchedItemOrder;
+	}
+
+	/**
+	 * Gets the buffer for the storage contents of the player's inventory.
+	 * <p>
+	 * The buffer has a size of {@link #PLAYER_STORAGE_SIZE}. Its contents are only valid until the next call of
+	 * {@link #clearPlayerStorageContents()}.
+	 * 
+	 * @return the buffer
+	 */
+	ItemStack[] getPlayerStorageContents() {
+		return playerStorageContents;
+	}
+
+	void clearPlayerStorageContents() {
+		Arrays.fill(playerStorageContents, null);
+	}
+
+	// Minecraft checks both combinations (item1, item2) and (item2, item1) when determining if a trading recipe
+	// matches, so we need to determine the used item order for the active trading recipe.
+	static int getItemOrder(	ItemMatcher itemMatcher, @ReadOnly ItemStack offeredItem1,
+							@ReadOnly ItemStack offeredItem2, TradingRecipe tradingRecipe) {
+		UnmodifiableItemStack requiredItem1 = tradingRecipe.getItem1();
+		UnmodifiableItemStack requiredItem2 = tradingRecipe.getItem2();
+		if (matches(itemMatcher, offeredItem1, offeredItem2, requiredItem1, requiredItem2)) {
+			return ITEM_ORDER_REGULAR;
+		} else if (matches(itemMatcher, offeredItem1, offeredItem2, requiredItem2, requiredItem1)) {
+			return ITEM_ORDER_SWAPPED;
+		} else {
+			return ITEM_ORDER_NO_MATCH;
+		}
+	}
+
+	private static boolean matches(	ItemMatcher itemMatcher, @ReadOnly ItemStack offeredItem1,
+									@ReadOnly ItemStack offeredItem2, UnmodifiableItemStack requiredItem1,
+									UnmodifiableItemStack requiredItem2) {
+		int offeredItem1Amount = ItemUtils.getItemStackAmount(offeredItem1);
+		int offeredItem2Amount = ItemUtils.getItemStackAmount(offeredItem2);
+		int requiredItem1Amount = ItemUtils.getItemStackAmount(requiredItem1);
+		int requiredItem2Amount = ItemUtils.getItemStackAmount(requiredItem2);
+		return (offeredItem1Amount >= requiredItem1Amount
+				&& offeredItem2Amount >= requiredItem2Amount
+				&& itemMatcher.matches(offeredItem1, requiredItem1)
+				&& itemMatcher.matches(offeredItem2, requiredItem2));
+	}
+}
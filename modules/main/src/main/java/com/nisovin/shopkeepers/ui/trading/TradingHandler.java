@@ -1,9 +1,10 @@
 package com.nisovin.shopkeepers.ui.trading;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Statistic;
@@ -19,10 +20,12 @@ import org.bukkit.inventory.MerchantInventory;
 import org.bukkit.inventory.MerchantRecipe;
 import org.bukkit.inventory.PlayerInventory;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.trading.TradePhase;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.compat.NMSManager;
 import com.nisovin.shopkeepers.config.Settings;
@@ -40,7 +43,6 @@ import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
-import com.nisovin.shopkeepers.util.java.Lazy;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
 
@@ -52,8 +54,14 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	protected static final int BUY_ITEM_2_SLOT_ID = 1;
 	protected static final int RESULT_ITEM_SLOT_ID = 2;
 
+	private static final TradingContext.ItemMatcher NMS_ITEM_MATCHER = (offeredItem, requiredItem) -> {
+		return NMSManager.getProvider().matches(offeredItem, requiredItem);
+	};
+
 	// Counts the trades triggered by the last click-event:
 	protected int tradeCounter = 0;
+	// The trading state of the players that have this UI open, by player id:
+	private final Map<UUID, TradingContext> contexts = new HashMap<>();
 
 	public TradingHandler(AbstractUIType uiType, AbstractShopkeeper shopkeeper) {
 		super(uiType, shopkeeper);
@@ -98,7 +106,11 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 			TextUtils.sendMessage(player, Messages.cannotTradeNoOffers);
 			return false;
 		}
-		return this.openTradeWindow(title, recipes, player);
+		if (!this.openTradeWindow(title, recipes, player)) {
+			return false;
+		}
+		contexts.put(player.getUniqueId(), new TradingContext(recipes, NMS_ITEM_MATCHER));
+		return true;
 	}
 
 	protected boolean openTradeWindow(String title, List<? extends TradingRecipe> recipes, Player player) {
@@ -129,15 +141,16 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	}
 
 	protected List<MerchantRecipe> createMerchantRecipes(List<? extends TradingRecipe> recipes) {
-		List<MerchantRecipe> merchantRecipes = new ArrayList<>();
+		List<MerchantRecipe> merchantRecipes = new ArrayList<>(recipes.size());
 		for (TradingRecipe recipe : recipes) {
 			merchantRecipes.add(this.createMerchantRecipe(recipe));
 		}
 		return merchantRecipes;
 	}
 
+	// The returned merchant recipes are not modified, so we can reuse the merchant recipes cached by the trading recipes.
 	protected MerchantRecipe createMerchantRecipe(TradingRecipe recipe) {
-		return MerchantUtils.createMerchantRecipe(recipe); // Default
+		return MerchantUtils.getMerchantRecipe(recipe); // Default
 	}
 
 	protected String getInventoryTitle() {
@@ -152,6 +165,12 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		// Check if the currently open inventory still corresponds to this UI:
 		if (!this.isOpen(player)) return;
 
+		long startNanos = System.nanoTime();
+		this.updateMerchantRecipes(player);
+		this.recordTradeTiming(TradePhase.UPDATE_TRADES, System.nanoTime() - startNanos);
+	}
+
+	private void updateMerchantRecipes(Player player) {
 		InventoryView openInventory = player.getOpenInventory();
 		assert openInventory.getType() == InventoryType.MERCHANT;
 		MerchantInventory merchantInventory = (MerchantInventory) openInventory.getTopInventory();
@@ -161,19 +180,47 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		Shopkeeper shopkeeper = this.getShopkeeper();
 		List<? extends TradingRecipe> recipes = shopkeeper.getTradingRecipes(player);
 		List<MerchantRecipe> newMerchantRecipes = this.createMerchantRecipes(recipes);
-		if (MerchantUtils.MERCHANT_RECIPES_IGNORE_USES_EXCEPT_BLOCKED.equals(oldMerchantRecipes, newMerchantRecipes)) {
-			Log.debug(() -> shopkeeper.getLogPrefix() + "Trades are still up-to-date for player " + player.getName());
-			return; // Recipes did not change
-		}
-		Log.debug(() -> shopkeeper.getLogPrefix() + "Updating trades for player " + player.getName());
 
-		// It is not safe to reduce the number of trading recipes for the player, so we may need to add dummy recipes:
-		this.ensureNoFewerRecipes(oldMerchantRecipes, newMerchantRecipes);
+		int oldRecipeCount = oldMerchantRecipes.size();
+		if (newMerchantRecipes.size() == oldRecipeCount) {
+			// Only replace the recipes that actually changed. This avoids converting all recipes to their Minecraft
+			// counterparts again.
+			int changedRecipeCount = 0;
+			for (int i = 0; i < oldRecipeCount; ++i) {
+				MerchantRecipe newMerchantRecipe = newMerchantRecipes.get(i);
+				if (!MerchantUtils.MERCHANT_RECIPES_IGNORE_USES_EXCEPT_BLOCKED.equals(oldMerchantRecipes.get(i), newMerchantRecipe)) {
+					merchant.setRecipe(i, newMerchantRecipe);
+					changedRecipeCount++;
+				}
+			}
+			if (changedRecipeCount == 0) {
+				if (Debug.isDebugging()) {
+					Log.debug(shopkeeper.getLogPrefix() + "Trades are still up-to-date for player " + player.getName());
+				}
+				return; // Recipes did not change
+			}
+			if (Debug.isDebugging()) {
+				Log.debug(shopkeeper.getLogPrefix() + "Updating " + changedRecipeCount + " of " + oldRecipeCount
+						+ " trades for player " + player.getName());
+			}
+			this.setDisplayedRecipes(player, recipes);
+		} else {
+			Log.debug(() -> shopkeeper.getLogPrefix() + "Updating trades for player " + player.getName());
 
-		// Set merchant's recipes:
-		merchant.setRecipes(newMerchantRecipes);
+			// It is not safe to reduce the number of trading recipes for the player, so we may need to add dummy
+			// recipes:
+			this.ensureNoFewerRecipes(oldMerchantRecipes, newMerchantRecipes);
+
+			// Set merchant's recipes:
+			merchant.setRecipes(newMerchantRecipes);
+
+			// If dummy recipes were inserted, the merchant recipes no longer correspond to the trading recipes:
+			this.setDisplayedRecipes(player, (newMerchantRecipes.size() == recipes.size()) ? recipes : null);
+		}
 
 		// Update recipes for the client:
+		// Note: Minecraft always sends the complete recipe list to the client. But since we skip this update if the
+		// recipes did not change, we only send it when necessary.
 		NMSManager.getProvider().updateTrades(player);
 	}
 
@@ -229,9 +276,17 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		return view != null && view.getType() == InventoryType.MERCHANT;
 	}
 
+	// Subclasses that override this method need to invoke the super implementation.
 	@Override
 	protected void onInventoryClose(Player player, InventoryCloseEvent closeEvent) {
-		// Callback for subclasses.
+		contexts.remove(player.getUniqueId());
+	}
+
+	private void setDisplayedRecipes(Player player, List<? extends TradingRecipe> recipes) {
+		TradingContext context = contexts.get(player.getUniqueId());
+		if (context != null) {
+			context.setRecipes(recipes);
+		}
 	}
 
 	// TRADE PROCESSING
@@ -387,18 +442,29 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 			// (especially if plugins or the shopkeepers themselves react to the individual trades), and each trade may
 			// have other side effects. So trading one time 64 for 64 items may not be equivalent to trading 64 times
 			// one item for one item.
+			// Reuse the contents buffer of the trading context across the trades, instead of copying the storage
+			// contents of the player's inventory into a new array for every trade:
+			TradingContext context = contexts.get(player.getUniqueId());
 			while (true) {
 				// Check if there is enough space in the player's inventory:
-				ItemStack[] newPlayerContents = playerInventory.getStorageContents();
-
-				// Minecraft is adding items in reverse container order (starting with hotbar slot 9),
-				// so we reverse the player contents accordingly before adding items:
-				// Changes write through to the original array.
-				List<ItemStack> listView = Arrays.asList(newPlayerContents);
-				List<ItemStack> hotbarView = listView.subList(0, 9);
-				List<ItemStack> contentsView = listView.subList(9, 36);
-				Collections.reverse(hotbarView);
-				Collections.reverse(contentsView);
+				ItemStack[] newPlayerContents;
+				if (context != null) {
+					newPlayerContents = context.getPlayerStorageContents();
+					// Minecraft is adding items in reverse container order (starting with hotbar slot 9),
+					// so we fill in the player contents in reverse order before adding items:
+					for (int slot = 0; slot < 9; slot++) {
+						newPlayerContents[8 - slot] = playerInventory.getItem(slot); // Hotbar
+					}
+					for (int slot = 9; slot < 36; slot++) {
+						newPlayerContents[44 - slot] = playerInventory.getItem(slot); // Contents
+					}
+				} else {
+					newPlayerContents = playerInventory.getStorageContents();
+					// Minecraft is adding items in reverse container order (starting with hotbar slot 9),
+					// so we reverse the player contents accordingly before adding items:
+					reverse(newPlayerContents, 0, 9); // Hotbar
+					reverse(newPlayerContents, 9, 36); // Contents
+				}
 
 				// No item copy required here:
 				if (InventoryUtils.addItems(newPlayerContents, resultItem) != 0) {
@@ -412,8 +478,8 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 				}
 
 				// Revert previous reverse:
-				Collections.reverse(hotbarView);
-				Collections.reverse(contentsView);
+				reverse(newPlayerContents, 0, 9);
+				reverse(newPlayerContents, 9, 36);
 
 				// Apply player inventory changes:
 				InventoryUtils.setStorageContents(playerInventory, newPlayerContents);
@@ -437,6 +503,10 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 				// Update result item:
 				resultItem = newResultItem;
 			}
+			if (context != null) {
+				// Don't retain the player's items:
+				context.clearPlayerStorageContents();
+			}
 			this.updateTrades(player);
 		} else {
 			// The inventory action involves the result slot, but doesn't trigger a trade usually, or isn't supported
@@ -444,6 +514,15 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		}
 	}
 
+	// Reverses the specified range of the given array in place (start index inclusive, end index exclusive).
+	private static void reverse(Object[] array, int startIndex, int endIndex) {
+		for (int i = startIndex, j = endIndex - 1; i < j; ++i, --j) {
+			Object temp = array[i];
+			array[i] = array[j];
+			array[j] = temp;
+		}
+	}
+
 	private void clearResultSlotForInvalidTrade(MerchantInventory merchantInventory) {
 		// TODO This is not working currently. The client updates the result slot contents whenever it receives a slot
 		// update from the server.
@@ -453,7 +532,10 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	}
 
 	private Trade checkForTrade(InventoryClickEvent clickEvent, boolean silent) {
-		return this.checkForTrade(clickEvent, silent, silent, true);
+		long startNanos = System.nanoTime();
+		Trade trade = this.checkForTrade(clickEvent, silent, silent, true);
+		this.recordTradeTiming(TradePhase.CHECK_FOR_TRADE, System.nanoTime() - startNanos);
+		return trade;
 	}
 
 	// Checks for an available trade and does some preparation in case a trade is found.
@@ -492,46 +574,59 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 			return null; // No trade available
 		}
 
-		// Find (and validate) the recipe Minecraft is using for the trade:
-		TradingRecipe tradingRecipe = MerchantUtils.getActiveTradingRecipe(merchantInventory);
-		if (tradingRecipe == null) {
-			// Unexpected, since there is an item inside the result slot.
-			if (!silent) {
-				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeUnexpectedTrade);
-				Log.debug(() -> shopkeeper.getLogPrefix() + "Not handling trade: Could not find the active trading recipe!");
-			}
-			this.clearResultSlotForInvalidTrade(merchantInventory);
-			return null;
+		// If the selected recipe matches the offered items, Minecraft uses it for the trade. In this case, we can
+		// directly use the corresponding trading recipe of the shopkeeper:
+		TradingRecipe tradingRecipe = null;
+		int itemOrder = TradingContext.ITEM_ORDER_NO_MATCH;
+		TradingContext context = contexts.get(tradingPlayer.getUniqueId());
+		int recipeIndex = merchantInventory.getSelectedRecipeIndex();
+		if (context != null && context.matchSelectedRecipe(recipeIndex, offeredItem1, offeredItem2, resultItem)) {
+			tradingRecipe = context.getMatchedRecipe();
+			itemOrder = context.getMatchedItemOrder();
 		}
 
-		// As a safe-guard, check that the result item of the selected recipe actually matches the result item expected
-		// by the player:
-		UnmodifiableItemStack recipeResultItem = tradingRecipe.getResultItem();
-		if (!recipeResultItem.equals(resultItem)) {
-			// Unexpected, but may happen if some other plugin modifies the involved trades or items.
-			if (!silent) {
-				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeUnexpectedTrade);
-				if (Debug.isDebugging()) {
-					Log.debug(shopkeeper.getLogPrefix() + "Not handling trade: The trade result item"
-							+ " does not match the expected item of the active trading recipe!");
-					debugLogItemStack("recipeResultItem", recipeResultItem);
-					debugLogItemStack("resultItem", resultItem);
+		if (itemOrder == TradingContext.ITEM_ORDER_NO_MATCH) {
+			// Find (and validate) the recipe Minecraft is using for the trade:
+			tradingRecipe = MerchantUtils.getActiveTradingRecipe(merchantInventory);
+			if (tradingRecipe == null) {
+				// Unexpected, since there is an item inside the result slot.
+				if (!silent) {
+					TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeUnexpectedTrade);
+					Log.debug(() -> shopkeeper.getLogPrefix() + "Not handling trade: Could not find the active trading recipe!");
 				}
+				this.clearResultSlotForInvalidTrade(merchantInventory);
+				return null;
 			}
-			this.clearResultSlotForInvalidTrade(merchantInventory);
-			return null;
+
+			// As a safe-guard, check that the result item of the selected recipe actually matches the result item
+			// expected by the player:
+			UnmodifiableItemStack recipeResultItem = tradingRecipe.getResultItem();
+			if (!recipeResultItem.equals(resultItem)) {
+				// Unexpected, but may happen if some other plugin modifies the involved trades or items.
+				if (!silent) {
+					TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeUnexpectedTrade);
+					if (Debug.isDebugging()) {
+						Log.debug(shopkeeper.getLogPrefix() + "Not handling trade: The trade result item"
+								+ " does not match the expected item of the active trading recipe!");
+						debugLogItemStack("recipeResultItem", recipeResultItem);
+						debugLogItemStack("resultItem", resultItem);
+					}
+				}
+				this.clearResultSlotForInvalidTrade(merchantInventory);
+				return null;
+			}
+
+			itemOrder = TradingContext.getItemOrder(NMS_ITEM_MATCHER, offeredItem1, offeredItem2, tradingRecipe);
 		}
 
 		UnmodifiableItemStack requiredItem1 = tradingRecipe.getItem1();
 		UnmodifiableItemStack requiredItem2 = tradingRecipe.getItem2();
 		assert !ItemUtils.isEmpty(requiredItem1);
 
-		// Minecraft checks both combinations (item1, item2) and (item2, item1) when determining if a trading recipe
-		// matches, so we need to determine the used item order for the currently active trading recipe:
 		boolean swappedItemOrder = false;
-		if (this.matches(offeredItem1, offeredItem2, requiredItem1, requiredItem2)) {
+		if (itemOrder == TradingContext.ITEM_ORDER_REGULAR) {
 			// Order is as-is.
-		} else if (this.matches(offeredItem1, offeredItem2, requiredItem2, requiredItem1)) {
+		} else if (itemOrder == TradingContext.ITEM_ORDER_SWAPPED) {
 			// Swapped order:
 			swappedItemOrder = true;
 			ItemStack temp = offeredItem1;
@@ -555,9 +650,9 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		if (Settings.useStrictItemComparison) {
 			// Verify that the recipe items are perfectly matching (they can still be swapped though):
 			boolean item1Similar = ItemUtils.isSimilar(requiredItem1, offeredItem1);
-			ItemStack offeredItem2Final = offeredItem2;
-			Lazy<Boolean> item2Similar = new Lazy<>(() -> ItemUtils.isSimilar(requiredItem2, offeredItem2Final));
-			if (!item1Similar || !item2Similar.get()) {
+			// Only compare the second items if the first items are similar:
+			boolean item2Similar = item1Similar && ItemUtils.isSimilar(requiredItem2, offeredItem2);
+			if (!item2Similar) {
 				if (!slientStrictItemComparison) {
 					// Feedback message:
 					TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeItemsNotStrictlyMatching);
@@ -576,7 +671,7 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 							debugLogItemStack("requiredItem1", requiredItem1);
 							debugLogItemStack("offeredItem1", offeredItem1);
 						}
-						if (!item2Similar.get()) {
+						if (!ItemUtils.isSimilar(requiredItem2, offeredItem2)) {
 							debugLogItemStack("requiredItem2", requiredItem2);
 							debugLogItemStack("offeredItem2", offeredItem2);
 						}
@@ -593,17 +688,6 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		return trade;
 	}
 
-	private boolean matches(ItemStack offeredItem1, ItemStack offeredItem2, UnmodifiableItemStack requiredItem1, UnmodifiableItemStack requiredItem2) {
-		int offeredItem1Amount = ItemUtils.getItemStackAmount(offeredItem1);
-		int offeredItem2Amount = ItemUtils.getItemStackAmount(offeredItem2);
-		int requiredItem1Amount = ItemUtils.getItemStackAmount(requiredItem1);
-		int requiredItem2Amount = ItemUtils.getItemStackAmount(requiredItem2);
-		return (offeredItem1Amount >= requiredItem1Amount
-				&& offeredItem2Amount >= requiredItem2Amount
-				&& NMSManager.getProvider().matches(offeredItem1, requiredItem1)
-				&& NMSManager.getProvider().matches(offeredItem2, requiredItem2));
-	}
-
 	protected final void debugPreventedTrade(Player player, String reason) {
 		Log.debug(() -> this.getShopkeeper().getLogPrefix() + "Prevented trade by " + player.getName() + ": " + reason);
 	}
@@ -622,6 +706,7 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	// Returns true if the trade was not aborted and is now supposed to get applied.
 	private boolean handleTrade(Trade trade) {
 		assert trade != null;
+		long startNanos = System.nanoTime();
 		// Increase trade counter:
 		tradeCounter++;
 
@@ -629,6 +714,7 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		if (!this.prepareTrade(trade)) {
 			// The trade got cancelled for some shopkeeper-specific reason:
 			this.onTradeAborted(trade);
+			this.recordTradeTiming(TradePhase.HANDLE_TRADE, System.nanoTime() - startNanos);
 			return false;
 		}
 
@@ -647,11 +733,17 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		ShopkeeperTradeEvent tradeEvent = new ShopkeeperTradeEvent(shopkeeper, trade.tradingPlayer,
 				trade.clickEvent, tradingRecipe, UnmodifiableItemStack.of(eventOfferedItem1),
 				UnmodifiableItemStack.of(eventOfferedItem2), trade.swappedItemOrder);
+		long eventStartNanos = System.nanoTime();
 		Bukkit.getPluginManager().callEvent(tradeEvent);
+		long eventEndNanos = System.nanoTime();
+		this.recordTradeTiming(TradePhase.TRADE_EVENT, eventEndNanos - eventStartNanos);
+		// The time spent before the event dispatch is accounted to the trade handling:
+		long handleTradeNanos = eventStartNanos - startNanos;
 		if (tradeEvent.isCancelled()) {
 			Log.debug(() -> shopkeeper.getLogPrefix() + "Some plugin cancelled the trade event of player "
 					+ trade.tradingPlayer.getName());
 			this.onTradeAborted(trade);
+			this.recordTradeTiming(TradePhase.HANDLE_TRADE, handleTradeNanos + (System.nanoTime() - eventEndNanos));
 			return false;
 		}
 		// Making sure that the click event is still cancelled:
@@ -665,10 +757,12 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 		// We are going to apply the trade now:
 		this.preApplyTrade(trade);
+		this.recordTradeTiming(TradePhase.HANDLE_TRADE, handleTradeNanos + (System.nanoTime() - eventEndNanos));
 		return true;
 	}
 
 	private void commonApplyTrade(Trade trade) {
+		long startNanos = System.nanoTime();
 		// Update merchant inventory contents:
 		MerchantInventory merchantInventory = trade.merchantInventory;
 		merchantInventory.setItem(RESULT_ITEM_SLOT_ID, null); // Clear result slot, just in case
@@ -694,8 +788,15 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		this.onTradeApplied(trade);
 
 		// Log trade:
-		Log.debug(() -> this.getShopkeeper().getLogPrefix() + "Trade (#" + tradeCounter + ") by "
-				+ trade.tradingPlayer.getName() + ": " + ItemUtils.getSimpleRecipeInfo(tradingRecipe));
+		if (Debug.isDebugging()) {
+			Log.debug(this.getShopkeeper().getLogPrefix() + "Trade (#" + tradeCounter + ") by "
+					+ trade.tradingPlayer.getName() + ": " + ItemUtils.getSimpleRecipeInfo(tradingRecipe));
+		}
+		this.recordTradeTiming(TradePhase.APPLY_TRADE, System.nanoTime() - startNanos);
+	}
+
+	private void recordTradeTiming(TradePhase phase, long durationNanos) {
+		SKShopkeepersPlugin.getInstance().getTradeTimings().record(this.getShopkeeper().getType(), phase, durationNanos);
 	}
 
 	/**
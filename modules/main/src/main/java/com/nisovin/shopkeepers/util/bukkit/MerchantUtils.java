@@ -69,6 +69,24 @@ public class MerchantUtils {
 		return new TradingRecipeDraft(resultItem, item1, item2);
 	}
 
+	/**
+	 * Gets a {@link MerchantRecipe} for the given {@link TradingRecipe}.
+	 * <p>
+	 * Unlike {@link #createMerchantRecipe(TradingRecipe)}, this reuses the merchant recipes that are cached by
+	 * {@link SKTradingRecipe}s. The returned merchant recipe can therefore be shared and must not be modified.
+	 * 
+	 * @param recipe
+	 *            the trading recipe
+	 * @return the merchant recipe, or <code>null</code> if the given trading recipe is <code>null</code>
+	 */
+	public static MerchantRecipe getMerchantRecipe(TradingRecipe recipe) {
+		if (recipe == null) return null;
+		if (recipe instanceof SKTradingRecipe) {
+			return ((SKTradingRecipe) recipe).getMerchantRecipe();
+		}
+		return createMerchantRecipe(recipe);
+	}
+
 	public static MerchantRecipe createMerchantRecipe(TradingRecipe recipe) {
 		if (recipe == null) return null;
 		// CraftBukkit always fills both ingredients, possibly with empty ItemStacks. We do the same in order to be able
@@ -0,0 +1,86 @@
+package com.nisovin.shopkeepers.util.csv;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Parses single-line records of comma separated values (CSV).
+ * <p>
+ * This is the counterpart to {@link CsvFormatter} for records that have been formatted with its default field
+ * separator and quote, and that do not span multiple lines.
+ */
+public class CsvParser {
+
+	private static final char FIELD_SEPARATOR = ',';
+	private static final char QUOTE = '"';
+
+	/**
+	 * Creates a new {@link CsvParser}.
+	 */
+	public CsvParser() {
+	}
+
+	/**
+	 * Parses the fields of the given CSV record.
+	 * <p>
+	 * Quoted fields are unquoted, and escaped quotes (two consecutive quotes) within quoted fields are unescaped.
+	 * Escaped newlines and backslashes are not unescaped.
+	 *
+	 * @param record
+	 *            the CSV record, without the trailing record separator, not <code>null</code>
+	 * @return the parsed fields, not <code>null</code> or empty
+	 * @throws IllegalArgumentException
+	 *             if the record is malformed
+	 */
+	public List<String> parseRecord(String record) {
+		Validate.notNull(record, "record is null");
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		int length = record.length();
+		int index = 0;
+		while (true) {
+			if (index < length && record.charAt(index) == QUOTE) {
+				// Quoted field:
+				index++;
+				while (true) {
+					Validate.isTrue(index < length, "Unterminated quoted field!");
+					char c = record.charAt(index++);
+					if (c == QUOTE) {
+						if (index < length && record.charAt(index) == QUOTE) {
+							// Escaped quote:
+							field.append(QUOTE);
+							index++;
+						} else {
+							// End of the quoted field:
+							break;
+						}
+					} else {
+						field.append(c);
+					}
+				}
+				Validate.isTrue(index == length || record.charAt(index) == FIELD_SEPARATOR,
+						"Unexpected character after quoted field at index " + index + "!");
+			} else {
+				// Unquoted field:
+				while (index < length) {
+					char c = record.charAt(index);
+					if (c == FIELD_SEPARATOR) break;
+					Validate.isTrue(c != QUOTE, "Unexpected quote in unquoted field at index " + index + "!");
+					field.append(c);
+					index++;
+				}
+			}
+
+			fields.add(field.toString());
+			field.setLength(0);
+			if (index == length) break;
+
+			// Skip the field separator:
+			assert record.charAt(index) == FIELD_SEPARATOR;
+			index++;
+		}
+		return fields;
+	}
+}
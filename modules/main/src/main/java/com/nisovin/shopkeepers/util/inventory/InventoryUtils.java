@@ -1,6 +1,8 @@
 package com.nisovin.shopkeepers.util.inventory;
 
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import org.bukkit.Bukkit;
@@ -12,6 +14,7 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.scheduler.BukkitTask;
 
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
@@ -26,6 +29,11 @@ public final class InventoryUtils {
 
 	private static final ItemStack[] EMPTY_ITEMSTACK_ARRAY = new ItemStack[0];
 
+	// Delayed inventory updates (only accessed on the main thread):
+	private static final Set<Player> PENDING_INVENTORY_UPDATES = new LinkedHashSet<>();
+	private static BukkitTask pendingInventoryUpdatesTask = null;
+	private static long coalescedInventoryUpdatesCount = 0L;
+
 	private InventoryUtils() {
 	}
 
@@ -538,8 +546,50 @@ public final class InventoryUtils {
 		}
 	}
 
+	/**
+	 * Updates the inventory of the given player in the next tick.
+	 * <p>
+	 * Multiple inventory updates that are requested for the same player before the next tick are coalesced into a
+	 * single inventory update.
+	 * 
+	 * @param player
+	 *            the player, not <code>null</code>
+	 */
 	public static void updateInventoryLater(Player player) {
-		Bukkit.getScheduler().runTask(ShopkeepersPlugin.getInstance(), () -> player.updateInventory());
+		Validate.notNull(player, "player is null");
+		// The task is cancelled if the plugin got disabled in the meantime:
+		if (pendingInventoryUpdatesTask != null && pendingInventoryUpdatesTask.isCancelled()) {
+			PENDING_INVENTORY_UPDATES.clear();
+			pendingInventoryUpdatesTask = null;
+		}
+
+		if (!PENDING_INVENTORY_UPDATES.add(player)) {
+			// There is already an inventory update pending for this player:
+			coalescedInventoryUpdatesCount++;
+			return;
+		}
+		if (pendingInventoryUpdatesTask == null) {
+			pendingInventoryUpdatesTask = Bukkit.getScheduler().runTask(ShopkeepersPlugin.getInstance(), InventoryUtils::updatePendingInventories);
+		}
+	}
+
+	private static void updatePendingInventories() {
+		pendingInventoryUpdatesTask = null;
+		Player[] players = PENDING_INVENTORY_UPDATES.toArray(new Player[0]);
+		PENDING_INVENTORY_UPDATES.clear();
+		for (Player player : players) {
+			player.updateInventory();
+		}
+	}
+
+	/**
+	 * Gets the number of inventory updates requested via {@link #updateInventoryLater(Player)} that were coalesced with
+	 * an already pending inventory update of the same player.
+	 * 
+	 * @return the number of coalesced inventory updates
+	 */
+	public static long getCoalescedInventoryUpdatesCount() {
+		return coalescedInventoryUpdatesCount;
 	}
 
 	// Only closes the player's open inventory view if it is still the specified view after the delay:
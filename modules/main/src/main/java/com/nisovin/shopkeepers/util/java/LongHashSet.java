@@ -0,0 +1,185 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.util.Arrays;
+
+/**
+ * A hash set of primitive <code>long</code> values.
+ * <p>
+ * In comparison to a {@link java.util.HashSet} of {@link Long} values, this avoids the boxing of the values and the
+ * allocation of an entry object per value, which makes it suitable for lookups on hot paths.
+ * <p>
+ * The values are stored in an open addressing hash table with linear probing. Since the value <code>0</code> marks
+ * empty slots, it is tracked separately.
+ * <p>
+ * This is not thread-safe.
+ */
+public class LongHashSet {
+
+	private static final int MIN_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.5F;
+
+	private long[] table;
+	private int mask;
+	private boolean containsZero = false;
+	private int size = 0;
+
+	/**
+	 * Creates a new empty {@link LongHashSet}.
+	 */
+	public LongHashSet() {
+		this.allocateTable(MIN_CAPACITY);
+	}
+
+	private void allocateTable(int capacity) {
+		assert capacity >= MIN_CAPACITY && Integer.bitCount(capacity) == 1;
+		table = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	private int getSlot(long value) {
+		// Spreads the bits of the value (the finalizer of MurmurHash3):
+		long hash = value;
+		hash ^= (hash >>> 33);
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= (hash >>> 33);
+		return (int) hash & mask;
+	}
+
+	/**
+	 * Gets the number of values in this set.
+	 * 
+	 * @return the number of values
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if this set is empty.
+	 * 
+	 * @return <code>true</code> if this set contains no values
+	 */
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	/**
+	 * Checks if this set contains the given value.
+	 * 
+	 * @param value
+	 *            the value
+	 * @return <code>true</code> if the value is contained
+	 */
+	public boolean contains(long value) {
+		if (value == 0L) return containsZero;
+		long[] table = this.table;
+		int slot = this.getSlot(value);
+		long current;
+		while ((current = table[slot]) != 0L) {
+			if (current == value) return true;
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the given value to this set.
+	 * 
+	 * @param value
+	 *            the value
+	 * @return <code>true</code> if the value was not yet contained
+	 */
+	public boolean add(long value) {
+		if (value == 0L) {
+			if (containsZero) return false;
+			containsZero = true;
+			size++;
+			return true;
+		}
+
+		int slot = this.getSlot(value);
+		long current;
+		while ((current = table[slot]) != 0L) {
+			if (current == value) return false;
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = value;
+		size++;
+		if (size > table.length * LOAD_FACTOR) {
+			this.rehash(table.length * 2);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the given value from this set.
+	 * 
+	 * @param value
+	 *            the value
+	 * @return <code>true</code> if the value was contained
+	 */
+	public boolean remove(long value) {
+		if (value == 0L) {
+			if (!containsZero) return false;
+			containsZero = false;
+			size--;
+			return true;
+		}
+
+		int slot = this.getSlot(value);
+		long current;
+		while ((current = table[slot]) != 0L) {
+			if (current == value) {
+				this.removeSlot(slot);
+				size--;
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	// Closes the gap by shifting back the subsequent values of the same probe sequence.
+	private void removeSlot(int slot) {
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		long current;
+		while ((current = table[next]) != 0L) {
+			int idealSlot = this.getSlot(current);
+			// Shift the value back if its ideal slot is not cyclically located within (gap, next]:
+			if (((next - idealSlot) & mask) >= ((next - gap) & mask)) {
+				table[gap] = current;
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		table[gap] = 0L;
+	}
+
+	private void rehash(int newCapacity) {
+		long[] oldTable = table;
+		this.allocateTable(newCapacity);
+		for (long value : oldTable) {
+			if (value == 0L) continue;
+			int slot = this.getSlot(value);
+			while (table[slot] != 0L) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = value;
+		}
+	}
+
+	/**
+	 * Removes all values from this set.
+	 */
+	public void clear() {
+		if (size == 0) return;
+		if (table.length > MIN_CAPACITY) {
+			this.allocateTable(MIN_CAPACITY);
+		} else {
+			Arrays.fill(table, 0L);
+		}
+		containsZero = false;
+		size = 0;
+	}
+}
@@ -0,0 +1,140 @@
+package com.nisovin.shopkeepers.util.java;
+
+/**
+ * Counts events within a rolling time window, such as the last hour or the last day.
+ * <p>
+ * The time window is split into a fixed number of buckets of equal duration that are organized as a ring buffer. Each
+ * bucket covers one time slot, i.e. one multiple of the bucket duration since the epoch. Buckets are lazily reused for
+ * newer time slots once their time slot has left the time window. The counts are therefore only as precise as the
+ * bucket duration.
+ * <p>
+ * This is not thread-safe.
+ */
+public class RollingCounter {
+
+	/**
+	 * Consumes the non-empty buckets of a {@link RollingCounter}.
+	 */
+	@FunctionalInterface
+	public interface BucketConsumer {
+
+		/**
+		 * Consumes a bucket.
+		 * 
+		 * @param startMillis
+		 *            the start of the bucket's time slot, in milliseconds since the epoch
+		 * @param count
+		 *            the bucket's count
+		 */
+		public void accept(long startMillis, long count);
+	}
+
+	private final long bucketDurationMillis;
+	private final long[] bucketSlots; // The time slot of each bucket
+	private final long[] bucketCounts;
+
+	/**
+	 * Creates a new {@link RollingCounter}.
+	 * <p>
+	 * The time window covers <code>bucketCount * bucketDurationMillis</code> milliseconds.
+	 * 
+	 * @param bucketCount
+	 *            the number of buckets, positive
+	 * @param bucketDurationMillis
+	 *            the duration of each bucket in milliseconds, positive
+	 */
+	public RollingCounter(int bucketCount, long bucketDurationMillis) {
+		Validate.isTrue(bucketCount > 0, "bucketCount has to be positive");
+		Validate.isTrue(bucketDurationMillis > 0L, "bucketDurationMillis has to be positive");
+		this.bucketDurationMillis = bucketDurationMillis;
+		this.bucketSlots = new long[bucketCount];
+		this.bucketCounts = new long[bucketCount];
+		this.clear();
+	}
+
+	private long getSlot(long timeMillis) {
+		return Math.floorDiv(timeMillis, bucketDurationMillis);
+	}
+
+	private int getBucketIndex(long slot) {
+		return (int) Math.floorMod(slot, (long) bucketSlots.length);
+	}
+
+	/**
+	 * Resets all counts.
+	 */
+	public void clear() {
+		for (int i = 0; i < bucketSlots.length; i++) {
+			bucketSlots[i] = Long.MIN_VALUE;
+			bucketCounts[i] = 0L;
+		}
+	}
+
+	/**
+	 * Adds the given amount to the bucket of the specified time.
+	 * <p>
+	 * If the bucket of the specified time is already occupied by a more recent time slot, i.e. if the specified time is
+	 * older than the time window of the most recently added counts, the amount is ignored.
+	 * 
+	 * @param timeMillis
+	 *            the time in milliseconds since the epoch
+	 * @param amount
+	 *            the amount to add
+	 */
+	public void add(long timeMillis, long amount) {
+		long slot = this.getSlot(timeMillis);
+		int index = this.getBucketIndex(slot);
+		long bucketSlot = bucketSlots[index];
+		if (bucketSlot > slot) return; // Too old
+		if (bucketSlot != slot) {
+			// Reuse the expired bucket:
+			bucketSlots[index] = slot;
+			bucketCounts[index] = 0L;
+		}
+		bucketCounts[index] += amount;
+	}
+
+	/**
+	 * Gets the sum of the counts within the time window that ends at the specified time.
+	 * 
+	 * @param nowMillis
+	 *            the current time in milliseconds since the epoch
+	 * @return the sum of the counts within the time window
+	 */
+	public long getCount(long nowMillis) {
+		long nowSlot = this.getSlot(nowMillis);
+		long minSlot = nowSlot - bucketSlots.length + 1;
+		long count = 0L;
+		for (int i = 0; i < bucketSlots.length; i++) {
+			long slot = bucketSlots[i];
+			if (slot >= minSlot && slot <= nowSlot) {
+				count += bucketCounts[i];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Passes the non-empty buckets within the time window that ends at the specified time to the given
+	 * {@link BucketConsumer}.
+	 * <p>
+	 * The buckets can be restored by {@link #add(long, long) adding} their counts again for their start times.
+	 * 
+	 * @param nowMillis
+	 *            the current time in milliseconds since the epoch
+	 * @param consumer
+	 *            the bucket consumer, not <code>null</code>
+	 */
+	public void forEachBucket(long nowMillis, BucketConsumer consumer) {
+		Validate.notNull(consumer, "consumer is null");
+		long nowSlot = this.getSlot(nowMillis);
+		long minSlot = nowSlot - bucketSlots.length + 1;
+		for (int i = 0; i < bucketSlots.length; i++) {
+			long slot = bucketSlots[i];
+			long count = bucketCounts[i];
+			if (count != 0L && slot >= minSlot && slot <= nowSlot) {
+				consumer.accept(slot * bucketDurationMillis, count);
+			}
+		}
+	}
+}
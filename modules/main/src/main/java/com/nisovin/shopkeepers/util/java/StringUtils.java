@@ -282,6 +282,51 @@ public class StringUtils {
 		return sb.toString();
 	}
 
+	// Reverses escapeNewlinesAndBackslash. Backslashes that are not followed by an escape sequence are kept as is.
+	public static String unescapeNewlinesAndBackslash(String string) {
+		if (string == null) return null;
+		int length = string.length();
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			char c = string.charAt(i);
+			if (c != '\\' || i + 1 >= length) {
+				sb.append(c);
+				continue;
+			}
+			char next = string.charAt(i + 1);
+			switch (next) {
+			case '\\': // Backslash
+				sb.append('\\');
+				break;
+			case 'n': // Line feed
+				sb.append('\n');
+				break;
+			case 'r': // Carriage return
+				sb.append('\r');
+				break;
+			case 'f': // Form feed
+				sb.append('\f');
+				break;
+			case 'u': // Unicode escape
+				if (i + 5 < length) {
+					try {
+						sb.append((char) Integer.parseInt(string.substring(i + 2, i + 6), 16));
+						i += 4;
+						break;
+					} catch (NumberFormatException e) {
+						// Not a valid unicode escape: Keep it as is.
+					}
+				}
+				sb.append(c).append(next);
+				break;
+			default:
+				sb.append(c).append(next);
+			}
+			i++; // Skip the escaped character
+		}
+		return sb.toString();
+	}
+
 	// ARGUMENTS REPLACEMENT
 
 	// Throws NPE if source, target, or replacement are null.
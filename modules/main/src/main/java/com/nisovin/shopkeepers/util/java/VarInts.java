@@ -0,0 +1,144 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Utilities to write and read variable-length encoded integers.
+ * <p>
+ * Each byte stores 7 bits of the value, starting with the least significant bits. The most significant bit of each
+ * byte indicates whether there are more bytes to read. Small non-negative values therefore require less bytes than
+ * their fixed-length encoding. Signed values that are likely to be small in magnitude, such as the differences between
+ * consecutive values, can be encoded via zigzag encoding.
+ */
+public class VarInts {
+
+	private VarInts() {
+	}
+
+	/**
+	 * Maps the given signed value to an unsigned value, so that values of small magnitude result in small unsigned
+	 * values: 0 is mapped to 0, -1 to 1, 1 to 2, -2 to 3, etc.
+	 * 
+	 * @param value
+	 *            the signed value
+	 * @return the zigzag encoded value
+	 */
+	public static long encodeZigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Reverses the {@link #encodeZigZag(long) zigzag encoding} of the given value.
+	 * 
+	 * @param value
+	 *            the zigzag encoded value
+	 * @return the signed value
+	 */
+	public static long decodeZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Writes the given value as a variable-length encoded integer.
+	 * <p>
+	 * Negative values are encoded as unsigned values and therefore always require the maximum number of bytes. Use
+	 * {@link #writeSignedVarLong(DataOutput, long)} to write values that can be negative.
+	 * 
+	 * @param out
+	 *            the output, not <code>null</code>
+	 * @param value
+	 *            the value
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void writeVarLong(DataOutput out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0L) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	/**
+	 * Reads a variable-length encoded integer.
+	 * 
+	 * @param in
+	 *            the input, not <code>null</code>
+	 * @return the value
+	 * @throws IOException
+	 *             if reading fails or the encoded value is malformed
+	 * @see #writeVarLong(DataOutput, long)
+	 */
+	public static long readVarLong(DataInput in) throws IOException {
+		long value = 0L;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Malformed variable-length integer!");
+	}
+
+	/**
+	 * Writes the given value as a zigzag and variable-length encoded integer.
+	 * 
+	 * @param out
+	 *            the output, not <code>null</code>
+	 * @param value
+	 *            the value
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void writeSignedVarLong(DataOutput out, long value) throws IOException {
+		writeVarLong(out, encodeZigZag(value));
+	}
+
+	/**
+	 * Reads a zigzag and variable-length encoded integer.
+	 * 
+	 * @param in
+	 *            the input, not <code>null</code>
+	 * @return the value
+	 * @throws IOException
+	 *             if reading fails or the encoded value is malformed
+	 * @see #writeSignedVarLong(DataOutput, long)
+	 */
+	public static long readSignedVarLong(DataInput in) throws IOException {
+		return decodeZigZag(readVarLong(in));
+	}
+
+	/**
+	 * Writes the given non-negative value as a variable-length encoded integer.
+	 * 
+	 * @param out
+	 *            the output, not <code>null</code>
+	 * @param value
+	 *            the value, not negative
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void writeVarInt(DataOutput out, int value) throws IOException {
+		Validate.isTrue(value >= 0, "value cannot be negative");
+		writeVarLong(out, value);
+	}
+
+	/**
+	 * Reads a non-negative variable-length encoded integer.
+	 * 
+	 * @param in
+	 *            the input, not <code>null</code>
+	 * @return the value
+	 * @throws IOException
+	 *             if reading fails or the encoded value is malformed or out of bounds
+	 * @see #writeVarInt(DataOutput, int)
+	 */
+	public static int readVarInt(DataInput in) throws IOException {
+		long value = readVarLong(in);
+		if (value < 0L || value > Integer.MAX_VALUE) {
+			throw new IOException("Variable-length integer out of bounds: " + value);
+		}
+		return (int) value;
+	}
+}
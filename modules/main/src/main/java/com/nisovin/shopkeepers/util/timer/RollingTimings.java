@@ -0,0 +1,110 @@
+package com.nisovin.shopkeepers.util.timer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.nisovin.shopkeepers.api.util.TimingStatistics;
+import com.nisovin.shopkeepers.util.java.TimeUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Records the durations of a recurring task inside a fixed-size ring buffer and provides statistics (averages, maxima,
+ * percentiles) over the most recent samples.
+ * <p>
+ * Unlike {@link Timer}, this does not measure the durations itself, but expects them to be provided via
+ * {@link #record(long)}.
+ */
+public class RollingTimings implements Timings, TimingStatistics {
+
+	public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+	private final long[] samplesNanos;
+	private int nextIndex = 0;
+	private int sampleCount = 0;
+	private long counter = 0L;
+
+	// Lazily sorted copy of the current samples, for the computation of percentiles:
+	private long[] sortedSamplesNanos = null;
+
+	public RollingTimings() {
+		this(DEFAULT_WINDOW_SIZE);
+	}
+
+	public RollingTimings(int windowSize) {
+		Validate.isTrue(windowSize > 0, "windowSize has to be positive");
+		this.samplesNanos = new long[windowSize];
+	}
+
+	/**
+	 * Records a new sample.
+	 * 
+	 * @param durationNanos
+	 *            the duration in nanoseconds
+	 */
+	public void record(long durationNanos) {
+		samplesNanos[nextIndex] = Math.max(0L, durationNanos);
+		nextIndex = (nextIndex + 1) % samplesNanos.length;
+		if (sampleCount < samplesNanos.length) {
+			sampleCount++;
+		}
+		counter++;
+		sortedSamplesNanos = null; // Invalidate
+	}
+
+	// TIMINGS
+
+	@Override
+	public void reset() {
+		nextIndex = 0;
+		sampleCount = 0;
+		counter = 0L;
+		sortedSamplesNanos = null;
+	}
+
+	@Override
+	public long getCounter() {
+		return counter;
+	}
+
+	@Override
+	public int getSampleCount() {
+		return sampleCount;
+	}
+
+	@Override
+	public double getAverageTimeMillis() {
+		if (sampleCount == 0) return 0.0D;
+		long totalTimeNanos = 0L;
+		for (int i = 0; i < sampleCount; i++) {
+			totalTimeNanos += samplesNanos[i];
+		}
+		return toMillis((double) totalTimeNanos / sampleCount);
+	}
+
+	@Override
+	public double getMaxTimeMillis() {
+		long maxTimeNanos = 0L;
+		for (int i = 0; i < sampleCount; i++) {
+			maxTimeNanos = Math.max(maxTimeNanos, samplesNanos[i]);
+		}
+		return toMillis(maxTimeNanos);
+	}
+
+	@Override
+	public double getPercentileTimeMillis(double percentile) {
+		Validate.isTrue(percentile > 0.0D && percentile <= 100.0D, "percentile has to be within range (0, 100]");
+		if (sampleCount == 0) return 0.0D;
+		if (sortedSamplesNanos == null) {
+			sortedSamplesNanos = Arrays.copyOf(samplesNanos, sampleCount);
+			Arrays.sort(sortedSamplesNanos);
+		}
+		// Nearest-rank method:
+		int rank = (int) Math.ceil(percentile / 100.0D * sampleCount);
+		int index = Math.max(0, Math.min(rank - 1, sampleCount - 1));
+		return toMillis(sortedSamplesNanos[index]);
+	}
+
+	private static double toMillis(double nanos) {
+		return TimeUtils.convert(nanos, TimeUnit.NANOSECONDS, TimeUnit.MILLISECONDS);
+	}
+}
@@ -9,6 +9,7 @@ public class Timer implements Timings {
 	private long counter = 0L;
 	private long totalTimeNanos = 0L;
 	private long maxTimeNanos = 0L;
+	private long lastTimeNanos = 0L;
 
 	// Current timing:
 	private boolean started = false;
@@ -59,6 +60,7 @@ public class Timer implements Timings {
 		// Update timings:
 		counter++;
 		totalTimeNanos += elapsedTimeNanos;
+		lastTimeNanos = elapsedTimeNanos;
 
 		// Update max timing:
 		if (elapsedTimeNanos > maxTimeNanos) {
@@ -66,6 +68,15 @@ public class Timer implements Timings {
 		}
 	}
 
+	/**
+	 * Gets the processing time of the last completed timing.
+	 * 
+	 * @return the last processing time in nanoseconds, or <code>0</code> if there is no completed timing yet
+	 */
+	public long getLastTimeNanos() {
+		return lastTimeNanos;
+	}
+
 	// TIMINGS
 
 	@Override
@@ -73,6 +84,7 @@ public class Timer implements Timings {
 		counter = 0L;
 		totalTimeNanos = 0L;
 		maxTimeNanos = 0L;
+		lastTimeNanos = 0L;
 	}
 
 	@Override
@@ -0,0 +1,62 @@
+package com.nisovin.shopkeepers.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.util.text.MessageArguments;
+
+public class MessageTemplateTest extends AbstractBukkitTest {
+
+	@Test
+	public void testPlaceholdersAreResolved() {
+		MessageTemplate template = MessageTemplate.of(Text.parse("&a{player} bought &e{item}"));
+		Map<String, Object> arguments = new HashMap<>();
+		arguments.put("player", "Alice");
+		arguments.put("item", Text.parse("&6Stone"));
+		Text message = template.apply(MessageArguments.ofMap(arguments));
+		assertEquals("\u00A7aAlice bought \u00A7e\u00A76Stone", message.toPlainText());
+	}
+
+	@Test
+	public void testInlinedMessagesAreResolved() {
+		Text message = Text.parse("&a{player} traded {trade_count}{shop}");
+		Text shopText = Text.parse(" at &e{shop_name}");
+		Text tradeCountText = Text.parse("{count}x");
+		MessageTemplate template = MessageTemplate.of(message, "shop", shopText, "trade_count", tradeCountText);
+
+		Map<String, Object> arguments = new HashMap<>();
+		arguments.put("player", "Alice");
+		arguments.put("count", 3);
+		arguments.put("shop_name", "Bob's shop");
+		assertEquals("\u00A7aAlice traded 3x at \u00A7eBob's shop",
+				template.apply(MessageArguments.ofMap(arguments)).toPlainText());
+
+		// The given messages are not modified:
+		assertEquals("\u00A7a{player} traded {trade_count}{shop}", message.toPlainText());
+		assertEquals(" at \u00A7e{shop_name}", shopText.toPlainText());
+		assertEquals("{count}x", tradeCountText.toPlainText());
+	}
+
+	@Test
+	public void testPreviousArgumentsAreCleared() {
+		MessageTemplate template = MessageTemplate.of(Text.parse("{player} bought {item}"));
+		Map<String, Object> arguments = new HashMap<>();
+		arguments.put("player", "Alice");
+		arguments.put("item", "Stone");
+		Text message = template.apply(MessageArguments.ofMap(arguments));
+		assertEquals("Alice bought Stone", message.toPlainText());
+
+		// The same Text is reused, but the arguments of the previous message are not retained:
+		Text nextMessage = template.apply(MessageArguments.ofMap(Collections.singletonMap("player", "Carol")));
+		assertSame(message, nextMessage);
+		assertEquals("Carol bought {item}", nextMessage.toPlainText());
+	}
+}
@@ -0,0 +1,97 @@
+package com.nisovin.shopkeepers.tradelog.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.tradelog.AbstractTradeLogger;
+import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
+import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.util.TestItemStacks;
+
+public class BinaryTradeLogTest extends AbstractBukkitTest {
+
+	private static List<TradeRecord> createTrades() {
+		PlayerRecord owner = PlayerRecord.of(UUID.randomUUID(), "Owner");
+		PlayerRecord player1 = PlayerRecord.of(UUID.randomUUID(), "Player1");
+		PlayerRecord player2 = PlayerRecord.of(UUID.randomUUID(), "Player2");
+		ShopRecord playerShop = new ShopRecord(UUID.randomUUID(), "sell", owner, "Shop", "world", 10, 64, -20);
+		ShopRecord virtualAdminShop = new ShopRecord(UUID.randomUUID(), "admin", null, "", null, 0, 0, 0);
+
+		UnmodifiableItemStack emerald = UnmodifiableItemStack.of(new ItemStack(Material.EMERALD, 5));
+		UnmodifiableItemStack stone = UnmodifiableItemStack.of(TestItemStacks.createItemStackBasicWithSize());
+		UnmodifiableItemStack sword = UnmodifiableItemStack.of(TestItemStacks.createItemStackDisplayName());
+
+		Instant timestamp = Instant.ofEpochMilli(1600000000123L);
+		return Arrays.asList(
+				new TradeRecord(timestamp, player1, playerShop, stone, emerald, null, 1),
+				new TradeRecord(timestamp, player2, playerShop, stone, emerald, emerald, 3),
+				new TradeRecord(timestamp.plusMillis(1500), player1, virtualAdminShop, sword, emerald, stone, 1)
+		);
+	}
+
+	// See BinaryTradeLogConverter: Only items that have metadata store their metadata.
+	private static String getItemMetadata(UnmodifiableItemStack itemStack) {
+		if (!itemStack.hasItemMeta()) return "";
+		return AbstractTradeLogger.serializeItemMetadata(itemStack);
+	}
+
+	@Test
+	public void testBlockRoundTrip() throws IOException {
+		List<TradeRecord> trades = createTrades();
+		byte[] payload = BinaryTradeLogBlock.encode(trades, BinaryTradeLogTest::getItemMetadata);
+		BinaryTradeLogBlock block = BinaryTradeLogBlock.decode(payload);
+
+		Assert.assertEquals(trades.size(), block.size());
+		for (int i = 0; i < trades.size(); i++) {
+			Assert.assertEquals(trades.get(i), block.getTradeRecord(i));
+		}
+	}
+
+	@Test
+	public void testReaderRoundTrip() throws IOException {
+		List<TradeRecord> trades = createTrades();
+		Path logFile = Files.createTempFile("trades-", ".sktl");
+		try {
+			try (OutputStream out = Files.newOutputStream(logFile)) {
+				out.write(BinaryTradeLogFiles.getHeader());
+				out.write(BinaryTradeLogFiles.frameBlock(
+						BinaryTradeLogBlock.encode(trades.subList(0, 2), BinaryTradeLogTest::getItemMetadata)
+				));
+				out.write(BinaryTradeLogFiles.frameBlock(
+						BinaryTradeLogBlock.encode(trades.subList(2, 3), BinaryTradeLogTest::getItemMetadata)
+				));
+				// An incomplete block at the end of the file is skipped:
+				byte[] incompleteBlock = BinaryTradeLogFiles.frameBlock(
+						BinaryTradeLogBlock.encode(trades, BinaryTradeLogTest::getItemMetadata)
+				);
+				out.write(incompleteBlock, 0, incompleteBlock.length / 2);
+			}
+
+			List<TradeRecord> readTrades = new ArrayList<>();
+			try (BinaryTradeLogReader reader = new BinaryTradeLogReader(Arrays.asList(logFile))) {
+				TradeRecord trade;
+				while ((trade = reader.read()) != null) {
+					readTrades.add(trade);
+				}
+			}
+			Assert.assertEquals(trades, readTrades);
+		} finally {
+			Files.deleteIfExists(logFile);
+		}
+	}
+}
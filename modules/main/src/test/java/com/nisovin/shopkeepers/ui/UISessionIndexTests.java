@@ -0,0 +1,172 @@
+package com.nisovin.shopkeepers.ui;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.InventoryView;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopType;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class UISessionIndexTests extends AbstractBukkitTest {
+
+	private static final class TestUIType extends AbstractUIType {
+
+		TestUIType(String identifier) {
+			super(identifier, null);
+		}
+	}
+
+	private static final class TestUIHandler extends UIHandler {
+
+		TestUIHandler(AbstractUIType uiType) {
+			super(uiType);
+		}
+
+		@Override
+		public boolean canOpen(Player player, boolean silent) {
+			return true;
+		}
+
+		@Override
+		protected boolean openWindow(Player player) {
+			return true;
+		}
+
+		@Override
+		protected boolean isWindow(InventoryView view) {
+			return false;
+		}
+	}
+
+	private static final class TestShopkeeper extends AbstractShopkeeper {
+
+		private boolean valid = true;
+
+		@Override
+		public boolean isValid() {
+			return valid;
+		}
+
+		@Override
+		public AbstractShopType<?> getType() {
+			return null;
+		}
+
+		@Override
+		public boolean hasTradingRecipes(Player player) {
+			return false;
+		}
+
+		@Override
+		public List<? extends TradingRecipe> getTradingRecipes(Player player) {
+			return Collections.emptyList();
+		}
+	}
+
+	private static final AbstractUIType EDITOR = new TestUIType("test-editor");
+	private static final AbstractUIType TRADING = new TestUIType("test-trading");
+
+	// The index does not use the player:
+	private static Player createPlayer() {
+		return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] { Player.class },
+				(proxy, method, args) -> {
+					throw new UnsupportedOperationException(String.valueOf(method));
+				}
+		);
+	}
+
+	private static SKUISession createSession(AbstractUIType uiType, AbstractShopkeeper shopkeeper) {
+		return new SKUISession(new TestUIHandler(uiType), createPlayer(), shopkeeper);
+	}
+
+	private static void assertSessions(Collection<SKUISession> actual, SKUISession... expected) {
+		Assert.assertEquals(expected.length, actual.size());
+		Assert.assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(actual));
+	}
+
+	@Test
+	public void testAddAndRemove() {
+		UISessionIndex index = new UISessionIndex();
+		TestShopkeeper shopkeeper1 = new TestShopkeeper();
+		TestShopkeeper shopkeeper2 = new TestShopkeeper();
+		SKUISession editor1 = createSession(EDITOR, shopkeeper1);
+		SKUISession trading1 = createSession(TRADING, shopkeeper1);
+		SKUISession trading2 = createSession(TRADING, shopkeeper2);
+		SKUISession tradingNoShopkeeper = createSession(TRADING, null);
+
+		// The views reflect subsequent changes:
+		Collection<SKUISession> shopkeeper1Sessions = index.getUISessions(shopkeeper1);
+		Collection<SKUISession> shopkeeper1TradingSessions = index.getUISessions(shopkeeper1, TRADING);
+		Collection<SKUISession> tradingSessions = index.getUISessions(TRADING);
+		assertSessions(shopkeeper1Sessions);
+
+		index.add(editor1);
+		index.add(trading1);
+		index.add(trading2);
+		index.add(tradingNoShopkeeper);
+		assertSessions(shopkeeper1Sessions, editor1, trading1);
+		assertSessions(shopkeeper1TradingSessions, trading1);
+		assertSessions(index.getUISessions(shopkeeper2), trading2);
+		assertSessions(index.getUISessions(EDITOR), editor1);
+		assertSessions(tradingSessions, trading1, trading2, tradingNoShopkeeper);
+
+		index.remove(trading1);
+		assertSessions(shopkeeper1Sessions, editor1);
+		assertSessions(shopkeeper1TradingSessions);
+		assertSessions(tradingSessions, trading2, tradingNoShopkeeper);
+
+		// Empty entries are removed:
+		index.remove(editor1);
+		assertSessions(shopkeeper1Sessions);
+		Assert.assertFalse(index.hasShopkeeperEntry(shopkeeper1));
+		Assert.assertTrue(index.hasShopkeeperEntry(shopkeeper2));
+
+		// The views are still updated after the entry has been recreated:
+		index.add(editor1);
+		assertSessions(shopkeeper1Sessions, editor1);
+	}
+
+	@Test
+	public void testShopkeeperViewIsCached() {
+		UISessionIndex index = new UISessionIndex();
+		TestShopkeeper shopkeeper = new TestShopkeeper();
+		Collection<SKUISession> view = index.getUISessions(shopkeeper);
+		Assert.assertSame(view, index.getUISessions(shopkeeper));
+		Assert.assertEquals(1, index.getCachedShopkeeperViewsCount());
+	}
+
+	@Test
+	public void testShopkeeperRemoval() {
+		UISessionIndex index = new UISessionIndex();
+		TestShopkeeper shopkeeper = new TestShopkeeper();
+		SKUISession editor = createSession(EDITOR, shopkeeper);
+		index.add(editor);
+		Collection<SKUISession> view = index.getUISessions(shopkeeper);
+
+		// The cached view is removed once the shopkeeper has been removed:
+		shopkeeper.valid = false;
+		index.onShopkeeperRemoved(shopkeeper);
+		Assert.assertEquals(0, index.getCachedShopkeeperViewsCount());
+
+		// The UI sessions of the removed shopkeeper are still available until they are aborted:
+		assertSessions(view, editor);
+		assertSessions(index.getUISessions(shopkeeper), editor);
+		// The views of removed shopkeepers are not cached again:
+		Assert.assertEquals(0, index.getCachedShopkeeperViewsCount());
+
+		// Aborting the remaining UI sessions removes the shopkeeper from the index:
+		index.remove(editor);
+		assertSessions(view);
+		Assert.assertFalse(index.hasShopkeeperEntry(shopkeeper));
+	}
+}
@@ -0,0 +1,185 @@
+package com.nisovin.shopkeepers.ui.editor;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class LazyTradingRecipeDraftsTests extends AbstractBukkitTest {
+
+	// The number of trading recipes per page of the editor:
+	private static final int PAGE_SIZE = 9;
+
+	// The offers are represented by the type of their result item:
+	private static final List<Material> OFFERS = Arrays.asList(
+			Material.STONE, Material.DIRT, Material.COBBLESTONE, Material.SAND, Material.GRAVEL,
+			Material.OAK_LOG, Material.OAK_PLANKS, Material.GLASS, Material.WHITE_WOOL, Material.BRICKS,
+			Material.BOOKSHELF, Material.OBSIDIAN, Material.TORCH, Material.CHEST, Material.CRAFTING_TABLE,
+			Material.FURNACE, Material.LADDER, Material.RAIL, Material.LEVER, Material.PUMPKIN
+	);
+
+	private static TradingRecipeDraft createDraft(Material resultType) {
+		return new TradingRecipeDraft(new ItemStack(resultType), new ItemStack(Material.EMERALD), null);
+	}
+
+	private static final class TestDraftFactory {
+
+		private int createdCount = 0;
+
+		TradingRecipeDraft createDraft(Material offer) {
+			createdCount++;
+			return LazyTradingRecipeDraftsTests.createDraft(offer);
+		}
+	}
+
+	private static final class TestTradingRecipesAdapter extends DefaultTradingRecipesAdapter<Material> {
+
+		private final TestDraftFactory draftFactory = new TestDraftFactory();
+		private List<Material> offers = new ArrayList<>(OFFERS);
+		private int createdOffersCount = 0;
+
+		@Override
+		public List<TradingRecipeDraft> getTradingRecipes() {
+			return new LazyTradingRecipeDrafts<>(offers, draftFactory::createDraft);
+		}
+
+		@Override
+		protected List<? extends Material> getOffers() {
+			return offers;
+		}
+
+		@Override
+		protected void setOffers(List<Material> newOffers) {
+			offers = newOffers;
+		}
+
+		@Override
+		protected Material createOffer(TradingRecipeDraft recipe) {
+			createdOffersCount++;
+			return recipe.getResultItem().getType();
+		}
+	}
+
+	// The adapter does not use the player:
+	private static Player createPlayer() {
+		return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] { Player.class },
+				(proxy, method, args) -> {
+					throw new UnsupportedOperationException(String.valueOf(method));
+				}
+		);
+	}
+
+	private static void viewPage(List<TradingRecipeDraft> drafts, int page) {
+		int start = (page - 1) * PAGE_SIZE;
+		int end = Math.min(start + PAGE_SIZE, drafts.size());
+		for (int index = start; index < end; index++) {
+			drafts.get(index);
+		}
+	}
+
+	@Test
+	public void testLazyCreationPerPage() {
+		TestDraftFactory draftFactory = new TestDraftFactory();
+		LazyTradingRecipeDrafts<Material> drafts = new LazyTradingRecipeDrafts<>(OFFERS, draftFactory::createDraft);
+		Assert.assertEquals(OFFERS.size(), drafts.size());
+		Assert.assertEquals(0, draftFactory.createdCount);
+
+		viewPage(drafts, 2);
+		Assert.assertEquals(PAGE_SIZE, draftFactory.createdCount);
+		for (int index = 0; index < OFFERS.size(); index++) {
+			boolean onPage = (index >= PAGE_SIZE && index < 2 * PAGE_SIZE);
+			Assert.assertEquals("index " + index, onPage, drafts.isCreated(index));
+			Assert.assertEquals("index " + index, onPage ? null : OFFERS.get(index), drafts.getPendingOffer(index));
+		}
+		Assert.assertEquals(OFFERS.get(PAGE_SIZE), drafts.get(PAGE_SIZE).getResultItem().getType());
+
+		// Viewing the same page again does not create the drafts again:
+		TradingRecipeDraft draft = drafts.get(PAGE_SIZE);
+		viewPage(drafts, 2);
+		Assert.assertEquals(PAGE_SIZE, draftFactory.createdCount);
+		Assert.assertSame(draft, drafts.get(PAGE_SIZE));
+
+		// The last page is only partially filled:
+		viewPage(drafts, 3);
+		Assert.assertEquals(PAGE_SIZE + (OFFERS.size() - 2 * PAGE_SIZE), draftFactory.createdCount);
+		Assert.assertFalse(drafts.isCreated(0));
+	}
+
+	@Test
+	public void testSetAndReplace() {
+		TestDraftFactory draftFactory = new TestDraftFactory();
+		LazyTradingRecipeDrafts<Material> drafts = new LazyTradingRecipeDrafts<>(OFFERS, draftFactory::createDraft);
+
+		// Replacing a pending draft returns the draft of the replaced offer:
+		TradingRecipeDraft newDraft = createDraft(Material.DIAMOND);
+		TradingRecipeDraft previous = drafts.set(0, newDraft);
+		Assert.assertEquals(OFFERS.get(0), previous.getResultItem().getType());
+		Assert.assertTrue(drafts.isCreated(0));
+		Assert.assertNull(drafts.getPendingOffer(0));
+		Assert.assertSame(newDraft, drafts.get(0));
+
+		// Replacing a created draft returns the previous draft:
+		TradingRecipeDraft newDraft2 = createDraft(Material.GOLD_INGOT);
+		Assert.assertSame(newDraft, drafts.set(0, newDraft2));
+		Assert.assertSame(newDraft2, drafts.get(0));
+		Assert.assertEquals(1, draftFactory.createdCount);
+
+		// Adding a draft at the end does not create the pending drafts:
+		drafts.add(createDraft(Material.IRON_INGOT));
+		Assert.assertEquals(OFFERS.size() + 1, drafts.size());
+		Assert.assertEquals(1, draftFactory.createdCount);
+		Assert.assertTrue(drafts.isCreated(OFFERS.size()));
+
+		// Removing a draft shifts and therefore creates the pending drafts:
+		drafts.remove(0);
+		Assert.assertEquals(OFFERS.size(), drafts.size());
+		Assert.assertEquals(OFFERS.size(), draftFactory.createdCount);
+		Assert.assertEquals(OFFERS.get(1), drafts.get(0).getResultItem().getType());
+	}
+
+	@Test
+	public void testUpdateOnlyTouchedPages() {
+		TestTradingRecipesAdapter adapter = new TestTradingRecipesAdapter();
+		List<Material> oldOffers = adapter.offers;
+		List<TradingRecipeDraft> drafts = adapter.getTradingRecipes();
+
+		// The player views the first page without changing it, and replaces an offer on the second page:
+		viewPage(drafts, 1);
+		drafts.set(PAGE_SIZE + 1, createDraft(Material.DIAMOND));
+
+		Assert.assertEquals(1, adapter.updateTradingRecipes(createPlayer(), drafts));
+		// Offers are only created for the touched drafts, the pending offers are skipped:
+		Assert.assertEquals(PAGE_SIZE + 1, adapter.createdOffersCount);
+		// Replacing the pending draft created the draft of the replaced offer:
+		Assert.assertEquals(PAGE_SIZE + 1, adapter.draftFactory.createdCount);
+
+		Assert.assertNotSame(oldOffers, adapter.offers);
+		Assert.assertEquals(OFFERS.size(), adapter.offers.size());
+		for (int index = 0; index < OFFERS.size(); index++) {
+			Material expected = (index == PAGE_SIZE + 1) ? Material.DIAMOND : OFFERS.get(index);
+			Assert.assertEquals("index " + index, expected, adapter.offers.get(index));
+		}
+	}
+
+	@Test
+	public void testUpdateWithoutChanges() {
+		TestTradingRecipesAdapter adapter = new TestTradingRecipesAdapter();
+		List<Material> oldOffers = adapter.offers;
+		List<TradingRecipeDraft> drafts = adapter.getTradingRecipes();
+		viewPage(drafts, 1);
+
+		Assert.assertEquals(0, adapter.updateTradingRecipes(createPlayer(), drafts));
+		Assert.assertEquals(PAGE_SIZE, adapter.createdOffersCount);
+		// The offers are not replaced:
+		Assert.assertSame(oldOffers, adapter.offers);
+	}
+}
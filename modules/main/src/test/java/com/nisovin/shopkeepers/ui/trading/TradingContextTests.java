@@ -0,0 +1,157 @@
+package com.nisovin.shopkeepers.ui.trading;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Material;
+import org.bukkit.craftbukkit.v1_14_R1.inventory.CraftItemStack;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.shopkeeper.SKTradingRecipe;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+
+public class TradingContextTests extends AbstractBukkitTest {
+
+	// The average number of bytes that a steady-state trade check may allocate. The trade check is expected to not
+	// allocate at all, but this leaves some room for allocations by the JVM itself during the measurement:
+	private static final long ALLOCATED_BYTES_PER_TRADE_CHECK_BUDGET = 1;
+
+	// Offered items are matched to the recipe items by NMS in production:
+	private static final TradingContext.ItemMatcher ITEM_MATCHER = (offeredItem, requiredItem) -> {
+		return ItemUtils.isSimilar(requiredItem, offeredItem);
+	};
+
+	// The items inside Minecraft inventories are CraftItemStacks:
+	private static ItemStack item(Material type, int amount) {
+		return CraftItemStack.asCraftCopy(new ItemStack(type, amount));
+	}
+
+	private static List<TradingRecipe> createRecipes() {
+		List<TradingRecipe> recipes = new ArrayList<>();
+		recipes.add(new SKTradingRecipe(item(Material.DIAMOND, 1), item(Material.EMERALD, 10), null));
+		recipes.add(new SKTradingRecipe(item(Material.IRON_INGOT, 4), item(Material.EMERALD, 2), null, true));
+		recipes.add(new SKTradingRecipe(item(Material.BREAD, 8), item(Material.EMERALD, 1), item(Material.WHEAT, 3)));
+		return recipes;
+	}
+
+	@Test
+	public void testGetTradingRecipe() {
+		List<TradingRecipe> recipes = createRecipes();
+		TradingContext context = new TradingContext(recipes, ITEM_MATCHER);
+
+		Assert.assertSame(recipes.get(0), context.getTradingRecipe(0, item(Material.DIAMOND, 1)));
+		Assert.assertSame(recipes.get(2), context.getTradingRecipe(2, item(Material.BREAD, 8)));
+		// Different result item:
+		Assert.assertNull(context.getTradingRecipe(0, item(Material.DIAMOND, 2)));
+		Assert.assertNull(context.getTradingRecipe(2, item(Material.DIAMOND, 1)));
+		// Out of stock:
+		Assert.assertNull(context.getTradingRecipe(1, item(Material.IRON_INGOT, 4)));
+		// Index out of bounds:
+		Assert.assertNull(context.getTradingRecipe(-1, item(Material.DIAMOND, 1)));
+		Assert.assertNull(context.getTradingRecipe(3, item(Material.DIAMOND, 1)));
+
+		// The merchant recipes no longer correspond to the trading recipes:
+		context.setRecipes(null);
+		Assert.assertNull(context.getTradingRecipe(0, item(Material.DIAMOND, 1)));
+	}
+
+	@Test
+	public void testMatchSelectedRecipe() {
+		List<TradingRecipe> recipes = createRecipes();
+		TradingContext context = new TradingContext(recipes, ITEM_MATCHER);
+
+		Assert.assertTrue(context.matchSelectedRecipe(0, item(Material.EMERALD, 12), null, item(Material.DIAMOND, 1)));
+		Assert.assertSame(recipes.get(0), context.getMatchedRecipe());
+		Assert.assertEquals(TradingContext.ITEM_ORDER_REGULAR, context.getMatchedItemOrder());
+
+		// Swapped item order:
+		ItemStack emeralds = item(Material.EMERALD, 1);
+		ItemStack wheat = item(Material.WHEAT, 3);
+		Assert.assertTrue(context.matchSelectedRecipe(2, wheat, emeralds, item(Material.BREAD, 8)));
+		Assert.assertSame(recipes.get(2), context.getMatchedRecipe());
+		Assert.assertEquals(TradingContext.ITEM_ORDER_SWAPPED, context.getMatchedItemOrder());
+
+		// Not enough items:
+		Assert.assertFalse(context.matchSelectedRecipe(0, item(Material.EMERALD, 9), null, item(Material.DIAMOND, 1)));
+		Assert.assertNull(context.getMatchedRecipe());
+		Assert.assertEquals(TradingContext.ITEM_ORDER_NO_MATCH, context.getMatchedItemOrder());
+		// Different items:
+		ItemStack diamond = item(Material.DIAMOND, 1);
+		Assert.assertFalse(context.matchSelectedRecipe(0, item(Material.GOLD_INGOT, 10), null, diamond));
+		// Out of stock:
+		ItemStack ironIngots = item(Material.IRON_INGOT, 4);
+		Assert.assertFalse(context.matchSelectedRecipe(1, item(Material.EMERALD, 2), null, ironIngots));
+	}
+
+	@Test
+	public void testPlayerStorageContents() {
+		TradingContext context = new TradingContext(createRecipes(), ITEM_MATCHER);
+		ItemStack[] contents = context.getPlayerStorageContents();
+		Assert.assertEquals(TradingContext.PLAYER_STORAGE_SIZE, contents.length);
+		// The buffer is reused:
+		Assert.assertSame(contents, context.getPlayerStorageContents());
+
+		contents[0] = item(Material.DIAMOND, 1);
+		contents[35] = item(Material.EMERALD, 1);
+		context.clearPlayerStorageContents();
+		for (ItemStack itemStack : contents) {
+			Assert.assertNull(itemStack);
+		}
+	}
+
+	// This mimics the item-level work of TradingHandler#checkForTrade for a click on the result slot: Matching the
+	// offered items to the selected trading recipe, and the strict item comparison. Our test environment cannot setup
+	// the shopkeepers, inventories and events that are required to run a full trade through the TradingHandler.
+	@Test
+	public void testTradeCheckAllocations() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue("Thread allocation tracking is not supported.", threadMXBean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		Assume.assumeTrue("Thread allocation tracking is not enabled.", allocationMXBean.isThreadAllocatedMemorySupported()
+				&& allocationMXBean.isThreadAllocatedMemoryEnabled());
+
+		TradingContext context = new TradingContext(createRecipes(), ITEM_MATCHER);
+		// Swapped item order:
+		ItemStack offeredItem1 = item(Material.WHEAT, 64);
+		ItemStack offeredItem2 = item(Material.EMERALD, 64);
+		ItemStack resultItem = item(Material.BREAD, 8);
+		int warmupCount = 100000;
+		int testCount = 1000000;
+
+		int matched = 0;
+		for (int i = 0; i < warmupCount; ++i) {
+			if (checkForTrade(context, offeredItem1, offeredItem2, resultItem)) matched++;
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long startAllocatedBytes = allocationMXBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < testCount; ++i) {
+			if (checkForTrade(context, offeredItem1, offeredItem2, resultItem)) matched++;
+		}
+		long allocatedBytes = allocationMXBean.getThreadAllocatedBytes(threadId) - startAllocatedBytes;
+
+		Assert.assertEquals("Unexpected number of matched trades!", warmupCount + testCount, matched);
+		Assert.assertTrue("Trade checks allocated " + allocatedBytes + " bytes (" + testCount + " checks)!",
+				allocatedBytes <= ALLOCATED_BYTES_PER_TRADE_CHECK_BUDGET * testCount);
+	}
+
+	private static boolean checkForTrade(	TradingContext context, ItemStack offeredItem1, ItemStack offeredItem2,
+											ItemStack resultItem) {
+		if (!context.matchSelectedRecipe(2, offeredItem1, offeredItem2, resultItem)) return false;
+		TradingRecipe tradingRecipe = context.getMatchedRecipe();
+		if (context.getMatchedItemOrder() == TradingContext.ITEM_ORDER_SWAPPED) {
+			ItemStack temp = offeredItem1;
+			offeredItem1 = offeredItem2;
+			offeredItem2 = temp;
+		}
+		return ItemUtils.isSimilar(tradingRecipe.getItem1(), offeredItem1)
+				&& ItemUtils.isSimilar(tradingRecipe.getItem2(), offeredItem2);
+	}
+}
@@ -0,0 +1,59 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.util.java.LongHashSet;
+
+public class LongHashSetTests {
+
+	@Test
+	public void testAddAndRemove() {
+		LongHashSet set = new LongHashSet();
+		Assert.assertTrue(set.isEmpty());
+		Assert.assertTrue(set.add(5L));
+		Assert.assertFalse(set.add(5L));
+		// Zero is tracked separately:
+		Assert.assertTrue(set.add(0L));
+		Assert.assertTrue(set.add(-3L));
+		Assert.assertEquals(3, set.size());
+		Assert.assertTrue(set.contains(0L));
+		Assert.assertTrue(set.contains(-3L));
+		Assert.assertFalse(set.contains(3L));
+
+		Assert.assertTrue(set.remove(0L));
+		Assert.assertFalse(set.remove(0L));
+		Assert.assertFalse(set.contains(0L));
+		Assert.assertTrue(set.remove(5L));
+		Assert.assertFalse(set.contains(5L));
+		Assert.assertEquals(1, set.size());
+
+		set.clear();
+		Assert.assertTrue(set.isEmpty());
+		Assert.assertFalse(set.contains(-3L));
+	}
+
+	@Test
+	public void testMatchesHashSet() {
+		// Exercises the rehashing and the shifting of colliding values on removal:
+		LongHashSet set = new LongHashSet();
+		Set<Long> expected = new HashSet<>();
+		Random random = new Random(42L);
+		for (int i = 0; i < 20000; i++) {
+			long value = random.nextInt(2000) - 1000;
+			if (random.nextBoolean()) {
+				Assert.assertEquals(expected.add(value), set.add(value));
+			} else {
+				Assert.assertEquals(expected.remove(value), set.remove(value));
+			}
+		}
+		Assert.assertEquals(expected.size(), set.size());
+		for (long value = -1000; value < 1000; value++) {
+			Assert.assertEquals(expected.contains(value), set.contains(value));
+		}
+	}
+}
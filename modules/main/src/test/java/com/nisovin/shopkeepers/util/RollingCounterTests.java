@@ -0,0 +1,54 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.util.java.RollingCounter;
+
+public class RollingCounterTests {
+
+	@Test
+	public void testTimeWindow() {
+		RollingCounter counter = new RollingCounter(10, 1000L);
+		counter.add(500L, 1L);
+		counter.add(1500L, 2L);
+		counter.add(9500L, 3L);
+		Assert.assertEquals(6L, counter.getCount(9999L));
+		// The first bucket leaves the time window:
+		Assert.assertEquals(5L, counter.getCount(10000L));
+		Assert.assertEquals(3L, counter.getCount(18999L));
+		Assert.assertEquals(0L, counter.getCount(19000L));
+	}
+
+	@Test
+	public void testBucketReuse() {
+		RollingCounter counter = new RollingCounter(10, 1000L);
+		counter.add(500L, 1L);
+		// Reuses the bucket of the first time slot:
+		counter.add(10500L, 2L);
+		Assert.assertEquals(2L, counter.getCount(10500L));
+		// Counts for time slots older than the bucket's current time slot are ignored:
+		counter.add(600L, 4L);
+		Assert.assertEquals(2L, counter.getCount(10500L));
+	}
+
+	@Test
+	public void testRestoreBuckets() {
+		RollingCounter counter = new RollingCounter(60, 60000L);
+		counter.add(100000L, 1L);
+		counter.add(200000L, 2L);
+		counter.add(210000L, 3L);
+		Map<Long, Long> buckets = new HashMap<>();
+		counter.forEachBucket(300000L, buckets::put);
+		Assert.assertEquals(2, buckets.size());
+		Assert.assertEquals(Long.valueOf(1L), buckets.get(60000L));
+		Assert.assertEquals(Long.valueOf(5L), buckets.get(180000L));
+
+		RollingCounter restored = new RollingCounter(60, 60000L);
+		buckets.forEach(restored::add);
+		Assert.assertEquals(counter.getCount(300000L), restored.getCount(300000L));
+	}
+}
@@ -0,0 +1,44 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.util.timer.RollingTimings;
+
+public class RollingTimingsTests {
+
+	private static final double DELTA = 0.0001D;
+
+	@Test
+	public void testPercentiles() {
+		RollingTimings timings = new RollingTimings(100);
+		for (int i = 100; i >= 1; i--) {
+			timings.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+		Assert.assertEquals(100L, timings.getCounter());
+		Assert.assertEquals(100, timings.getSampleCount());
+		Assert.assertEquals(50.0D, timings.getPercentileTimeMillis(50.0D), DELTA);
+		Assert.assertEquals(95.0D, timings.getPercentileTimeMillis(95.0D), DELTA);
+		Assert.assertEquals(100.0D, timings.getPercentileTimeMillis(100.0D), DELTA);
+		Assert.assertEquals(100.0D, timings.getMaxTimeMillis(), DELTA);
+		Assert.assertEquals(50.5D, timings.getAverageTimeMillis(), DELTA);
+	}
+
+	@Test
+	public void testRollingWindow() {
+		RollingTimings timings = new RollingTimings(2);
+		timings.record(TimeUnit.MILLISECONDS.toNanos(10));
+		timings.record(TimeUnit.MILLISECONDS.toNanos(1));
+		timings.record(TimeUnit.MILLISECONDS.toNanos(2));
+		// The first sample is no longer part of the window:
+		Assert.assertEquals(3L, timings.getCounter());
+		Assert.assertEquals(2, timings.getSampleCount());
+		Assert.assertEquals(2.0D, timings.getMaxTimeMillis(), DELTA);
+
+		timings.reset();
+		Assert.assertEquals(0L, timings.getCounter());
+		Assert.assertEquals(0.0D, timings.getPercentileTimeMillis(50.0D), DELTA);
+	}
+}
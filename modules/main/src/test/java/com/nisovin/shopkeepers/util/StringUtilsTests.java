@@ -53,6 +53,16 @@ public class StringUtilsTests {
 		Assert.assertEquals(expected, stripped4);
 	}
 
+	@Test
+	public void testEscapeNewlinesAndBackslash() {
+		String input = "Back\\slash\nUnix\r\nWindows\fForm Feed\u000BVertical Tab\u2028 \\n literal";
+		String escaped = StringUtils.escapeNewlinesAndBackslash(input);
+		Assert.assertFalse(StringUtils.containsNewline(escaped));
+		Assert.assertEquals(input, StringUtils.unescapeNewlinesAndBackslash(escaped));
+		// Unknown escape sequences and trailing backslashes are kept as is:
+		Assert.assertEquals("\\x \\u12 \\", StringUtils.unescapeNewlinesAndBackslash("\\x \\u12 \\"));
+	}
+
 	@Test
 	public void testReplaceFirst() {
 		String input = "Text with {key} and {key}!";
@@ -1,6 +1,8 @@
 package com.nisovin.shopkeepers.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
@@ -14,6 +16,7 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.junit.Test;
 
 import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.text.ClickEventText;
 import com.nisovin.shopkeepers.text.Text;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 
@@ -44,4 +47,38 @@ public class TextTest extends AbstractBukkitTest {
 		System.out.println("Tested config messages: " + tested + " / " + configKeys.size() + " (total config entries)");
 		assertTrue("The test didn't actually test anything!", tested > 0);
 	}
+
+	@Test
+	public void testStaticPlainTextIsCached() {
+		Text text = Text.parse("&aStatic &btext");
+		String plainText = text.toPlainText();
+		assertEquals("\u00A7aStatic \u00A7btext", plainText);
+		assertSame("Plain text of static Text is not cached", plainText, text.toPlainText());
+	}
+
+	@Test
+	public void testPlaceholderArgumentsAreRenderedDynamically() {
+		Text text = Text.parse("&a{player} traded with &e{shop}");
+		assertEquals("\u00A7a{player} traded with \u00A7e{shop}", text.toPlainText());
+
+		text.setPlaceholderArguments("player", "Alice", "shop", Text.parse("&6Bob's shop"));
+		assertEquals("\u00A7aAlice traded with \u00A7e\u00A76Bob's shop", text.toPlainText());
+		assertEquals("\u00A7a{player} traded with \u00A7e{shop}", text.toPlainFormatText());
+		assertTrue(text.isPlainText());
+
+		text.setPlaceholderArguments("player", "Carol");
+		assertEquals("\u00A7aCarol traded with \u00A7e\u00A76Bob's shop", text.toPlainText());
+
+		text.setPlaceholderArguments("shop", Text.insertion("insertion").childText("Dave's shop").buildRoot());
+		assertEquals("\u00A7aCarol traded with \u00A7eDave's shop", text.toPlainText());
+		assertFalse(text.isPlainText());
+	}
+
+	@Test
+	public void testNonPlainTextRendering() {
+		Text text = Text.text("Click ").next(Text.clickEvent(ClickEventText.Action.RUN_COMMAND, "/cmd").childText("here"))
+				.text("!").buildRoot();
+		assertEquals("Click here!", text.toPlainText());
+		assertFalse(text.isPlainText());
+	}
 }
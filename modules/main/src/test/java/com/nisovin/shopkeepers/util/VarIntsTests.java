@@ -0,0 +1,70 @@
+package com.nisovin.shopkeepers.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.util.java.VarInts;
+
+public class VarIntsTests {
+
+	private static final long[] VALUES = {
+		0L, 1L, -1L, 63L, -64L, 64L, 127L, 128L, 300L, -300L, Integer.MAX_VALUE, Integer.MIN_VALUE,
+		Long.MAX_VALUE, Long.MIN_VALUE
+	};
+
+	@Test
+	public void testZigZag() {
+		Assert.assertEquals(0L, VarInts.encodeZigZag(0L));
+		Assert.assertEquals(1L, VarInts.encodeZigZag(-1L));
+		Assert.assertEquals(2L, VarInts.encodeZigZag(1L));
+		Assert.assertEquals(3L, VarInts.encodeZigZag(-2L));
+		for (long value : VALUES) {
+			Assert.assertEquals(value, VarInts.decodeZigZag(VarInts.encodeZigZag(value)));
+		}
+	}
+
+	@Test
+	public void testEncodedLength() throws IOException {
+		Assert.assertEquals(1, encodeVarLong(0L).length);
+		Assert.assertEquals(1, encodeVarLong(127L).length);
+		Assert.assertEquals(2, encodeVarLong(128L).length);
+		Assert.assertEquals(10, encodeVarLong(-1L).length);
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (long value : VALUES) {
+			VarInts.writeVarLong(out, value);
+			VarInts.writeSignedVarLong(out, value);
+		}
+		VarInts.writeVarInt(out, Integer.MAX_VALUE);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (long value : VALUES) {
+			Assert.assertEquals(value, VarInts.readVarLong(in));
+			Assert.assertEquals(value, VarInts.readSignedVarLong(in));
+		}
+		Assert.assertEquals(Integer.MAX_VALUE, VarInts.readVarInt(in));
+		Assert.assertEquals(0, in.available());
+	}
+
+	@Test(expected = IOException.class)
+	public void testVarIntOutOfBounds() throws IOException {
+		byte[] bytes = encodeVarLong(Integer.MAX_VALUE + 1L);
+		VarInts.readVarInt(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	private static byte[] encodeVarLong(long value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		VarInts.writeVarLong(new DataOutputStream(bytes), value);
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,37 @@
+package com.nisovin.shopkeepers.util.csv;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CsvParserTests {
+
+	@Test
+	public void testParseRecord() {
+		CsvParser parser = new CsvParser();
+		Assert.assertEquals(Arrays.asList(""), parser.parseRecord(""));
+		Assert.assertEquals(Arrays.asList("a", "b", ""), parser.parseRecord("a,b,"));
+		Assert.assertEquals(Arrays.asList("a,b", "say \"hi\"", ""), parser.parseRecord("\"a,b\",\"say \"\"hi\"\"\",\"\""));
+	}
+
+	@Test
+	public void testParseFormattedRecord() {
+		CsvFormatter formatter = new CsvFormatter().escapeNewlines(false);
+		CsvParser parser = new CsvParser();
+		List<String> fields = Arrays.asList("time", "", "{display-name: '{\"text\":\"Name\"}'}", "a,b", "\\n");
+		String record = formatter.formatFields(fields);
+		Assert.assertEquals(fields, parser.parseRecord(record));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnterminatedQuote() {
+		new CsvParser().parseRecord("\"a,b");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCharactersAfterQuote() {
+		new CsvParser().parseRecord("\"a\"b,c");
+	}
+}